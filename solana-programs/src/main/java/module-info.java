@@ -7,8 +7,12 @@ module software.sava.solana_programs {
   exports software.sava.solana.programs.address_lookup_table;
   exports software.sava.solana.programs.clients;
   exports software.sava.solana.programs.compute_budget;
+  exports software.sava.solana.programs.decode;
+  exports software.sava.solana.programs.ed25519;
+  exports software.sava.solana.programs.memo;
   exports software.sava.solana.programs.stake;
   exports software.sava.solana.programs.stakepool;
   exports software.sava.solana.programs.system;
   exports software.sava.solana.programs.token;
+  exports software.sava.solana.programs.vote;
 }
@@ -0,0 +1,15 @@
+package software.sava.solana.programs.address_lookup_table;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.tx.Instruction;
+
+import java.util.List;
+
+/// Instructions to create and fill a single lookup table, grouped by transaction.
+/// The first transaction creates the table, the rest extend it in order.
+public record LookupTablePlan(PublicKey tableAddress,
+                              int bumpSeed,
+                              long recentSlot,
+                              List<PublicKey> addresses,
+                              List<List<Instruction>> transactions) {
+}
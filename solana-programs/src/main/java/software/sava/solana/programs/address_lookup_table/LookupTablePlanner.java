@@ -0,0 +1,237 @@
+package software.sava.solana.programs.address_lookup_table;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.core.tx.Instruction;
+import software.sava.solana.programs.clients.TransactionSizeCalculator;
+import software.sava.solana.programs.decode.CompactU16;
+import software.sava.solana.programs.decode.TransactionView;
+
+import java.util.*;
+
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+
+/// Decides which addresses to put into which lookup tables based on a corpus of historical transactions.
+///
+/// For each transaction the static account keys which could have been looked up, i.e. neither signers nor invoked
+/// programs, are counted along with every pair of them appearing together. Planning places the most frequent
+/// addresses first, each into the table holding the addresses it most often appears with, so that transactions tend
+/// to draw from few tables.
+///
+/// Transactions are decoded directly from their serialized form, addresses which were already looked up are ignored.
+public final class LookupTablePlanner {
+
+  public static final int MAX_ADDRESSES_PER_TABLE = 256;
+
+  private final HashMap<PublicKey, Integer> accountIds;
+  private final ArrayList<PublicKey> accounts;
+  private final ArrayList<int[]> occurrences;
+  private final HashMap<Long, int[]> coOccurrences;
+  private int numTransactions;
+
+  private LookupTablePlanner() {
+    this.accountIds = new HashMap<>();
+    this.accounts = new ArrayList<>();
+    this.occurrences = new ArrayList<>();
+    this.coOccurrences = new HashMap<>();
+  }
+
+  public static LookupTablePlanner createPlanner() {
+    return new LookupTablePlanner();
+  }
+
+  /// Returns the static account keys of a serialized transaction which are neither signers nor invoked programs.
+  public static List<PublicKey> lookupCandidates(final TransactionView transaction) {
+    final int numAccounts = transaction.numStaticAccounts();
+    final boolean[] invoked = new boolean[numAccounts];
+    for (int ix = 0, numInstructions = transaction.numInstructions(); ix < numInstructions; ++ix) {
+      final int programIdIndex = transaction.programIdIndex(ix);
+      if (programIdIndex < numAccounts) {
+        invoked[programIdIndex] = true;
+      }
+    }
+    final var candidates = new ArrayList<PublicKey>(numAccounts);
+    for (int a = transaction.numRequiredSignatures(); a < numAccounts; ++a) {
+      if (!invoked[a]) {
+        candidates.add(transaction.account(a));
+      }
+    }
+    return candidates;
+  }
+
+  public static List<PublicKey> lookupCandidates(final byte[] serializedTransaction) {
+    return lookupCandidates(TransactionView.view(serializedTransaction));
+  }
+
+  private int accountId(final PublicKey account) {
+    return accountIds.computeIfAbsent(account, key -> {
+      accounts.add(key);
+      occurrences.add(new int[1]);
+      return accounts.size() - 1;
+    });
+  }
+
+  private static long pairKey(final int a, final int b) {
+    return a < b ? ((long) a << 32) | b : ((long) b << 32) | a;
+  }
+
+  /// Counts the lookup candidates of a single transaction.
+  public void addAccounts(final Collection<PublicKey> lookupCandidates) {
+    final int[] ids = new int[lookupCandidates.size()];
+    int numIds = 0;
+    for (final var candidate : lookupCandidates) {
+      ids[numIds++] = accountId(candidate);
+    }
+    for (int i = 0; i < numIds; ++i) {
+      final int a = ids[i];
+      ++occurrences.get(a)[0];
+      for (int j = i + 1; j < numIds; ++j) {
+        final int b = ids[j];
+        if (a != b) {
+          ++coOccurrences.computeIfAbsent(pairKey(a, b), key -> new int[1])[0];
+        }
+      }
+    }
+    ++numTransactions;
+  }
+
+  public void addTransaction(final TransactionView transaction) {
+    addAccounts(lookupCandidates(transaction));
+  }
+
+  public void addTransaction(final byte[] serializedTransaction) {
+    addAccounts(lookupCandidates(serializedTransaction));
+  }
+
+  public int numTransactions() {
+    return numTransactions;
+  }
+
+  public int numAccounts() {
+    return accounts.size();
+  }
+
+  public int occurrences(final PublicKey account) {
+    final var id = accountIds.get(account);
+    return id == null ? 0 : occurrences.get(id)[0];
+  }
+
+  /// Assigns the most frequent addresses, which appear in at least `minOccurrences` transactions, to at most
+  /// `numTables` tables.
+  public List<List<PublicKey>> plan(final int numTables, final int minOccurrences) {
+    final int numAccounts = accounts.size();
+    final var ranked = new ArrayList<Integer>(numAccounts);
+    for (int id = 0; id < numAccounts; ++id) {
+      if (occurrences.get(id)[0] >= minOccurrences) {
+        ranked.add(id);
+      }
+    }
+    ranked.sort((a, b) -> Integer.compare(occurrences.get(b)[0], occurrences.get(a)[0]));
+    final int numPlaced = Math.min(ranked.size(), numTables * MAX_ADDRESSES_PER_TABLE);
+
+    final var neighbors = new HashMap<Integer, List<long[]>>();
+    for (final var entry : coOccurrences.entrySet()) {
+      final long key = entry.getKey();
+      final int a = (int) (key >>> 32);
+      final int b = (int) key;
+      final int count = entry.getValue()[0];
+      neighbors.computeIfAbsent(a, id -> new ArrayList<>()).add(new long[]{b, count});
+      neighbors.computeIfAbsent(b, id -> new ArrayList<>()).add(new long[]{a, count});
+    }
+
+    final var tables = new ArrayList<List<PublicKey>>(numTables);
+    for (int t = 0; t < numTables; ++t) {
+      tables.add(new ArrayList<>());
+    }
+    final int[] tableOf = new int[numAccounts];
+    Arrays.fill(tableOf, -1);
+    final long[] affinity = new long[numTables];
+    for (int r = 0; r < numPlaced; ++r) {
+      final int id = ranked.get(r);
+      Arrays.fill(affinity, 0);
+      final var accountNeighbors = neighbors.get(id);
+      if (accountNeighbors != null) {
+        for (final long[] neighbor : accountNeighbors) {
+          final int t = tableOf[(int) neighbor[0]];
+          if (t >= 0) {
+            affinity[t] += neighbor[1];
+          }
+        }
+      }
+      int best = -1;
+      for (int t = 0; t < numTables; ++t) {
+        final int size = tables.get(t).size();
+        if (size < MAX_ADDRESSES_PER_TABLE && (best < 0
+            || affinity[t] > affinity[best]
+            || (affinity[t] == affinity[best] && size < tables.get(best).size()))) {
+          best = t;
+        }
+      }
+      tableOf[id] = best;
+      tables.get(best).add(accounts.get(id));
+    }
+    tables.removeIf(List::isEmpty);
+    return tables;
+  }
+
+  /// Creates the instructions to create and fill a table, chunked so that each transaction fits within the packet
+  /// size limit, less `reservedBytes` for additional instructions such as compute budget instructions.
+  ///
+  /// @param recentSlot must be a recent slot, unique per table for the same authority.
+  public static LookupTablePlan createTableInstructions(final SolanaAccounts solanaAccounts,
+                                                        final PublicKey authority,
+                                                        final PublicKey payer,
+                                                        final long recentSlot,
+                                                        final List<PublicKey> addresses,
+                                                        final int reservedBytes) {
+    final var pda = AddressLookupTableProgram.findLookupTableAddress(solanaAccounts, authority, recentSlot);
+    final var tableAddress = pda.publicKey();
+    final int bumpSeed = pda.nonce();
+    final var createTable = AddressLookupTableProgram.createLookupTable(
+        solanaAccounts, tableAddress, authority, payer, recentSlot, bumpSeed
+    );
+
+    final int maxSize = TransactionSizeCalculator.PACKET_DATA_SIZE - reservedBytes;
+    final var calculator = TransactionSizeCalculator.createCalculator(payer);
+    final var transactions = new ArrayList<List<Instruction>>();
+    final int numAddresses = addresses.size();
+    int from = 0;
+    do {
+      calculator.reset();
+      final var instructions = new ArrayList<Instruction>(2);
+      if (from == 0) {
+        calculator.add(createTable);
+        instructions.add(createTable);
+      }
+      calculator.add(AddressLookupTableProgram.extendLookupTable(
+          solanaAccounts, tableAddress, authority, payer, List.<PublicKey>of()
+      ));
+      final int baseSize = calculator.size();
+      final int baseDataLength = Integer.BYTES + Long.BYTES;
+      int to = from;
+      while (to < numAddresses) {
+        final int dataLength = baseDataLength + ((to - from + 1) * PUBLIC_KEY_LENGTH);
+        final int size = baseSize
+            + (dataLength - baseDataLength)
+            + CompactU16.encodedLength(dataLength)
+            - CompactU16.encodedLength(baseDataLength);
+        if (size > maxSize) {
+          break;
+        }
+        ++to;
+      }
+      if (to == from && numAddresses > 0) {
+        throw new IllegalArgumentException(reservedBytes + " reserved bytes leaves no room to extend the table.");
+      }
+      if (to > from) {
+        instructions.add(AddressLookupTableProgram.extendLookupTable(
+            solanaAccounts, tableAddress, authority, payer, addresses.subList(from, to)
+        ));
+      }
+      transactions.add(instructions);
+      from = to;
+    } while (from < numAddresses);
+
+    return new LookupTablePlan(tableAddress, bumpSeed, recentSlot, List.copyOf(addresses), transactions);
+  }
+}
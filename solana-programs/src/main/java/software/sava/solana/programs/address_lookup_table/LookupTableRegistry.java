@@ -0,0 +1,71 @@
+package software.sava.solana.programs.address_lookup_table;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.core.accounts.lookup.AddressLookupTable;
+import software.sava.rpc.json.http.client.SolanaRpcClient;
+import software.sava.solana.programs.decode.TransactionView;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/// Local replica of a set of lookup tables which is kept up to date from observed transactions.
+///
+/// Tables are fetched once, after which `CreateLookupTable` by a tracked authority, `ExtendLookupTable`,
+/// `FreezeLookupTable`, `DeactivateLookupTable` and `CloseLookupTable` instructions of observed transactions are
+/// applied locally. Only transactions which succeeded may be observed.
+///
+/// Blocks must be observed in order. If a block's parent is not the last observed block every table is marked stale,
+/// and only stale tables are fetched again by [#refreshStale(SolanaRpcClient)]. Tables modified through cross program
+/// invocations cannot be observed and should be refreshed periodically.
+///
+/// Readers get an immutable snapshot without locking, which is replaced whenever a change is applied.
+public interface LookupTableRegistry {
+
+  static LookupTableRegistry createRegistry(final SolanaAccounts solanaAccounts) {
+    return new LookupTableRegistryImpl(solanaAccounts);
+  }
+
+  /// Fetches and tracks all tables of the authority, new tables created by the authority are tracked as they are
+  /// observed.
+  CompletableFuture<Void> loadByAuthority(final SolanaRpcClient rpcClient, final PublicKey authority);
+
+  /// Fetches and tracks the tables.
+  CompletableFuture<Void> load(final SolanaRpcClient rpcClient, final Collection<PublicKey> tableAddresses);
+
+  /// Tracks a table from its account data.
+  void put(final PublicKey tableAddress, final byte[] data);
+
+  void remove(final PublicKey tableAddress);
+
+  /// Applies the lookup table instructions of a successful transaction.
+  ///
+  /// @return true if any tracked table changed.
+  boolean observeTransaction(final long slot, final TransactionView transaction);
+
+  default boolean observeTransaction(final long slot, final byte[] serializedTransaction) {
+    return observeTransaction(slot, TransactionView.view(serializedTransaction));
+  }
+
+  /// Applies the successful transactions of a block, marking all tables stale if a block is missing.
+  void observeBlock(final long slot, final long parentSlot, final Collection<byte[]> serializedTransactions);
+
+  /// Marks all tables stale, as if blocks have been missed.
+  void markStale();
+
+  Set<PublicKey> staleTables();
+
+  /// Fetches stale tables again.
+  CompletableFuture<Void> refreshStale(final SolanaRpcClient rpcClient);
+
+  long lastObservedSlot();
+
+  /// Returns an immutable snapshot of the tracked tables, closed tables are excluded.
+  Map<PublicKey, AddressLookupTable> snapshot();
+
+  default AddressLookupTable table(final PublicKey tableAddress) {
+    return snapshot().get(tableAddress);
+  }
+}
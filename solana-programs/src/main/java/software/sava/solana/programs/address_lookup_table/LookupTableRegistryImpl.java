@@ -0,0 +1,257 @@
+package software.sava.solana.programs.address_lookup_table;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.core.accounts.lookup.AddressLookupTable;
+import software.sava.rpc.json.http.client.SolanaRpcClient;
+import software.sava.solana.programs.decode.TransactionView;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+import static software.sava.core.encoding.ByteUtil.*;
+import static software.sava.core.programs.Discriminator.NATIVE_DISCRIMINATOR_LENGTH;
+import static software.sava.core.rpc.Filter.createMemCompFilter;
+
+final class LookupTableRegistryImpl implements LookupTableRegistry {
+
+  private static final int MAX_MULTIPLE_ACCOUNTS = 100;
+
+  // https://github.com/anza-xyz/agave/blob/master/programs/address-lookup-table/src/state.rs
+  static final int TYPE_OFFSET = 0;
+  static final int DEACTIVATION_SLOT_OFFSET = TYPE_OFFSET + Integer.BYTES;
+  static final int LAST_EXTENDED_SLOT_OFFSET = DEACTIVATION_SLOT_OFFSET + Long.BYTES;
+  static final int LAST_EXTENDED_START_INDEX_OFFSET = LAST_EXTENDED_SLOT_OFFSET + Long.BYTES;
+  static final int AUTHORITY_OPTION_OFFSET = LAST_EXTENDED_START_INDEX_OFFSET + 1;
+  static final int AUTHORITY_OFFSET = AUTHORITY_OPTION_OFFSET + 1;
+  static final int META_SIZE = AUTHORITY_OFFSET + PUBLIC_KEY_LENGTH + Short.BYTES;
+
+  private static final int CREATE = AddressLookupTableProgram.Instructions.CreateLookupTable.ordinal();
+  private static final int FREEZE = AddressLookupTableProgram.Instructions.FreezeLookupTable.ordinal();
+  private static final int EXTEND = AddressLookupTableProgram.Instructions.ExtendLookupTable.ordinal();
+  private static final int DEACTIVATE = AddressLookupTableProgram.Instructions.DeactivateLookupTable.ordinal();
+  private static final int CLOSE = AddressLookupTableProgram.Instructions.CloseLookupTable.ordinal();
+
+  private final SolanaAccounts solanaAccounts;
+  private final byte[] programId;
+  private final Set<PublicKey> authorities;
+  private final Set<PublicKey> staleTables;
+  private final HashMap<PublicKey, byte[]> tableData;
+  private final HashMap<PublicKey, AddressLookupTable> tables;
+  private final TransactionView transactionView;
+  private volatile Map<PublicKey, AddressLookupTable> snapshot;
+  private volatile long lastObservedSlot;
+
+  LookupTableRegistryImpl(final SolanaAccounts solanaAccounts) {
+    this.solanaAccounts = solanaAccounts;
+    this.programId = solanaAccounts.addressLookupTableProgram().toByteArray();
+    this.authorities = ConcurrentHashMap.newKeySet();
+    this.staleTables = ConcurrentHashMap.newKeySet();
+    this.tableData = new HashMap<>();
+    this.tables = new HashMap<>();
+    this.transactionView = new TransactionView();
+    this.snapshot = Map.of();
+    this.lastObservedSlot = -1;
+  }
+
+  private void putTable(final PublicKey tableAddress, final byte[] data) {
+    tableData.put(tableAddress, data);
+    tables.put(tableAddress, AddressLookupTable.FACTORY.apply(tableAddress, data));
+  }
+
+  private void removeTable(final PublicKey tableAddress) {
+    tableData.remove(tableAddress);
+    tables.remove(tableAddress);
+    staleTables.remove(tableAddress);
+  }
+
+  private void publish() {
+    snapshot = Map.copyOf(tables);
+  }
+
+  @Override
+  public synchronized void put(final PublicKey tableAddress, final byte[] data) {
+    putTable(tableAddress, data);
+    staleTables.remove(tableAddress);
+    publish();
+  }
+
+  @Override
+  public synchronized void remove(final PublicKey tableAddress) {
+    removeTable(tableAddress);
+    publish();
+  }
+
+  private synchronized void putFetched(final PublicKey tableAddress, final byte[] data) {
+    if (data == null) {
+      removeTable(tableAddress);
+    } else {
+      final byte[] local = tableData.get(tableAddress);
+      // Keep local state which already includes extensions observed after the fetch.
+      if (local == null || staleTables.contains(tableAddress) || local.length <= data.length) {
+        putTable(tableAddress, data);
+      }
+      staleTables.remove(tableAddress);
+    }
+    publish();
+  }
+
+  @Override
+  public CompletableFuture<Void> loadByAuthority(final SolanaRpcClient rpcClient, final PublicKey authority) {
+    authorities.add(authority);
+    final var filters = List.of(createMemCompFilter(AddressLookupTable.AUTHORITY_OFFSET, authority));
+    return rpcClient.getProgramAccounts(solanaAccounts.addressLookupTableProgram(), filters).thenAccept(accountInfos -> {
+      for (final var accountInfo : accountInfos) {
+        putFetched(accountInfo.pubKey(), accountInfo.data());
+      }
+    });
+  }
+
+  @Override
+  public CompletableFuture<Void> load(final SolanaRpcClient rpcClient, final Collection<PublicKey> tableAddresses) {
+    final var keys = List.copyOf(tableAddresses);
+    final int numKeys = keys.size();
+    if (numKeys == 0) {
+      return CompletableFuture.completedFuture(null);
+    }
+    final var futures = new CompletableFuture<?>[(numKeys + MAX_MULTIPLE_ACCOUNTS - 1) / MAX_MULTIPLE_ACCOUNTS];
+    for (int from = 0, f = 0; from < numKeys; from += MAX_MULTIPLE_ACCOUNTS, ++f) {
+      final var chunk = keys.subList(from, Math.min(numKeys, from + MAX_MULTIPLE_ACCOUNTS));
+      futures[f] = rpcClient.getMultipleAccounts(chunk).thenAccept(accountInfos -> {
+        for (int i = 0; i < chunk.size(); ++i) {
+          final var accountInfo = accountInfos.get(i);
+          putFetched(chunk.get(i), accountInfo == null ? null : accountInfo.data());
+        }
+      });
+    }
+    return CompletableFuture.allOf(futures);
+  }
+
+  private static byte[] createTableData(final PublicKey authority) {
+    final byte[] data = new byte[META_SIZE];
+    putInt32LE(data, TYPE_OFFSET, 1);
+    putInt64LE(data, DEACTIVATION_SLOT_OFFSET, -1);
+    data[AUTHORITY_OPTION_OFFSET] = 1;
+    authority.write(data, AUTHORITY_OFFSET);
+    return data;
+  }
+
+  private boolean apply(final long slot, final TransactionView transaction, final int ix) {
+    final int dataLength = transaction.instructionDataLength(ix);
+    if (dataLength < NATIVE_DISCRIMINATOR_LENGTH || transaction.numInstructionAccounts(ix) == 0) {
+      return false;
+    }
+    final byte[] data = transaction.data();
+    final int dataOffset = transaction.instructionDataOffset(ix);
+    final int discriminator = getInt32LE(data, dataOffset);
+    final var tableAddress = transaction.account(transaction.instructionAccount(ix, 0));
+    if (tableAddress == null) { // Table account loaded from another table, cannot tell which one changed.
+      markStale();
+      return false;
+    }
+    if (discriminator == CREATE) {
+      if (transaction.numInstructionAccounts(ix) > 1) {
+        final var authority = transaction.account(transaction.instructionAccount(ix, 1));
+        if (authority != null && authorities.contains(authority)) {
+          putTable(tableAddress, createTableData(authority));
+          return true;
+        }
+      }
+      return false;
+    }
+    final byte[] table = tableData.get(tableAddress);
+    if (table == null) {
+      return false;
+    } else if (discriminator == EXTEND) {
+      final int numAddresses = (int) getInt64LE(data, dataOffset + NATIVE_DISCRIMINATOR_LENGTH);
+      final int addressesOffset = dataOffset + NATIVE_DISCRIMINATOR_LENGTH + Long.BYTES;
+      final byte[] extended = Arrays.copyOf(table, table.length + (numAddresses * PUBLIC_KEY_LENGTH));
+      System.arraycopy(data, addressesOffset, extended, table.length, numAddresses * PUBLIC_KEY_LENGTH);
+      if (getInt64LE(table, LAST_EXTENDED_SLOT_OFFSET) != slot) {
+        putInt64LE(extended, LAST_EXTENDED_SLOT_OFFSET, slot);
+        extended[LAST_EXTENDED_START_INDEX_OFFSET] = (byte) ((table.length - META_SIZE) / PUBLIC_KEY_LENGTH);
+      }
+      putTable(tableAddress, extended);
+      return true;
+    } else if (discriminator == DEACTIVATE) {
+      final byte[] deactivated = table.clone();
+      putInt64LE(deactivated, DEACTIVATION_SLOT_OFFSET, slot);
+      putTable(tableAddress, deactivated);
+      return true;
+    } else if (discriminator == FREEZE) {
+      final byte[] frozen = table.clone();
+      Arrays.fill(frozen, AUTHORITY_OPTION_OFFSET, AUTHORITY_OFFSET + PUBLIC_KEY_LENGTH, (byte) 0);
+      putTable(tableAddress, frozen);
+      return true;
+    } else if (discriminator == CLOSE) {
+      removeTable(tableAddress);
+      return true;
+    } else {
+      return false;
+    }
+  }
+
+  private boolean applyTransaction(final long slot, final TransactionView transaction) {
+    boolean changed = false;
+    for (int ix = 0, numInstructions = transaction.numInstructions(); ix < numInstructions; ++ix) {
+      if (transaction.programIdEquals(ix, programId)) {
+        changed |= apply(slot, transaction, ix);
+      }
+    }
+    return changed;
+  }
+
+  @Override
+  public synchronized boolean observeTransaction(final long slot, final TransactionView transaction) {
+    if (applyTransaction(slot, transaction)) {
+      publish();
+      return true;
+    } else {
+      return false;
+    }
+  }
+
+  @Override
+  public synchronized void observeBlock(final long slot,
+                                        final long parentSlot,
+                                        final Collection<byte[]> serializedTransactions) {
+    if (lastObservedSlot >= 0 && parentSlot != lastObservedSlot) {
+      markStale();
+    }
+    lastObservedSlot = slot;
+    boolean changed = false;
+    for (final byte[] serializedTransaction : serializedTransactions) {
+      changed |= applyTransaction(slot, transactionView.wrap(serializedTransaction));
+    }
+    if (changed) {
+      publish();
+    }
+  }
+
+  @Override
+  public synchronized void markStale() {
+    staleTables.addAll(tableData.keySet());
+  }
+
+  @Override
+  public Set<PublicKey> staleTables() {
+    return Set.copyOf(staleTables);
+  }
+
+  @Override
+  public CompletableFuture<Void> refreshStale(final SolanaRpcClient rpcClient) {
+    return load(rpcClient, staleTables());
+  }
+
+  @Override
+  public long lastObservedSlot() {
+    return lastObservedSlot;
+  }
+
+  @Override
+  public Map<PublicKey, AddressLookupTable> snapshot() {
+    return snapshot;
+  }
+}
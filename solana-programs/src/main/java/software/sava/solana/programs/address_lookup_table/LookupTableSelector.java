@@ -0,0 +1,133 @@
+package software.sava.solana.programs.address_lookup_table;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.lookup.AddressLookupTable;
+import software.sava.core.accounts.meta.LookupTableAccountMeta;
+import software.sava.core.tx.Instruction;
+
+import java.util.*;
+
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+
+/// Chooses which of a large set of lookup tables to attach to a transaction.
+///
+/// An index from each address to the tables that contain it is built once. Selection is a greedy weighted set cover
+/// over the lookup eligible accounts of the instructions: the table saving the most bytes is picked until no table
+/// saves more than the cost of referencing it. Each looked up account saves 31 bytes, and each referenced table costs
+/// its address and two index vector lengths.
+///
+/// The selector is immutable and safe to share. Create a new one when the set of tables changes.
+public final class LookupTableSelector {
+
+  private static final int LOOKUP_SAVINGS = PUBLIC_KEY_LENGTH - 1;
+  private static final int TABLE_OVERHEAD = PUBLIC_KEY_LENGTH + 2;
+  private static final int[] NOT_INDEXED = new int[0];
+  private static final LookupTableAccountMeta[] NO_TABLES = new LookupTableAccountMeta[0];
+
+  private final AddressLookupTable[] tables;
+  private final Map<PublicKey, int[]> tableIndex;
+
+  private LookupTableSelector(final AddressLookupTable[] tables, final Map<PublicKey, int[]> tableIndex) {
+    this.tables = tables;
+    this.tableIndex = tableIndex;
+  }
+
+  public static LookupTableSelector createSelector(final Collection<AddressLookupTable> lookupTables) {
+    final var tables = lookupTables.toArray(AddressLookupTable[]::new);
+    final var tableIndex = new HashMap<PublicKey, int[]>();
+    for (int t = 0; t < tables.length; ++t) {
+      final var table = tables[t];
+      for (int i = 0, numAccounts = table.numAccounts(); i < numAccounts; ++i) {
+        final int tableNumber = t;
+        tableIndex.merge(table.account(i), new int[]{t}, (existing, n) -> {
+          if (existing[existing.length - 1] == tableNumber) { // Duplicate address within a table.
+            return existing;
+          }
+          final int[] merged = Arrays.copyOf(existing, existing.length + 1);
+          merged[existing.length] = tableNumber;
+          return merged;
+        });
+      }
+    }
+    return new LookupTableSelector(tables, tableIndex);
+  }
+
+  public int numTables() {
+    return tables.length;
+  }
+
+  /// Returns the indexes into the tables passed at creation of the tables which contain the address.
+  public int[] tablesContaining(final PublicKey address) {
+    return tableIndex.getOrDefault(address, NOT_INDEXED);
+  }
+
+  /// Returns the distinct accounts which may be looked up, excluding signers and invoked programs.
+  public static Collection<PublicKey> lookupCandidates(final Collection<Instruction> instructions) {
+    final var candidates = new LinkedHashSet<PublicKey>();
+    final var excluded = new HashSet<PublicKey>();
+    for (final var instruction : instructions) {
+      excluded.add(instruction.programId().publicKey());
+      for (final var account : instruction.accounts()) {
+        if (account.signer()) {
+          excluded.add(account.publicKey());
+        } else {
+          candidates.add(account.publicKey());
+        }
+      }
+    }
+    candidates.removeAll(excluded);
+    return candidates;
+  }
+
+  /// Greedily selects the tables minimizing the size of a transaction referencing the candidate accounts.
+  public LookupTableAccountMeta[] selectTables(final Collection<PublicKey> candidates) {
+    final var candidateTables = new ArrayList<int[]>(candidates.size());
+    final int[] coverage = new int[tables.length];
+    for (final var candidate : candidates) {
+      final int[] containing = tableIndex.get(candidate);
+      if (containing != null) {
+        candidateTables.add(containing);
+        for (final int t : containing) {
+          ++coverage[t];
+        }
+      }
+    }
+    if (candidateTables.isEmpty()) {
+      return NO_TABLES;
+    }
+
+    final boolean[] covered = new boolean[candidateTables.size()];
+    final var selected = new ArrayList<LookupTableAccountMeta>();
+    for (; ; ) {
+      int best = -1;
+      int bestSavings = 0;
+      for (int t = 0; t < coverage.length; ++t) {
+        final int savings = (coverage[t] * LOOKUP_SAVINGS) - TABLE_OVERHEAD;
+        if (savings > bestSavings) {
+          best = t;
+          bestSavings = savings;
+        }
+      }
+      if (best < 0) {
+        break;
+      }
+      selected.add(LookupTableAccountMeta.createMeta(tables[best], coverage[best]));
+      for (int c = 0; c < covered.length; ++c) {
+        if (!covered[c]) {
+          final int[] containing = candidateTables.get(c);
+          if (Arrays.binarySearch(containing, best) >= 0) {
+            covered[c] = true;
+            for (final int t : containing) {
+              --coverage[t];
+            }
+          }
+        }
+      }
+    }
+    return selected.toArray(LookupTableAccountMeta[]::new);
+  }
+
+  public LookupTableAccountMeta[] select(final Collection<Instruction> instructions) {
+    return selectTables(lookupCandidates(instructions));
+  }
+}
@@ -9,10 +9,16 @@ import software.sava.core.tx.Instruction;
 import software.sava.core.tx.Transaction;
 import software.sava.rpc.json.http.client.SolanaRpcClient;
 import software.sava.rpc.json.http.response.AccountInfo;
+import software.sava.solana.programs.compute_budget.ComputeUnitCostModel;
+import software.sava.solana.programs.compute_budget.FeeUrgency;
+import software.sava.solana.programs.compute_budget.LoadedAccountsDataSizeModel;
+import software.sava.solana.programs.compute_budget.PriorityFeeEstimator;
 import software.sava.solana.programs.stake.StakeAccount;
 import software.sava.solana.programs.stake.StakeAuthorize;
 import software.sava.solana.programs.stake.StakeState;
 import software.sava.solana.programs.token.AssociatedTokenProgram;
+import software.sava.solana.programs.token.TokenProgram;
+import software.sava.solana.programs.token.TokenTransferTemplate;
 
 import java.util.Collection;
 import java.util.List;
@@ -168,6 +174,49 @@ public interface NativeProgramAccountClient {
                                 final List<Instruction> instructions,
                                 final LookupTableAccountMeta[] tableAccountMetas);
 
+  /// Used to estimate a tight compute unit limit for transactions which do not specify one.
+  ComputeUnitCostModel computeUnitCostModel();
+
+  /// Used to request a tight loaded accounts data size limit, see [#limitLoadedAccountsDataSize(boolean)].
+  /// The fee payer is assumed to hold no data and the wrapped SOL token account of the owner is pre-registered.
+  LoadedAccountsDataSizeModel loadedAccountsDataSizeModel();
+
+  /// If enabled, transactions which estimate their compute unit limit also request a loaded accounts data size limit
+  /// from [#loadedAccountsDataSizeModel()], unless the model does not know every account of the transaction.
+  void limitLoadedAccountsDataSize(final boolean enabled);
+
+  boolean limitsLoadedAccountsDataSize();
+
+  /// Sets the compute unit limit to the estimate of [#computeUnitCostModel()].
+  Transaction createTransaction(final long microLamportComputeUnitPrice, final Instruction instruction);
+
+  /// Sets the compute unit limit to the estimate of [#computeUnitCostModel()].
+  Transaction createTransaction(final long microLamportComputeUnitPrice, final List<Instruction> instructions);
+
+  /// Sets the compute unit limit to the estimate of [#computeUnitCostModel()].
+  Transaction createTransaction(final long microLamportComputeUnitPrice,
+                                final List<Instruction> instructions,
+                                final AddressLookupTable lookupTable);
+
+  /// Sets the compute unit limit to the estimate of [#computeUnitCostModel()].
+  Transaction createTransaction(final long microLamportComputeUnitPrice,
+                                final List<Instruction> instructions,
+                                final LookupTableAccountMeta[] tableAccountMetas);
+
+  /// Prices the transaction from the recent fees of its writable accounts and sets the compute unit limit to the
+  /// estimate of [#computeUnitCostModel()].
+  CompletableFuture<Transaction> createTransaction(final PriorityFeeEstimator feeEstimator,
+                                                   final FeeUrgency urgency,
+                                                   final List<Instruction> instructions);
+
+  /// Packs instructions into as few transactions as possible, using the tables to compress account keys.
+  TransactionPacker transactionPacker(final long microLamportComputeUnitPrice,
+                                      final List<AddressLookupTable> lookupTables);
+
+  default TransactionPacker transactionPacker(final long microLamportComputeUnitPrice) {
+    return transactionPacker(microLamportComputeUnitPrice, List.of());
+  }
+
   ProgramDerivedAddress findATA(final PublicKey mint);
 
   ProgramDerivedAddress findATA(final PublicKey tokenProgram, final PublicKey mint);
@@ -183,12 +232,21 @@ public interface NativeProgramAccountClient {
 
   CompletableFuture<List<AccountInfo<TokenAccount>>> fetchToken2022Accounts(final SolanaRpcClient rpcClient);
 
+  TokenHoldings tokenHoldings();
+
+  /// Loads the SPL Token and Token-2022 accounts of the owner in parallel into [#tokenHoldings()].
+  CompletableFuture<TokenHoldings> fetchTokenHoldings(final SolanaRpcClient rpcClient);
+
   Instruction syncNative();
 
   List<Instruction> wrapSOL(final long lamports);
 
   Instruction unwrapSOL();
 
+  default WrappedSolPlanner wrappedSolPlanner(final boolean tokenAccountExists) {
+    return WrappedSolPlanner.createPlanner(this, true, tokenAccountExists);
+  }
+
   Instruction createAccount(final PublicKey newAccountPublicKey,
                             final long lamports,
                             final long space,
@@ -280,6 +338,27 @@ public interface NativeProgramAccountClient {
     );
   }
 
+  default TokenTransferTemplate transferTokenTemplate(final AccountMeta invokedTokenProgram,
+                                                      final PublicKey fromTokenAccount,
+                                                      final PublicKey toTokenAccount) {
+    return TokenProgram.transferTemplate(invokedTokenProgram, fromTokenAccount, toTokenAccount, ownerPublicKey());
+  }
+
+  default TokenTransferTemplate transferTokenCheckedTemplate(final AccountMeta invokedTokenProgram,
+                                                             final PublicKey fromTokenAccount,
+                                                             final PublicKey toTokenAccount,
+                                                             final int decimals,
+                                                             final PublicKey tokenMint) {
+    return TokenProgram.transferCheckedTemplate(
+        invokedTokenProgram,
+        fromTokenAccount,
+        toTokenAccount,
+        decimals,
+        ownerPublicKey(),
+        tokenMint
+    );
+  }
+
   Instruction closeTokenAccount(final AccountMeta invokedTokenProgram, final PublicKey tokenAccount);
 
   default Instruction closeTokenAccount(final PublicKey tokenAccount) {
@@ -13,6 +13,10 @@ import software.sava.core.tx.Transaction;
 import software.sava.rpc.json.http.client.SolanaRpcClient;
 import software.sava.rpc.json.http.response.AccountInfo;
 import software.sava.solana.programs.address_lookup_table.AddressLookupTableProgram;
+import software.sava.solana.programs.compute_budget.ComputeUnitCostModel;
+import software.sava.solana.programs.compute_budget.FeeUrgency;
+import software.sava.solana.programs.compute_budget.LoadedAccountsDataSizeModel;
+import software.sava.solana.programs.compute_budget.PriorityFeeEstimator;
 import software.sava.solana.programs.stake.StakeAccount;
 import software.sava.solana.programs.stake.StakeAuthorize;
 import software.sava.solana.programs.stake.StakeState;
@@ -20,20 +24,31 @@ import software.sava.solana.programs.system.SystemProgram;
 import software.sava.solana.programs.token.AssociatedTokenProgram;
 import software.sava.solana.programs.token.TokenProgram;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.SequencedCollection;
 import java.util.concurrent.CompletableFuture;
 
 import static software.sava.solana.programs.compute_budget.ComputeBudgetProgram.COMPUTE_UNITS_CONSUMED;
+import static software.sava.solana.programs.compute_budget.ComputeBudgetProgram.MAX_COMPUTE_BUDGET;
+import static software.sava.solana.programs.compute_budget.ComputeBudgetProgram.setLoadedAccountsDataSizeLimit;
 
 final class NativeProgramAccountClientImpl implements NativeProgramAccountClient {
 
+  // Token-2022 accounts may grow with extensions.
+  private static final int LOADED_ACCOUNTS_DATA_SIZE_MARGIN_PERCENT = 10;
+
   private final SolanaAccounts solanaAccounts;
   private final NativeProgramClient nativeProgramClient;
   private final PublicKey owner;
   private final AccountMeta feePayer;
   private final PublicKey feePayerPublicKey;
   private final ProgramDerivedAddress wrappedSolPDA;
+  private final TokenHoldings tokenHoldings;
+  private final ComputeUnitCostModel computeUnitCostModel;
+  private final LoadedAccountsDataSizeModel loadedAccountsDataSizeModel;
+  private volatile boolean limitLoadedAccountsDataSize;
 
   NativeProgramAccountClientImpl(final NativeProgramClient nativeProgramClient,
                                  final PublicKey owner,
@@ -44,6 +59,10 @@ final class NativeProgramAccountClientImpl implements NativeProgramAccountClient
     this.feePayer = feePayer;
     this.feePayerPublicKey = feePayer.publicKey();
     this.wrappedSolPDA = findATA(solanaAccounts.wrappedSolTokenMint());
+    this.tokenHoldings = TokenHoldings.createHoldings(owner);
+    this.computeUnitCostModel = ComputeUnitCostModel.createModel(solanaAccounts);
+    this.loadedAccountsDataSizeModel = LoadedAccountsDataSizeModel.createModel(solanaAccounts);
+    this.loadedAccountsDataSizeModel.putTokenAccount(wrappedSolPDA.publicKey());
   }
 
   @Override
@@ -254,6 +273,115 @@ final class NativeProgramAccountClientImpl implements NativeProgramAccountClient
     );
   }
 
+  @Override
+  public ComputeUnitCostModel computeUnitCostModel() {
+    return computeUnitCostModel;
+  }
+
+  @Override
+  public LoadedAccountsDataSizeModel loadedAccountsDataSizeModel() {
+    return loadedAccountsDataSizeModel;
+  }
+
+  @Override
+  public void limitLoadedAccountsDataSize(final boolean enabled) {
+    this.limitLoadedAccountsDataSize = enabled;
+  }
+
+  @Override
+  public boolean limitsLoadedAccountsDataSize() {
+    return limitLoadedAccountsDataSize;
+  }
+
+  private List<Instruction> withLoadedAccountsDataSizeLimit(final List<Instruction> instructions,
+                                                           final List<AddressLookupTable> lookupTables) {
+    if (!limitLoadedAccountsDataSize) {
+      return instructions;
+    }
+    final int limit = loadedAccountsDataSizeModel.limit(
+        feePayerPublicKey,
+        instructions,
+        lookupTables,
+        LOADED_ACCOUNTS_DATA_SIZE_MARGIN_PERCENT
+    );
+    if (limit < 0) {
+      return instructions;
+    }
+    final var withLimit = new ArrayList<Instruction>(instructions.size() + 1);
+    withLimit.add(setLoadedAccountsDataSizeLimit(solanaAccounts.invokedComputeBudgetProgram(), limit));
+    withLimit.addAll(instructions);
+    return withLimit;
+  }
+
+  @Override
+  public Transaction createTransaction(final long microLamportComputeUnitPrice, final Instruction instruction) {
+    if (limitLoadedAccountsDataSize) {
+      return createTransaction(microLamportComputeUnitPrice, List.of(instruction));
+    } else {
+      return createTransaction(computeUnitCostModel.estimate(instruction), microLamportComputeUnitPrice, instruction);
+    }
+  }
+
+  @Override
+  public Transaction createTransaction(final long microLamportComputeUnitPrice, final List<Instruction> instructions) {
+    final var withLimit = withLoadedAccountsDataSizeLimit(instructions, List.of());
+    return createTransaction(
+        computeUnitCostModel.computeUnitLimit(withLimit),
+        microLamportComputeUnitPrice,
+        withLimit
+    );
+  }
+
+  @Override
+  public Transaction createTransaction(final long microLamportComputeUnitPrice,
+                                       final List<Instruction> instructions,
+                                       final AddressLookupTable lookupTable) {
+    final var withLimit = withLoadedAccountsDataSizeLimit(instructions, List.of(lookupTable));
+    return createTransaction(
+        computeUnitCostModel.computeUnitLimit(withLimit),
+        microLamportComputeUnitPrice,
+        withLimit,
+        lookupTable
+    );
+  }
+
+  @Override
+  public Transaction createTransaction(final long microLamportComputeUnitPrice,
+                                       final List<Instruction> instructions,
+                                       final LookupTableAccountMeta[] tableAccountMetas) {
+    final var withLimit = withLoadedAccountsDataSizeLimit(
+        instructions,
+        Arrays.stream(tableAccountMetas).map(LookupTableAccountMeta::lookupTable).toList()
+    );
+    return createTransaction(
+        computeUnitCostModel.computeUnitLimit(withLimit),
+        microLamportComputeUnitPrice,
+        withLimit,
+        tableAccountMetas
+    );
+  }
+
+  @Override
+  public CompletableFuture<Transaction> createTransaction(final PriorityFeeEstimator feeEstimator,
+                                                          final FeeUrgency urgency,
+                                                          final List<Instruction> instructions) {
+    return feeEstimator.estimateForInstructions(instructions, urgency)
+        .thenApply(microLamportComputeUnitPrice -> createTransaction(microLamportComputeUnitPrice, instructions));
+  }
+
+  @Override
+  public TransactionPacker transactionPacker(final long microLamportComputeUnitPrice,
+                                             final List<AddressLookupTable> lookupTables) {
+    return TransactionPacker.createPacker(
+        nativeProgramClient,
+        feePayer,
+        computeUnitCostModel,
+        microLamportComputeUnitPrice,
+        MAX_COMPUTE_BUDGET,
+        lookupTables
+    );
+  }
+
   @Override
   public ProgramDerivedAddress findATA(final PublicKey mint) {
     return AssociatedTokenProgram.findATA(solanaAccounts, owner, mint);
@@ -290,6 +418,22 @@ final class NativeProgramAccountClientImpl implements NativeProgramAccountClient
     return rpcClient.getTokenAccountsForProgramByOwner(owner, solanaAccounts.token2022Program());
   }
 
+  @Override
+  public TokenHoldings tokenHoldings() {
+    return tokenHoldings;
+  }
+
+  @Override
+  public CompletableFuture<TokenHoldings> fetchTokenHoldings(final SolanaRpcClient rpcClient) {
+    final var tokenAccountsFuture = fetchTokenAccounts(rpcClient);
+    final var token2022AccountsFuture = fetchToken2022Accounts(rpcClient);
+    return tokenAccountsFuture.thenCombine(token2022AccountsFuture, (tokenAccounts, token2022Accounts) -> {
+      tokenHoldings.load(solanaAccounts.tokenProgram(), tokenAccounts);
+      tokenHoldings.load(solanaAccounts.token2022Program(), token2022Accounts);
+      return tokenHoldings;
+    });
+  }
+
   @Override
   public Instruction syncNative() {
     return nativeProgramClient.syncNative(wrappedSolPDA.publicKey());
@@ -0,0 +1,76 @@
+package software.sava.solana.programs.clients;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.token.TokenAccount;
+import software.sava.rpc.json.http.client.SolanaRpcClient;
+import software.sava.rpc.json.http.response.AccountInfo;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/// Index of token accounts across the SPL Token and Token-2022 programs, keyed by token account and by mint.
+/// Balances are kept as primitives and per mint totals are maintained incrementally as accounts are updated.
+public interface TokenHoldings {
+
+  // https://github.com/solana-program/token/blob/main/interface/src/state.rs
+  int TOKEN_ACCOUNT_MINT_OFFSET = 0;
+  int TOKEN_ACCOUNT_OWNER_OFFSET = TOKEN_ACCOUNT_MINT_OFFSET + PublicKey.PUBLIC_KEY_LENGTH;
+  int TOKEN_ACCOUNT_AMOUNT_OFFSET = TOKEN_ACCOUNT_OWNER_OFFSET + PublicKey.PUBLIC_KEY_LENGTH;
+  int MINT_DECIMALS_OFFSET = 4 + PublicKey.PUBLIC_KEY_LENGTH + Long.BYTES;
+
+  static TokenHoldings createHoldings(final PublicKey owner) {
+    return new TokenHoldingsImpl(owner);
+  }
+
+  PublicKey owner();
+
+  /// Replaces the state of every token account owned by `tokenProgram`.
+  /// Accounts previously tracked for that program but missing from `tokenAccounts` are removed.
+  void load(final PublicKey tokenProgram, final Collection<AccountInfo<TokenAccount>> tokenAccounts);
+
+  /// Applies a point update, returns the change in balance for the token account.
+  long update(final PublicKey tokenProgram, final PublicKey tokenAccount, final PublicKey mint, final long amount);
+
+  default long update(final PublicKey tokenProgram, final AccountInfo<TokenAccount> accountInfo) {
+    final var tokenAccount = accountInfo.data();
+    return update(tokenProgram, accountInfo.pubKey(), tokenAccount.mint(), tokenAccount.amount());
+  }
+
+  /// Applies a point update from raw token account data, such as an account subscription notification.
+  /// Accounts no longer owned by [#owner()] or with empty data are removed.
+  long update(final PublicKey tokenProgram, final PublicKey tokenAccount, final byte[] data);
+
+  /// Returns the removed balance, or zero if the account was not tracked.
+  long remove(final PublicKey tokenAccount);
+
+  boolean contains(final PublicKey tokenAccount);
+
+  /// Returns the balance of the token account, or -1 if it is not tracked.
+  long balance(final PublicKey tokenAccount);
+
+  /// Returns the sum of all tracked token account balances for the mint.
+  long mintBalance(final PublicKey mint);
+
+  PublicKey mint(final PublicKey tokenAccount);
+
+  PublicKey tokenProgram(final PublicKey tokenAccount);
+
+  List<PublicKey> tokenAccounts(final PublicKey mint);
+
+  Collection<PublicKey> mints();
+
+  int numTokenAccounts();
+
+  /// Returns the cached decimals for the mint, or -1 if unknown.
+  int decimals(final PublicKey mint);
+
+  void putDecimals(final PublicKey mint, final int decimals);
+
+  default void putMintData(final PublicKey mint, final byte[] mintData) {
+    putDecimals(mint, mintData[MINT_DECIMALS_OFFSET] & 0xFF);
+  }
+
+  /// Fetches and caches decimals for every tracked mint that does not have them yet.
+  CompletableFuture<Void> fetchMissingDecimals(final SolanaRpcClient rpcClient);
+}
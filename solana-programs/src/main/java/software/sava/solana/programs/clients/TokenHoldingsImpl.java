@@ -0,0 +1,218 @@
+package software.sava.solana.programs.clients;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.token.TokenAccount;
+import software.sava.rpc.json.http.client.SolanaRpcClient;
+import software.sava.rpc.json.http.response.AccountInfo;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static software.sava.core.accounts.PublicKey.readPubKey;
+import static software.sava.core.encoding.ByteUtil.getInt64LE;
+
+final class TokenHoldingsImpl implements TokenHoldings {
+
+  private static final int MAX_MULTIPLE_ACCOUNTS = 100;
+
+  private static final class Holding {
+
+    private final PublicKey mint;
+    private final PublicKey tokenProgram;
+    private volatile long amount;
+
+    private Holding(final PublicKey mint, final PublicKey tokenProgram, final long amount) {
+      this.mint = mint;
+      this.tokenProgram = tokenProgram;
+      this.amount = amount;
+    }
+  }
+
+  private static final class MintHoldings {
+
+    private final AtomicLong balance;
+    private final Set<PublicKey> tokenAccounts;
+    private volatile int decimals;
+
+    private MintHoldings() {
+      this.balance = new AtomicLong();
+      this.tokenAccounts = ConcurrentHashMap.newKeySet();
+      this.decimals = -1;
+    }
+  }
+
+  private final PublicKey owner;
+  private final ConcurrentHashMap<PublicKey, Holding> holdings;
+  private final ConcurrentHashMap<PublicKey, MintHoldings> mints;
+
+  TokenHoldingsImpl(final PublicKey owner) {
+    this.owner = owner;
+    this.holdings = new ConcurrentHashMap<>();
+    this.mints = new ConcurrentHashMap<>();
+  }
+
+  private MintHoldings mintHoldings(final PublicKey mint) {
+    return mints.computeIfAbsent(mint, m -> new MintHoldings());
+  }
+
+  @Override
+  public PublicKey owner() {
+    return owner;
+  }
+
+  @Override
+  public void load(final PublicKey tokenProgram, final Collection<AccountInfo<TokenAccount>> tokenAccounts) {
+    final var loaded = HashSet.<PublicKey>newHashSet(tokenAccounts.size());
+    for (final var accountInfo : tokenAccounts) {
+      loaded.add(accountInfo.pubKey());
+      update(tokenProgram, accountInfo);
+    }
+    for (final var entry : holdings.entrySet()) {
+      final var tokenAccount = entry.getKey();
+      if (entry.getValue().tokenProgram.equals(tokenProgram) && !loaded.contains(tokenAccount)) {
+        remove(tokenAccount);
+      }
+    }
+  }
+
+  @Override
+  public long update(final PublicKey tokenProgram,
+                     final PublicKey tokenAccount,
+                     final PublicKey mint,
+                     final long amount) {
+    final long[] delta = new long[1];
+    holdings.compute(tokenAccount, (key, holding) -> {
+      if (holding == null || !holding.mint.equals(mint)) {
+        if (holding != null) {
+          final var previous = mints.get(holding.mint);
+          previous.balance.addAndGet(-holding.amount);
+          previous.tokenAccounts.remove(tokenAccount);
+        }
+        final var mintHoldings = mintHoldings(mint);
+        mintHoldings.balance.addAndGet(amount);
+        mintHoldings.tokenAccounts.add(tokenAccount);
+        delta[0] = amount;
+        return new Holding(mint, tokenProgram, amount);
+      } else {
+        delta[0] = amount - holding.amount;
+        if (delta[0] != 0) {
+          holding.amount = amount;
+          mints.get(mint).balance.addAndGet(delta[0]);
+        }
+        return holding;
+      }
+    });
+    return delta[0];
+  }
+
+  @Override
+  public long update(final PublicKey tokenProgram, final PublicKey tokenAccount, final byte[] data) {
+    if (data == null || data.length < TOKEN_ACCOUNT_AMOUNT_OFFSET + Long.BYTES) {
+      return -remove(tokenAccount);
+    }
+    final var accountOwner = readPubKey(data, TOKEN_ACCOUNT_OWNER_OFFSET);
+    if (!owner.equals(accountOwner)) {
+      return -remove(tokenAccount);
+    }
+    final var holding = holdings.get(tokenAccount);
+    final var mint = holding == null ? readPubKey(data, TOKEN_ACCOUNT_MINT_OFFSET) : holding.mint;
+    return update(tokenProgram, tokenAccount, mint, getInt64LE(data, TOKEN_ACCOUNT_AMOUNT_OFFSET));
+  }
+
+  @Override
+  public long remove(final PublicKey tokenAccount) {
+    final var holding = holdings.remove(tokenAccount);
+    if (holding == null) {
+      return 0;
+    } else {
+      final var mintHoldings = mints.get(holding.mint);
+      mintHoldings.tokenAccounts.remove(tokenAccount);
+      mintHoldings.balance.addAndGet(-holding.amount);
+      return holding.amount;
+    }
+  }
+
+  @Override
+  public boolean contains(final PublicKey tokenAccount) {
+    return holdings.containsKey(tokenAccount);
+  }
+
+  @Override
+  public long balance(final PublicKey tokenAccount) {
+    final var holding = holdings.get(tokenAccount);
+    return holding == null ? -1 : holding.amount;
+  }
+
+  @Override
+  public long mintBalance(final PublicKey mint) {
+    final var mintHoldings = mints.get(mint);
+    return mintHoldings == null ? 0 : mintHoldings.balance.get();
+  }
+
+  @Override
+  public PublicKey mint(final PublicKey tokenAccount) {
+    final var holding = holdings.get(tokenAccount);
+    return holding == null ? null : holding.mint;
+  }
+
+  @Override
+  public PublicKey tokenProgram(final PublicKey tokenAccount) {
+    final var holding = holdings.get(tokenAccount);
+    return holding == null ? null : holding.tokenProgram;
+  }
+
+  @Override
+  public List<PublicKey> tokenAccounts(final PublicKey mint) {
+    final var mintHoldings = mints.get(mint);
+    return mintHoldings == null ? List.of() : List.copyOf(mintHoldings.tokenAccounts);
+  }
+
+  @Override
+  public Collection<PublicKey> mints() {
+    return Collections.unmodifiableSet(mints.keySet());
+  }
+
+  @Override
+  public int numTokenAccounts() {
+    return holdings.size();
+  }
+
+  @Override
+  public int decimals(final PublicKey mint) {
+    final var mintHoldings = mints.get(mint);
+    return mintHoldings == null ? -1 : mintHoldings.decimals;
+  }
+
+  @Override
+  public void putDecimals(final PublicKey mint, final int decimals) {
+    mintHoldings(mint).decimals = decimals;
+  }
+
+  @Override
+  public CompletableFuture<Void> fetchMissingDecimals(final SolanaRpcClient rpcClient) {
+    final var missing = new ArrayList<PublicKey>();
+    for (final var entry : mints.entrySet()) {
+      if (entry.getValue().decimals < 0) {
+        missing.add(entry.getKey());
+      }
+    }
+    if (missing.isEmpty()) {
+      return CompletableFuture.completedFuture(null);
+    }
+    final int numMissing = missing.size();
+    final var futures = new CompletableFuture<?>[(numMissing + MAX_MULTIPLE_ACCOUNTS - 1) / MAX_MULTIPLE_ACCOUNTS];
+    for (int from = 0, f = 0; from < numMissing; from += MAX_MULTIPLE_ACCOUNTS, ++f) {
+      final var keys = missing.subList(from, Math.min(numMissing, from + MAX_MULTIPLE_ACCOUNTS));
+      futures[f] = rpcClient.getMultipleAccounts(keys).thenAccept(accountInfos -> {
+        for (final var accountInfo : accountInfos) {
+          if (accountInfo != null && accountInfo.data() != null && accountInfo.data().length > MINT_DECIMALS_OFFSET) {
+            putMintData(accountInfo.pubKey(), accountInfo.data());
+          }
+        }
+      });
+    }
+    return CompletableFuture.allOf(futures);
+  }
+}
@@ -0,0 +1,180 @@
+package software.sava.solana.programs.clients;
+
+import software.sava.core.accounts.lookup.AddressLookupTable;
+import software.sava.core.accounts.meta.AccountMeta;
+import software.sava.core.accounts.meta.LookupTableAccountMeta;
+import software.sava.core.tx.Instruction;
+import software.sava.core.tx.Transaction;
+import software.sava.solana.programs.compute_budget.ComputeUnitCostModel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static software.sava.solana.programs.compute_budget.ComputeBudgetProgram.COMPUTE_UNITS_CONSUMED;
+
+/// Packs an ordered sequence of instructions into as few transactions as possible.
+///
+/// Each transaction stays within [TransactionSizeCalculator#PACKET_DATA_SIZE] and the configured compute unit limit,
+/// and is prefixed with compute unit limit and price instructions. The limit is set to the estimate of the
+/// [ComputeUnitCostModel].
+///
+/// Instructions are never re-ordered and atomic groups are never split across transactions. Under those constraints
+/// filling each transaction before starting the next yields the minimum number of transactions.
+///
+/// Packing is incremental, each instruction is sized once as it is added.
+public final class TransactionPacker {
+
+  private final NativeProgramClient nativeProgramClient;
+  private final AccountMeta feePayer;
+  private final ComputeUnitCostModel costModel;
+  private final long microLamportComputeUnitPrice;
+  private final int maxComputeUnits;
+  private final TransactionSizeCalculator sizeCalculator;
+  private final Instruction computeUnitLimitTemplate;
+  private final Instruction computeUnitPriceInstruction;
+
+  private final List<List<Instruction>> packedInstructions;
+  private final List<Transaction> transactions;
+  private List<Instruction> instructions;
+  private int computeUnits;
+
+  private TransactionPacker(final NativeProgramClient nativeProgramClient,
+                            final AccountMeta feePayer,
+                            final ComputeUnitCostModel costModel,
+                            final long microLamportComputeUnitPrice,
+                            final int maxComputeUnits,
+                            final TransactionSizeCalculator sizeCalculator) {
+    this.nativeProgramClient = nativeProgramClient;
+    this.feePayer = feePayer;
+    this.costModel = costModel;
+    this.microLamportComputeUnitPrice = microLamportComputeUnitPrice;
+    this.maxComputeUnits = maxComputeUnits;
+    this.sizeCalculator = sizeCalculator;
+    this.computeUnitLimitTemplate = nativeProgramClient.computeUnitLimit(0);
+    this.computeUnitPriceInstruction = nativeProgramClient.computeUnitPrice(microLamportComputeUnitPrice);
+    this.packedInstructions = new ArrayList<>();
+    this.transactions = new ArrayList<>();
+    startTransaction();
+  }
+
+  /// @param maxComputeUnits per transaction limit, including units consumed by the compute budget instructions.
+  public static TransactionPacker createPacker(final NativeProgramClient nativeProgramClient,
+                                               final AccountMeta feePayer,
+                                               final ComputeUnitCostModel costModel,
+                                               final long microLamportComputeUnitPrice,
+                                               final int maxComputeUnits,
+                                               final List<AddressLookupTable> lookupTables) {
+    final var sizeCalculator = TransactionSizeCalculator.createCalculator(feePayer.publicKey(), lookupTables);
+    return new TransactionPacker(
+        nativeProgramClient,
+        feePayer,
+        costModel,
+        microLamportComputeUnitPrice,
+        maxComputeUnits,
+        sizeCalculator
+    );
+  }
+
+  private void startTransaction() {
+    sizeCalculator.reset();
+    sizeCalculator.add(computeUnitLimitTemplate);
+    sizeCalculator.add(computeUnitPriceInstruction);
+    sizeCalculator.checkpoint();
+    instructions = new ArrayList<>();
+    computeUnits = COMPUTE_UNITS_CONSUMED;
+  }
+
+  private void finishTransaction() {
+    final var packed = new ArrayList<Instruction>(instructions.size() + 2);
+    packed.add(nativeProgramClient.computeUnitLimit(computeUnits));
+    packed.add(computeUnitPriceInstruction);
+    packed.addAll(instructions);
+
+    final var tablesUsed = sizeCalculator.tablesUsed();
+    final Transaction transaction;
+    if (tablesUsed.isEmpty()) {
+      transaction = Transaction.createTx(feePayer, packed);
+    } else if (tablesUsed.size() == 1) {
+      transaction = Transaction.createTx(feePayer, packed, tablesUsed.getFirst());
+    } else {
+      final var tableAccountMetas = new LookupTableAccountMeta[tablesUsed.size()];
+      for (int i = 0; i < tableAccountMetas.length; ++i) {
+        final var table = tablesUsed.get(i);
+        tableAccountMetas[i] = LookupTableAccountMeta.createMeta(table, sizeCalculator.numLookups(table));
+      }
+      transaction = Transaction.createTx(feePayer, packed, tableAccountMetas);
+    }
+    packedInstructions.add(packed);
+    transactions.add(transaction);
+  }
+
+  private boolean tryAdd(final List<Instruction> group, final int groupComputeUnits) {
+    if (computeUnits + groupComputeUnits > maxComputeUnits) {
+      return false;
+    }
+    sizeCalculator.addAll(group);
+    if (sizeCalculator.fits()) {
+      sizeCalculator.checkpoint();
+      instructions.addAll(group);
+      computeUnits += groupComputeUnits;
+      return true;
+    } else {
+      sizeCalculator.rollback();
+      return false;
+    }
+  }
+
+  /// Adds instructions which must be executed within the same transaction.
+  ///
+  /// @throws IllegalArgumentException if the group does not fit in a transaction on its own.
+  public TransactionPacker addAtomic(final List<Instruction> group) {
+    if (group.isEmpty()) {
+      return this;
+    }
+    final int groupComputeUnits = costModel.estimate(group);
+    if (!tryAdd(group, groupComputeUnits)) {
+      if (!instructions.isEmpty()) {
+        finishTransaction();
+        startTransaction();
+        if (tryAdd(group, groupComputeUnits)) {
+          return this;
+        }
+      }
+      throw new IllegalArgumentException(String.format(
+          "Group of %d instructions estimated to consume %d compute units does not fit in a single transaction.",
+          group.size(), groupComputeUnits
+      ));
+    }
+    return this;
+  }
+
+  public TransactionPacker add(final Instruction instruction) {
+    return addAtomic(List.of(instruction));
+  }
+
+  public TransactionPacker addAll(final List<Instruction> instructions) {
+    for (final var instruction : instructions) {
+      add(instruction);
+    }
+    return this;
+  }
+
+  /// Returns the packed transactions, including the one currently being filled.
+  /// Instructions added afterward will be packed into new transactions.
+  public List<Transaction> pack() {
+    if (!instructions.isEmpty()) {
+      finishTransaction();
+      startTransaction();
+    }
+    return List.copyOf(transactions);
+  }
+
+  /// Returns the instructions of each transaction returned by [#pack()], including the compute budget instructions.
+  public List<List<Instruction>> packedInstructions() {
+    return List.copyOf(packedInstructions);
+  }
+
+  public long microLamportComputeUnitPrice() {
+    return microLamportComputeUnitPrice;
+  }
+}
@@ -0,0 +1,257 @@
+package software.sava.solana.programs.clients;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.lookup.AddressLookupTable;
+import software.sava.core.accounts.meta.AccountMeta;
+import software.sava.core.tx.Instruction;
+import software.sava.solana.programs.decode.CompactU16;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/// Incrementally tracks the serialized size of a transaction as instructions are added.
+///
+/// Account keys are de-duplicated and their signer, writable and invoked flags merged. Keys which are neither signers
+/// nor invoked programs are looked up through the first configured table which contains them, if any. If any tables
+/// are configured the size of a versioned transaction is calculated, otherwise that of a legacy transaction.
+///
+/// Each added instruction costs time proportional to its number of accounts, additions since the last
+/// [#checkpoint()] can be reverted with [#rollback()].
+public final class TransactionSizeCalculator {
+
+  public static final int PACKET_DATA_SIZE = 1232;
+
+  private static final int SIGNATURE_LENGTH = 64;
+  private static final int BLOCKHASH_LENGTH = 32;
+  private static final int MESSAGE_HEADER_LENGTH = 3;
+
+  private static final int SIGNER = 0b001;
+  private static final int WRITABLE = 0b010;
+  private static final int INVOKED = 0b100;
+
+  private final PublicKey feePayer;
+  private final List<AddressLookupTable> lookupTables;
+  private final Map<PublicKey, Integer> tableIndexes;
+  private final boolean versioned;
+
+  private final HashMap<PublicKey, Integer> keyFlags;
+  private final int[] numWritableLookups;
+  private final int[] numReadOnlyLookups;
+  private int numSigners;
+  private int numStaticKeys;
+  private int numTablesUsed;
+  private int tableBytes;
+  private int numInstructions;
+  private int instructionBytes;
+
+  private final ArrayList<PublicKey> undoKeys;
+  private final ArrayList<Integer> undoFlags;
+  private int checkpointNumInstructions;
+  private int checkpointInstructionBytes;
+
+  private TransactionSizeCalculator(final PublicKey feePayer,
+                                    final List<AddressLookupTable> lookupTables,
+                                    final Map<PublicKey, Integer> tableIndexes) {
+    this.feePayer = feePayer;
+    this.lookupTables = lookupTables;
+    this.tableIndexes = tableIndexes;
+    this.versioned = !lookupTables.isEmpty();
+    this.keyFlags = new HashMap<>();
+    this.numWritableLookups = new int[lookupTables.size()];
+    this.numReadOnlyLookups = new int[lookupTables.size()];
+    this.undoKeys = new ArrayList<>();
+    this.undoFlags = new ArrayList<>();
+    reset();
+  }
+
+  public static TransactionSizeCalculator createCalculator(final PublicKey feePayer,
+                                                           final List<AddressLookupTable> lookupTables) {
+    final var tables = List.copyOf(lookupTables);
+    final var tableIndexes = new HashMap<PublicKey, Integer>();
+    for (int t = 0; t < tables.size(); ++t) {
+      final var table = tables.get(t);
+      for (int i = 0, numAccounts = table.numAccounts(); i < numAccounts; ++i) {
+        tableIndexes.putIfAbsent(table.account(i), t);
+      }
+    }
+    return new TransactionSizeCalculator(feePayer, tables, tableIndexes);
+  }
+
+  public static TransactionSizeCalculator createCalculator(final PublicKey feePayer) {
+    return new TransactionSizeCalculator(feePayer, List.of(), Map.of());
+  }
+
+  public static int instructionLength(final int numAccounts, final int dataLength) {
+    return 1 + CompactU16.encodedLength(numAccounts) + numAccounts + CompactU16.encodedLength(dataLength) + dataLength;
+  }
+
+  private static int tableLength(final int numWritable, final int numReadOnly) {
+    return numWritable + numReadOnly == 0
+        ? 0
+        : PublicKey.PUBLIC_KEY_LENGTH
+        + CompactU16.encodedLength(numWritable) + numWritable
+        + CompactU16.encodedLength(numReadOnly) + numReadOnly;
+  }
+
+  /// Clears all instructions, leaving only the fee payer.
+  public void reset() {
+    keyFlags.clear();
+    Arrays.fill(numWritableLookups, 0);
+    Arrays.fill(numReadOnlyLookups, 0);
+    numSigners = 0;
+    numStaticKeys = 0;
+    numTablesUsed = 0;
+    tableBytes = 0;
+    numInstructions = 0;
+    instructionBytes = 0;
+    keyFlags.put(feePayer, SIGNER | WRITABLE);
+    apply(feePayer, SIGNER | WRITABLE, 1);
+    checkpoint();
+  }
+
+  private int tableIndex(final PublicKey key, final int flags) {
+    if ((flags & (SIGNER | INVOKED)) != 0) {
+      return -1;
+    }
+    final var tableIndex = tableIndexes.get(key);
+    return tableIndex == null ? -1 : tableIndex;
+  }
+
+  private void apply(final PublicKey key, final int flags, final int sign) {
+    final int t = tableIndex(key, flags);
+    if (t < 0) {
+      numStaticKeys += sign;
+      if ((flags & SIGNER) != 0) {
+        numSigners += sign;
+      }
+    } else {
+      final int previousLength = tableLength(numWritableLookups[t], numReadOnlyLookups[t]);
+      if ((flags & WRITABLE) != 0) {
+        numWritableLookups[t] += sign;
+      } else {
+        numReadOnlyLookups[t] += sign;
+      }
+      final int length = tableLength(numWritableLookups[t], numReadOnlyLookups[t]);
+      tableBytes += length - previousLength;
+      if (previousLength == 0) {
+        ++numTablesUsed;
+      } else if (length == 0) {
+        --numTablesUsed;
+      }
+    }
+  }
+
+  private void merge(final PublicKey key, final int flags) {
+    final var previous = keyFlags.get(key);
+    if (previous == null) {
+      undoKeys.add(key);
+      undoFlags.add(-1);
+      keyFlags.put(key, flags);
+      apply(key, flags, 1);
+    } else {
+      final int merged = previous | flags;
+      if (merged != previous) {
+        undoKeys.add(key);
+        undoFlags.add(previous);
+        keyFlags.put(key, merged);
+        apply(key, previous, -1);
+        apply(key, merged, 1);
+      }
+    }
+  }
+
+  public void add(final Instruction instruction) {
+    merge(instruction.programId().publicKey(), INVOKED);
+    final var accounts = instruction.accounts();
+    for (final AccountMeta account : accounts) {
+      merge(account.publicKey(), (account.signer() ? SIGNER : 0) | (account.write() ? WRITABLE : 0));
+    }
+    ++numInstructions;
+    instructionBytes += instructionLength(accounts.size(), instruction.len());
+  }
+
+  public void addAll(final List<Instruction> instructions) {
+    for (final var instruction : instructions) {
+      add(instruction);
+    }
+  }
+
+  /// Marks the current state as the one to revert to on [#rollback()].
+  public void checkpoint() {
+    undoKeys.clear();
+    undoFlags.clear();
+    checkpointNumInstructions = numInstructions;
+    checkpointInstructionBytes = instructionBytes;
+  }
+
+  /// Reverts all instructions added since the last [#checkpoint()].
+  public void rollback() {
+    for (int i = undoKeys.size() - 1; i >= 0; --i) {
+      final var key = undoKeys.get(i);
+      final int previous = undoFlags.get(i);
+      apply(key, keyFlags.get(key), -1);
+      if (previous < 0) {
+        keyFlags.remove(key);
+      } else {
+        keyFlags.put(key, previous);
+        apply(key, previous, 1);
+      }
+    }
+    numInstructions = checkpointNumInstructions;
+    instructionBytes = checkpointInstructionBytes;
+    checkpoint();
+  }
+
+  public int numSignatures() {
+    return numSigners;
+  }
+
+  public int numStaticKeys() {
+    return numStaticKeys;
+  }
+
+  public int numInstructions() {
+    return numInstructions;
+  }
+
+  public int numTablesUsed() {
+    return numTablesUsed;
+  }
+
+  /// Returns the tables that at least one account is currently looked up through.
+  public List<AddressLookupTable> tablesUsed() {
+    final var tablesUsed = new ArrayList<AddressLookupTable>(numTablesUsed);
+    for (int t = 0; t < numWritableLookups.length; ++t) {
+      if (numWritableLookups[t] + numReadOnlyLookups[t] > 0) {
+        tablesUsed.add(lookupTables.get(t));
+      }
+    }
+    return tablesUsed;
+  }
+
+  public int numLookups(final AddressLookupTable lookupTable) {
+    final int t = lookupTables.indexOf(lookupTable);
+    return t < 0 ? 0 : numWritableLookups[t] + numReadOnlyLookups[t];
+  }
+
+  public int messageSize() {
+    final int size = MESSAGE_HEADER_LENGTH
+        + CompactU16.encodedLength(numStaticKeys) + (numStaticKeys * PublicKey.PUBLIC_KEY_LENGTH)
+        + BLOCKHASH_LENGTH
+        + CompactU16.encodedLength(numInstructions) + instructionBytes;
+    return versioned
+        ? 1 + size + CompactU16.encodedLength(numTablesUsed) + tableBytes
+        : size;
+  }
+
+  public int size() {
+    return CompactU16.encodedLength(numSigners) + (numSigners * SIGNATURE_LENGTH) + messageSize();
+  }
+
+  public boolean fits() {
+    return size() <= PACKET_DATA_SIZE;
+  }
+}
@@ -0,0 +1,171 @@
+package software.sava.solana.programs.clients;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.Signer;
+import software.sava.core.encoding.Base58;
+import software.sava.core.encoding.ByteUtil;
+import software.sava.core.tx.Transaction;
+import software.sava.solana.programs.decode.TransactionView;
+
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+
+import static software.sava.solana.programs.decode.TransactionView.BLOCKHASH_LENGTH;
+import static software.sava.solana.programs.decode.TransactionView.SIGNATURE_LENGTH;
+
+/// Serialized transaction which is re-used by patching fields in place and signing it again, for repetitive flows
+/// such as periodic deposits, nonce advanced transfers and cranks.
+///
+/// The transaction is serialized once, after which the offsets of patchable fields are resolved with
+/// [#dataOffset(int, int)] and [#accountOffset(PublicKey)]. Each use only writes the changed bytes, e.g. the amount
+/// and blockhash, and signs the message again. A patched account must keep the signer and writable role of the
+/// account it replaces, and must not already be used by the transaction.
+///
+/// Templates are not thread safe, use [#copy()] to create an independent template per thread.
+public final class TransactionTemplate {
+
+  private final byte[] data;
+  private final TransactionView view;
+
+  private TransactionTemplate(final byte[] data) {
+    this.data = data;
+    this.view = TransactionView.view(data);
+  }
+
+  /// The transaction should already hold any instructions and lookup tables, the blockhash may be set later.
+  public static TransactionTemplate createTemplate(final Transaction transaction) {
+    return new TransactionTemplate(transaction.serialized());
+  }
+
+  public static TransactionTemplate createTemplate(final byte[] serializedTransaction) {
+    return new TransactionTemplate(serializedTransaction.clone());
+  }
+
+  public TransactionTemplate copy() {
+    return new TransactionTemplate(data.clone());
+  }
+
+  public int numSignatures() {
+    return view.numSignatures();
+  }
+
+  public int messageOffset() {
+    return view.messageOffset();
+  }
+
+  public int messageLength() {
+    return view.messageLength();
+  }
+
+  public int blockHashOffset() {
+    return view.blockhashOffset();
+  }
+
+  /// Sets the recent blockhash, or the durable nonce for nonce advanced transactions.
+  public void setRecentBlockHash(final byte[] recentBlockHash) {
+    System.arraycopy(recentBlockHash, 0, data, view.blockhashOffset(), BLOCKHASH_LENGTH);
+  }
+
+  public void setRecentBlockHash(final String recentBlockHash) {
+    setRecentBlockHash(Base58.decode(recentBlockHash));
+  }
+
+  /// Returns the absolute offset of a position within the data of an instruction.
+  ///
+  /// @throws IllegalArgumentException if the position is outside the instruction data.
+  public int dataOffset(final int instruction, final int offset) {
+    if (offset < 0 || offset >= view.instructionDataLength(instruction)) {
+      throw new IllegalArgumentException(String.format(
+          "Offset %d is outside of the %d data bytes of instruction %d.",
+          offset, view.instructionDataLength(instruction), instruction
+      ));
+    }
+    return view.instructionDataOffset(instruction) + offset;
+  }
+
+  /// Returns the absolute offset of a static account key, or -1 if it is not part of the transaction.
+  public int accountOffset(final PublicKey account) {
+    final byte[] key = account.toByteArray();
+    for (int a = 0, numAccounts = view.numStaticAccounts(); a < numAccounts; ++a) {
+      if (view.accountEquals(a, key)) {
+        return view.accountOffset(a);
+      }
+    }
+    return -1;
+  }
+
+  public void patchByte(final int offset, final int value) {
+    data[offset] = (byte) value;
+  }
+
+  public void patchInt32(final int offset, final int value) {
+    ByteUtil.putInt32LE(data, offset, value);
+  }
+
+  public void patchInt64(final int offset, final long value) {
+    ByteUtil.putInt64LE(data, offset, value);
+  }
+
+  public void patchPublicKey(final int offset, final PublicKey publicKey) {
+    publicKey.write(data, offset);
+  }
+
+  public void patchBytes(final int offset, final byte[] bytes) {
+    System.arraycopy(bytes, 0, data, offset, bytes.length);
+  }
+
+  private int signerIndex(final PublicKey publicKey) {
+    final byte[] key = publicKey.toByteArray();
+    for (int s = 0, numSigners = view.numRequiredSignatures(); s < numSigners; ++s) {
+      if (view.accountEquals(s, key)) {
+        return s;
+      }
+    }
+    throw new IllegalArgumentException(publicKey + " is not a signer of this transaction.");
+  }
+
+  /// Signs the current message into the signature slot of the signer.
+  ///
+  /// @throws IllegalArgumentException if the signer is not required by the transaction.
+  public void sign(final Signer signer) {
+    final int signerIndex = signerIndex(signer.publicKey());
+    final byte[] signature = signer.sign(data, view.messageOffset(), view.messageLength());
+    System.arraycopy(signature, 0, data, view.signatureOffset(signerIndex), SIGNATURE_LENGTH);
+  }
+
+  public void sign(final Collection<Signer> signers) {
+    for (final var signer : signers) {
+      sign(signer);
+    }
+  }
+
+  public void clearSignatures() {
+    final int from = view.signatureOffset(0);
+    Arrays.fill(data, from, from + (view.numSignatures() * SIGNATURE_LENGTH), (byte) 0);
+  }
+
+  public PublicKey signer(final int index) {
+    return PublicKey.readPubKey(data, view.accountOffset(index));
+  }
+
+  /// Returns the internal buffer, which is overwritten by subsequent patches.
+  public byte[] serialized() {
+    return data;
+  }
+
+  public String base64Encoded() {
+    return Base64.getEncoder().encodeToString(data);
+  }
+
+  /// Returns the first signature, which identifies the transaction.
+  public String base58Id() {
+    final int from = view.signatureOffset(0);
+    return Base58.encode(Arrays.copyOfRange(data, from, from + SIGNATURE_LENGTH));
+  }
+
+  /// Reads the static account key at an offset returned by [#accountOffset(PublicKey)].
+  public PublicKey publicKeyAt(final int offset) {
+    return PublicKey.readPubKey(data, offset);
+  }
+}
@@ -0,0 +1,97 @@
+package software.sava.solana.programs.clients;
+
+import software.sava.core.tx.Instruction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/// Nets a sequence of intended SOL/wSOL movements against the owners wrapped SOL associated token account.
+///
+/// Wraps and unwraps are only materialized when an instruction is added after them, or at the end of the plan:
+///  * consecutive wraps are merged into a single transfer followed by a single `SyncNative`.
+///  * an unwrap followed by a wrap elides the close, and any subsequent re-creation of the token account.
+///  * a wrap directly followed by an unwrap is dropped, leaving only the close.
+///  * an unwrap is dropped if the token account is not known to exist, as closing it would fail.
+///
+/// Note that eliding an unwrap leaves its balance wrapped until the next materialized unwrap.
+public final class WrappedSolPlanner {
+
+  private final NativeProgramAccountClient accountClient;
+  private final boolean createTokenAccount;
+  private final List<Instruction> instructions;
+  private boolean tokenAccountExists;
+  private long pendingWrapLamports;
+  private boolean pendingUnwrap;
+
+  private WrappedSolPlanner(final NativeProgramAccountClient accountClient,
+                            final boolean createTokenAccount,
+                            final boolean tokenAccountExists) {
+    this.accountClient = accountClient;
+    this.createTokenAccount = createTokenAccount;
+    this.tokenAccountExists = tokenAccountExists;
+    this.instructions = new ArrayList<>();
+  }
+
+  /// @param createTokenAccount if true, an idempotent create of the wrapped SOL token account is emitted before a wrap
+  ///                           if it may not exist.
+  /// @param tokenAccountExists whether the wrapped SOL token account is known to exist before the first instruction.
+  public static WrappedSolPlanner createPlanner(final NativeProgramAccountClient accountClient,
+                                                final boolean createTokenAccount,
+                                                final boolean tokenAccountExists) {
+    return new WrappedSolPlanner(accountClient, createTokenAccount, tokenAccountExists);
+  }
+
+  public WrappedSolPlanner wrap(final long lamports) {
+    if (lamports < 0) {
+      throw new IllegalArgumentException("Cannot wrap a negative amount of lamports: " + lamports);
+    }
+    pendingUnwrap = false;
+    pendingWrapLamports += lamports;
+    return this;
+  }
+
+  public WrappedSolPlanner unwrap() {
+    pendingWrapLamports = 0;
+    pendingUnwrap = true;
+    return this;
+  }
+
+  public WrappedSolPlanner add(final Instruction instruction) {
+    flush();
+    instructions.add(instruction);
+    return this;
+  }
+
+  public WrappedSolPlanner addAll(final List<Instruction> instructions) {
+    flush();
+    this.instructions.addAll(instructions);
+    return this;
+  }
+
+  private void flush() {
+    if (pendingUnwrap) {
+      if (tokenAccountExists) {
+        instructions.add(accountClient.unwrapSOL());
+        tokenAccountExists = false;
+      }
+      pendingUnwrap = false;
+    } else if (pendingWrapLamports > 0) {
+      if (!tokenAccountExists && createTokenAccount) {
+        instructions.add(accountClient.createATAForOwnerFundedByOwner(
+            true,
+            accountClient.wrappedSolPDA().publicKey(),
+            accountClient.solanaAccounts().wrappedSolTokenMint()
+        ));
+      }
+      tokenAccountExists = true;
+      instructions.addAll(accountClient.wrapSOL(pendingWrapLamports));
+      pendingWrapLamports = 0;
+    }
+  }
+
+  /// Returns the netted instructions, interleaved with the instructions added to this planner.
+  public List<Instruction> plan() {
+    flush();
+    return List.copyOf(instructions);
+  }
+}
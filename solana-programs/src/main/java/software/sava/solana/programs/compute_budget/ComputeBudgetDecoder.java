@@ -0,0 +1,179 @@
+package software.sava.solana.programs.compute_budget;
+
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.core.tx.TransactionSkeleton;
+import software.sava.solana.programs.decode.TransactionView;
+
+import static software.sava.core.encoding.ByteUtil.getInt32LE;
+import static software.sava.core.encoding.ByteUtil.getInt64LE;
+import static software.sava.solana.programs.compute_budget.ComputeBudgetProgram.MAX_COMPUTE_BUDGET;
+
+/// Reads the compute budget of serialized transactions directly from their compute budget instruction data.
+///
+/// A decoder is reusable and not thread safe, each call to `decode` replaces the values of the previous transaction.
+/// Values which were not requested are reported as -1, see [#effectiveComputeUnitLimit()] for the limit applied by
+/// the runtime in that case.
+///
+/// https://github.com/anza-xyz/agave/blob/master/compute-budget-instruction/src/compute_budget_instruction_details.rs
+public final class ComputeBudgetDecoder {
+
+  public static final int DEFAULT_HEAP_FRAME_SIZE = 32 * 1024;
+  public static final int MAX_LOADED_ACCOUNTS_DATA_SIZE = 64 * 1024 * 1024;
+
+  private static final int REQUEST_HEAP_FRAME = ComputeBudgetProgram.Instructions.RequestHeapFrame.ordinal();
+  private static final int SET_COMPUTE_UNIT_LIMIT = ComputeBudgetProgram.Instructions.SetComputeUnitLimit.ordinal();
+  private static final int SET_COMPUTE_UNIT_PRICE = ComputeBudgetProgram.Instructions.SetComputeUnitPrice.ordinal();
+  private static final int SET_LOADED_ACCOUNTS_DATA_SIZE_LIMIT = ComputeBudgetProgram.Instructions.SetLoadedAccountsDataSizeLimit.ordinal();
+
+  private final byte[] programId;
+  private final TransactionView transactionView;
+
+  private boolean valid;
+  private int numComputeBudgetInstructions;
+  private int numOtherInstructions;
+  private int computeUnitLimit;
+  private long computeUnitPrice;
+  private int heapFrameSize;
+  private int loadedAccountsDataSizeLimit;
+
+  private ComputeBudgetDecoder(final byte[] programId) {
+    this.programId = programId;
+    this.transactionView = new TransactionView();
+  }
+
+  public static ComputeBudgetDecoder createDecoder(final SolanaAccounts solanaAccounts) {
+    return new ComputeBudgetDecoder(solanaAccounts.computeBudgetProgram().toByteArray());
+  }
+
+  private void reset() {
+    valid = true;
+    numComputeBudgetInstructions = 0;
+    numOtherInstructions = 0;
+    computeUnitLimit = -1;
+    computeUnitPrice = -1;
+    heapFrameSize = -1;
+    loadedAccountsDataSizeLimit = -1;
+  }
+
+  private void decodeInstruction(final byte[] data, final int offset, final int length) {
+    if (length == 0) {
+      valid = false;
+      return;
+    }
+    final int discriminator = data[offset] & 0xFF;
+    if (discriminator == SET_COMPUTE_UNIT_PRICE) {
+      if (length != 1 + Long.BYTES || computeUnitPrice >= 0) {
+        valid = false;
+      } else {
+        computeUnitPrice = getInt64LE(data, offset + 1);
+      }
+      return;
+    }
+    if (length != 1 + Integer.BYTES) {
+      valid = false;
+      return;
+    }
+    final int value = getInt32LE(data, offset + 1);
+    if (discriminator == SET_COMPUTE_UNIT_LIMIT) {
+      if (computeUnitLimit >= 0) {
+        valid = false;
+      } else {
+        computeUnitLimit = value;
+      }
+    } else if (discriminator == REQUEST_HEAP_FRAME) {
+      if (heapFrameSize >= 0) {
+        valid = false;
+      } else {
+        heapFrameSize = value;
+      }
+    } else if (discriminator == SET_LOADED_ACCOUNTS_DATA_SIZE_LIMIT) {
+      if (loadedAccountsDataSizeLimit >= 0) {
+        valid = false;
+      } else {
+        loadedAccountsDataSizeLimit = value;
+      }
+    } else {
+      valid = false;
+    }
+  }
+
+  /// @return false if the compute budget instructions are malformed or repeated, which fails the transaction.
+  public boolean decode(final TransactionView transaction) {
+    reset();
+    final byte[] data = transaction.data();
+    for (int ix = 0, numInstructions = transaction.numInstructions(); ix < numInstructions; ++ix) {
+      if (transaction.programIdEquals(ix, programId)) {
+        ++numComputeBudgetInstructions;
+        decodeInstruction(data, transaction.instructionDataOffset(ix), transaction.instructionDataLength(ix));
+      } else {
+        ++numOtherInstructions;
+      }
+    }
+    return valid;
+  }
+
+  public boolean decode(final byte[] serializedTransaction) {
+    return decode(transactionView.wrap(serializedTransaction));
+  }
+
+  public boolean decode(final TransactionSkeleton skeleton) {
+    return decode(skeleton.data());
+  }
+
+  public boolean valid() {
+    return valid;
+  }
+
+  public int numComputeBudgetInstructions() {
+    return numComputeBudgetInstructions;
+  }
+
+  /// Requested compute unit limit, or -1.
+  public int computeUnitLimit() {
+    return computeUnitLimit;
+  }
+
+  /// Requested limit, or the default of 200,000 units per non compute budget instruction, capped at
+  /// [ComputeBudgetProgram#MAX_COMPUTE_BUDGET].
+  public int effectiveComputeUnitLimit() {
+    final long limit = computeUnitLimit >= 0
+        ? computeUnitLimit
+        : (long) numOtherInstructions * ComputeUnitCostModel.DEFAULT_INSTRUCTION_COMPUTE_UNIT_LIMIT;
+    return (int) Math.min(limit, MAX_COMPUTE_BUDGET);
+  }
+
+  /// Compute unit price in micro-lamports, or -1.
+  public long computeUnitPrice() {
+    return computeUnitPrice;
+  }
+
+  /// Priority fee in lamports, rounded up, which is paid for the effective compute unit limit.
+  public long priorityFee() {
+    if (computeUnitPrice <= 0) {
+      return 0;
+    }
+    final long limit = effectiveComputeUnitLimit();
+    // Split to avoid overflowing for large prices.
+    return ((computeUnitPrice / 1_000_000) * limit) + ((((computeUnitPrice % 1_000_000) * limit) + 999_999) / 1_000_000);
+  }
+
+  /// Requested heap frame size in bytes, or -1.
+  public int heapFrameSize() {
+    return heapFrameSize;
+  }
+
+  public int effectiveHeapFrameSize() {
+    return heapFrameSize >= 0 ? heapFrameSize : DEFAULT_HEAP_FRAME_SIZE;
+  }
+
+  /// Requested loaded accounts data size limit in bytes, or -1.
+  public int loadedAccountsDataSizeLimit() {
+    return loadedAccountsDataSizeLimit;
+  }
+
+  public int effectiveLoadedAccountsDataSizeLimit() {
+    return loadedAccountsDataSizeLimit >= 0
+        ? Math.min(loadedAccountsDataSizeLimit, MAX_LOADED_ACCOUNTS_DATA_SIZE)
+        : MAX_LOADED_ACCOUNTS_DATA_SIZE;
+  }
+}
@@ -0,0 +1,102 @@
+package software.sava.solana.programs.compute_budget;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.core.tx.Instruction;
+import software.sava.solana.programs.stakepool.StakePoolAccounts;
+
+import java.util.Collection;
+
+/// Estimates the compute units consumed by instructions of the programs supported by this library.
+///
+/// Costs are registered per program and instruction discriminator. Builtin programs consume a fixed number of units,
+/// the costs of the other programs are conservative approximations of observed consumption, with terms for the
+/// number of accounts and the size of the instruction data where they matter. Costs can be overridden to tune the
+/// model for a specific cluster or program version.
+///
+/// Instructions of unregistered programs are estimated with [#unknownProgramCost()]. This includes the SPL single
+/// validator stake pool program, whose instructions do not follow the SPL stake pool interface.
+public interface ComputeUnitCostModel {
+
+  // https://github.com/anza-xyz/agave/blob/master/builtins-default-costs/src/lib.rs
+  int SYSTEM_PROGRAM_UNITS = 150;
+  int STAKE_PROGRAM_UNITS = 750;
+  int VOTE_PROGRAM_UNITS = 2_100;
+  int ADDRESS_LOOKUP_TABLE_PROGRAM_UNITS = 750;
+  int COMPUTE_BUDGET_PROGRAM_UNITS = 150;
+  int ED25519_PROGRAM_UNITS = 0;
+
+  // Default per instruction limit applied by the runtime to non-builtin programs.
+  int DEFAULT_INSTRUCTION_COMPUTE_UNIT_LIMIT = 200_000;
+
+  static ComputeUnitCostModel createModel(final SolanaAccounts solanaAccounts,
+                                          final StakePoolAccounts stakePoolAccounts) {
+    final var model = new ComputeUnitCostModelImpl(InstructionCost.fixedCost(DEFAULT_INSTRUCTION_COMPUTE_UNIT_LIMIT));
+    ComputeUnitCostModelImpl.registerNativePrograms(model, solanaAccounts);
+    model.registerStakePoolProgram(stakePoolAccounts.stakePoolProgram());
+    model.registerStakePoolProgram(stakePoolAccounts.sanctumMultiValidatorStakePoolProgram());
+    model.registerStakePoolProgram(stakePoolAccounts.sanctumSingleValidatorStakePoolProgram());
+    return model;
+  }
+
+  static ComputeUnitCostModel createModel(final SolanaAccounts solanaAccounts) {
+    return createModel(solanaAccounts, StakePoolAccounts.MAIN_NET);
+  }
+
+  InstructionCost unknownProgramCost();
+
+  /// @param discriminatorLength 0 if the program does not use instruction discriminators, otherwise 1 or 4 bytes.
+  /// @param instructionCosts    indexed by discriminator, null entries fall back to `defaultCost`.
+  void registerProgram(final PublicKey programId,
+                       final int discriminatorLength,
+                       final InstructionCost defaultCost,
+                       final InstructionCost[] instructionCosts);
+
+  /// Registers a deployment of the SPL Stake Pool program, or a fork sharing its instruction interface.
+  void registerStakePoolProgram(final PublicKey stakePoolProgram);
+
+  /// Overrides the cost of a single instruction of an already registered program.
+  void putCost(final PublicKey programId, final int discriminator, final InstructionCost cost);
+
+  boolean isRegistered(final PublicKey programId);
+
+  InstructionCost cost(final PublicKey programId, final byte[] data, final int offset, final int length);
+
+  default int estimate(final PublicKey programId,
+                       final int numAccounts,
+                       final byte[] data,
+                       final int offset,
+                       final int length) {
+    return cost(programId, data, offset, length).estimate(numAccounts, length);
+  }
+
+  default int estimate(final Instruction instruction) {
+    return estimate(
+        instruction.programId().publicKey(),
+        instruction.accounts().size(),
+        instruction.data(),
+        instruction.offset(),
+        instruction.len()
+    );
+  }
+
+  default int estimate(final Collection<Instruction> instructions) {
+    long units = 0;
+    for (final var instruction : instructions) {
+      units += estimate(instruction);
+    }
+    return (int) Math.min(Integer.MAX_VALUE, units);
+  }
+
+  /// Estimated units for the instructions, capped at [ComputeBudgetProgram#MAX_COMPUTE_BUDGET].
+  /// Does not include units for compute budget instructions which have yet to be added.
+  default int computeUnitLimit(final Collection<Instruction> instructions) {
+    return Math.min(ComputeBudgetProgram.MAX_COMPUTE_BUDGET, estimate(instructions));
+  }
+
+  /// @param marginPercent additional head room as a percentage of the estimate.
+  default int computeUnitLimit(final Collection<Instruction> instructions, final int marginPercent) {
+    final long units = estimate(instructions);
+    return (int) Math.min(ComputeBudgetProgram.MAX_COMPUTE_BUDGET, units + ((units * marginPercent) / 100));
+  }
+}
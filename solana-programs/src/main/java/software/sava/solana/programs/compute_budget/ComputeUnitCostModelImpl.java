@@ -0,0 +1,238 @@
+package software.sava.solana.programs.compute_budget;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.solana.programs.address_lookup_table.AddressLookupTableProgram;
+import software.sava.solana.programs.stake.StakeProgram;
+import software.sava.solana.programs.stakepool.StakePoolProgram;
+import software.sava.solana.programs.system.SystemProgram;
+import software.sava.solana.programs.token.AssociatedTokenProgram;
+import software.sava.solana.programs.token.Token2022Program;
+import software.sava.solana.programs.token.TokenProgram;
+import software.sava.solana.programs.vote.VoteProgram;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static software.sava.core.encoding.ByteUtil.getInt32LE;
+import static software.sava.solana.programs.compute_budget.InstructionCost.*;
+
+final class ComputeUnitCostModelImpl implements ComputeUnitCostModel {
+
+  private record ProgramCosts(int discriminatorLength, InstructionCost defaultCost, InstructionCost[] costs) {
+
+    InstructionCost cost(final byte[] data, final int offset, final int length) {
+      if (discriminatorLength == 0 || length < discriminatorLength) {
+        return defaultCost;
+      }
+      final int discriminator = discriminatorLength == 1
+          ? data[offset] & 0xFF
+          : getInt32LE(data, offset);
+      if (discriminator < 0 || discriminator >= costs.length) {
+        return defaultCost;
+      }
+      final var cost = costs[discriminator];
+      return cost == null ? defaultCost : cost;
+    }
+  }
+
+  private final InstructionCost unknownProgramCost;
+  private final ConcurrentHashMap<PublicKey, ProgramCosts> programs;
+
+  ComputeUnitCostModelImpl(final InstructionCost unknownProgramCost) {
+    this.unknownProgramCost = unknownProgramCost;
+    this.programs = new ConcurrentHashMap<>();
+  }
+
+  private static InstructionCost[] fixedCosts(final int numInstructions, final int units) {
+    final var costs = new InstructionCost[numInstructions];
+    Arrays.fill(costs, fixedCost(units));
+    return costs;
+  }
+
+  private static InstructionCost[] tokenCosts(final int numInstructions, final int scalePercent) {
+    final var costs = new InstructionCost[numInstructions];
+    put(costs, TokenProgram.TokenInstruction.InitializeMint.ordinal(), 2_970, scalePercent);
+    put(costs, TokenProgram.TokenInstruction.InitializeAccount.ordinal(), 4_530, scalePercent);
+    put(costs, TokenProgram.TokenInstruction.Transfer.ordinal(), 4_650, scalePercent);
+    put(costs, TokenProgram.TokenInstruction.Approve.ordinal(), 2_910, scalePercent);
+    put(costs, TokenProgram.TokenInstruction.Revoke.ordinal(), 2_680, scalePercent);
+    put(costs, TokenProgram.TokenInstruction.SetAuthority.ordinal(), 3_250, scalePercent);
+    put(costs, TokenProgram.TokenInstruction.MintTo.ordinal(), 4_540, scalePercent);
+    put(costs, TokenProgram.TokenInstruction.Burn.ordinal(), 4_760, scalePercent);
+    put(costs, TokenProgram.TokenInstruction.CloseAccount.ordinal(), 2_920, scalePercent);
+    put(costs, TokenProgram.TokenInstruction.FreezeAccount.ordinal(), 4_270, scalePercent);
+    put(costs, TokenProgram.TokenInstruction.ThawAccount.ordinal(), 4_270, scalePercent);
+    put(costs, TokenProgram.TokenInstruction.TransferChecked.ordinal(), 6_200, scalePercent);
+    put(costs, TokenProgram.TokenInstruction.ApproveChecked.ordinal(), 4_460, scalePercent);
+    put(costs, TokenProgram.TokenInstruction.MintToChecked.ordinal(), 4_550, scalePercent);
+    put(costs, TokenProgram.TokenInstruction.BurnChecked.ordinal(), 4_670, scalePercent);
+    put(costs, TokenProgram.TokenInstruction.InitializeAccount2.ordinal(), 4_390, scalePercent);
+    put(costs, TokenProgram.TokenInstruction.SyncNative.ordinal(), 3_050, scalePercent);
+    put(costs, TokenProgram.TokenInstruction.InitializeAccount3.ordinal(), 4_240, scalePercent);
+    put(costs, TokenProgram.TokenInstruction.InitializeMint2.ordinal(), 2_830, scalePercent);
+    put(costs, TokenProgram.TokenInstruction.GetAccountDataSize.ordinal(), 1_770, scalePercent);
+    put(costs, TokenProgram.TokenInstruction.InitializeImmutableOwner.ordinal(), 1_410, scalePercent);
+    put(costs, TokenProgram.TokenInstruction.AmountToUiAmount.ordinal(), 2_500, scalePercent);
+    put(costs, TokenProgram.TokenInstruction.UiAmountToAmount.ordinal(), 2_500, scalePercent);
+    // Each multisig signer is validated against the multisig account.
+    final var multisigCost = new InstructionCost(3_000 * scalePercent / 100, 200, 0);
+    costs[TokenProgram.TokenInstruction.InitializeMultisig.ordinal()] = multisigCost;
+    costs[TokenProgram.TokenInstruction.InitializeMultisig2.ordinal()] = multisigCost;
+    return costs;
+  }
+
+  private static void put(final InstructionCost[] costs,
+                          final int discriminator,
+                          final int units,
+                          final int scalePercent) {
+    costs[discriminator] = fixedCost((units * scalePercent) / 100);
+  }
+
+  static void registerNativePrograms(final ComputeUnitCostModel model, final SolanaAccounts solanaAccounts) {
+    model.registerProgram(
+        solanaAccounts.systemProgram(),
+        Integer.BYTES,
+        fixedCost(SYSTEM_PROGRAM_UNITS),
+        fixedCosts(SystemProgram.Instructions.values().length, SYSTEM_PROGRAM_UNITS)
+    );
+    model.registerProgram(
+        solanaAccounts.stakeProgram(),
+        Integer.BYTES,
+        fixedCost(STAKE_PROGRAM_UNITS),
+        fixedCosts(StakeProgram.Instructions.values().length, STAKE_PROGRAM_UNITS)
+    );
+    model.registerProgram(
+        solanaAccounts.voteProgram(),
+        Integer.BYTES,
+        fixedCost(VOTE_PROGRAM_UNITS),
+        fixedCosts(VoteProgram.Instructions.values().length, VOTE_PROGRAM_UNITS)
+    );
+    model.registerProgram(
+        solanaAccounts.addressLookupTableProgram(),
+        Integer.BYTES,
+        fixedCost(ADDRESS_LOOKUP_TABLE_PROGRAM_UNITS),
+        fixedCosts(AddressLookupTableProgram.Instructions.values().length, ADDRESS_LOOKUP_TABLE_PROGRAM_UNITS)
+    );
+    model.registerProgram(
+        solanaAccounts.computeBudgetProgram(),
+        1,
+        fixedCost(COMPUTE_BUDGET_PROGRAM_UNITS),
+        fixedCosts(ComputeBudgetProgram.Instructions.values().length, COMPUTE_BUDGET_PROGRAM_UNITS)
+    );
+    model.registerProgram(
+        solanaAccounts.ed25519Program(),
+        0,
+        fixedCost(ED25519_PROGRAM_UNITS),
+        new InstructionCost[0]
+    );
+
+    model.registerProgram(
+        solanaAccounts.tokenProgram(),
+        1,
+        fixedCost(6_200),
+        tokenCosts(TokenProgram.TokenInstruction.values().length, 100)
+    );
+    // Token-2022 shares the base instruction set, with additional overhead for extension handling.
+    final var token2022Costs = Arrays.copyOf(
+        tokenCosts(TokenProgram.TokenInstruction.values().length, 150),
+        Token2022Program.TokenInstruction.values().length
+    );
+    token2022Costs[Token2022Program.TokenInstruction.Reallocate.ordinal()] = accountCost(8_000, 250);
+    token2022Costs[Token2022Program.TokenInstruction.CreateNativeMint.ordinal()] = fixedCost(8_000);
+    token2022Costs[Token2022Program.TokenInstruction.WithdrawExcessLamports.ordinal()] = accountCost(4_000, 200);
+    // Extension instructions are dispatched on a second discriminator, metadata instructions are sized by their data.
+    model.registerProgram(
+        solanaAccounts.token2022Program(),
+        1,
+        new InstructionCost(12_000, 0, 10),
+        token2022Costs
+    );
+
+    // Creates the account through the system program and initializes it through the token program.
+    final var createCost = accountCost(21_000, 1_000);
+    final var ataCosts = new InstructionCost[AssociatedTokenProgram.Instructions.values().length];
+    ataCosts[AssociatedTokenProgram.Instructions.Create.ordinal()] = createCost;
+    ataCosts[AssociatedTokenProgram.Instructions.CreateIdempotent.ordinal()] = createCost;
+    ataCosts[AssociatedTokenProgram.Instructions.RecoverNested.ordinal()] = accountCost(22_000, 1_000);
+    // The original Create instruction has no data and therefore falls back to the default.
+    model.registerProgram(
+        solanaAccounts.associatedTokenAccountProgram(),
+        1,
+        createCost,
+        ataCosts
+    );
+
+    // Memo validates its input as UTF-8, logs it, and checks each signer.
+    final var memoCost = new InstructionCost(500, 1_200, 15);
+    model.registerProgram(solanaAccounts.memoProgram(), 0, memoCost, new InstructionCost[0]);
+    model.registerProgram(solanaAccounts.memoProgramV2(), 0, memoCost, new InstructionCost[0]);
+  }
+
+  static InstructionCost[] stakePoolCosts() {
+    final var costs = new InstructionCost[StakePoolProgram.Instructions.values().length];
+    final var depositCost = accountCost(60_000, 500);
+    final var withdrawCost = accountCost(50_000, 500);
+    costs[StakePoolProgram.Instructions.DepositStake.ordinal()] = depositCost;
+    costs[StakePoolProgram.Instructions.DepositStakeWithSlippage.ordinal()] = depositCost;
+    costs[StakePoolProgram.Instructions.WithdrawStake.ordinal()] = withdrawCost;
+    costs[StakePoolProgram.Instructions.WithdrawStakeWithSlippage.ordinal()] = withdrawCost;
+    costs[StakePoolProgram.Instructions.DepositSol.ordinal()] = accountCost(30_000, 500);
+    costs[StakePoolProgram.Instructions.DepositSolWithSlippage.ordinal()] = accountCost(30_000, 500);
+    costs[StakePoolProgram.Instructions.WithdrawSol.ordinal()] = accountCost(35_000, 500);
+    costs[StakePoolProgram.Instructions.WithdrawSolWithSlippage.ordinal()] = accountCost(35_000, 500);
+    // Scales with the number of validator and stake accounts passed in.
+    costs[StakePoolProgram.Instructions.UpdateValidatorListBalance.ordinal()] = accountCost(10_000, 6_000);
+    costs[StakePoolProgram.Instructions.UpdateStakePoolBalance.ordinal()] = accountCost(25_000, 500);
+    costs[StakePoolProgram.Instructions.CleanupRemovedValidatorEntries.ordinal()] = accountCost(5_000, 500);
+    costs[StakePoolProgram.Instructions.SetManager.ordinal()] = fixedCost(5_000);
+    costs[StakePoolProgram.Instructions.SetStaker.ordinal()] = fixedCost(5_000);
+    costs[StakePoolProgram.Instructions.SetFundingAuthority.ordinal()] = fixedCost(5_000);
+    costs[StakePoolProgram.Instructions.SetFee.ordinal()] = fixedCost(5_000);
+    return costs;
+  }
+
+  @Override
+  public InstructionCost unknownProgramCost() {
+    return unknownProgramCost;
+  }
+
+  @Override
+  public void registerProgram(final PublicKey programId,
+                              final int discriminatorLength,
+                              final InstructionCost defaultCost,
+                              final InstructionCost[] instructionCosts) {
+    if (discriminatorLength != 0 && discriminatorLength != 1 && discriminatorLength != Integer.BYTES) {
+      throw new IllegalArgumentException("Unsupported discriminator length " + discriminatorLength);
+    }
+    programs.put(programId, new ProgramCosts(discriminatorLength, defaultCost, instructionCosts.clone()));
+  }
+
+  @Override
+  public void registerStakePoolProgram(final PublicKey stakePoolProgram) {
+    registerProgram(stakePoolProgram, 1, accountCost(50_000, 500), stakePoolCosts());
+  }
+
+  @Override
+  public void putCost(final PublicKey programId, final int discriminator, final InstructionCost cost) {
+    programs.compute(programId, (key, programCosts) -> {
+      if (programCosts == null) {
+        throw new IllegalStateException("Program " + programId + " is not registered.");
+      }
+      final var costs = Arrays.copyOf(programCosts.costs, Math.max(programCosts.costs.length, discriminator + 1));
+      costs[discriminator] = cost;
+      return new ProgramCosts(programCosts.discriminatorLength, programCosts.defaultCost, costs);
+    });
+  }
+
+  @Override
+  public boolean isRegistered(final PublicKey programId) {
+    return programs.containsKey(programId);
+  }
+
+  @Override
+  public InstructionCost cost(final PublicKey programId, final byte[] data, final int offset, final int length) {
+    final var programCosts = programs.get(programId);
+    return programCosts == null ? unknownProgramCost : programCosts.cost(data, offset, length);
+  }
+}
@@ -0,0 +1,77 @@
+package software.sava.solana.programs.compute_budget;
+
+import java.util.Arrays;
+
+/// Bounded window over the most recent per slot prioritization fees of an account.
+final class FeeSketch {
+
+  private final long[] slots;
+  private final long[] fees;
+  private final long[] sorted;
+  private int next;
+  private int size;
+  private long lastSlot;
+  private boolean dirty;
+  private volatile long lastRefreshNanos;
+
+  FeeSketch(final int capacity) {
+    this.slots = new long[capacity];
+    this.fees = new long[capacity];
+    this.sorted = new long[capacity];
+    this.lastSlot = -1;
+  }
+
+  synchronized void add(final long slot, final long fee) {
+    if (slot <= lastSlot) {
+      // Samples of already observed slots are only refreshed.
+      for (int i = 0; i < size; ++i) {
+        if (slots[i] == slot) {
+          if (fees[i] != fee) {
+            fees[i] = fee;
+            dirty = true;
+          }
+          return;
+        }
+      }
+      return;
+    }
+    lastSlot = slot;
+    slots[next] = slot;
+    fees[next] = fee;
+    next = (next + 1) % slots.length;
+    if (size < slots.length) {
+      ++size;
+    }
+    dirty = true;
+  }
+
+  /// Returns -1 if no fees have been sampled.
+  synchronized long percentile(final int percentile) {
+    if (size == 0) {
+      return -1;
+    }
+    if (dirty) {
+      System.arraycopy(fees, 0, sorted, 0, size);
+      Arrays.sort(sorted, 0, size);
+      dirty = false;
+    }
+    final int index = (int) Math.ceil((percentile / 100.0) * size) - 1;
+    return sorted[Math.max(0, Math.min(size - 1, index))];
+  }
+
+  synchronized int size() {
+    return size;
+  }
+
+  synchronized long lastSlot() {
+    return lastSlot;
+  }
+
+  long lastRefreshNanos() {
+    return lastRefreshNanos;
+  }
+
+  void refreshed(final long nanos) {
+    this.lastRefreshNanos = nanos;
+  }
+}
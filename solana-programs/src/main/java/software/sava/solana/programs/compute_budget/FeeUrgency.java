@@ -0,0 +1,21 @@
+package software.sava.solana.programs.compute_budget;
+
+/// Maps how quickly a transaction should land to a percentile of recently paid prioritization fees.
+public enum FeeUrgency {
+
+  LOW(25),
+  MEDIUM(50),
+  HIGH(75),
+  VERY_HIGH(90),
+  EXTREME(99);
+
+  private final int percentile;
+
+  FeeUrgency(final int percentile) {
+    this.percentile = percentile;
+  }
+
+  public int percentile() {
+    return percentile;
+  }
+}
@@ -0,0 +1,22 @@
+package software.sava.solana.programs.compute_budget;
+
+/// Linear compute unit cost of a single instruction:
+/// `baseUnits + (numAccounts * unitsPerAccount) + (dataLength * unitsPerDataByte)`.
+public record InstructionCost(int baseUnits, int unitsPerAccount, int unitsPerDataByte) {
+
+  public static InstructionCost fixedCost(final int baseUnits) {
+    return new InstructionCost(baseUnits, 0, 0);
+  }
+
+  public static InstructionCost accountCost(final int baseUnits, final int unitsPerAccount) {
+    return new InstructionCost(baseUnits, unitsPerAccount, 0);
+  }
+
+  public static InstructionCost dataCost(final int baseUnits, final int unitsPerDataByte) {
+    return new InstructionCost(baseUnits, 0, unitsPerDataByte);
+  }
+
+  public int estimate(final int numAccounts, final int dataLength) {
+    return baseUnits + (numAccounts * unitsPerAccount) + (dataLength * unitsPerDataByte);
+  }
+}
@@ -0,0 +1,105 @@
+package software.sava.solana.programs.compute_budget;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.core.accounts.lookup.AddressLookupTable;
+import software.sava.core.tx.Instruction;
+import software.sava.solana.programs.stake.StakeAccount;
+import software.sava.solana.programs.system.NonceAccount;
+
+import java.util.Collection;
+
+/// Estimates the account data loaded by a transaction, so that a tight
+/// [ComputeBudgetProgram#setLoadedAccountsDataSizeLimit(software.sava.core.accounts.meta.AccountMeta, int)] can be
+/// requested instead of the 64MiB default.
+///
+/// Each distinct account loaded by a transaction, including invoked programs, their program data and lookup tables,
+/// is charged its data length plus [#TRANSACTION_ACCOUNT_BASE_SIZE]. Builtin programs and common sysvars are known,
+/// other accounts must be registered with their data length. Program sizes of the SPL programs are conservative upper
+/// bounds and should be overridden with exact values where they are known.
+///
+/// Exceeding the requested limit fails the transaction, so if any account is unknown and no
+/// [#unknownAccountSize()] is configured no estimate is made.
+///
+/// https://github.com/anza-xyz/agave/blob/master/svm/src/account_loader.rs
+public interface LoadedAccountsDataSizeModel {
+
+  int TRANSACTION_ACCOUNT_BASE_SIZE = 64;
+  int MAX_LOADED_ACCOUNTS_DATA_SIZE = ComputeBudgetDecoder.MAX_LOADED_ACCOUNTS_DATA_SIZE;
+
+  int TOKEN_ACCOUNT_LENGTH = 165;
+  int MINT_LENGTH = 82;
+  int LOOKUP_TABLE_META_SIZE = 56;
+  // Upgradeable program accounts only hold the address of their program data account.
+  int UPGRADEABLE_PROGRAM_LENGTH = 36;
+  int PROGRAM_DATA_META_SIZE = 45;
+  // Builtin program accounts only hold the program name.
+  int BUILTIN_PROGRAM_LENGTH = 64;
+
+  static LoadedAccountsDataSizeModel createModel(final SolanaAccounts solanaAccounts) {
+    final var model = new LoadedAccountsDataSizeModelImpl(solanaAccounts.computeBudgetProgram());
+    LoadedAccountsDataSizeModelImpl.registerNativeAccounts(model, solanaAccounts);
+    return model;
+  }
+
+  /// Size assumed for accounts which have not been registered, or -1 to not estimate transactions using them.
+  int unknownAccountSize();
+
+  void unknownAccountSize(final int dataLength);
+
+  /// Registers or overrides the data length of an account, excluding [#TRANSACTION_ACCOUNT_BASE_SIZE].
+  void putSize(final PublicKey account, final int dataLength);
+
+  void removeSize(final PublicKey account);
+
+  default void putStakeAccount(final PublicKey stakeAccount) {
+    putSize(stakeAccount, StakeAccount.BYTES);
+  }
+
+  default void putNonceAccount(final PublicKey nonceAccount) {
+    putSize(nonceAccount, NonceAccount.BYTES);
+  }
+
+  default void putTokenAccount(final PublicKey tokenAccount) {
+    putSize(tokenAccount, TOKEN_ACCOUNT_LENGTH);
+  }
+
+  default void putMint(final PublicKey mint) {
+    putSize(mint, MINT_LENGTH);
+  }
+
+  default void putLookupTable(final AddressLookupTable lookupTable) {
+    putSize(lookupTable.address(), LOOKUP_TABLE_META_SIZE + (lookupTable.numAccounts() * PublicKey.PUBLIC_KEY_LENGTH));
+  }
+
+  /// Registers an upgradeable program, its program data account is loaded along with it.
+  default void putUpgradeableProgram(final PublicKey programId, final int programDataLength) {
+    putSize(programId, UPGRADEABLE_PROGRAM_LENGTH + TRANSACTION_ACCOUNT_BASE_SIZE + PROGRAM_DATA_META_SIZE + programDataLength);
+  }
+
+  /// Returns the registered data length plus [#TRANSACTION_ACCOUNT_BASE_SIZE], or -1 if unknown.
+  int loadedSize(final PublicKey account);
+
+  /// Sums the loaded size of the fee payer, the compute budget program, and every distinct account and program of the
+  /// instructions and lookup tables.
+  ///
+  /// @return the estimate in bytes, or -1 if an account is unknown.
+  int estimate(final PublicKey feePayer,
+               final Collection<Instruction> instructions,
+               final Collection<AddressLookupTable> lookupTables);
+
+  /// Adds a margin to the estimate, capped at [#MAX_LOADED_ACCOUNTS_DATA_SIZE].
+  ///
+  /// @return the limit in bytes, or -1 if an account is unknown.
+  default int limit(final PublicKey feePayer,
+                    final Collection<Instruction> instructions,
+                    final Collection<AddressLookupTable> lookupTables,
+                    final int marginPercent) {
+    final int estimate = estimate(feePayer, instructions, lookupTables);
+    if (estimate < 0) {
+      return -1;
+    }
+    final long limit = estimate + ((long) estimate * marginPercent / 100);
+    return (int) Math.min(limit, MAX_LOADED_ACCOUNTS_DATA_SIZE);
+  }
+}
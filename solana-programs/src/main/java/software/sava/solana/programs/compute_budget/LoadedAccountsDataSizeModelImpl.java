@@ -0,0 +1,118 @@
+package software.sava.solana.programs.compute_budget;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.core.accounts.lookup.AddressLookupTable;
+import software.sava.core.tx.Instruction;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+final class LoadedAccountsDataSizeModelImpl implements LoadedAccountsDataSizeModel {
+
+  // https://github.com/solana-labs/solana/blob/master/sdk/program/src/sysvar
+  private static final int CLOCK_LENGTH = 40;
+  private static final int RENT_LENGTH = 17;
+  private static final int RECENT_BLOCKHASHES_LENGTH = 6_008;
+  private static final int STAKE_HISTORY_LENGTH = 16_392;
+  private static final int STAKE_CONFIG_LENGTH = 128;
+
+  // Conservative upper bounds of the deployed SPL program binaries.
+  private static final int TOKEN_PROGRAM_LENGTH = 256 * 1024;
+  private static final int TOKEN_2022_PROGRAM_DATA_LENGTH = 2 * 1024 * 1024;
+  private static final int ASSOCIATED_TOKEN_PROGRAM_LENGTH = 512 * 1024;
+  private static final int MEMO_PROGRAM_LENGTH = 128 * 1024;
+
+  private final PublicKey computeBudgetProgram;
+  private final ConcurrentHashMap<PublicKey, Integer> loadedSizes;
+  private volatile int unknownAccountSize;
+
+  LoadedAccountsDataSizeModelImpl(final PublicKey computeBudgetProgram) {
+    this.computeBudgetProgram = computeBudgetProgram;
+    this.loadedSizes = new ConcurrentHashMap<>();
+    this.unknownAccountSize = -1;
+  }
+
+  static void registerNativeAccounts(final LoadedAccountsDataSizeModel model, final SolanaAccounts solanaAccounts) {
+    model.putSize(solanaAccounts.systemProgram(), BUILTIN_PROGRAM_LENGTH);
+    model.putSize(solanaAccounts.stakeProgram(), BUILTIN_PROGRAM_LENGTH);
+    model.putSize(solanaAccounts.voteProgram(), BUILTIN_PROGRAM_LENGTH);
+    model.putSize(solanaAccounts.addressLookupTableProgram(), BUILTIN_PROGRAM_LENGTH);
+    model.putSize(solanaAccounts.computeBudgetProgram(), BUILTIN_PROGRAM_LENGTH);
+    model.putSize(solanaAccounts.ed25519Program(), BUILTIN_PROGRAM_LENGTH);
+
+    model.putSize(solanaAccounts.clockSysVar(), CLOCK_LENGTH);
+    model.putSize(solanaAccounts.readRentSysVar().publicKey(), RENT_LENGTH);
+    model.putSize(solanaAccounts.readRecentBlockhashesSysVar().publicKey(), RECENT_BLOCKHASHES_LENGTH);
+    model.putSize(solanaAccounts.readStakeHistorySysVar().publicKey(), STAKE_HISTORY_LENGTH);
+    model.putSize(solanaAccounts.readStakeConfig().publicKey(), STAKE_CONFIG_LENGTH);
+
+    model.putSize(solanaAccounts.tokenProgram(), TOKEN_PROGRAM_LENGTH);
+    model.putUpgradeableProgram(solanaAccounts.token2022Program(), TOKEN_2022_PROGRAM_DATA_LENGTH);
+    model.putSize(solanaAccounts.associatedTokenAccountProgram(), ASSOCIATED_TOKEN_PROGRAM_LENGTH);
+    model.putSize(solanaAccounts.memoProgram(), MEMO_PROGRAM_LENGTH);
+    model.putSize(solanaAccounts.memoProgramV2(), MEMO_PROGRAM_LENGTH);
+    model.putSize(solanaAccounts.wrappedSolTokenMint(), MINT_LENGTH);
+  }
+
+  @Override
+  public int unknownAccountSize() {
+    return unknownAccountSize;
+  }
+
+  @Override
+  public void unknownAccountSize(final int dataLength) {
+    this.unknownAccountSize = dataLength;
+  }
+
+  @Override
+  public void putSize(final PublicKey account, final int dataLength) {
+    loadedSizes.put(account, dataLength + TRANSACTION_ACCOUNT_BASE_SIZE);
+  }
+
+  @Override
+  public void removeSize(final PublicKey account) {
+    loadedSizes.remove(account);
+  }
+
+  @Override
+  public int loadedSize(final PublicKey account) {
+    final var loadedSize = loadedSizes.get(account);
+    if (loadedSize != null) {
+      return loadedSize;
+    } else {
+      final int unknownAccountSize = this.unknownAccountSize;
+      return unknownAccountSize < 0 ? -1 : unknownAccountSize + TRANSACTION_ACCOUNT_BASE_SIZE;
+    }
+  }
+
+  @Override
+  public int estimate(final PublicKey feePayer,
+                      final Collection<Instruction> instructions,
+                      final Collection<AddressLookupTable> lookupTables) {
+    final var accounts = HashSet.<PublicKey>newHashSet(instructions.size() << 2);
+    accounts.add(computeBudgetProgram);
+    for (final var instruction : instructions) {
+      accounts.add(instruction.programId().publicKey());
+      for (final var account : instruction.accounts()) {
+        accounts.add(account.publicKey());
+      }
+    }
+    for (final var lookupTable : lookupTables) {
+      accounts.add(lookupTable.address());
+    }
+    // Fee payers must be system accounts, which usually hold no data.
+    final var feePayerSize = loadedSizes.get(feePayer);
+    long estimate = feePayerSize == null ? TRANSACTION_ACCOUNT_BASE_SIZE : feePayerSize;
+    accounts.remove(feePayer);
+    for (final var account : accounts) {
+      final int loadedSize = loadedSize(account);
+      if (loadedSize < 0) {
+        return -1;
+      }
+      estimate += loadedSize;
+    }
+    return (int) Math.min(estimate, MAX_LOADED_ACCOUNTS_DATA_SIZE);
+  }
+}
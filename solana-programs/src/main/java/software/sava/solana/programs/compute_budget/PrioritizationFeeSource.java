@@ -0,0 +1,21 @@
+package software.sava.solana.programs.compute_budget;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.rpc.json.http.client.SolanaRpcClient;
+import software.sava.rpc.json.http.response.PrioritizationFee;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/// Source of recently paid prioritization fees, typically backed by `getRecentPrioritizationFees`.
+/// Can be implemented locally to serve canned samples.
+@FunctionalInterface
+public interface PrioritizationFeeSource {
+
+  static PrioritizationFeeSource createSource(final SolanaRpcClient rpcClient) {
+    return rpcClient::getRecentPrioritizationFees;
+  }
+
+  /// @param writableAccounts if empty, returns fees paid by any transaction.
+  CompletableFuture<List<PrioritizationFee>> fetchRecentPrioritizationFees(final List<PublicKey> writableAccounts);
+}
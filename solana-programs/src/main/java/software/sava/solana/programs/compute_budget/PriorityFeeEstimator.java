@@ -0,0 +1,78 @@
+package software.sava.solana.programs.compute_budget;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.tx.Instruction;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/// Estimates compute unit prices from recently paid prioritization fees of the writable accounts of a transaction.
+///
+/// A bounded window of per slot fees is kept for each sampled account, as well as for the cluster as a whole. The
+/// price for a set of writable accounts is the highest requested percentile across those accounts, as the most
+/// contended account determines inclusion, with the cluster wide fees as a fallback for accounts with no samples.
+/// Prices are clamped to a configurable range.
+public interface PriorityFeeEstimator {
+
+  // getRecentPrioritizationFees returns up to 150 slots.
+  int DEFAULT_WINDOW_SLOTS = 150;
+
+  static PriorityFeeEstimator createEstimator(final PrioritizationFeeSource feeSource,
+                                              final int windowSlots,
+                                              final Duration maxSampleAge,
+                                              final long minMicroLamports,
+                                              final long maxMicroLamports) {
+    return new PriorityFeeEstimatorImpl(feeSource, windowSlots, maxSampleAge.toNanos(), minMicroLamports, maxMicroLamports);
+  }
+
+  static PriorityFeeEstimator createEstimator(final PrioritizationFeeSource feeSource,
+                                              final long maxMicroLamports) {
+    return createEstimator(feeSource, DEFAULT_WINDOW_SLOTS, Duration.ofSeconds(10), 0, maxMicroLamports);
+  }
+
+  /// Returns the distinct writable accounts of the instructions, excluding signers which are commonly unique per
+  /// transaction and therefore uncontended.
+  static List<PublicKey> writableAccounts(final Collection<Instruction> instructions) {
+    final var writableAccounts = new LinkedHashSet<PublicKey>();
+    for (final var instruction : instructions) {
+      for (final var account : instruction.accounts()) {
+        if (account.write() && !account.signer()) {
+          writableAccounts.add(account.publicKey());
+        }
+      }
+    }
+    return List.copyOf(writableAccounts);
+  }
+
+  PrioritizationFeeSource feeSource();
+
+  /// Records fees observed for a writable account.
+  void observe(final PublicKey writableAccount, final long slot, final long microLamports);
+
+  /// Records fees observed across the cluster.
+  void observeGlobal(final long slot, final long microLamports);
+
+  /// Fetches fees for the cluster and for any of the accounts whose samples are older than the max sample age.
+  CompletableFuture<Void> refresh(final Collection<PublicKey> writableAccounts);
+
+  /// Returns the estimated price from the current samples without fetching.
+  long microLamportComputeUnitPrice(final Collection<PublicKey> writableAccounts, final FeeUrgency urgency);
+
+  /// Refreshes stale samples, then estimates the price.
+  default CompletableFuture<Long> estimate(final Collection<PublicKey> writableAccounts, final FeeUrgency urgency) {
+    return refresh(writableAccounts).thenApply(v -> microLamportComputeUnitPrice(writableAccounts, urgency));
+  }
+
+  /// Estimates the price for the writable accounts of the instructions.
+  default CompletableFuture<Long> estimateForInstructions(final List<Instruction> instructions,
+                                                          final FeeUrgency urgency) {
+    return estimate(writableAccounts(instructions), urgency);
+  }
+
+  /// Returns the percentile of fees sampled for the account, or -1 if none have been.
+  long percentile(final PublicKey writableAccount, final int percentile);
+
+  /// Returns the percentile of fees sampled across the cluster, or -1 if none have been.
+  long globalPercentile(final int percentile);
+}
@@ -0,0 +1,109 @@
+package software.sava.solana.programs.compute_budget;
+
+import software.sava.core.accounts.PublicKey;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+final class PriorityFeeEstimatorImpl implements PriorityFeeEstimator {
+
+  private final PrioritizationFeeSource feeSource;
+  private final int windowSlots;
+  private final long maxSampleAgeNanos;
+  private final long minMicroLamports;
+  private final long maxMicroLamports;
+  private final FeeSketch globalSketch;
+  private final ConcurrentHashMap<PublicKey, FeeSketch> accountSketches;
+
+  PriorityFeeEstimatorImpl(final PrioritizationFeeSource feeSource,
+                           final int windowSlots,
+                           final long maxSampleAgeNanos,
+                           final long minMicroLamports,
+                           final long maxMicroLamports) {
+    this.feeSource = feeSource;
+    this.windowSlots = windowSlots;
+    this.maxSampleAgeNanos = maxSampleAgeNanos;
+    this.minMicroLamports = minMicroLamports;
+    this.maxMicroLamports = maxMicroLamports;
+    this.globalSketch = new FeeSketch(windowSlots);
+    this.accountSketches = new ConcurrentHashMap<>();
+  }
+
+  private FeeSketch sketch(final PublicKey writableAccount) {
+    return accountSketches.computeIfAbsent(writableAccount, account -> new FeeSketch(windowSlots));
+  }
+
+  private boolean isStale(final FeeSketch sketch, final long now) {
+    return sketch == null || sketch.lastRefreshNanos() == 0 || now - sketch.lastRefreshNanos() > maxSampleAgeNanos;
+  }
+
+  @Override
+  public PrioritizationFeeSource feeSource() {
+    return feeSource;
+  }
+
+  @Override
+  public void observe(final PublicKey writableAccount, final long slot, final long microLamports) {
+    sketch(writableAccount).add(slot, microLamports);
+  }
+
+  @Override
+  public void observeGlobal(final long slot, final long microLamports) {
+    globalSketch.add(slot, microLamports);
+  }
+
+  private CompletableFuture<Void> fetch(final PublicKey writableAccount, final FeeSketch sketch, final long now) {
+    final var accounts = writableAccount == null ? List.<PublicKey>of() : List.of(writableAccount);
+    return feeSource.fetchRecentPrioritizationFees(accounts).thenAccept(fees -> {
+      for (final var fee : fees) {
+        sketch.add(fee.slot(), fee.prioritizationFee());
+      }
+      sketch.refreshed(now);
+    });
+  }
+
+  @Override
+  public CompletableFuture<Void> refresh(final Collection<PublicKey> writableAccounts) {
+    final long now = System.nanoTime();
+    final var futures = new ArrayList<CompletableFuture<Void>>(writableAccounts.size() + 1);
+    if (isStale(globalSketch, now)) {
+      futures.add(fetch(null, globalSketch, now));
+    }
+    for (final var writableAccount : writableAccounts) {
+      final var sketch = sketch(writableAccount);
+      if (isStale(sketch, now)) {
+        futures.add(fetch(writableAccount, sketch, now));
+      }
+    }
+    return futures.isEmpty()
+        ? CompletableFuture.completedFuture(null)
+        : CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new));
+  }
+
+  @Override
+  public long microLamportComputeUnitPrice(final Collection<PublicKey> writableAccounts, final FeeUrgency urgency) {
+    final int percentile = urgency.percentile();
+    long price = -1;
+    for (final var writableAccount : writableAccounts) {
+      price = Math.max(price, percentile(writableAccount, percentile));
+    }
+    if (price < 0) {
+      price = globalSketch.percentile(percentile);
+    }
+    return Math.max(minMicroLamports, Math.min(maxMicroLamports, price));
+  }
+
+  @Override
+  public long percentile(final PublicKey writableAccount, final int percentile) {
+    final var sketch = accountSketches.get(writableAccount);
+    return sketch == null ? -1 : sketch.percentile(percentile);
+  }
+
+  @Override
+  public long globalPercentile(final int percentile) {
+    return globalSketch.percentile(percentile);
+  }
+}
@@ -0,0 +1,179 @@
+package software.sava.solana.programs.compute_budget;
+
+import software.sava.core.accounts.SolanaAccounts;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/// Distribution of compute unit prices paid by the transactions of a slot.
+///
+/// Prices are bucketed by powers of two, bucket 0 holds transactions which did not set a price and bucket `b` holds
+/// prices in `[2^(b-1), 2^b)` micro-lamports. Each bucket tracks both the number of transactions and their effective
+/// compute unit limits, so percentiles may be weighted by either.
+///
+/// Histograms are not thread safe, parallel aggregation accumulates independent histograms which are then merged.
+public final class SlotFeeHistogram {
+
+  public static final int NUM_BUCKETS = Long.SIZE + 1;
+
+  private final long slot;
+  private final long[] counts;
+  private final long[] computeUnits;
+  private long numTransactions;
+  private long numInvalid;
+  private long totalPriorityFees;
+  private long maxComputeUnitPrice;
+
+  public SlotFeeHistogram(final long slot) {
+    this.slot = slot;
+    this.counts = new long[NUM_BUCKETS];
+    this.computeUnits = new long[NUM_BUCKETS];
+  }
+
+  public static int bucket(final long computeUnitPrice) {
+    return computeUnitPrice <= 0 ? 0 : Long.SIZE - Long.numberOfLeadingZeros(computeUnitPrice);
+  }
+
+  /// Smallest price in micro-lamports held by the bucket.
+  public static long bucketLowerBound(final int bucket) {
+    return bucket == 0 ? 0 : 1L << (bucket - 1);
+  }
+
+  /// Accounts for a transaction which has just been decoded, invalid transactions are only counted.
+  public void add(final ComputeBudgetDecoder decoder) {
+    if (!decoder.valid()) {
+      ++numInvalid;
+      return;
+    }
+    final long price = decoder.computeUnitPrice();
+    final int bucket = bucket(price);
+    ++counts[bucket];
+    computeUnits[bucket] += decoder.effectiveComputeUnitLimit();
+    totalPriorityFees += decoder.priorityFee();
+    maxComputeUnitPrice = Math.max(maxComputeUnitPrice, price);
+    ++numTransactions;
+  }
+
+  public SlotFeeHistogram merge(final SlotFeeHistogram other) {
+    for (int b = 0; b < NUM_BUCKETS; ++b) {
+      counts[b] += other.counts[b];
+      computeUnits[b] += other.computeUnits[b];
+    }
+    numTransactions += other.numTransactions;
+    numInvalid += other.numInvalid;
+    totalPriorityFees += other.totalPriorityFees;
+    maxComputeUnitPrice = Math.max(maxComputeUnitPrice, other.maxComputeUnitPrice);
+    return this;
+  }
+
+  private static long percentile(final long[] weights, final long total, final int percentile) {
+    if (total == 0) {
+      return 0;
+    }
+    final long threshold = Math.max(1, (total * percentile + 99) / 100);
+    long cumulative = 0;
+    for (int b = 0; b < NUM_BUCKETS; ++b) {
+      cumulative += weights[b];
+      if (cumulative >= threshold) {
+        return bucketLowerBound(b);
+      }
+    }
+    return bucketLowerBound(NUM_BUCKETS - 1);
+  }
+
+  /// Lower bound of the bucket holding the price paid by the given percentile of transactions.
+  public long percentile(final int percentile) {
+    return percentile(counts, numTransactions, percentile);
+  }
+
+  /// Lower bound of the bucket holding the price paid for the given percentile of requested compute units.
+  public long computeUnitPercentile(final int percentile) {
+    long total = 0;
+    for (final long units : computeUnits) {
+      total += units;
+    }
+    return percentile(computeUnits, total, percentile);
+  }
+
+  public long slot() {
+    return slot;
+  }
+
+  public long count(final int bucket) {
+    return counts[bucket];
+  }
+
+  public long computeUnits(final int bucket) {
+    return computeUnits[bucket];
+  }
+
+  public long numTransactions() {
+    return numTransactions;
+  }
+
+  /// Transactions with malformed or repeated compute budget instructions, which are excluded from the buckets.
+  public long numInvalid() {
+    return numInvalid;
+  }
+
+  /// Number of transactions which set a non-zero price.
+  public long numPrioritized() {
+    return numTransactions - counts[0];
+  }
+
+  /// Sum of priority fees in lamports.
+  public long totalPriorityFees() {
+    return totalPriorityFees;
+  }
+
+  public long maxComputeUnitPrice() {
+    return maxComputeUnitPrice;
+  }
+
+  private static final class Accumulator {
+
+    private final ComputeBudgetDecoder decoder;
+    private final SlotFeeHistogram histogram;
+
+    private Accumulator(final SolanaAccounts solanaAccounts, final long slot) {
+      this.decoder = ComputeBudgetDecoder.createDecoder(solanaAccounts);
+      this.histogram = new SlotFeeHistogram(slot);
+    }
+
+    private void accept(final byte[] serializedTransaction) {
+      decoder.decode(serializedTransaction);
+      histogram.add(decoder);
+    }
+
+    private void combine(final Accumulator other) {
+      histogram.merge(other.histogram);
+    }
+  }
+
+  /// Decodes the transactions of a slot, if `parallel` the work is split across the common fork join pool with a
+  /// decoder per worker.
+  public static SlotFeeHistogram aggregate(final SolanaAccounts solanaAccounts,
+                                           final long slot,
+                                           final Collection<byte[]> serializedTransactions,
+                                           final boolean parallel) {
+    final var stream = parallel ? serializedTransactions.parallelStream() : serializedTransactions.stream();
+    return stream.collect(
+        () -> new Accumulator(solanaAccounts, slot),
+        Accumulator::accept,
+        Accumulator::combine
+    ).histogram;
+  }
+
+  /// Decodes many slots in parallel, returning their histograms ordered by slot.
+  public static TreeMap<Long, SlotFeeHistogram> aggregate(final SolanaAccounts solanaAccounts,
+                                                          final Map<Long, ? extends Collection<byte[]>> transactionsBySlot) {
+    final var histograms = new ConcurrentHashMap<Long, SlotFeeHistogram>(transactionsBySlot.size());
+    transactionsBySlot.entrySet().parallelStream().forEach(entry -> {
+      final long slot = entry.getKey();
+      histograms.put(slot, aggregate(solanaAccounts, slot, entry.getValue(), true));
+    });
+    return new TreeMap<>(histograms);
+  }
+}
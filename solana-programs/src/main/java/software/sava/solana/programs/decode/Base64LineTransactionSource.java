@@ -0,0 +1,32 @@
+package software.sava.solana.programs.decode;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Base64;
+
+final class Base64LineTransactionSource implements TransactionSource {
+
+  private static final Base64.Decoder DECODER = Base64.getDecoder();
+
+  private final BufferedReader reader;
+
+  Base64LineTransactionSource(final BufferedReader reader) {
+    this.reader = reader;
+  }
+
+  @Override
+  public byte[] next() throws IOException {
+    for (String line; (line = reader.readLine()) != null; ) {
+      line = line.strip();
+      if (!line.isEmpty()) {
+        return DECODER.decode(line);
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+}
@@ -0,0 +1,36 @@
+package software.sava.solana.programs.decode;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+final class BinaryTransactionSource implements TransactionSource {
+
+  private final InputStream in;
+
+  BinaryTransactionSource(final InputStream in) {
+    this.in = in;
+  }
+
+  @Override
+  public byte[] next() throws IOException {
+    final int lo = in.read();
+    if (lo < 0) {
+      return null;
+    }
+    final int hi = in.read();
+    if (hi < 0) {
+      throw new EOFException("Truncated transaction length.");
+    }
+    final byte[] serializedTransaction = in.readNBytes(lo | (hi << 8));
+    if (serializedTransaction.length != (lo | (hi << 8))) {
+      throw new EOFException("Truncated transaction.");
+    }
+    return serializedTransaction;
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+}
@@ -0,0 +1,44 @@
+package software.sava.solana.programs.decode;
+
+/// Bounded reader of the compact-u16 lengths of the transaction wire format, a little endian base 128 varint of at
+/// most three bytes.
+///
+/// https://solana.com/docs/core/transactions#compact-array-format
+public final class CompactU16 {
+
+  public static final int MAX_VALUE = 0xFFFF;
+  public static final int MAX_LENGTH = 3;
+  /// Returned by [#read] for encodings which are truncated, longer than [#MAX_LENGTH] bytes, exceed [#MAX_VALUE] or
+  /// are not the shortest encoding of their value.
+  public static final int INVALID = -1;
+
+  private CompactU16() {
+  }
+
+  /// @param end exclusive bound of the readable data.
+  /// @return the value in the low 16 bits and the encoded length in the high bits, or [#INVALID].
+  public static int read(final byte[] data, final int offset, final int end) {
+    int value = 0;
+    for (int i = offset, shift = 0, limit = Math.min(end, offset + MAX_LENGTH); i < limit; ++i, shift += 7) {
+      final int b = data[i] & 0xFF;
+      value |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value > MAX_VALUE || (b == 0 && i > offset) ? INVALID : ((i + 1 - offset) << 16) | value;
+      }
+    }
+    return INVALID;
+  }
+
+  public static int value(final int encoded) {
+    return encoded & MAX_VALUE;
+  }
+
+  public static int length(final int encoded) {
+    return encoded >>> 16;
+  }
+
+  /// @return the number of bytes needed to encode `value`.
+  public static int encodedLength(final int value) {
+    return value < 0x80 ? 1 : value < 0x4000 ? 2 : 3;
+  }
+}
@@ -0,0 +1,321 @@
+package software.sava.solana.programs.decode;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/// Decodes a stream of serialized transactions on virtual threads and routes the instructions of each
+/// [NativeProgram] to its [InstructionSink].
+///
+/// Transactions flow through bounded queues between the parse and decode stages, so [#submit] blocks once the
+/// pipeline is saturated, until it drains, fails or is closed. In ordered mode a single emitter thread re-sequences decoded transactions before calling
+/// the sinks, and at most [DecodingPipelineConfig#reorderWindow] transactions are in flight.
+///
+/// Transactions which fail to parse or decode are counted and skipped.
+public final class DecodingPipeline implements AutoCloseable {
+
+  private static final NativeProgram[] PROGRAMS = NativeProgram.values();
+  private static final Item END = new Item(-1, null);
+  /// Interval at which blocked submitters re-check whether the pipeline has failed or been closed.
+  private static final long POLL_MILLIS = 50;
+
+  private static final class Item {
+
+    private final long sequence;
+    private final byte[] data;
+    private TransactionView view;
+    private List<NativeInstruction> instructions;
+
+    private Item(final long sequence, final byte[] data) {
+      this.sequence = sequence;
+      this.data = data;
+    }
+  }
+
+  private final DecodingPipelineConfig config;
+  private final InstructionSink[] sinks;
+  private final BlockingQueue<Item> parseQueue;
+  private final BlockingQueue<Item> decodeQueue;
+  private final BlockingQueue<Item> outputQueue;
+  private final Semaphore reorderPermits;
+  private final AtomicLong sequence;
+  private final AtomicBoolean finished;
+  private final AtomicInteger remainingParsers;
+  private final AtomicInteger remainingDecoders;
+  private final LongAdder numDecoded;
+  private final LongAdder numFailed;
+  private final LongAdder numInstructions;
+  private final AtomicReference<Throwable> sinkError;
+  private final CompletableFuture<Void> completion;
+  private final List<Thread> threads;
+
+  private DecodingPipeline(final DecodingPipelineConfig config, final InstructionSink[] sinks) {
+    this.config = config;
+    this.sinks = sinks;
+    this.parseQueue = new ArrayBlockingQueue<>(config.queueCapacity());
+    this.decodeQueue = new ArrayBlockingQueue<>(config.queueCapacity());
+    if (config.ordered()) {
+      this.outputQueue = new LinkedBlockingQueue<>();
+      this.reorderPermits = new Semaphore(config.reorderWindow());
+    } else {
+      this.outputQueue = null;
+      this.reorderPermits = null;
+    }
+    this.sequence = new AtomicLong();
+    this.finished = new AtomicBoolean();
+    this.remainingParsers = new AtomicInteger(config.parseParallelism());
+    this.remainingDecoders = new AtomicInteger(config.decodeParallelism());
+    this.numDecoded = new LongAdder();
+    this.numFailed = new LongAdder();
+    this.numInstructions = new LongAdder();
+    this.sinkError = new AtomicReference<>();
+    this.completion = new CompletableFuture<>();
+    this.threads = new CopyOnWriteArrayList<>();
+  }
+
+  /// Starts the stage threads, instructions of programs without a sink are dropped.
+  public static DecodingPipeline createPipeline(final NativeInstructionDecoder decoder,
+                                                final DecodingPipelineConfig config,
+                                                final Map<NativeProgram, InstructionSink> sinks) {
+    final var sinkArray = new InstructionSink[PROGRAMS.length];
+    for (final var entry : sinks.entrySet()) {
+      sinkArray[entry.getKey().ordinal()] = entry.getValue();
+    }
+    final var pipeline = new DecodingPipeline(config, sinkArray);
+    pipeline.start(decoder);
+    return pipeline;
+  }
+
+  private void start(final NativeInstructionDecoder decoder) {
+    final var parsers = Thread.ofVirtual().name("decode-pipeline-parse-", 0);
+    for (int i = 0; i < config.parseParallelism(); ++i) {
+      threads.add(parsers.start(this::parse));
+    }
+    final var decoders = Thread.ofVirtual().name("decode-pipeline-decode-", 0);
+    for (int i = 0; i < config.decodeParallelism(); ++i) {
+      final var workerDecoder = decoder.copy();
+      threads.add(decoders.start(() -> decode(workerDecoder)));
+    }
+    if (config.ordered()) {
+      threads.add(Thread.ofVirtual().name("decode-pipeline-emit").start(this::emit));
+    }
+  }
+
+  private void checkRunning() {
+    if (completion.isDone()) {
+      throw new IllegalStateException("Pipeline has failed or been closed.");
+    }
+  }
+
+  /// Blocks until the transaction has been accepted by the ingestion queue.
+  ///
+  /// @return the sequence number of the transaction.
+  /// @throws IllegalStateException if the pipeline has been finished, or fails or is closed while blocked.
+  public long submit(final byte[] serializedTransaction) throws InterruptedException {
+    if (finished.get() || completion.isDone()) {
+      throw new IllegalStateException("Pipeline has been finished.");
+    }
+    if (reorderPermits != null) {
+      while (!reorderPermits.tryAcquire(POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+        checkRunning();
+      }
+    }
+    final long sequence = this.sequence.getAndIncrement();
+    final var item = new Item(sequence, serializedTransaction);
+    while (!parseQueue.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+      checkRunning();
+    }
+    return sequence;
+  }
+
+  /// Submits every transaction of the source, the source is not closed.
+  ///
+  /// @return the number of submitted transactions.
+  public long replay(final TransactionSource source) throws IOException, InterruptedException {
+    long numSubmitted = 0;
+    for (byte[] serializedTransaction; (serializedTransaction = source.next()) != null; ++numSubmitted) {
+      submit(serializedTransaction);
+    }
+    return numSubmitted;
+  }
+
+  /// Signals the end of the stream, no further transactions may be submitted.
+  ///
+  /// @return a future which completes once every submitted transaction has been passed to the sinks. It completes
+  /// exceptionally with the first error thrown by a sink.
+  public CompletableFuture<Void> finish() throws InterruptedException {
+    if (finished.compareAndSet(false, true)) {
+      for (int i = 0; i < config.parseParallelism(); ++i) {
+        while (!parseQueue.offer(END, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+          if (completion.isDone()) {
+            return completion;
+          }
+        }
+      }
+    }
+    return completion;
+  }
+
+  public CompletableFuture<Void> completion() {
+    return completion;
+  }
+
+  public long numSubmitted() {
+    return sequence.get();
+  }
+
+  public long numDecoded() {
+    return numDecoded.sum();
+  }
+
+  public long numFailed() {
+    return numFailed.sum();
+  }
+
+  public long numInstructions() {
+    return numInstructions.sum();
+  }
+
+  /// Interrupts all stages, pending transactions are discarded.
+  @Override
+  public void close() {
+    finished.set(true);
+    for (final var thread : threads) {
+      thread.interrupt();
+    }
+    completion.completeExceptionally(new CancellationException("Pipeline closed."));
+  }
+
+  private void parse() {
+    try {
+      for (; ; ) {
+        final var item = parseQueue.take();
+        if (item == END) {
+          if (remainingParsers.decrementAndGet() == 0) {
+            for (int i = 0; i < config.decodeParallelism(); ++i) {
+              decodeQueue.put(END);
+            }
+          }
+          return;
+        }
+        try {
+          item.view = TransactionView.view(item.data);
+        } catch (final RuntimeException e) {
+          numFailed.increment();
+        }
+        decodeQueue.put(item);
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (final Throwable e) {
+      fail(e);
+    }
+  }
+
+  private void decode(final NativeInstructionDecoder decoder) {
+    final var instructions = new ArrayList<NativeInstruction>();
+    try {
+      for (; ; ) {
+        final var item = decodeQueue.take();
+        if (item == END) {
+          if (remainingDecoders.decrementAndGet() == 0) {
+            if (outputQueue == null) {
+              complete();
+            } else {
+              outputQueue.put(END);
+            }
+          }
+          return;
+        }
+        if (item.view != null) {
+          try {
+            decoder.decode(item.view, instructions::add);
+            numDecoded.increment();
+            numInstructions.add(instructions.size());
+            if (outputQueue == null) {
+              dispatch(item.sequence, item.view, instructions);
+            } else {
+              item.instructions = List.copyOf(instructions);
+            }
+          } catch (final RuntimeException e) {
+            numFailed.increment();
+          } finally {
+            instructions.clear();
+          }
+        }
+        if (outputQueue != null) {
+          outputQueue.put(item);
+        }
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (final Throwable e) {
+      fail(e);
+    }
+  }
+
+  private void emit() {
+    final var pending = new HashMap<Long, Item>();
+    long next = 0;
+    try {
+      for (; ; ) {
+        final var item = outputQueue.take();
+        if (item == END) {
+          complete();
+          return;
+        }
+        pending.put(item.sequence, item);
+        for (Item ready; (ready = pending.remove(next)) != null; ++next) {
+          if (ready.instructions != null) {
+            dispatch(ready.sequence, ready.view, ready.instructions);
+          }
+          reorderPermits.release();
+        }
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (final Throwable e) {
+      fail(e);
+    }
+  }
+
+  private void dispatch(final long sequence,
+                        final TransactionView view,
+                        final List<NativeInstruction> instructions) {
+    for (final var instruction : instructions) {
+      final var sink = sinks[instruction.program().ordinal()];
+      if (sink != null) {
+        try {
+          sink.accept(sequence, view, instruction);
+        } catch (final RuntimeException e) {
+          sinkError.compareAndSet(null, e);
+        }
+      }
+    }
+  }
+
+  /// A stage died, e.g. from an [Error] thrown by a sink, so the end of the stream can no longer be propagated.
+  private void fail(final Throwable error) {
+    finished.set(true);
+    completion.completeExceptionally(error);
+    for (final var thread : threads) {
+      if (thread != Thread.currentThread()) {
+        thread.interrupt();
+      }
+    }
+  }
+
+  private void complete() {
+    final var error = sinkError.get();
+    if (error == null) {
+      completion.complete(null);
+    } else {
+      completion.completeExceptionally(error);
+    }
+  }
+}
@@ -0,0 +1,28 @@
+package software.sava.solana.programs.decode;
+
+/// @param queueCapacity      bound of each stage queue, submitters block once the ingestion queue is full.
+/// @param parseParallelism   number of virtual threads parsing transaction layouts.
+/// @param decodeParallelism  number of virtual threads decoding instructions.
+/// @param ordered            if true sinks are called from a single thread in submission order, bounded by
+///                           `reorderWindow` transactions in flight. Otherwise sinks are called concurrently by the
+///                           decoding threads and must be thread safe.
+public record DecodingPipelineConfig(int queueCapacity,
+                                     int parseParallelism,
+                                     int decodeParallelism,
+                                     boolean ordered,
+                                     int reorderWindow) {
+
+  public static DecodingPipelineConfig createConfig(final int parallelism, final boolean ordered) {
+    return new DecodingPipelineConfig(8_192, parallelism, parallelism, ordered, 65_536);
+  }
+
+  public static DecodingPipelineConfig createConfig(final boolean ordered) {
+    return createConfig(Runtime.getRuntime().availableProcessors(), ordered);
+  }
+
+  public DecodingPipelineConfig {
+    if (queueCapacity < 1 || parseParallelism < 1 || decodeParallelism < 1 || (ordered && reorderWindow < 1)) {
+      throw new IllegalArgumentException("Queue capacity, parallelism and reorder window must be positive.");
+    }
+  }
+}
@@ -0,0 +1,10 @@
+package software.sava.solana.programs.decode;
+
+/// Receives the decoded instructions of a single [NativeProgram] from a [DecodingPipeline].
+@FunctionalInterface
+public interface InstructionSink {
+
+  /// @param sequence    position of the transaction in the submitted stream.
+  /// @param transaction view of the transaction, valid for the duration of the call.
+  void accept(final long sequence, final TransactionView transaction, final NativeInstruction instruction);
+}
@@ -0,0 +1,280 @@
+package software.sava.solana.programs.decode;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.programs.Discriminator;
+import software.sava.solana.programs.token.TokenProgram;
+
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+import static software.sava.core.encoding.ByteUtil.getInt32LE;
+import static software.sava.core.encoding.ByteUtil.getInt64LE;
+
+/// Instruction of a [NativeProgram] within a serialized transaction. Accounts and data are referenced in place.
+///
+/// Payloads of the System, Stake and Vote programs may be read with their instruction records, e.g.
+/// `SystemProgram.Transfer.read(data, dataOffset)`. The Token, Token-2022, Address Lookup Table, Compute Budget and
+/// Stake Pool programs have no such records, their payload fields are read with the typed accessors below, which
+/// throw an [IllegalStateException] if the instruction does not carry the field. Associated Token instructions carry
+/// no payload beyond their [#type()].
+///
+/// @param index         position of the instruction within the transaction.
+/// @param programIndex  transaction account index of the program id.
+/// @param type          the program's instruction enum constant, null if the program has no discriminators or the
+///                      discriminator is unknown.
+/// @param discriminator -1 if the program has no discriminators or the data is too short.
+public record NativeInstruction(byte[] data,
+                                int index,
+                                NativeProgram program,
+                                int programIndex,
+                                Discriminator type,
+                                int discriminator,
+                                int accountsOffset,
+                                int numAccounts,
+                                int dataOffset,
+                                int dataLength) {
+
+  /// Returns the transaction account index of an instruction account.
+  public int account(final int account) {
+    return data[accountsOffset + account] & 0xFF;
+  }
+
+  public boolean is(final Discriminator type) {
+    return this.type == type;
+  }
+
+  public byte[] copyData() {
+    final byte[] copy = new byte[dataLength];
+    System.arraycopy(data, dataOffset, copy, 0, dataLength);
+    return copy;
+  }
+
+  private IllegalStateException missing(final String field) {
+    return new IllegalStateException(String.format("%s %s instruction has no %s.", program, type, field));
+  }
+
+  /// @return the absolute offset of a payload field, after checking it is within the instruction data.
+  private int payload(final int offset, final int length, final String field) {
+    if (offset + length > dataLength) {
+      throw new IllegalStateException(String.format(
+          "%s %s instruction data of %d bytes is too short for its %s.", program, type, dataLength, field
+      ));
+    }
+    return dataOffset + offset;
+  }
+
+  private void requireProgram(final NativeProgram program, final String field) {
+    if (this.program != program) {
+      throw missing(field);
+    }
+  }
+
+  private boolean isTokenProgram() {
+    return program == NativeProgram.TOKEN || program == NativeProgram.TOKEN_2022;
+  }
+
+  private void requireTokenProgram(final String field) {
+    if (!isTokenProgram()) {
+      throw missing(field);
+    }
+  }
+
+  /// Optional public key encoded as a one byte tag followed by the key if present.
+  private PublicKey optionalPublicKey(final int offset, final String field) {
+    final int tag = payload(offset, 1, field);
+    return data[tag] == 0 ? null : PublicKey.readPubKey(data, payload(offset + 1, PUBLIC_KEY_LENGTH, field));
+  }
+
+  // Token and Token-2022, which share the discriminators of the base token instructions.
+
+  /// Amount of `Transfer`, `Approve`, `MintTo`, `Burn`, their checked variants and `AmountToUiAmount`.
+  public long tokenAmount() {
+    requireTokenProgram("amount");
+    return switch (discriminator) {
+      case 3, 4, 7, 8, 12, 13, 14, 15, 23 -> getInt64LE(data, payload(1, Long.BYTES, "amount"));
+      default -> throw missing("amount");
+    };
+  }
+
+  /// Decimals of `InitializeMint`, `InitializeMint2` and the checked instructions.
+  public int tokenDecimals() {
+    requireTokenProgram("decimals");
+    return switch (discriminator) {
+      case 0, 20 -> data[payload(1, 1, "decimals")] & 0xFF;
+      case 12, 13, 14, 15 -> data[payload(1 + Long.BYTES, 1, "decimals")] & 0xFF;
+      default -> throw missing("decimals");
+    };
+  }
+
+  /// Mint authority of `InitializeMint` and `InitializeMint2`.
+  public PublicKey tokenMintAuthority() {
+    requireTokenProgram("mint authority");
+    return switch (discriminator) {
+      case 0, 20 -> PublicKey.readPubKey(data, payload(2, PUBLIC_KEY_LENGTH, "mint authority"));
+      default -> throw missing("mint authority");
+    };
+  }
+
+  /// Freeze authority of `InitializeMint` and `InitializeMint2`, null if none.
+  public PublicKey tokenFreezeAuthority() {
+    requireTokenProgram("freeze authority");
+    return switch (discriminator) {
+      case 0, 20 -> optionalPublicKey(2 + PUBLIC_KEY_LENGTH, "freeze authority");
+      default -> throw missing("freeze authority");
+    };
+  }
+
+  /// Owner of `InitializeAccount2` and `InitializeAccount3`.
+  public PublicKey tokenOwner() {
+    requireTokenProgram("owner");
+    return switch (discriminator) {
+      case 16, 18 -> PublicKey.readPubKey(data, payload(1, PUBLIC_KEY_LENGTH, "owner"));
+      default -> throw missing("owner");
+    };
+  }
+
+  /// Number of required signers of `InitializeMultisig` and `InitializeMultisig2`.
+  public int tokenMultisigThreshold() {
+    requireTokenProgram("multisig threshold");
+    return switch (discriminator) {
+      case 2, 19 -> data[payload(1, 1, "multisig threshold")] & 0xFF;
+      default -> throw missing("multisig threshold");
+    };
+  }
+
+  public TokenProgram.AuthorityType tokenAuthorityType() {
+    requireTokenProgram("authority type");
+    if (discriminator != 6) { // SetAuthority
+      throw missing("authority type");
+    }
+    final int ordinal = data[payload(1, 1, "authority type")] & 0xFF;
+    final var authorityTypes = TokenProgram.AuthorityType.values();
+    return ordinal < authorityTypes.length ? authorityTypes[ordinal] : null;
+  }
+
+  /// New authority of `SetAuthority`, null if the authority is removed.
+  public PublicKey tokenNewAuthority() {
+    requireTokenProgram("new authority");
+    if (discriminator != 6) { // SetAuthority
+      throw missing("new authority");
+    }
+    return optionalPublicKey(2, "new authority");
+  }
+
+  // Compute Budget
+
+  public int requestedHeapFrame() {
+    requireProgram(NativeProgram.COMPUTE_BUDGET, "heap frame size");
+    if (discriminator != 1) { // RequestHeapFrame
+      throw missing("heap frame size");
+    }
+    return getInt32LE(data, payload(1, Integer.BYTES, "heap frame size"));
+  }
+
+  public int computeUnitLimit() {
+    requireProgram(NativeProgram.COMPUTE_BUDGET, "compute unit limit");
+    if (discriminator != 2) { // SetComputeUnitLimit
+      throw missing("compute unit limit");
+    }
+    return getInt32LE(data, payload(1, Integer.BYTES, "compute unit limit"));
+  }
+
+  public long computeUnitPrice() {
+    requireProgram(NativeProgram.COMPUTE_BUDGET, "compute unit price");
+    if (discriminator != 3) { // SetComputeUnitPrice
+      throw missing("compute unit price");
+    }
+    return getInt64LE(data, payload(1, Long.BYTES, "compute unit price"));
+  }
+
+  public int loadedAccountsDataSizeLimit() {
+    requireProgram(NativeProgram.COMPUTE_BUDGET, "loaded accounts data size limit");
+    if (discriminator != 4) { // SetLoadedAccountsDataSizeLimit
+      throw missing("loaded accounts data size limit");
+    }
+    return getInt32LE(data, payload(1, Integer.BYTES, "loaded accounts data size limit"));
+  }
+
+  // Address Lookup Table
+
+  /// Recent slot of `CreateLookupTable`.
+  public long lookupTableRecentSlot() {
+    requireProgram(NativeProgram.ADDRESS_LOOKUP_TABLE, "recent slot");
+    if (discriminator != 0) { // CreateLookupTable
+      throw missing("recent slot");
+    }
+    return getInt64LE(data, payload(Integer.BYTES, Long.BYTES, "recent slot"));
+  }
+
+  /// Bump seed of `CreateLookupTable`.
+  public int lookupTableBumpSeed() {
+    requireProgram(NativeProgram.ADDRESS_LOOKUP_TABLE, "bump seed");
+    if (discriminator != 0) { // CreateLookupTable
+      throw missing("bump seed");
+    }
+    return data[payload(Integer.BYTES + Long.BYTES, 1, "bump seed")] & 0xFF;
+  }
+
+  /// Number of addresses appended by `ExtendLookupTable`.
+  public int numLookupTableAddresses() {
+    requireProgram(NativeProgram.ADDRESS_LOOKUP_TABLE, "addresses");
+    if (discriminator != 2) { // ExtendLookupTable
+      throw missing("addresses");
+    }
+    final long numAddresses = getInt64LE(data, payload(Integer.BYTES, Long.BYTES, "addresses"));
+    if (numAddresses < 0 || numAddresses > (dataLength - Integer.BYTES - Long.BYTES) / PUBLIC_KEY_LENGTH) {
+      throw new IllegalStateException(String.format(
+          "%s %s instruction data of %d bytes is too short for %d addresses.", program, type, dataLength, numAddresses
+      ));
+    }
+    return (int) numAddresses;
+  }
+
+  /// Address appended by `ExtendLookupTable`.
+  public PublicKey lookupTableAddress(final int index) {
+    final int numAddresses = numLookupTableAddresses();
+    if (index < 0 || index >= numAddresses) {
+      throw new IndexOutOfBoundsException(index);
+    }
+    return PublicKey.readPubKey(data, dataOffset + Integer.BYTES + Long.BYTES + (index * PUBLIC_KEY_LENGTH));
+  }
+
+  // Stake Pool
+
+  /// Lamports of the validator stake management instructions, `DepositSol` and `DepositSolWithSlippage`.
+  public long stakePoolLamports() {
+    requireProgram(NativeProgram.STAKE_POOL, "lamports");
+    return switch (discriminator) {
+      // Decrease, Increase, DepositSol, IncreaseAdditional, DecreaseAdditional, DecreaseWithReserve, Redelegate and
+      // DepositSolWithSlippage.
+      case 3, 4, 14, 19, 20, 21, 22, 25 -> getInt64LE(data, payload(1, Long.BYTES, "lamports"));
+      default -> throw missing("lamports");
+    };
+  }
+
+  /// Pool tokens burned by `WithdrawStake`, `WithdrawSol` and their slippage variants.
+  public long stakePoolTokens() {
+    requireProgram(NativeProgram.STAKE_POOL, "pool tokens");
+    return switch (discriminator) {
+      case 10, 16, 24, 26 -> getInt64LE(data, payload(1, Long.BYTES, "pool tokens"));
+      default -> throw missing("pool tokens");
+    };
+  }
+
+  /// Minimum pool tokens or lamports out of the slippage checked deposit and withdraw instructions.
+  public long stakePoolMinimumOut() {
+    requireProgram(NativeProgram.STAKE_POOL, "minimum out");
+    return switch (discriminator) {
+      case 23 -> getInt64LE(data, payload(1, Long.BYTES, "minimum out"));
+      case 24, 25, 26 -> getInt64LE(data, payload(1 + Long.BYTES, Long.BYTES, "minimum out"));
+      default -> throw missing("minimum out");
+    };
+  }
+
+  /// Transient stake seed of the validator stake increase and decrease instructions.
+  public long stakePoolTransientStakeSeed() {
+    requireProgram(NativeProgram.STAKE_POOL, "transient stake seed");
+    return switch (discriminator) {
+      case 3, 4, 19, 20, 21 -> getInt64LE(data, payload(1 + Long.BYTES, Long.BYTES, "transient stake seed"));
+      default -> throw missing("transient stake seed");
+    };
+  }
+}
@@ -0,0 +1,192 @@
+package software.sava.solana.programs.decode;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.core.tx.TransactionSkeleton;
+import software.sava.solana.programs.stakepool.StakePoolAccounts;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+import static software.sava.core.encoding.ByteUtil.getInt32LE;
+import static software.sava.core.encoding.ByteUtil.getInt64LE;
+
+/// Decodes the instructions of the programs in [NativeProgram] from serialized transactions.
+///
+/// Program ids are resolved through an open addressing hash table keyed on the first eight bytes of the id, and each
+/// distinct program of a transaction is resolved only once, so instructions of unknown programs cost an array read.
+/// The SPL stake pool program and the Sanctum single and multi validator deployments of it decode as
+/// [NativeProgram#STAKE_POOL]. The SPL single validator stake pool program, `singleValidatorStakePoolProgram`, has a
+/// different interface and is not included.
+///
+/// The dispatch table is immutable, but a decoder re-uses its transaction view and program cache, use one per thread.
+public final class NativeInstructionDecoder {
+
+  private static final int UNRESOLVED = -2;
+  private static final int UNKNOWN = -1;
+  private static final NativeProgram[] PROGRAMS = NativeProgram.values();
+
+  private final long[] prefixes;
+  private final byte[][] keys;
+  private final NativeProgram[] programs;
+  private final int mask;
+  private final TransactionView transactionView;
+  private final int[] programCache;
+
+  private NativeInstructionDecoder(final long[] prefixes, final byte[][] keys, final NativeProgram[] programs) {
+    this.prefixes = prefixes;
+    this.keys = keys;
+    this.programs = programs;
+    this.mask = programs.length - 1;
+    this.transactionView = new TransactionView();
+    this.programCache = new int[TransactionView.MAX_STATIC_ACCOUNTS];
+  }
+
+  private static int hash(final long prefix) {
+    return (int) ((prefix * 0x9E3779B97F4A7C15L) >>> 32);
+  }
+
+  private static void put(final long[] prefixes,
+                          final byte[][] keys,
+                          final NativeProgram[] programs,
+                          final PublicKey programId,
+                          final NativeProgram program) {
+    final byte[] key = programId.toByteArray();
+    final long prefix = getInt64LE(key, 0);
+    final int mask = programs.length - 1;
+    for (int i = hash(prefix) & mask; ; i = (i + 1) & mask) {
+      if (programs[i] == null || Arrays.equals(keys[i], key)) {
+        prefixes[i] = prefix;
+        keys[i] = key;
+        programs[i] = program;
+        return;
+      }
+    }
+  }
+
+  public static NativeInstructionDecoder createDecoder(final SolanaAccounts solanaAccounts,
+                                                       final StakePoolAccounts stakePoolAccounts) {
+    final int capacity = 64;
+    final var prefixes = new long[capacity];
+    final var keys = new byte[capacity][];
+    final var programs = new NativeProgram[capacity];
+    put(prefixes, keys, programs, solanaAccounts.systemProgram(), NativeProgram.SYSTEM);
+    put(prefixes, keys, programs, solanaAccounts.stakeProgram(), NativeProgram.STAKE);
+    put(prefixes, keys, programs, solanaAccounts.voteProgram(), NativeProgram.VOTE);
+    put(prefixes, keys, programs, solanaAccounts.tokenProgram(), NativeProgram.TOKEN);
+    put(prefixes, keys, programs, solanaAccounts.token2022Program(), NativeProgram.TOKEN_2022);
+    put(prefixes, keys, programs, solanaAccounts.associatedTokenAccountProgram(), NativeProgram.ASSOCIATED_TOKEN);
+    put(prefixes, keys, programs, solanaAccounts.addressLookupTableProgram(), NativeProgram.ADDRESS_LOOKUP_TABLE);
+    put(prefixes, keys, programs, solanaAccounts.computeBudgetProgram(), NativeProgram.COMPUTE_BUDGET);
+    put(prefixes, keys, programs, solanaAccounts.memoProgram(), NativeProgram.MEMO);
+    put(prefixes, keys, programs, solanaAccounts.memoProgramV2(), NativeProgram.MEMO);
+    put(prefixes, keys, programs, solanaAccounts.ed25519Program(), NativeProgram.ED25519);
+    put(prefixes, keys, programs, stakePoolAccounts.stakePoolProgram(), NativeProgram.STAKE_POOL);
+    put(prefixes, keys, programs, stakePoolAccounts.sanctumMultiValidatorStakePoolProgram(), NativeProgram.STAKE_POOL);
+    put(prefixes, keys, programs, stakePoolAccounts.sanctumSingleValidatorStakePoolProgram(), NativeProgram.STAKE_POOL);
+    return new NativeInstructionDecoder(prefixes, keys, programs);
+  }
+
+  public static NativeInstructionDecoder createDecoder(final SolanaAccounts solanaAccounts) {
+    return createDecoder(solanaAccounts, StakePoolAccounts.MAIN_NET);
+  }
+
+  /// Returns a decoder sharing the dispatch table, for use by another thread.
+  public NativeInstructionDecoder copy() {
+    return new NativeInstructionDecoder(prefixes, keys, programs);
+  }
+
+  /// Resolves the program id at the given offset, or returns null if it is not supported.
+  public NativeProgram program(final byte[] data, final int offset) {
+    final long prefix = getInt64LE(data, offset);
+    for (int i = hash(prefix) & mask; ; i = (i + 1) & mask) {
+      final var program = programs[i];
+      if (program == null) {
+        return null;
+      } else if (prefixes[i] == prefix
+          && Arrays.equals(keys[i], 0, PUBLIC_KEY_LENGTH, data, offset, offset + PUBLIC_KEY_LENGTH)) {
+        return program;
+      }
+    }
+  }
+
+  public NativeProgram program(final PublicKey programId) {
+    return program(programId.toByteArray(), 0);
+  }
+
+  private static int discriminator(final NativeProgram program,
+                                   final byte[] data,
+                                   final int dataOffset,
+                                   final int dataLength) {
+    final int discriminatorLength = program.discriminatorLength();
+    if (discriminatorLength == 0) {
+      return -1;
+    } else if (dataLength == 0) {
+      return program == NativeProgram.ASSOCIATED_TOKEN ? 0 : -1;
+    } else if (discriminatorLength == 1) {
+      return data[dataOffset] & 0xFF;
+    } else {
+      return dataLength < discriminatorLength ? -1 : getInt32LE(data, dataOffset);
+    }
+  }
+
+  /// Passes each instruction of a supported program to the consumer, in order.
+  ///
+  /// @return the number of decoded instructions.
+  public int decode(final TransactionView transaction, final Consumer<NativeInstruction> consumer) {
+    final int numStaticAccounts = transaction.numStaticAccounts();
+    Arrays.fill(programCache, 0, numStaticAccounts, UNRESOLVED);
+    final byte[] data = transaction.data();
+    int numDecoded = 0;
+    for (int ix = 0, numInstructions = transaction.numInstructions(); ix < numInstructions; ++ix) {
+      final int programIndex = transaction.programIdIndex(ix);
+      if (programIndex >= numStaticAccounts) {
+        continue;
+      }
+      int cached = programCache[programIndex];
+      if (cached == UNRESOLVED) {
+        final var program = program(data, transaction.accountOffset(programIndex));
+        cached = program == null ? UNKNOWN : program.ordinal();
+        programCache[programIndex] = cached;
+      }
+      if (cached == UNKNOWN) {
+        continue;
+      }
+      final var program = PROGRAMS[cached];
+      final int dataOffset = transaction.instructionDataOffset(ix);
+      final int dataLength = transaction.instructionDataLength(ix);
+      final int discriminator = discriminator(program, data, dataOffset, dataLength);
+      consumer.accept(new NativeInstruction(
+          data,
+          ix,
+          program,
+          programIndex,
+          program.instruction(discriminator),
+          discriminator,
+          transaction.instructionAccountsOffset(ix),
+          transaction.numInstructionAccounts(ix),
+          dataOffset,
+          dataLength
+      ));
+      ++numDecoded;
+    }
+    return numDecoded;
+  }
+
+  public List<NativeInstruction> decode(final TransactionView transaction) {
+    final var instructions = new ArrayList<NativeInstruction>(transaction.numInstructions());
+    decode(transaction, instructions::add);
+    return instructions;
+  }
+
+  public List<NativeInstruction> decode(final byte[] serializedTransaction) {
+    return decode(transactionView.wrap(serializedTransaction));
+  }
+
+  public List<NativeInstruction> decode(final TransactionSkeleton skeleton) {
+    return decode(skeleton.data());
+  }
+}
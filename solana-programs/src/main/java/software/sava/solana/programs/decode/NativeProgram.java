@@ -0,0 +1,53 @@
+package software.sava.solana.programs.decode;
+
+import software.sava.core.programs.Discriminator;
+import software.sava.solana.programs.address_lookup_table.AddressLookupTableProgram;
+import software.sava.solana.programs.compute_budget.ComputeBudgetProgram;
+import software.sava.solana.programs.stake.StakeProgram;
+import software.sava.solana.programs.stakepool.StakePoolProgram;
+import software.sava.solana.programs.system.SystemProgram;
+import software.sava.solana.programs.token.AssociatedTokenProgram;
+import software.sava.solana.programs.token.Token2022Program;
+import software.sava.solana.programs.token.TokenProgram;
+import software.sava.solana.programs.vote.VoteProgram;
+
+/// Programs supported by [NativeInstructionDecoder], along with how their instructions are discriminated.
+public enum NativeProgram {
+
+  SYSTEM(Integer.BYTES, SystemProgram.Instructions.values()),
+  STAKE(Integer.BYTES, StakeProgram.Instructions.values()),
+  VOTE(Integer.BYTES, VoteProgram.Instructions.values()),
+  TOKEN(1, TokenProgram.TokenInstruction.values()),
+  TOKEN_2022(1, Token2022Program.TokenInstruction.values()),
+  // Empty instruction data is the legacy form of Create.
+  ASSOCIATED_TOKEN(1, AssociatedTokenProgram.Instructions.values()),
+  ADDRESS_LOOKUP_TABLE(Integer.BYTES, AddressLookupTableProgram.Instructions.values()),
+  COMPUTE_BUDGET(1, ComputeBudgetProgram.Instructions.values()),
+  // Instruction data is the UTF-8 memo.
+  MEMO(0, new Discriminator[0]),
+  // The first byte of the instruction data is the number of signatures.
+  ED25519(0, new Discriminator[0]),
+  STAKE_POOL(1, StakePoolProgram.Instructions.values());
+
+  private final int discriminatorLength;
+  private final Discriminator[] instructions;
+
+  NativeProgram(final int discriminatorLength, final Discriminator[] instructions) {
+    this.discriminatorLength = discriminatorLength;
+    this.instructions = instructions;
+  }
+
+  /// 0 if the program does not use instruction discriminators, otherwise 1 or 4 bytes.
+  public int discriminatorLength() {
+    return discriminatorLength;
+  }
+
+  public int numInstructions() {
+    return instructions.length;
+  }
+
+  /// Returns null if the discriminator is unknown.
+  public Discriminator instruction(final int discriminator) {
+    return discriminator >= 0 && discriminator < instructions.length ? instructions[discriminator] : null;
+  }
+}
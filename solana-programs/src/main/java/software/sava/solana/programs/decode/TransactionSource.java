@@ -0,0 +1,48 @@
+package software.sava.solana.programs.decode;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+
+/// Sequential source of serialized transactions, e.g. a recorded block stream which is replayed for benchmarking.
+public interface TransactionSource extends Closeable {
+
+  /// Reads transactions prefixed with their length as a little endian `u16`, as written by [#writeBinary].
+  static TransactionSource binary(final InputStream in) {
+    return new BinaryTransactionSource(new BufferedInputStream(in, 1 << 16));
+  }
+
+  static TransactionSource binary(final Path file) throws IOException {
+    return binary(Files.newInputStream(file));
+  }
+
+  /// Reads one base64 encoded transaction per line, blank lines are skipped.
+  static TransactionSource base64Lines(final Reader reader) {
+    return new Base64LineTransactionSource(new BufferedReader(reader, 1 << 16));
+  }
+
+  static TransactionSource base64Lines(final Path file) throws IOException {
+    return base64Lines(Files.newBufferedReader(file, StandardCharsets.US_ASCII));
+  }
+
+  static void writeBinary(final OutputStream out, final Collection<byte[]> serializedTransactions) throws IOException {
+    final var buffered = new BufferedOutputStream(out, 1 << 16);
+    for (final byte[] serializedTransaction : serializedTransactions) {
+      buffered.write(serializedTransaction.length & 0xFF);
+      buffered.write(serializedTransaction.length >>> 8);
+      buffered.write(serializedTransaction);
+    }
+    buffered.flush();
+  }
+
+  static void writeBinary(final Path file, final Collection<byte[]> serializedTransactions) throws IOException {
+    try (final var out = Files.newOutputStream(file)) {
+      writeBinary(out, serializedTransactions);
+    }
+  }
+
+  /// @return the next serialized transaction, or null once the source is exhausted.
+  byte[] next() throws IOException;
+}
@@ -0,0 +1,317 @@
+package software.sava.solana.programs.decode;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.tx.TransactionSkeleton;
+
+import java.util.Arrays;
+
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+
+/// Reusable zero-copy view over the layout of a serialized legacy or v0 transaction.
+///
+/// Wrapping a transaction records the offsets of each section and instruction, no keys or instruction data are
+/// copied. A view may be re-wrapped around other transactions, its offset arrays are only re-allocated to fit
+/// transactions with more instructions than any seen before, which makes decoding loops allocation free.
+///
+/// This complements `TransactionSkeleton` rather than wrapping it: a skeleton is allocated per transaction and
+/// materializes `Instruction` objects with their account lists, while this view keeps only primitive offsets into the
+/// caller's buffer. [#view(TransactionSkeleton)] wraps the skeleton's serialized data.
+///
+/// Account indexes at or beyond [#numStaticAccounts()] refer to addresses loaded from lookup tables, writable
+/// addresses first, in the order the tables are listed.
+///
+/// https://solana.com/docs/core/transactions#transaction-size
+public final class TransactionView {
+
+  public static final int SIGNATURE_LENGTH = 64;
+  public static final int BLOCKHASH_LENGTH = 32;
+  /// Static accounts beyond this cannot be referenced by the single byte account indexes of instructions.
+  public static final int MAX_STATIC_ACCOUNTS = 256;
+
+  private byte[] data;
+  private int offset;
+  private int length;
+
+  private int numSignatures;
+  private int messageOffset;
+  private boolean versioned;
+  private int numRequiredSignatures;
+  private int numReadonlySignedAccounts;
+  private int numReadonlyUnsignedAccounts;
+  private int numStaticAccounts;
+  private int accountsOffset;
+  private int blockhashOffset;
+
+  private int numInstructions;
+  private int[] programIdIndexes;
+  private int[] instructionAccountsOffsets;
+  private int[] instructionNumAccounts;
+  private int[] instructionDataOffsets;
+  private int[] instructionDataLengths;
+
+  private int numLookupTables;
+  private int lookupTablesOffset;
+  private int numWritableLookups;
+  private int numReadonlyLookups;
+  private int messageEnd;
+
+  private int position;
+
+  public TransactionView() {
+    this.programIdIndexes = new int[8];
+    this.instructionAccountsOffsets = new int[8];
+    this.instructionNumAccounts = new int[8];
+    this.instructionDataOffsets = new int[8];
+    this.instructionDataLengths = new int[8];
+  }
+
+  public static TransactionView view(final byte[] data, final int offset, final int length) {
+    return new TransactionView().wrap(data, offset, length);
+  }
+
+  public static TransactionView view(final byte[] data) {
+    return view(data, 0, data.length);
+  }
+
+  public static TransactionView view(final TransactionSkeleton skeleton) {
+    return view(skeleton.data());
+  }
+
+  private int readCompactU16() {
+    final int encoded = CompactU16.read(data, position, offset + length);
+    if (encoded == CompactU16.INVALID) {
+      throw new IllegalArgumentException("Malformed or truncated compact-u16 at offset " + position + ".");
+    }
+    position += CompactU16.length(encoded);
+    return CompactU16.value(encoded);
+  }
+
+  private void ensureInstructionCapacity(final int numInstructions) {
+    if (numInstructions > programIdIndexes.length) {
+      final int capacity = Math.max(numInstructions, programIdIndexes.length << 1);
+      programIdIndexes = Arrays.copyOf(programIdIndexes, capacity);
+      instructionAccountsOffsets = Arrays.copyOf(instructionAccountsOffsets, capacity);
+      instructionNumAccounts = Arrays.copyOf(instructionNumAccounts, capacity);
+      instructionDataOffsets = Arrays.copyOf(instructionDataOffsets, capacity);
+      instructionDataLengths = Arrays.copyOf(instructionDataLengths, capacity);
+    }
+  }
+
+  /// @throws IllegalArgumentException if the data does not hold a complete transaction, or its lengths are malformed.
+  public TransactionView wrap(final byte[] data, final int offset, final int length) {
+    this.data = data;
+    this.offset = offset;
+    this.length = length;
+    this.position = offset;
+    final int end = offset + length;
+    try {
+      numSignatures = readCompactU16();
+      position += numSignatures * SIGNATURE_LENGTH;
+      messageOffset = position;
+      versioned = (data[position] & 0x80) != 0;
+      if (versioned) {
+        ++position;
+      }
+      numRequiredSignatures = data[position++] & 0xFF;
+      numReadonlySignedAccounts = data[position++] & 0xFF;
+      numReadonlyUnsignedAccounts = data[position++] & 0xFF;
+      numStaticAccounts = readCompactU16();
+      if (numStaticAccounts > MAX_STATIC_ACCOUNTS) {
+        throw new IllegalArgumentException(String.format(
+            "%d static accounts exceeds the maximum of %d.", numStaticAccounts, MAX_STATIC_ACCOUNTS
+        ));
+      }
+      accountsOffset = position;
+      position += numStaticAccounts * PUBLIC_KEY_LENGTH;
+      blockhashOffset = position;
+      position += BLOCKHASH_LENGTH;
+
+      numInstructions = readCompactU16();
+      ensureInstructionCapacity(numInstructions);
+      for (int i = 0; i < numInstructions; ++i) {
+        programIdIndexes[i] = data[position++] & 0xFF;
+        instructionNumAccounts[i] = readCompactU16();
+        instructionAccountsOffsets[i] = position;
+        position += instructionNumAccounts[i];
+        instructionDataLengths[i] = readCompactU16();
+        instructionDataOffsets[i] = position;
+        position += instructionDataLengths[i];
+      }
+
+      numWritableLookups = 0;
+      numReadonlyLookups = 0;
+      if (versioned) {
+        numLookupTables = readCompactU16();
+        lookupTablesOffset = position;
+        for (int t = 0; t < numLookupTables; ++t) {
+          position += PUBLIC_KEY_LENGTH;
+          final int numWritable = readCompactU16();
+          numWritableLookups += numWritable;
+          position += numWritable;
+          final int numReadonly = readCompactU16();
+          numReadonlyLookups += numReadonly;
+          position += numReadonly;
+        }
+      } else {
+        numLookupTables = 0;
+        lookupTablesOffset = position;
+      }
+      messageEnd = position;
+    } catch (final ArrayIndexOutOfBoundsException e) {
+      throw new IllegalArgumentException("Truncated transaction.", e);
+    }
+    if (messageEnd > end) {
+      throw new IllegalArgumentException("Truncated transaction.");
+    }
+    return this;
+  }
+
+  public TransactionView wrap(final byte[] data) {
+    return wrap(data, 0, data.length);
+  }
+
+  public byte[] data() {
+    return data;
+  }
+
+  public int offset() {
+    return offset;
+  }
+
+  public int length() {
+    return length;
+  }
+
+  public int numSignatures() {
+    return numSignatures;
+  }
+
+  public int signatureOffset(final int index) {
+    return messageOffset - ((numSignatures - index) * SIGNATURE_LENGTH);
+  }
+
+  public int messageOffset() {
+    return messageOffset;
+  }
+
+  public int messageLength() {
+    return messageEnd - messageOffset;
+  }
+
+  public boolean versioned() {
+    return versioned;
+  }
+
+  public int numRequiredSignatures() {
+    return numRequiredSignatures;
+  }
+
+  public int numReadonlySignedAccounts() {
+    return numReadonlySignedAccounts;
+  }
+
+  public int numReadonlyUnsignedAccounts() {
+    return numReadonlyUnsignedAccounts;
+  }
+
+  public int numStaticAccounts() {
+    return numStaticAccounts;
+  }
+
+  public int numAccounts() {
+    return numStaticAccounts + numWritableLookups + numReadonlyLookups;
+  }
+
+  public int accountsOffset() {
+    return accountsOffset;
+  }
+
+  /// Offset of a static account key, or -1 if the account is loaded from a lookup table.
+  public int accountOffset(final int accountIndex) {
+    return accountIndex < numStaticAccounts ? accountsOffset + (accountIndex * PUBLIC_KEY_LENGTH) : -1;
+  }
+
+  /// Returns null if the account is loaded from a lookup table.
+  public PublicKey account(final int accountIndex) {
+    return accountIndex < numStaticAccounts ? PublicKey.readPubKey(data, accountOffset(accountIndex)) : null;
+  }
+
+  public boolean accountEquals(final int accountIndex, final byte[] publicKey) {
+    if (accountIndex >= numStaticAccounts) {
+      return false;
+    }
+    final int from = accountOffset(accountIndex);
+    return Arrays.equals(data, from, from + PUBLIC_KEY_LENGTH, publicKey, 0, PUBLIC_KEY_LENGTH);
+  }
+
+  public boolean isSigner(final int accountIndex) {
+    return accountIndex < numRequiredSignatures;
+  }
+
+  public boolean isWritable(final int accountIndex) {
+    if (accountIndex < numRequiredSignatures) {
+      return accountIndex < numRequiredSignatures - numReadonlySignedAccounts;
+    } else if (accountIndex < numStaticAccounts) {
+      return accountIndex < numStaticAccounts - numReadonlyUnsignedAccounts;
+    } else {
+      return accountIndex < numStaticAccounts + numWritableLookups;
+    }
+  }
+
+  public int blockhashOffset() {
+    return blockhashOffset;
+  }
+
+  public int numInstructions() {
+    return numInstructions;
+  }
+
+  public int programIdIndex(final int instruction) {
+    return programIdIndexes[instruction];
+  }
+
+  public boolean programIdEquals(final int instruction, final byte[] programId) {
+    return accountEquals(programIdIndexes[instruction], programId);
+  }
+
+  public PublicKey programId(final int instruction) {
+    return account(programIdIndexes[instruction]);
+  }
+
+  public int numInstructionAccounts(final int instruction) {
+    return instructionNumAccounts[instruction];
+  }
+
+  public int instructionAccountsOffset(final int instruction) {
+    return instructionAccountsOffsets[instruction];
+  }
+
+  /// Returns the transaction account index of the instruction account.
+  public int instructionAccount(final int instruction, final int account) {
+    return data[instructionAccountsOffsets[instruction] + account] & 0xFF;
+  }
+
+  public int instructionDataOffset(final int instruction) {
+    return instructionDataOffsets[instruction];
+  }
+
+  public int instructionDataLength(final int instruction) {
+    return instructionDataLengths[instruction];
+  }
+
+  public int numLookupTables() {
+    return numLookupTables;
+  }
+
+  public int lookupTablesOffset() {
+    return lookupTablesOffset;
+  }
+
+  public int numWritableLookups() {
+    return numWritableLookups;
+  }
+
+  public int numReadonlyLookups() {
+    return numReadonlyLookups;
+  }
+}
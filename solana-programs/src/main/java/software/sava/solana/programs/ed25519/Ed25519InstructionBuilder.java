@@ -0,0 +1,162 @@
+package software.sava.solana.programs.ed25519;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.core.tx.Instruction;
+import software.sava.solana.programs.clients.TransactionSizeCalculator;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+import static software.sava.core.accounts.meta.AccountMeta.createInvoked;
+import static software.sava.solana.programs.clients.TransactionSizeCalculator.PACKET_DATA_SIZE;
+import static software.sava.solana.programs.ed25519.Ed25519SignatureOffsets.CURRENT_INSTRUCTION;
+import static software.sava.solana.programs.ed25519.Ed25519SignedMessage.SIGNATURE_LENGTH;
+
+/// Packs signed messages into Ed25519 program instructions which reference their own data.
+///
+/// Within an instruction each distinct public key and message is written once and shared by the offsets of every
+/// signature referencing it. A new instruction is started whenever the next signature would exceed the data length
+/// limit or the 255 signatures an instruction can hold.
+public final class Ed25519InstructionBuilder {
+
+  public static final int MAX_SIGNATURES_PER_INSTRUCTION = 0xFF;
+
+  private static final int HEADER_LENGTH = 2;
+
+  private Ed25519InstructionBuilder() {
+  }
+
+  /// Largest instruction data which still fits in the transaction tracked by the calculator, or a negative value if
+  /// not even an empty Ed25519 instruction fits. The calculator state is left unchanged.
+  public static int maxDataLength(final SolanaAccounts solanaAccounts, final TransactionSizeCalculator calculator) {
+    calculator.checkpoint();
+    try {
+      calculator.add(Instruction.createInstruction(createInvoked(solanaAccounts.ed25519Program()), List.of(), new byte[0]));
+      final int available = PACKET_DATA_SIZE - calculator.size();
+      // The data length prefix grows from one to two bytes past 127 bytes of data.
+      return available > 0x7F ? available - 1 : available;
+    } finally {
+      calculator.rollback();
+    }
+  }
+
+  /// Data length of an instruction holding a single signature, the minimum `maxDataLength` for the message.
+  public static int dataLength(final Ed25519SignedMessage signedMessage) {
+    return HEADER_LENGTH + Ed25519SignatureOffsets.BYTES + SIGNATURE_LENGTH + PUBLIC_KEY_LENGTH
+        + signedMessage.message().length;
+  }
+
+  private static final class Batch {
+
+    private final List<Ed25519SignedMessage> signedMessages = new ArrayList<>();
+    private final Map<PublicKey, Integer> publicKeys = new HashMap<>();
+    private final Map<ByteBuffer, Integer> messages = new HashMap<>();
+    private int payloadLength;
+
+    private int dataLength() {
+      return HEADER_LENGTH + (signedMessages.size() * Ed25519SignatureOffsets.BYTES) + payloadLength;
+    }
+
+    private int additionalLength(final Ed25519SignedMessage signedMessage) {
+      return Ed25519SignatureOffsets.BYTES + SIGNATURE_LENGTH
+          + (publicKeys.containsKey(signedMessage.publicKey()) ? 0 : PUBLIC_KEY_LENGTH)
+          + (messages.containsKey(ByteBuffer.wrap(signedMessage.message())) ? 0 : signedMessage.message().length);
+    }
+
+    private void add(final Ed25519SignedMessage signedMessage) {
+      signedMessages.add(signedMessage);
+      payloadLength += SIGNATURE_LENGTH;
+      if (publicKeys.putIfAbsent(signedMessage.publicKey(), 0) == null) {
+        payloadLength += PUBLIC_KEY_LENGTH;
+      }
+      if (messages.putIfAbsent(ByteBuffer.wrap(signedMessage.message()), 0) == null) {
+        payloadLength += signedMessage.message().length;
+      }
+    }
+
+    private byte[] serialize() {
+      final byte[] data = new byte[dataLength()];
+      final int numSignatures = signedMessages.size();
+      data[0] = (byte) numSignatures;
+      int i = HEADER_LENGTH + (numSignatures * Ed25519SignatureOffsets.BYTES);
+      publicKeys.clear();
+      messages.clear();
+      for (int s = 0; s < numSignatures; ++s) {
+        final var signedMessage = signedMessages.get(s);
+        final int signatureOffset = i;
+        System.arraycopy(signedMessage.signature(), 0, data, i, SIGNATURE_LENGTH);
+        i += SIGNATURE_LENGTH;
+
+        Integer publicKeyOffset = publicKeys.get(signedMessage.publicKey());
+        if (publicKeyOffset == null) {
+          publicKeyOffset = i;
+          publicKeys.put(signedMessage.publicKey(), i);
+          i += signedMessage.publicKey().write(data, i);
+        }
+
+        final byte[] message = signedMessage.message();
+        final var messageKey = ByteBuffer.wrap(message);
+        Integer messageOffset = messages.get(messageKey);
+        if (messageOffset == null) {
+          messageOffset = i;
+          messages.put(messageKey, i);
+          System.arraycopy(message, 0, data, i, message.length);
+          i += message.length;
+        }
+
+        new Ed25519SignatureOffsets(
+            signatureOffset, CURRENT_INSTRUCTION,
+            publicKeyOffset, CURRENT_INSTRUCTION,
+            messageOffset, message.length, CURRENT_INSTRUCTION
+        ).write(data, HEADER_LENGTH + (s * Ed25519SignatureOffsets.BYTES));
+      }
+      return data;
+    }
+  }
+
+  /// @param maxDataLength limit on the data length of each instruction, see [#maxDataLength].
+  /// @throws IllegalArgumentException if a single signed message exceeds `maxDataLength`.
+  public static List<Instruction> createInstructions(final SolanaAccounts solanaAccounts,
+                                                     final List<Ed25519SignedMessage> signedMessages,
+                                                     final int maxDataLength) {
+    final int limit = Math.min(maxDataLength, 0xFFFF);
+    final var instructions = new ArrayList<Instruction>();
+    var batch = new Batch();
+    for (final var signedMessage : signedMessages) {
+      final int additionalLength = batch.additionalLength(signedMessage);
+      if (batch.signedMessages.size() == MAX_SIGNATURES_PER_INSTRUCTION
+          || batch.dataLength() + additionalLength > limit) {
+        if (batch.signedMessages.isEmpty() || dataLength(signedMessage) > limit) {
+          throw new IllegalArgumentException(String.format(
+              "Signed message of %d bytes exceeds the instruction data limit of %d bytes.",
+              signedMessage.message().length, limit
+          ));
+        }
+        instructions.add(createInstruction(solanaAccounts, batch));
+        batch = new Batch();
+      }
+      batch.add(signedMessage);
+    }
+    if (!batch.signedMessages.isEmpty()) {
+      instructions.add(createInstruction(solanaAccounts, batch));
+    }
+    return instructions;
+  }
+
+  private static Instruction createInstruction(final SolanaAccounts solanaAccounts, final Batch batch) {
+    return Instruction.createInstruction(createInvoked(solanaAccounts.ed25519Program()), List.of(), batch.serialize());
+  }
+
+  /// Packs all signed messages into as few instructions as a transaction with only a fee payer allows.
+  public static List<Instruction> createInstructions(final SolanaAccounts solanaAccounts,
+                                                     final PublicKey feePayer,
+                                                     final List<Ed25519SignedMessage> signedMessages) {
+    final var calculator = TransactionSizeCalculator.createCalculator(feePayer);
+    return createInstructions(solanaAccounts, signedMessages, maxDataLength(solanaAccounts, calculator));
+  }
+}
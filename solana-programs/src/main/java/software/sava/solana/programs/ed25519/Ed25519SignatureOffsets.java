@@ -11,25 +11,27 @@ public record Ed25519SignatureOffsets(int signatureOffset,
                                       int messageInstructionIndex) {
 
   public static final int BYTES = 14;
+  /// Instruction index referring to the Ed25519 instruction itself.
+  public static final int CURRENT_INSTRUCTION = 0xFFFF;
 
   public static Ed25519SignatureOffsets read(final byte[] data, final int offset) {
     if (data == null || data.length == 0) {
       return null;
     }
     int i = offset;
-    final int signatureOffset = ByteUtil.getInt16LE(data, i);
+    final int signatureOffset = ByteUtil.getInt16LE(data, i) & 0xFFFF;
     i += 2;
-    final int signatureInstructionIndex = ByteUtil.getInt16LE(data, i);
+    final int signatureInstructionIndex = ByteUtil.getInt16LE(data, i) & 0xFFFF;
     i += 2;
-    final int publicKeyOffset = ByteUtil.getInt16LE(data, i);
+    final int publicKeyOffset = ByteUtil.getInt16LE(data, i) & 0xFFFF;
     i += 2;
-    final int publicKeyInstructionIndex = ByteUtil.getInt16LE(data, i);
+    final int publicKeyInstructionIndex = ByteUtil.getInt16LE(data, i) & 0xFFFF;
     i += 2;
-    final int messageDataOffset = ByteUtil.getInt16LE(data, i);
+    final int messageDataOffset = ByteUtil.getInt16LE(data, i) & 0xFFFF;
     i += 2;
-    final int messageDataSize = ByteUtil.getInt16LE(data, i);
+    final int messageDataSize = ByteUtil.getInt16LE(data, i) & 0xFFFF;
     i += 2;
-    final int messageInstructionIndex = ByteUtil.getInt16LE(data, i);
+    final int messageInstructionIndex = ByteUtil.getInt16LE(data, i) & 0xFFFF;
     return new Ed25519SignatureOffsets(
         signatureOffset,
         signatureInstructionIndex,
@@ -55,4 +57,22 @@ public record Ed25519SignatureOffsets(int signatureOffset,
     }
     return signatures;
   }
+
+  public int write(final byte[] data, final int offset) {
+    int i = offset;
+    ByteUtil.putInt16LE(data, i, signatureOffset);
+    i += 2;
+    ByteUtil.putInt16LE(data, i, signatureInstructionIndex);
+    i += 2;
+    ByteUtil.putInt16LE(data, i, publicKeyOffset);
+    i += 2;
+    ByteUtil.putInt16LE(data, i, publicKeyInstructionIndex);
+    i += 2;
+    ByteUtil.putInt16LE(data, i, messageDataOffset);
+    i += 2;
+    ByteUtil.putInt16LE(data, i, messageDataSize);
+    i += 2;
+    ByteUtil.putInt16LE(data, i, messageInstructionIndex);
+    return BYTES;
+  }
 }
@@ -0,0 +1,15 @@
+package software.sava.solana.programs.ed25519;
+
+import software.sava.core.accounts.PublicKey;
+
+/// A message signed off-chain, to be verified by the Ed25519 program.
+public record Ed25519SignedMessage(PublicKey publicKey, byte[] signature, byte[] message) {
+
+  public static final int SIGNATURE_LENGTH = 64;
+
+  public Ed25519SignedMessage {
+    if (signature.length != SIGNATURE_LENGTH) {
+      throw new IllegalArgumentException("Ed25519 signatures must be 64 bytes.");
+    }
+  }
+}
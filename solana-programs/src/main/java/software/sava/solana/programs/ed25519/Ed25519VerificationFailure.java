@@ -0,0 +1,17 @@
+package software.sava.solana.programs.ed25519;
+
+/// @param instructionIndex index of the Ed25519 instruction in its transaction.
+/// @param signatureIndex   index of the offsets entry within the instruction, -1 if the instruction header is invalid.
+public record Ed25519VerificationFailure(int instructionIndex, int signatureIndex, Reason reason) {
+
+  public enum Reason {
+
+    /// The instruction data is too short for its header or offsets.
+    MALFORMED_INSTRUCTION,
+    /// An offsets entry references an instruction which does not exist.
+    INVALID_INSTRUCTION_INDEX,
+    /// A public key, signature or message slice exceeds the data of the referenced instruction.
+    OFFSET_OUT_OF_BOUNDS,
+    INVALID_SIGNATURE
+  }
+}
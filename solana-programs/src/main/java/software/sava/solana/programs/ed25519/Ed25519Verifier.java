@@ -0,0 +1,142 @@
+package software.sava.solana.programs.ed25519;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.core.tx.TransactionSkeleton;
+import software.sava.solana.programs.decode.TransactionView;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+import static software.sava.core.encoding.ByteUtil.getInt16LE;
+import static software.sava.solana.programs.ed25519.Ed25519SignatureOffsets.CURRENT_INSTRUCTION;
+import static software.sava.solana.programs.ed25519.Ed25519SignedMessage.SIGNATURE_LENGTH;
+
+/// Checks locally that every Ed25519 program instruction of a transaction would succeed.
+///
+/// Offsets entries are resolved against the instruction data within the serialized transaction, following the
+/// Ed25519 program: an instruction index of `u16::MAX` refers to the Ed25519 instruction itself. Public keys and
+/// messages are verified in place, only the 64 byte signatures are copied. Entries are verified in parallel once a
+/// transaction holds more than one.
+public final class Ed25519Verifier {
+
+  private static final int HEADER_LENGTH = 2;
+
+  private final byte[] ed25519Program;
+
+  private Ed25519Verifier(final byte[] ed25519Program) {
+    this.ed25519Program = ed25519Program;
+  }
+
+  public static Ed25519Verifier createVerifier(final SolanaAccounts solanaAccounts) {
+    return new Ed25519Verifier(solanaAccounts.ed25519Program().toByteArray());
+  }
+
+  /// @return the absolute offset of the slice, or -1 if it is out of bounds.
+  private static int resolve(final TransactionView transaction,
+                             final int currentInstruction,
+                             final int instructionIndex,
+                             final int offset,
+                             final int length) {
+    final int ix = instructionIndex == CURRENT_INSTRUCTION ? currentInstruction : instructionIndex;
+    return offset + length > transaction.instructionDataLength(ix)
+        ? -1
+        : transaction.instructionDataOffset(ix) + offset;
+  }
+
+  private static boolean validIndex(final TransactionView transaction, final int instructionIndex) {
+    return instructionIndex == CURRENT_INSTRUCTION || instructionIndex < transaction.numInstructions();
+  }
+
+  /// @return an empty list if every Ed25519 instruction verifies.
+  public List<Ed25519VerificationFailure> verify(final TransactionView transaction) {
+    final byte[] data = transaction.data();
+    final var failures = new ArrayList<Ed25519VerificationFailure>();
+    // Resolved entries: instruction, signature index, public key, signature and message offsets, message length.
+    int[] entries = new int[0];
+    int numEntries = 0;
+    for (int ix = 0, numInstructions = transaction.numInstructions(); ix < numInstructions; ++ix) {
+      if (!transaction.programIdEquals(ix, ed25519Program)) {
+        continue;
+      }
+      final int dataOffset = transaction.instructionDataOffset(ix);
+      final int dataLength = transaction.instructionDataLength(ix);
+      if (dataLength < HEADER_LENGTH) {
+        failures.add(new Ed25519VerificationFailure(ix, -1, Ed25519VerificationFailure.Reason.MALFORMED_INSTRUCTION));
+        continue;
+      }
+      final int numSignatures = data[dataOffset] & 0xFF;
+      if (numSignatures == 0) {
+        // Like the Ed25519 program, a bare header without signatures is valid.
+        if (dataLength > HEADER_LENGTH) {
+          failures.add(new Ed25519VerificationFailure(ix, -1, Ed25519VerificationFailure.Reason.MALFORMED_INSTRUCTION));
+        }
+        continue;
+      }
+      if (HEADER_LENGTH + (numSignatures * Ed25519SignatureOffsets.BYTES) > dataLength) {
+        failures.add(new Ed25519VerificationFailure(ix, -1, Ed25519VerificationFailure.Reason.MALFORMED_INSTRUCTION));
+        continue;
+      }
+      if ((numEntries + numSignatures) * 6 > entries.length) {
+        entries = Arrays.copyOf(entries, Math.max((numEntries + numSignatures) * 6, entries.length << 1));
+      }
+      for (int s = 0, o = dataOffset + HEADER_LENGTH; s < numSignatures; ++s, o += Ed25519SignatureOffsets.BYTES) {
+        final int signatureOffset = getInt16LE(data, o) & 0xFFFF;
+        final int signatureIx = getInt16LE(data, o + 2) & 0xFFFF;
+        final int publicKeyOffset = getInt16LE(data, o + 4) & 0xFFFF;
+        final int publicKeyIx = getInt16LE(data, o + 6) & 0xFFFF;
+        final int messageOffset = getInt16LE(data, o + 8) & 0xFFFF;
+        final int messageLength = getInt16LE(data, o + 10) & 0xFFFF;
+        final int messageIx = getInt16LE(data, o + 12) & 0xFFFF;
+        if (!validIndex(transaction, signatureIx)
+            || !validIndex(transaction, publicKeyIx)
+            || !validIndex(transaction, messageIx)) {
+          failures.add(new Ed25519VerificationFailure(ix, s, Ed25519VerificationFailure.Reason.INVALID_INSTRUCTION_INDEX));
+          continue;
+        }
+        final int signature = resolve(transaction, ix, signatureIx, signatureOffset, SIGNATURE_LENGTH);
+        final int publicKey = resolve(transaction, ix, publicKeyIx, publicKeyOffset, PUBLIC_KEY_LENGTH);
+        final int message = resolve(transaction, ix, messageIx, messageOffset, messageLength);
+        if (signature < 0 || publicKey < 0 || message < 0) {
+          failures.add(new Ed25519VerificationFailure(ix, s, Ed25519VerificationFailure.Reason.OFFSET_OUT_OF_BOUNDS));
+          continue;
+        }
+        final int e = numEntries * 6;
+        entries[e] = ix;
+        entries[e + 1] = s;
+        entries[e + 2] = publicKey;
+        entries[e + 3] = signature;
+        entries[e + 4] = message;
+        entries[e + 5] = messageLength;
+        ++numEntries;
+      }
+    }
+
+    final int[] resolved = entries;
+    var range = IntStream.range(0, numEntries);
+    if (numEntries > 1) {
+      range = range.parallel();
+    }
+    range.filter(entry -> {
+          final int e = entry * 6;
+          final int signatureOffset = resolved[e + 3];
+          final byte[] signature = Arrays.copyOfRange(data, signatureOffset, signatureOffset + SIGNATURE_LENGTH);
+          return !PublicKey.verifySignature(data, resolved[e + 2], data, resolved[e + 4], resolved[e + 5], signature);
+        })
+        .forEachOrdered(entry -> failures.add(new Ed25519VerificationFailure(
+            resolved[entry * 6], resolved[(entry * 6) + 1], Ed25519VerificationFailure.Reason.INVALID_SIGNATURE
+        )));
+    return failures;
+  }
+
+  public List<Ed25519VerificationFailure> verify(final byte[] serializedTransaction) {
+    return verify(TransactionView.view(serializedTransaction));
+  }
+
+  public List<Ed25519VerificationFailure> verify(final TransactionSkeleton skeleton) {
+    return verify(TransactionView.view(skeleton));
+  }
+}
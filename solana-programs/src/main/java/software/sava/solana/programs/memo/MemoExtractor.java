@@ -0,0 +1,108 @@
+package software.sava.solana.programs.memo;
+
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.solana.programs.decode.TransactionView;
+
+/// Finds Memo v1 and v2 instructions in serialized transactions and validates their UTF-8 in place.
+///
+/// Memos which are not valid UTF-8 would fail on-chain and are skipped. Instances are immutable and may be shared.
+public final class MemoExtractor {
+
+  /// Receives a memo as a slice of the transaction data, valid for the duration of the call.
+  @FunctionalInterface
+  public interface MemoConsumer {
+
+    /// @param signatureOffset offset of the first signature of the transaction.
+    void accept(final byte[] data,
+                final int signatureOffset,
+                final int instructionIndex,
+                final int memoOffset,
+                final int memoLength);
+  }
+
+  private final byte[] memoProgram;
+  private final byte[] memoProgramV2;
+
+  private MemoExtractor(final byte[] memoProgram, final byte[] memoProgramV2) {
+    this.memoProgram = memoProgram;
+    this.memoProgramV2 = memoProgramV2;
+  }
+
+  public static MemoExtractor createExtractor(final SolanaAccounts solanaAccounts) {
+    return new MemoExtractor(solanaAccounts.memoProgram().toByteArray(), solanaAccounts.memoProgramV2().toByteArray());
+  }
+
+  /// Strict UTF-8 validation, rejecting overlong encodings, surrogates and code points above U+10FFFF.
+  public static boolean isValidUtf8(final byte[] data, final int offset, final int length) {
+    final int end = offset + length;
+    int i = offset;
+    while (i < end) {
+      final int b0 = data[i] & 0xFF;
+      if (b0 < 0x80) {
+        ++i;
+        continue;
+      }
+      final int numContinuation;
+      final int min;
+      final int max;
+      if (b0 >= 0xC2 && b0 <= 0xDF) {
+        numContinuation = 1;
+        min = 0x80;
+        max = 0xBF;
+      } else if (b0 >= 0xE0 && b0 <= 0xEF) {
+        numContinuation = 2;
+        min = b0 == 0xE0 ? 0xA0 : 0x80;
+        max = b0 == 0xED ? 0x9F : 0xBF;
+      } else if (b0 >= 0xF0 && b0 <= 0xF4) {
+        numContinuation = 3;
+        min = b0 == 0xF0 ? 0x90 : 0x80;
+        max = b0 == 0xF4 ? 0x8F : 0xBF;
+      } else {
+        return false;
+      }
+      if (i + numContinuation >= end) {
+        return false;
+      }
+      final int b1 = data[i + 1] & 0xFF;
+      if (b1 < min || b1 > max) {
+        return false;
+      }
+      for (int c = 2; c <= numContinuation; ++c) {
+        if ((data[i + c] & 0xC0) != 0x80) {
+          return false;
+        }
+      }
+      i += 1 + numContinuation;
+    }
+    return true;
+  }
+
+  public boolean isMemoProgram(final TransactionView transaction, final int instructionIndex) {
+    return transaction.programIdEquals(instructionIndex, memoProgramV2)
+        || transaction.programIdEquals(instructionIndex, memoProgram);
+  }
+
+  /// Passes each valid memo of the transaction to the consumer, in instruction order.
+  ///
+  /// @return the number of valid memos.
+  public int extract(final TransactionView transaction, final MemoConsumer consumer) {
+    final byte[] data = transaction.data();
+    final int signatureOffset = transaction.numSignatures() == 0 ? -1 : transaction.signatureOffset(0);
+    int numMemos = 0;
+    for (int ix = 0, numInstructions = transaction.numInstructions(); ix < numInstructions; ++ix) {
+      if (isMemoProgram(transaction, ix)) {
+        final int memoOffset = transaction.instructionDataOffset(ix);
+        final int memoLength = transaction.instructionDataLength(ix);
+        if (isValidUtf8(data, memoOffset, memoLength)) {
+          consumer.accept(data, signatureOffset, ix, memoOffset, memoLength);
+          ++numMemos;
+        }
+      }
+    }
+    return numMemos;
+  }
+
+  public int extract(final byte[] serializedTransaction, final MemoConsumer consumer) {
+    return extract(TransactionView.view(serializedTransaction), consumer);
+  }
+}
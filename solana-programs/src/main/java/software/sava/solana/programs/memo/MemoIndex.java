@@ -0,0 +1,203 @@
+package software.sava.solana.programs.memo;
+
+import software.sava.solana.programs.decode.TransactionView;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static software.sava.core.encoding.ByteUtil.getInt64LE;
+
+/// Off-heap hash index from memos, or their leading bytes, to the signature of the transaction which carried them.
+///
+/// Only a 64-bit hash of each key and the 64 byte signature are stored, so lookups take constant time and memory
+/// does not grow with memo length. Distinct memos may collide on the hash with negligible probability, confirm
+/// matches against the transaction if that matters. A later memo with the same key replaces the earlier signature.
+///
+/// The table is split into direct buffer segments of at most 2^24 entries, so it may grow past the 2 GiB limit of a
+/// single buffer, up to 2^30 entries.
+///
+/// Not thread safe, use a single writer or external synchronization.
+public final class MemoIndex {
+
+  public static final int SIGNATURE_LENGTH = 64;
+  /// Prefix length which indexes memos by their full content.
+  public static final int EXACT_MATCH = Integer.MAX_VALUE;
+
+  private static final int ENTRY_LENGTH = Long.BYTES + SIGNATURE_LENGTH;
+  private static final long SEED = 0x9E3779B97F4A7C15L;
+  private static final int SEGMENT_SHIFT = 24;
+  private static final int SEGMENT_MASK = (1 << SEGMENT_SHIFT) - 1;
+  private static final int MAX_CAPACITY = 1 << 30;
+
+  private final int prefixLength;
+  private ByteBuffer[] segments;
+  private int mask;
+  private int size;
+
+  private MemoIndex(final int prefixLength, final int capacity) {
+    this.prefixLength = prefixLength;
+    allocate(capacity);
+  }
+
+  /// @param prefixLength number of leading memo bytes to index, or [#EXACT_MATCH].
+  /// @param expectedSize number of memos to size the table for, it grows as needed.
+  public static MemoIndex createIndex(final int prefixLength, final int expectedSize) {
+    if (prefixLength < 1) {
+      throw new IllegalArgumentException("prefixLength must be positive.");
+    }
+    final long minCapacity = Math.max(16L, expectedSize) << 1;
+    if (minCapacity > MAX_CAPACITY) {
+      throw new IllegalArgumentException(String.format(
+          "expectedSize of %d exceeds the maximum of %d memos.", expectedSize, MAX_CAPACITY >> 1
+      ));
+    }
+    final int capacity = Integer.highestOneBit((int) minCapacity - 1) << 1;
+    return new MemoIndex(prefixLength, capacity);
+  }
+
+  public static MemoIndex createExactIndex(final int expectedSize) {
+    return createIndex(EXACT_MATCH, expectedSize);
+  }
+
+  private void allocate(final int capacity) {
+    final int segmentEntries = Math.min(capacity, 1 << SEGMENT_SHIFT);
+    final var segments = new ByteBuffer[capacity / segmentEntries];
+    for (int i = 0; i < segments.length; ++i) {
+      segments[i] = ByteBuffer.allocateDirect(segmentEntries * ENTRY_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+    }
+    this.segments = segments;
+    this.mask = capacity - 1;
+  }
+
+  private static ByteBuffer segment(final ByteBuffer[] segments, final int slot) {
+    return segments[slot >>> SEGMENT_SHIFT];
+  }
+
+  private static int position(final int slot) {
+    return (slot & SEGMENT_MASK) * ENTRY_LENGTH;
+  }
+
+  private static long mix(long h) {
+    h ^= h >>> 33;
+    h *= 0xFF51AFD7ED558CCDL;
+    h ^= h >>> 33;
+    h *= 0xC4CEB9FE1A85EC53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  /// 64-bit hash of the indexed part of the memo, never 0 which marks empty slots.
+  public long hash(final byte[] memo, final int offset, final int length) {
+    final int keyLength = Math.min(length, prefixLength);
+    long h = SEED ^ keyLength;
+    int i = offset;
+    for (final int end = offset + keyLength - (Long.BYTES - 1); i < end; i += Long.BYTES) {
+      h = (h ^ mix(getInt64LE(memo, i))) * SEED;
+    }
+    long tail = 0;
+    for (int shift = 0, end = offset + keyLength; i < end; ++i, shift += 8) {
+      tail |= (long) (memo[i] & 0xFF) << shift;
+    }
+    h = mix(h ^ tail);
+    return h == 0 ? 1 : h;
+  }
+
+  private int slot(final long hash) {
+    for (int slot = (int) hash & mask; ; slot = (slot + 1) & mask) {
+      final long existing = segment(segments, slot).getLong(position(slot));
+      if (existing == 0 || existing == hash) {
+        return slot;
+      }
+    }
+  }
+
+  private void grow() {
+    final int previousCapacity = mask + 1;
+    if (previousCapacity == MAX_CAPACITY) {
+      throw new IllegalStateException(String.format("MemoIndex is limited to %d memos.", MAX_CAPACITY >> 1));
+    }
+    final var previous = segments;
+    allocate(previousCapacity << 1);
+    for (int s = 0; s < previousCapacity; ++s) {
+      final var from = segment(previous, s);
+      final int fromPosition = position(s);
+      final long hash = from.getLong(fromPosition);
+      if (hash != 0) {
+        final int slot = slot(hash);
+        segment(segments, slot).put(position(slot), from, fromPosition, ENTRY_LENGTH);
+      }
+    }
+  }
+
+  public int prefixLength() {
+    return prefixLength;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public void put(final byte[] memo,
+                  final int memoOffset,
+                  final int memoLength,
+                  final byte[] signature,
+                  final int signatureOffset) {
+    if ((size + 1) << 1 > mask + 1) {
+      grow();
+    }
+    final long hash = hash(memo, memoOffset, memoLength);
+    final int slot = slot(hash);
+    final var segment = segment(segments, slot);
+    final int position = position(slot);
+    if (segment.getLong(position) == 0) {
+      ++size;
+    }
+    segment.putLong(position, hash);
+    segment.put(position + Long.BYTES, signature, signatureOffset, SIGNATURE_LENGTH);
+  }
+
+  public void put(final byte[] memo, final byte[] signature) {
+    put(memo, 0, memo.length, signature, 0);
+  }
+
+  /// Indexes each valid memo of the transaction under its first signature.
+  ///
+  /// @return the number of indexed memos.
+  public int index(final MemoExtractor extractor, final TransactionView transaction) {
+    if (transaction.numSignatures() == 0) {
+      return 0;
+    }
+    return extractor.extract(transaction, (data, signatureOffset, instructionIndex, memoOffset, memoLength) ->
+        put(data, memoOffset, memoLength, data, signatureOffset)
+    );
+  }
+
+  /// Copies the signature indexed under the memo into `out`.
+  ///
+  /// @return false if the memo is not indexed.
+  public boolean signature(final byte[] memo,
+                           final int memoOffset,
+                           final int memoLength,
+                           final byte[] out,
+                           final int outOffset) {
+    final int slot = slot(hash(memo, memoOffset, memoLength));
+    final var segment = segment(segments, slot);
+    final int position = position(slot);
+    if (segment.getLong(position) == 0) {
+      return false;
+    }
+    segment.get(position + Long.BYTES, out, outOffset, SIGNATURE_LENGTH);
+    return true;
+  }
+
+  /// @return the signature indexed under the memo, or null.
+  public byte[] signature(final byte[] memo) {
+    final byte[] signature = new byte[SIGNATURE_LENGTH];
+    return signature(memo, 0, memo.length, signature, 0) ? signature : null;
+  }
+
+  public boolean contains(final byte[] memo, final int memoOffset, final int memoLength) {
+    final int slot = slot(hash(memo, memoOffset, memoLength));
+    return segment(segments, slot).getLong(position(slot)) != 0;
+  }
+}
@@ -18,6 +18,65 @@ public final class SerdeUtil {
     return Long.BYTES + utf8.length;
   }
 
+  /// Number of bytes `chars` occupies when UTF-8 encoded, consistent with [String#getBytes(java.nio.charset.Charset)].
+  public static int utf8Length(final CharSequence chars) {
+    int length = 0;
+    for (int i = 0, numChars = chars.length(); i < numChars; ++i) {
+      final char c = chars.charAt(i);
+      if (c < 0x80) {
+        ++length;
+      } else if (c < 0x800) {
+        length += 2;
+      } else if (Character.isSurrogate(c)) {
+        if (Character.isHighSurrogate(c) && i + 1 < numChars && Character.isLowSurrogate(chars.charAt(i + 1))) {
+          length += 4;
+          ++i;
+        } else {
+          ++length; // replaced with '?'
+        }
+      } else {
+        length += 3;
+      }
+    }
+    return length;
+  }
+
+  /// UTF-8 encodes `chars` directly into `data`, returns the number of bytes written.
+  public static int writeUtf8(final CharSequence chars, final byte[] data, final int offset) {
+    int i = offset;
+    for (int c = 0, numChars = chars.length(); c < numChars; ++c) {
+      final char ch = chars.charAt(c);
+      if (ch < 0x80) {
+        data[i++] = (byte) ch;
+      } else if (ch < 0x800) {
+        data[i++] = (byte) (0xC0 | (ch >> 6));
+        data[i++] = (byte) (0x80 | (ch & 0x3F));
+      } else if (Character.isSurrogate(ch)) {
+        if (Character.isHighSurrogate(ch) && c + 1 < numChars && Character.isLowSurrogate(chars.charAt(c + 1))) {
+          final int codePoint = Character.toCodePoint(ch, chars.charAt(++c));
+          data[i++] = (byte) (0xF0 | (codePoint >> 18));
+          data[i++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+          data[i++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+          data[i++] = (byte) (0x80 | (codePoint & 0x3F));
+        } else {
+          data[i++] = '?';
+        }
+      } else {
+        data[i++] = (byte) (0xE0 | (ch >> 12));
+        data[i++] = (byte) (0x80 | ((ch >> 6) & 0x3F));
+        data[i++] = (byte) (0x80 | (ch & 0x3F));
+      }
+    }
+    return i - offset;
+  }
+
+  /// Writes a Borsh string, a u32 length prefix followed by the UTF-8 bytes, returns the number of bytes written.
+  public static int writeBorshString(final CharSequence chars, final byte[] data, final int offset) {
+    final int length = writeUtf8(chars, data, offset + Integer.BYTES);
+    ByteUtil.putInt32LE(data, offset, length);
+    return Integer.BYTES + length;
+  }
+
   public static byte[] readString(final byte[] data, final int offset) {
     final int length = (int) ByteUtil.getInt64LE(data, offset);
     final byte[] str = new byte[length];
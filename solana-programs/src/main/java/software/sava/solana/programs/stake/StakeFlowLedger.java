@@ -0,0 +1,540 @@
+package software.sava.solana.programs.stake;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.solana.programs.decode.InstructionSink;
+import software.sava.solana.programs.decode.NativeInstruction;
+import software.sava.solana.programs.decode.TransactionView;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+
+/// Append-only ledger of the lamport movements implied by decoded stake instructions.
+///
+/// Entries are kept in primitive ring buffers and handed to a [ChunkSink] every `chunkSize` entries, before they can
+/// be overwritten. Accounts are interned to `int` ids, and the delegated vote account and stake of each stake
+/// account are tracked so that movements can be attributed to validators without fetching accounts. Stake of
+/// accounts which were not [#seed]ed and not created by a split is unknown, and reported as `-1` lamports.
+///
+/// Only feed instructions of successful transactions, in order. Not thread safe, when used as the sink of a
+/// [software.sava.solana.programs.decode.DecodingPipeline] the pipeline should be ordered.
+public final class StakeFlowLedger implements InstructionSink {
+
+  public enum Type {
+
+    DELEGATE,
+    DEACTIVATE,
+    SPLIT,
+    MERGE,
+    WITHDRAW,
+    MOVE_STAKE,
+    MOVE_LAMPORTS
+  }
+
+  private static final Type[] TYPES = Type.values();
+
+  /// Receives serialized chunks, see [#readChunk] for the layout. The buffer is reused after the call returns.
+  @FunctionalInterface
+  public interface ChunkSink {
+
+    void persist(final ByteBuffer chunk) throws IOException;
+
+    static ChunkSink channelSink(final WritableByteChannel channel) {
+      return chunk -> {
+        while (chunk.hasRemaining()) {
+          channel.write(chunk);
+        }
+      };
+    }
+  }
+
+  /// Accounts are ids, see [#account], or -1 if absent or loaded from a lookup table.
+  @FunctionalInterface
+  public interface EntryConsumer {
+
+    /// @param lamports moved lamports, or -1 if unknown.
+    void accept(final long position,
+                final long sequence,
+                final Type type,
+                final int source,
+                final int destination,
+                final int sourceVote,
+                final int destinationVote,
+                final long lamports);
+  }
+
+  @FunctionalInterface
+  public interface ValidatorFlowConsumer {
+
+    /// @param fromVote     null for stake which was not delegated.
+    /// @param toVote       null for deactivated stake.
+    /// @param lamports     sum of the known lamports.
+    /// @param numMovements number of movements, including those of unknown size.
+    void accept(final PublicKey fromVote, final PublicKey toVote, final long lamports, final int numMovements);
+  }
+
+  public static final long UNKNOWN = -1;
+  public static final int DEFAULT_CHUNK_SIZE = 4_096;
+
+  /// Chunk header: first position, number of entries, first new account id and number of new accounts.
+  private static final int CHUNK_HEADER_LENGTH = Long.BYTES + Integer.BYTES + Integer.BYTES + Integer.BYTES;
+  private static final int ENTRY_LENGTH = Long.BYTES + 1 + (Integer.BYTES << 2) + Long.BYTES;
+
+  private final ChunkSink sink;
+  private final int chunkSize;
+  private final int mask;
+  private final long[] sequences;
+  private final byte[] types;
+  private final int[] sources;
+  private final int[] destinations;
+  private final int[] sourceVotes;
+  private final int[] destinationVotes;
+  private final long[] lamports;
+  private final Visitor visitor;
+  private final Map<PublicKey, Integer> accountIds;
+  private final Map<Long, long[]> epochFlows;
+
+  private long position;
+  private long persistedPosition;
+  private int numAccounts;
+  private int numPersistedAccounts;
+  private byte[] accountKeys;
+  private int[] votes;
+  private long[] stake;
+  private long epoch;
+  private ByteBuffer chunk;
+
+  private StakeFlowLedger(final ChunkSink sink, final int capacity, final int chunkSize, final long epoch) {
+    this.sink = sink;
+    this.chunkSize = chunkSize;
+    this.mask = capacity - 1;
+    this.sequences = new long[capacity];
+    this.types = new byte[capacity];
+    this.sources = new int[capacity];
+    this.destinations = new int[capacity];
+    this.sourceVotes = new int[capacity];
+    this.destinationVotes = new int[capacity];
+    this.lamports = new long[capacity];
+    this.visitor = new Visitor();
+    this.accountIds = HashMap.newHashMap(1_024);
+    this.epochFlows = new HashMap<>();
+    this.accountKeys = new byte[1_024 * PUBLIC_KEY_LENGTH];
+    this.votes = new int[1_024];
+    this.stake = new long[1_024];
+    this.epoch = epoch;
+  }
+
+  /// @param sink      receives every `chunkSize` entries, null to only keep the ring in memory.
+  /// @param capacity  number of entries retained in memory, rounded up to a power of two of at least `chunkSize`.
+  /// @param chunkSize number of entries per persisted chunk.
+  public static StakeFlowLedger createLedger(final ChunkSink sink,
+                                             final int capacity,
+                                             final int chunkSize,
+                                             final long epoch) {
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("chunkSize must be positive.");
+    }
+    final int minCapacity = Math.max(capacity, chunkSize);
+    final int ringCapacity = Integer.bitCount(minCapacity) == 1 ? minCapacity : Integer.highestOneBit(minCapacity) << 1;
+    return new StakeFlowLedger(sink, ringCapacity, chunkSize, epoch);
+  }
+
+  public static StakeFlowLedger createLedger(final ChunkSink sink, final long epoch) {
+    return createLedger(sink, DEFAULT_CHUNK_SIZE << 2, DEFAULT_CHUNK_SIZE, epoch);
+  }
+
+  /// Number of entries appended since creation, the position of the next entry.
+  public long position() {
+    return position;
+  }
+
+  public long persistedPosition() {
+    return persistedPosition;
+  }
+
+  /// Position of the oldest entry still held in memory.
+  public long firstPosition() {
+    return Math.max(0, position - (mask + 1));
+  }
+
+  public long epoch() {
+    return epoch;
+  }
+
+  public int numAccounts() {
+    return numAccounts;
+  }
+
+  public PublicKey account(final int id) {
+    return id < 0 ? null : PublicKey.readPubKey(accountKeys, id * PUBLIC_KEY_LENGTH);
+  }
+
+  /// @return the id of the account, or -1 if it has not been seen.
+  public int accountId(final PublicKey account) {
+    final var id = accountIds.get(account);
+    return id == null ? -1 : id;
+  }
+
+  private int intern(final PublicKey account) {
+    final var existing = accountIds.putIfAbsent(account, numAccounts);
+    if (existing != null) {
+      return existing;
+    }
+    final int id = numAccounts++;
+    if (id == votes.length) {
+      final int length = id << 1;
+      accountKeys = Arrays.copyOf(accountKeys, length * PUBLIC_KEY_LENGTH);
+      votes = Arrays.copyOf(votes, length);
+      stake = Arrays.copyOf(stake, length);
+    }
+    account.write(accountKeys, id * PUBLIC_KEY_LENGTH);
+    votes[id] = -1;
+    stake[id] = UNKNOWN;
+    return id;
+  }
+
+  /// Vote account id the stake account is delegated to, or -1.
+  public int vote(final int stakeAccountId) {
+    return stakeAccountId < 0 ? -1 : votes[stakeAccountId];
+  }
+
+  /// Tracked delegated stake of the account, or [#UNKNOWN].
+  public long stake(final int stakeAccountId) {
+    return stakeAccountId < 0 ? UNKNOWN : stake[stakeAccountId];
+  }
+
+  /// Sets the delegation of a stake account, e.g. from a snapshot taken at the start of the epoch.
+  ///
+  /// @param voteAccount null if the stake account is not delegated.
+  public void seed(final PublicKey stakeAccount, final PublicKey voteAccount, final long delegatedLamports) {
+    final int id = intern(stakeAccount);
+    votes[id] = voteAccount == null ? -1 : intern(voteAccount);
+    stake[id] = delegatedLamports;
+  }
+
+  /// Seeds delegated or activating stake accounts, deactivated ones are seeded as undelegated.
+  public void seed(final StakeAccount stakeAccount) {
+    final boolean delegated = stakeAccount.state() == StakeState.Stake && stakeAccount.deActivationEpoch() == -1;
+    seed(stakeAccount.address(), delegated ? stakeAccount.voterPublicKey() : null, delegated ? stakeAccount.stake() : 0);
+  }
+
+  public void seed(final List<StakeAccount> stakeAccounts) {
+    for (final var stakeAccount : stakeAccounts) {
+      seed(stakeAccount);
+    }
+  }
+
+  /// Resets the validator flows, entries and tracked delegations are retained.
+  public void startEpoch(final long epoch) {
+    this.epoch = epoch;
+    epochFlows.clear();
+  }
+
+  /// Aggregated movements of stake between vote accounts since [#startEpoch], in no particular order.
+  public void forEachValidatorFlow(final ValidatorFlowConsumer consumer) {
+    for (final var entry : epochFlows.entrySet()) {
+      final long key = entry.getKey();
+      final long[] flow = entry.getValue();
+      consumer.accept(account((int) (key >> 32)), account((int) key), flow[0], (int) flow[1]);
+    }
+  }
+
+  /// Visits the entries from `fromPosition` which are still held in memory.
+  ///
+  /// @return the position of the first visited entry, greater than `fromPosition` if older entries were overwritten.
+  public long forEach(final long fromPosition, final EntryConsumer consumer) {
+    final long from = Math.max(fromPosition, firstPosition());
+    for (long p = from; p < position; ++p) {
+      final int i = (int) p & mask;
+      consumer.accept(
+          p, sequences[i], TYPES[types[i]],
+          sources[i], destinations[i], sourceVotes[i], destinationVotes[i],
+          lamports[i]
+      );
+    }
+    return from;
+  }
+
+  @Override
+  public void accept(final long sequence, final TransactionView transaction, final NativeInstruction instruction) {
+    visitor.sequence = sequence;
+    visitor.transaction = transaction;
+    try {
+      StakeInstructionVisitor.visit(instruction, visitor);
+    } finally {
+      visitor.transaction = null;
+    }
+  }
+
+  private static long subtract(final long stake, final long lamports) {
+    return stake == UNKNOWN ? UNKNOWN : Math.max(0, stake - lamports);
+  }
+
+  private static long add(final long stake, final long lamports) {
+    return stake == UNKNOWN || lamports == UNKNOWN ? UNKNOWN : stake + lamports;
+  }
+
+  private void append(final long sequence,
+                      final Type type,
+                      final int source,
+                      final int destination,
+                      final int sourceVote,
+                      final int destinationVote,
+                      final long amount) {
+    final int i = (int) position & mask;
+    sequences[i] = sequence;
+    types[i] = (byte) type.ordinal();
+    sources[i] = source;
+    destinations[i] = destination;
+    sourceVotes[i] = sourceVote;
+    destinationVotes[i] = destinationVote;
+    lamports[i] = amount;
+    ++position;
+
+    if (sourceVote != destinationVote && type != Type.WITHDRAW && type != Type.MOVE_LAMPORTS) {
+      final long key = ((long) sourceVote << 32) | (destinationVote & 0xFFFF_FFFFL);
+      final long[] flow = epochFlows.computeIfAbsent(key, k -> new long[2]);
+      if (amount != UNKNOWN) {
+        flow[0] += amount;
+      }
+      ++flow[1];
+    }
+
+    if (position - persistedPosition >= chunkSize) {
+      flush();
+    }
+  }
+
+  /// Persists the entries and accounts added since the last chunk, e.g. before shutting down.
+  public void flush() {
+    final int numEntries = (int) (position - persistedPosition);
+    if (numEntries == 0 && numAccounts == numPersistedAccounts) {
+      return;
+    }
+    if (sink == null) {
+      persistedPosition = position;
+      numPersistedAccounts = numAccounts;
+      return;
+    }
+    final int numNewAccounts = numAccounts - numPersistedAccounts;
+    final int length = CHUNK_HEADER_LENGTH + (numNewAccounts * PUBLIC_KEY_LENGTH) + (numEntries * ENTRY_LENGTH);
+    if (chunk == null || chunk.capacity() < length) {
+      chunk = ByteBuffer.allocate(Math.max(length, CHUNK_HEADER_LENGTH + (chunkSize * ENTRY_LENGTH) + 4_096))
+          .order(ByteOrder.LITTLE_ENDIAN);
+    }
+    chunk.clear();
+    chunk.putLong(persistedPosition);
+    chunk.putInt(numEntries);
+    chunk.putInt(numPersistedAccounts);
+    chunk.putInt(numNewAccounts);
+    chunk.put(accountKeys, numPersistedAccounts * PUBLIC_KEY_LENGTH, numNewAccounts * PUBLIC_KEY_LENGTH);
+    for (long p = persistedPosition; p < position; ++p) {
+      final int i = (int) p & mask;
+      chunk.putLong(sequences[i]);
+      chunk.put(types[i]);
+      chunk.putInt(sources[i]);
+      chunk.putInt(destinations[i]);
+      chunk.putInt(sourceVotes[i]);
+      chunk.putInt(destinationVotes[i]);
+      chunk.putLong(lamports[i]);
+    }
+    chunk.flip();
+    try {
+      sink.persist(chunk);
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    persistedPosition = position;
+    numPersistedAccounts = numAccounts;
+  }
+
+  /// Reads one chunk from the buffer position, which is advanced past it.
+  ///
+  /// Layout, little endian: `i64` first position, `i32` number of entries, `i32` id of the first new account, `i32`
+  /// number of new accounts, the new account keys, then per entry `i64` sequence, `u8` [Type] ordinal, `i32` source,
+  /// destination, source vote and destination vote ids and `i64` lamports.
+  ///
+  /// @param accounts accounts by id, new accounts of the chunk are appended.
+  public static void readChunk(final ByteBuffer chunk, final List<PublicKey> accounts, final EntryConsumer consumer) {
+    chunk.order(ByteOrder.LITTLE_ENDIAN);
+    final long firstPosition = chunk.getLong();
+    final int numEntries = chunk.getInt();
+    final int firstAccountId = chunk.getInt();
+    final int numNewAccounts = chunk.getInt();
+    if (firstAccountId != accounts.size()) {
+      throw new IllegalStateException(String.format(
+          "Chunk starts at account %d but %d accounts have been read.", firstAccountId, accounts.size()
+      ));
+    }
+    for (int a = 0; a < numNewAccounts; ++a) {
+      final byte[] key = new byte[PUBLIC_KEY_LENGTH];
+      chunk.get(key);
+      accounts.add(PublicKey.readPubKey(key, 0));
+    }
+    for (int e = 0; e < numEntries; ++e) {
+      consumer.accept(
+          firstPosition + e,
+          chunk.getLong(),
+          TYPES[chunk.get()],
+          chunk.getInt(),
+          chunk.getInt(),
+          chunk.getInt(),
+          chunk.getInt(),
+          chunk.getLong()
+      );
+    }
+  }
+
+  private final class Visitor implements StakeInstructionVisitor {
+
+    private long sequence;
+    private TransactionView transaction;
+
+    private int id(final int accountIndex) {
+      if (accountIndex < 0) {
+        return -1;
+      }
+      final var account = transaction.account(accountIndex);
+      return account == null ? -1 : intern(account);
+    }
+
+    @Override
+    public void delegateStake(final byte[] data,
+                              final int index,
+                              final int stakeAccount,
+                              final int voteAccount,
+                              final int clockSysVar,
+                              final int stakeHistorySysVar,
+                              final int stakeConfig,
+                              final int stakeAuthority) {
+      final int stakeId = id(stakeAccount);
+      final int voteId = id(voteAccount);
+      final int previousVote = vote(stakeId);
+      if (stakeId >= 0) {
+        votes[stakeId] = voteId;
+      }
+      append(sequence, Type.DELEGATE, stakeId, stakeId, previousVote, voteId, stake(stakeId));
+    }
+
+    @Override
+    public void split(final byte[] data,
+                      final int index,
+                      final int stakeAccount,
+                      final int splitStakeAccount,
+                      final int stakeAuthority,
+                      final long amount) {
+      final int sourceId = id(stakeAccount);
+      final int splitId = id(splitStakeAccount);
+      final int vote = vote(sourceId);
+      if (sourceId >= 0) {
+        stake[sourceId] = subtract(stake[sourceId], amount);
+      }
+      if (splitId >= 0) {
+        votes[splitId] = vote;
+        stake[splitId] = amount;
+      }
+      append(sequence, Type.SPLIT, sourceId, splitId, vote, vote, amount);
+    }
+
+    @Override
+    public void withdraw(final byte[] data,
+                         final int index,
+                         final int stakeAccount,
+                         final int recipient,
+                         final int clockSysVar,
+                         final int stakeHistorySysVar,
+                         final int withdrawAuthority,
+                         final int lockupAuthority,
+                         final long amount) {
+      final int stakeId = id(stakeAccount);
+      // Delegated accounts may only withdraw lamports beyond their delegation and rent reserve.
+      if (stakeId >= 0 && votes[stakeId] < 0) {
+        stake[stakeId] = subtract(stake[stakeId], amount);
+      }
+      append(sequence, Type.WITHDRAW, stakeId, id(recipient), vote(stakeId), -1, amount);
+    }
+
+    @Override
+    public void deactivate(final byte[] data,
+                           final int index,
+                           final int stakeAccount,
+                           final int clockSysVar,
+                           final int stakeAuthority) {
+      final int stakeId = id(stakeAccount);
+      final int previousVote = vote(stakeId);
+      if (stakeId >= 0) {
+        votes[stakeId] = -1;
+      }
+      append(sequence, Type.DEACTIVATE, stakeId, -1, previousVote, -1, stake(stakeId));
+    }
+
+    @Override
+    public void merge(final byte[] data,
+                      final int index,
+                      final int destinationStakeAccount,
+                      final int sourceStakeAccount,
+                      final int clockSysVar,
+                      final int stakeHistorySysVar,
+                      final int stakeAuthority) {
+      final int destinationId = id(destinationStakeAccount);
+      final int sourceId = id(sourceStakeAccount);
+      final long amount = stake(sourceId);
+      final int sourceVote = vote(sourceId);
+      final int destinationVote = vote(destinationId);
+      if (destinationId >= 0) {
+        stake[destinationId] = add(stake[destinationId], amount);
+      }
+      if (sourceId >= 0) {
+        votes[sourceId] = -1;
+        stake[sourceId] = 0;
+      }
+      append(sequence, Type.MERGE, sourceId, destinationId, sourceVote, destinationVote, amount);
+    }
+
+    @Override
+    public void moveStake(final byte[] data,
+                          final int index,
+                          final int sourceStakeAccount,
+                          final int destinationStakeAccount,
+                          final int stakeAuthority,
+                          final long amount) {
+      final int sourceId = id(sourceStakeAccount);
+      final int destinationId = id(destinationStakeAccount);
+      final int vote = vote(sourceId);
+      if (sourceId >= 0) {
+        stake[sourceId] = subtract(stake[sourceId], amount);
+      }
+      if (destinationId >= 0) {
+        // An inactive destination becomes delegated to the vote account of the source.
+        if (votes[destinationId] < 0) {
+          votes[destinationId] = vote;
+          if (stake[destinationId] == UNKNOWN) {
+            stake[destinationId] = 0;
+          }
+        }
+        stake[destinationId] = add(stake[destinationId], amount);
+      }
+      append(sequence, Type.MOVE_STAKE, sourceId, destinationId, vote, vote(destinationId), amount);
+    }
+
+    @Override
+    public void moveLamports(final byte[] data,
+                             final int index,
+                             final int sourceStakeAccount,
+                             final int destinationStakeAccount,
+                             final int stakeAuthority,
+                             final long amount) {
+      final int sourceId = id(sourceStakeAccount);
+      final int destinationId = id(destinationStakeAccount);
+      append(sequence, Type.MOVE_LAMPORTS, sourceId, destinationId, vote(sourceId), vote(destinationId), amount);
+    }
+  }
+}
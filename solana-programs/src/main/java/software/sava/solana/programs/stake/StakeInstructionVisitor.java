@@ -0,0 +1,423 @@
+package software.sava.solana.programs.stake;
+
+import software.sava.solana.programs.decode.NativeInstruction;
+
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+import static software.sava.core.encoding.ByteUtil.getInt32LE;
+import static software.sava.core.encoding.ByteUtil.getInt64LE;
+import static software.sava.core.programs.Discriminator.NATIVE_DISCRIMINATOR_LENGTH;
+
+/// Allocation free alternative to the [StakeProgram] instruction records.
+///
+/// [#visit] switches on the discriminator of a serialized stake instruction and calls the matching method with
+/// primitive arguments. Public keys and seeds are passed as offsets into `data`, and accounts as indices into the
+/// account keys of the transaction, optional accounts are `-1` if absent. `index` is the position of the
+/// instruction in its transaction.
+///
+/// All methods default to no-ops, implement the ones of interest.
+public interface StakeInstructionVisitor {
+
+  private static int account(final byte[] data, final int accountsOffset, final int numAccounts, final int account) {
+    return account < numAccounts ? data[accountsOffset + account] & 0xFF : -1;
+  }
+
+  private static StakeAuthorize stakeAuthorize(final byte[] data, final int offset) {
+    final int ordinal = getInt32LE(data, offset);
+    return ordinal == 0 ? StakeAuthorize.Staker : ordinal == 1 ? StakeAuthorize.Withdrawer : null;
+  }
+
+  /// @return the length of a bincode string at the offset, or -1 if it exceeds the limit.
+  private static int stringLength(final byte[] data, final int offset, final int limit) {
+    if (offset + Long.BYTES > limit) {
+      return -1;
+    }
+    final long length = getInt64LE(data, offset);
+    return length < 0 || length > limit - offset - Long.BYTES ? -1 : (int) length;
+  }
+
+  /// Dispatches a serialized stake instruction, e.g. from a [software.sava.solana.programs.decode.TransactionView].
+  ///
+  /// @param accountsOffset offset of the `u8` account indices of the instruction.
+  /// @return false if the instruction is unknown or malformed, in which case [#malformed] has been called.
+  static boolean visit(final byte[] data,
+                       final int index,
+                       final int accountsOffset,
+                       final int numAccounts,
+                       final int dataOffset,
+                       final int dataLength,
+                       final StakeInstructionVisitor visitor) {
+    if (dataLength < NATIVE_DISCRIMINATOR_LENGTH) {
+      visitor.malformed(data, index, -1);
+      return false;
+    }
+    final int discriminator = getInt32LE(data, dataOffset);
+    final int limit = dataOffset + dataLength;
+    int i = dataOffset + NATIVE_DISCRIMINATOR_LENGTH;
+    final int a0 = account(data, accountsOffset, numAccounts, 0);
+    final int a1 = account(data, accountsOffset, numAccounts, 1);
+    final int a2 = account(data, accountsOffset, numAccounts, 2);
+    final int a3 = account(data, accountsOffset, numAccounts, 3);
+    final int a4 = account(data, accountsOffset, numAccounts, 4);
+    final int a5 = account(data, accountsOffset, numAccounts, 5);
+    switch (discriminator) {
+      case 0 -> { // Initialize
+        if (numAccounts >= 2 && i + PUBLIC_KEY_LENGTH + PUBLIC_KEY_LENGTH + LockUp.BYTES <= limit) {
+          final int lockupOffset = i + PUBLIC_KEY_LENGTH + PUBLIC_KEY_LENGTH;
+          visitor.initialize(
+              data, index, a0, a1,
+              i, i + PUBLIC_KEY_LENGTH,
+              getInt64LE(data, lockupOffset),
+              getInt64LE(data, lockupOffset + Long.BYTES),
+              lockupOffset + Long.BYTES + Long.BYTES
+          );
+          return true;
+        }
+      }
+      case 1 -> { // Authorize
+        if (numAccounts >= 3 && i + PUBLIC_KEY_LENGTH + Integer.BYTES <= limit) {
+          final var stakeAuthorize = stakeAuthorize(data, i + PUBLIC_KEY_LENGTH);
+          if (stakeAuthorize != null) {
+            visitor.authorize(data, index, a0, a1, a2, a3, i, stakeAuthorize);
+            return true;
+          }
+        }
+      }
+      case 2 -> { // DelegateStake
+        if (numAccounts >= 6) {
+          visitor.delegateStake(data, index, a0, a1, a2, a3, a4, a5);
+          return true;
+        }
+      }
+      case 3 -> { // Split
+        if (numAccounts >= 3 && i + Long.BYTES <= limit) {
+          visitor.split(data, index, a0, a1, a2, getInt64LE(data, i));
+          return true;
+        }
+      }
+      case 4 -> { // Withdraw
+        if (numAccounts >= 5 && i + Long.BYTES <= limit) {
+          visitor.withdraw(data, index, a0, a1, a2, a3, a4, a5, getInt64LE(data, i));
+          return true;
+        }
+      }
+      case 5 -> { // Deactivate
+        if (numAccounts >= 3) {
+          visitor.deactivate(data, index, a0, a1, a2);
+          return true;
+        }
+      }
+      case 6, 12 -> { // SetLockup, SetLockupChecked
+        if (numAccounts >= 2 && i < limit) {
+          final boolean hasUnixTimestamp = data[i++] == 1;
+          long unixTimestamp = 0;
+          if (hasUnixTimestamp) {
+            if (i + Long.BYTES > limit) {
+              break;
+            }
+            unixTimestamp = getInt64LE(data, i);
+            i += Long.BYTES;
+          }
+          if (i >= limit) {
+            break;
+          }
+          final boolean hasEpoch = data[i++] == 1;
+          long epoch = 0;
+          if (hasEpoch) {
+            if (i + Long.BYTES > limit) {
+              break;
+            }
+            epoch = getInt64LE(data, i);
+            i += Long.BYTES;
+          }
+          if (discriminator == 12) {
+            visitor.setLockupChecked(data, index, a0, a1, a2, hasUnixTimestamp, unixTimestamp, hasEpoch, epoch);
+            return true;
+          } else if (i < limit) {
+            final int custodianOffset = data[i++] == 1 ? i : -1;
+            if (custodianOffset < 0 || custodianOffset + PUBLIC_KEY_LENGTH <= limit) {
+              visitor.setLockup(data, index, a0, a1, hasUnixTimestamp, unixTimestamp, hasEpoch, epoch, custodianOffset);
+              return true;
+            }
+          }
+        }
+      }
+      case 7 -> { // Merge
+        if (numAccounts >= 5) {
+          visitor.merge(data, index, a0, a1, a2, a3, a4);
+          return true;
+        }
+      }
+      case 8 -> { // AuthorizeWithSeed
+        if (numAccounts >= 3 && i + PUBLIC_KEY_LENGTH + Integer.BYTES <= limit) {
+          final int newAuthorityOffset = i;
+          final var stakeAuthorize = stakeAuthorize(data, i + PUBLIC_KEY_LENGTH);
+          i += PUBLIC_KEY_LENGTH + Integer.BYTES;
+          final int seedLength = stringLength(data, i, limit);
+          if (stakeAuthorize != null && seedLength >= 0) {
+            final int seedOffset = i + Long.BYTES;
+            final int ownerOffset = seedOffset + seedLength;
+            if (ownerOffset + PUBLIC_KEY_LENGTH <= limit) {
+              visitor.authorizeWithSeed(
+                  data, index, a0, a1, a2, a3,
+                  newAuthorityOffset, stakeAuthorize, seedOffset, seedLength, ownerOffset
+              );
+              return true;
+            }
+          }
+        }
+      }
+      case 9 -> { // InitializeChecked
+        if (numAccounts >= 4) {
+          visitor.initializeChecked(data, index, a0, a1, a2, a3);
+          return true;
+        }
+      }
+      case 10 -> { // AuthorizeChecked
+        if (numAccounts >= 4 && i + Integer.BYTES <= limit) {
+          final var stakeAuthorize = stakeAuthorize(data, i);
+          if (stakeAuthorize != null) {
+            visitor.authorizeChecked(data, index, a0, a1, a2, a3, a4, stakeAuthorize);
+            return true;
+          }
+        }
+      }
+      case 11 -> { // AuthorizeCheckedWithSeed
+        if (numAccounts >= 4 && i + Integer.BYTES <= limit) {
+          final var stakeAuthorize = stakeAuthorize(data, i);
+          i += Integer.BYTES;
+          final int seedLength = stringLength(data, i, limit);
+          if (stakeAuthorize != null && seedLength >= 0) {
+            final int seedOffset = i + Long.BYTES;
+            final int ownerOffset = seedOffset + seedLength;
+            if (ownerOffset + PUBLIC_KEY_LENGTH <= limit) {
+              visitor.authorizeCheckedWithSeed(
+                  data, index, a0, a1, a2, a3, a4,
+                  stakeAuthorize, seedOffset, seedLength, ownerOffset
+              );
+              return true;
+            }
+          }
+        }
+      }
+      case 13 -> { // GetMinimumDelegation
+        visitor.getMinimumDelegation(data, index);
+        return true;
+      }
+      case 14 -> { // DeactivateDelinquent
+        if (numAccounts >= 3) {
+          visitor.deactivateDelinquent(data, index, a0, a1, a2);
+          return true;
+        }
+      }
+      case 15 -> { // Redelegate
+        if (numAccounts >= 5) {
+          visitor.redelegate(data, index, a0, a1, a2, a3, a4);
+          return true;
+        }
+      }
+      case 16 -> { // MoveStake
+        if (numAccounts >= 3 && i + Long.BYTES <= limit) {
+          visitor.moveStake(data, index, a0, a1, a2, getInt64LE(data, i));
+          return true;
+        }
+      }
+      case 17 -> { // MoveLamports
+        if (numAccounts >= 3 && i + Long.BYTES <= limit) {
+          visitor.moveLamports(data, index, a0, a1, a2, getInt64LE(data, i));
+          return true;
+        }
+      }
+      default -> {
+      }
+    }
+    visitor.malformed(data, index, discriminator);
+    return false;
+  }
+
+  static boolean visit(final NativeInstruction instruction, final StakeInstructionVisitor visitor) {
+    return visit(
+        instruction.data(),
+        instruction.index(),
+        instruction.accountsOffset(),
+        instruction.numAccounts(),
+        instruction.dataOffset(),
+        instruction.dataLength(),
+        visitor
+    );
+  }
+
+  /// @param lockupCustodianOffset offset of the custodian public key.
+  default void initialize(final byte[] data,
+                          final int index,
+                          final int stakeAccount,
+                          final int rentSysVar,
+                          final int stakerOffset,
+                          final int withdrawerOffset,
+                          final long lockupUnixTimestamp,
+                          final long lockupEpoch,
+                          final int lockupCustodianOffset) {
+  }
+
+  default void authorize(final byte[] data,
+                         final int index,
+                         final int stakeAccount,
+                         final int clockSysVar,
+                         final int authority,
+                         final int lockupAuthority,
+                         final int newAuthorityOffset,
+                         final StakeAuthorize stakeAuthorize) {
+  }
+
+  default void delegateStake(final byte[] data,
+                             final int index,
+                             final int stakeAccount,
+                             final int voteAccount,
+                             final int clockSysVar,
+                             final int stakeHistorySysVar,
+                             final int stakeConfig,
+                             final int stakeAuthority) {
+  }
+
+  default void split(final byte[] data,
+                     final int index,
+                     final int stakeAccount,
+                     final int splitStakeAccount,
+                     final int stakeAuthority,
+                     final long lamports) {
+  }
+
+  default void withdraw(final byte[] data,
+                        final int index,
+                        final int stakeAccount,
+                        final int recipient,
+                        final int clockSysVar,
+                        final int stakeHistorySysVar,
+                        final int withdrawAuthority,
+                        final int lockupAuthority,
+                        final long lamports) {
+  }
+
+  default void deactivate(final byte[] data,
+                          final int index,
+                          final int stakeAccount,
+                          final int clockSysVar,
+                          final int stakeAuthority) {
+  }
+
+  /// @param custodianOffset offset of the new custodian public key, or -1 if it is not updated.
+  default void setLockup(final byte[] data,
+                         final int index,
+                         final int stakeAccount,
+                         final int authority,
+                         final boolean hasUnixTimestamp,
+                         final long unixTimestamp,
+                         final boolean hasEpoch,
+                         final long epoch,
+                         final int custodianOffset) {
+  }
+
+  default void merge(final byte[] data,
+                     final int index,
+                     final int destinationStakeAccount,
+                     final int sourceStakeAccount,
+                     final int clockSysVar,
+                     final int stakeHistorySysVar,
+                     final int stakeAuthority) {
+  }
+
+  default void authorizeWithSeed(final byte[] data,
+                                 final int index,
+                                 final int stakeAccount,
+                                 final int authorityBase,
+                                 final int clockSysVar,
+                                 final int lockupAuthority,
+                                 final int newAuthorityOffset,
+                                 final StakeAuthorize stakeAuthorize,
+                                 final int seedOffset,
+                                 final int seedLength,
+                                 final int authorityOwnerOffset) {
+  }
+
+  default void initializeChecked(final byte[] data,
+                                 final int index,
+                                 final int stakeAccount,
+                                 final int rentSysVar,
+                                 final int staker,
+                                 final int withdrawer) {
+  }
+
+  default void authorizeChecked(final byte[] data,
+                                final int index,
+                                final int stakeAccount,
+                                final int clockSysVar,
+                                final int authority,
+                                final int newAuthority,
+                                final int lockupAuthority,
+                                final StakeAuthorize stakeAuthorize) {
+  }
+
+  default void authorizeCheckedWithSeed(final byte[] data,
+                                        final int index,
+                                        final int stakeAccount,
+                                        final int authorityBase,
+                                        final int clockSysVar,
+                                        final int newAuthority,
+                                        final int lockupAuthority,
+                                        final StakeAuthorize stakeAuthorize,
+                                        final int seedOffset,
+                                        final int seedLength,
+                                        final int authorityOwnerOffset) {
+  }
+
+  default void setLockupChecked(final byte[] data,
+                                final int index,
+                                final int stakeAccount,
+                                final int authority,
+                                final int newCustodian,
+                                final boolean hasUnixTimestamp,
+                                final long unixTimestamp,
+                                final boolean hasEpoch,
+                                final long epoch) {
+  }
+
+  default void getMinimumDelegation(final byte[] data, final int index) {
+  }
+
+  default void deactivateDelinquent(final byte[] data,
+                                    final int index,
+                                    final int stakeAccount,
+                                    final int delinquentVoteAccount,
+                                    final int referenceVoteAccount) {
+  }
+
+  default void redelegate(final byte[] data,
+                          final int index,
+                          final int stakeAccount,
+                          final int uninitializedStakeAccount,
+                          final int voteAccount,
+                          final int stakeConfig,
+                          final int stakeAuthority) {
+  }
+
+  default void moveStake(final byte[] data,
+                         final int index,
+                         final int sourceStakeAccount,
+                         final int destinationStakeAccount,
+                         final int stakeAuthority,
+                         final long lamports) {
+  }
+
+  default void moveLamports(final byte[] data,
+                            final int index,
+                            final int sourceStakeAccount,
+                            final int destinationStakeAccount,
+                            final int stakeAuthority,
+                            final long lamports) {
+  }
+
+  /// Called for unknown discriminators and instructions with too few accounts or truncated data.
+  ///
+  /// @param discriminator -1 if the data is shorter than a discriminator.
+  default void malformed(final byte[] data, final int index, final int discriminator) {
+  }
+}
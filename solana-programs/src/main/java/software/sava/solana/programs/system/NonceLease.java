@@ -0,0 +1,13 @@
+package software.sava.solana.programs.system;
+
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.core.tx.Transaction;
+
+/// Exclusive use of a pooled nonce account, until it is returned with [NoncePool#release(NonceLease)] or
+/// [NoncePool#consumed(NonceLease)].
+public record NonceLease(int slot, NonceAccount nonceAccount) {
+
+  public void setNonce(final SolanaAccounts solanaAccounts, final Transaction transaction) {
+    nonceAccount.setNonce(solanaAccounts, transaction);
+  }
+}
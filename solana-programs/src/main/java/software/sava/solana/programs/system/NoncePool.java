@@ -0,0 +1,92 @@
+package software.sava.solana.programs.system;
+
+import software.sava.core.accounts.AccountWithSeed;
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.core.tx.Instruction;
+import software.sava.rpc.json.http.client.SolanaRpcClient;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/// Pool of durable nonce accounts sharing a single authority, leased to signing threads without locking.
+///
+/// A lease is exclusive until it is either released unused, or marked consumed once a transaction using it has been
+/// sent. Consumed nonces are not leased again until a refresh observes that the stored nonce has advanced. If the
+/// transaction is known to have failed, the lease may be released instead. Refreshing available nonces also detects
+/// nonces which have been advanced or closed outside the pool.
+///
+/// New nonce accounts are derived from the authority with a seed, so that provisioning only requires the signatures of
+/// the payer and authority.
+public interface NoncePool {
+
+  static NoncePool createPool(final SolanaAccounts solanaAccounts, final PublicKey authority, final int capacity) {
+    return new NoncePoolImpl(solanaAccounts, authority, capacity);
+  }
+
+  PublicKey authority();
+
+  int capacity();
+
+  /// Number of slots in use, including closed accounts whose slots have not been re-used yet.
+  int size();
+
+  int numAvailable();
+
+  int numLeased();
+
+  int numConsumed();
+
+  /// Number of available nonces found to have been advanced outside the pool.
+  long numExternallyConsumed();
+
+  /// Adds an initialized nonce account of the pool authority, re-using the slot of a closed account if possible.
+  ///
+  /// @return false if the pool is full or already holds the account.
+  /// @throws IllegalArgumentException if the account is not initialized or has a different authority.
+  boolean add(final NonceAccount nonceAccount);
+
+  /// Fetches and adds nonce accounts, accounts which do not exist or are not usable are skipped.
+  ///
+  /// @return the number of accounts added.
+  CompletableFuture<Integer> load(final SolanaRpcClient rpcClient, final Collection<PublicKey> nonceAccounts);
+
+  /// @return null if no nonce is available.
+  NonceLease lease();
+
+  /// Returns an unused, or failed, lease to the pool.
+  ///
+  /// @throws IllegalStateException if the lease has already been returned.
+  void release(final NonceLease lease);
+
+  /// Marks the nonce of the lease as advanced by a sent transaction.
+  ///
+  /// @throws IllegalStateException if the lease has already been returned.
+  void consumed(final NonceLease lease);
+
+  /// Applies fetched or subscribed account data of a pooled nonce account, `null` if it has been closed.
+  ///
+  /// @return true if the account is known to the pool.
+  boolean accountChanged(final PublicKey nonceAccount, final byte[] data);
+
+  /// Fetches consumed nonces, returning those which have advanced to the pool.
+  CompletableFuture<Void> refreshConsumed(final SolanaRpcClient rpcClient);
+
+  /// Fetches every nonce which is not leased.
+  CompletableFuture<Void> refreshAll(final SolanaRpcClient rpcClient);
+
+  /// Derives the address of a nonce account from the authority and a seed.
+  AccountWithSeed nonceAccountWithSeed(final String asciiSeed);
+
+  /// Creates and initializes nonce accounts with the seeds `seedPrefix + index`, grouped into transactions which fit
+  /// within the packet size limit, less `reservedBytes` for additional instructions.
+  ///
+  /// @param lamports at least the rent exempt balance of [NonceAccount#BYTES].
+  List<List<Instruction>> provisionInstructions(final PublicKey payer,
+                                                final String seedPrefix,
+                                                final int fromIndex,
+                                                final int count,
+                                                final long lamports,
+                                                final int reservedBytes);
+}
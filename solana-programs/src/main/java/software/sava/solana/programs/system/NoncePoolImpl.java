@@ -0,0 +1,329 @@
+package software.sava.solana.programs.system;
+
+import software.sava.core.accounts.AccountWithSeed;
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.core.tx.Instruction;
+import software.sava.rpc.json.http.client.SolanaRpcClient;
+import software.sava.solana.programs.clients.TransactionSizeCalculator;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+final class NoncePoolImpl implements NoncePool {
+
+  private static final int MAX_MULTIPLE_ACCOUNTS = 100;
+
+  private static final int AVAILABLE = 0;
+  private static final int LEASED = 1;
+  private static final int CONSUMED = 2;
+  private static final int CLOSED = 3;
+  // Transient state while a slot is updated.
+  private static final int UPDATING = 4;
+
+  private final SolanaAccounts solanaAccounts;
+  private final PublicKey authority;
+  private final int capacity;
+  private final AtomicReferenceArray<NonceAccount> accounts;
+  private final AtomicIntegerArray states;
+  private final ConcurrentHashMap<PublicKey, Integer> slots;
+  private final AtomicInteger size;
+  private final AtomicInteger cursor;
+  private final AtomicLong numExternallyConsumed;
+
+  NoncePoolImpl(final SolanaAccounts solanaAccounts, final PublicKey authority, final int capacity) {
+    this.solanaAccounts = solanaAccounts;
+    this.authority = authority;
+    this.capacity = capacity;
+    this.accounts = new AtomicReferenceArray<>(capacity);
+    this.states = new AtomicIntegerArray(capacity);
+    this.slots = new ConcurrentHashMap<>(capacity);
+    this.size = new AtomicInteger();
+    this.cursor = new AtomicInteger();
+    this.numExternallyConsumed = new AtomicLong();
+  }
+
+  @Override
+  public PublicKey authority() {
+    return authority;
+  }
+
+  @Override
+  public int capacity() {
+    return capacity;
+  }
+
+  @Override
+  public int size() {
+    return size.get();
+  }
+
+  private int count(final int state) {
+    int count = 0;
+    for (int slot = 0, size = this.size.get(); slot < size; ++slot) {
+      if (states.get(slot) == state) {
+        ++count;
+      }
+    }
+    return count;
+  }
+
+  @Override
+  public int numAvailable() {
+    return count(AVAILABLE);
+  }
+
+  @Override
+  public int numLeased() {
+    return count(LEASED);
+  }
+
+  @Override
+  public int numConsumed() {
+    return count(CONSUMED);
+  }
+
+  @Override
+  public long numExternallyConsumed() {
+    return numExternallyConsumed.get();
+  }
+
+  private boolean usable(final NonceAccount nonceAccount) {
+    return nonceAccount.state() == NonceAccount.State.Initialized && authority.equals(nonceAccount.authority());
+  }
+
+  @Override
+  public synchronized boolean add(final NonceAccount nonceAccount) {
+    if (!usable(nonceAccount)) {
+      throw new IllegalArgumentException(String.format(
+          "Nonce account %s must be initialized with authority %s.", nonceAccount.address(), authority
+      ));
+    }
+    final var address = nonceAccount.address();
+    if (slots.containsKey(address)) {
+      return false;
+    }
+    final int size = this.size.get();
+    for (int slot = 0; slot < size; ++slot) {
+      if (states.get(slot) == CLOSED) {
+        // The account is set before the state, so a late update for the previous account fails its claim.
+        slots.remove(accounts.get(slot).address());
+        accounts.set(slot, nonceAccount);
+        slots.put(address, slot);
+        states.set(slot, AVAILABLE);
+        return true;
+      }
+    }
+    if (size == capacity) {
+      return false;
+    }
+    accounts.set(size, nonceAccount);
+    slots.put(address, size);
+    states.set(size, AVAILABLE);
+    // Publish the slot only once it is fully initialized.
+    this.size.set(size + 1);
+    return true;
+  }
+
+  @Override
+  public CompletableFuture<Integer> load(final SolanaRpcClient rpcClient, final Collection<PublicKey> nonceAccounts) {
+    final var keys = List.copyOf(nonceAccounts);
+    final int numKeys = keys.size();
+    final var numAdded = new AtomicInteger();
+    final var futures = new CompletableFuture<?>[(numKeys + MAX_MULTIPLE_ACCOUNTS - 1) / MAX_MULTIPLE_ACCOUNTS];
+    for (int from = 0, f = 0; from < numKeys; from += MAX_MULTIPLE_ACCOUNTS, ++f) {
+      final var chunk = keys.subList(from, Math.min(numKeys, from + MAX_MULTIPLE_ACCOUNTS));
+      futures[f] = rpcClient.getMultipleAccounts(chunk).thenAccept(accountInfos -> {
+        for (final var accountInfo : accountInfos) {
+          if (accountInfo != null && accountInfo.data() != null && accountInfo.data().length >= NonceAccount.BYTES) {
+            final var nonceAccount = NonceAccount.read(accountInfo);
+            if (usable(nonceAccount) && add(nonceAccount)) {
+              numAdded.incrementAndGet();
+            }
+          }
+        }
+      });
+    }
+    return CompletableFuture.allOf(futures).thenApply(ignored -> numAdded.get());
+  }
+
+  @Override
+  public NonceLease lease() {
+    final int size = this.size.get();
+    if (size == 0) {
+      return null;
+    }
+    final int start = (cursor.getAndIncrement() & Integer.MAX_VALUE) % size;
+    for (int i = 0, slot = start; i < size; ++i, slot = slot + 1 == size ? 0 : slot + 1) {
+      if (states.get(slot) == AVAILABLE && states.compareAndSet(slot, AVAILABLE, LEASED)) {
+        return new NonceLease(slot, accounts.get(slot));
+      }
+    }
+    return null;
+  }
+
+  private void returnLease(final NonceLease lease, final int state) {
+    if (!states.compareAndSet(lease.slot(), LEASED, state)) {
+      throw new IllegalStateException("Nonce lease for " + lease.nonceAccount().address() + " has already been returned.");
+    }
+  }
+
+  @Override
+  public void release(final NonceLease lease) {
+    returnLease(lease, AVAILABLE);
+  }
+
+  @Override
+  public void consumed(final NonceLease lease) {
+    returnLease(lease, CONSUMED);
+  }
+
+  /// Moves the slot to `UPDATING` unless it is leased or closed. [#add] may re-use a closed slot for another account
+  /// between reading the slot and claiming it, so the claim is only kept if the slot still holds `expected`.
+  ///
+  /// @return the state the slot was claimed from, or -1.
+  private int claim(final int slot, final NonceAccount expected) {
+    for (int state; ; ) {
+      state = states.get(slot);
+      if (state == UPDATING) {
+        Thread.onSpinWait();
+      } else if (state == LEASED || state == CLOSED) {
+        return -1;
+      } else if (states.compareAndSet(slot, state, UPDATING)) {
+        if (accounts.get(slot) == expected) {
+          return state;
+        }
+        states.set(slot, state);
+        return -1;
+      }
+    }
+  }
+
+  private void update(final int slot, final PublicKey address, final byte[] data) {
+    final var current = accounts.get(slot);
+    if (!current.address().equals(address)) { // Slot has been re-used.
+      return;
+    }
+    final var fetched = data == null || data.length < NonceAccount.BYTES ? null : NonceAccount.read(address, data);
+    if (fetched == null || !usable(fetched)) {
+      if (claim(slot, current) >= 0) {
+        states.set(slot, CLOSED);
+      }
+      return;
+    }
+    if (Arrays.equals(current.nonce(), fetched.nonce())) {
+      return;
+    }
+    final int state = claim(slot, current);
+    if (state >= 0) {
+      accounts.set(slot, fetched);
+      states.set(slot, AVAILABLE);
+      if (state == AVAILABLE) {
+        numExternallyConsumed.incrementAndGet();
+      }
+    }
+  }
+
+  @Override
+  public boolean accountChanged(final PublicKey nonceAccount, final byte[] data) {
+    final var slot = slots.get(nonceAccount);
+    if (slot == null) {
+      return false;
+    } else {
+      update(slot, nonceAccount, data);
+      return true;
+    }
+  }
+
+  private CompletableFuture<Void> refresh(final SolanaRpcClient rpcClient, final boolean includeAvailable) {
+    final var keys = new ArrayList<PublicKey>();
+    for (int slot = 0, size = this.size.get(); slot < size; ++slot) {
+      final int state = states.get(slot);
+      if (state == CONSUMED || (includeAvailable && state == AVAILABLE)) {
+        keys.add(accounts.get(slot).address());
+      }
+    }
+    final int numKeys = keys.size();
+    if (numKeys == 0) {
+      return CompletableFuture.completedFuture(null);
+    }
+    final var futures = new CompletableFuture<?>[(numKeys + MAX_MULTIPLE_ACCOUNTS - 1) / MAX_MULTIPLE_ACCOUNTS];
+    for (int from = 0, f = 0; from < numKeys; from += MAX_MULTIPLE_ACCOUNTS, ++f) {
+      final var chunk = keys.subList(from, Math.min(numKeys, from + MAX_MULTIPLE_ACCOUNTS));
+      futures[f] = rpcClient.getMultipleAccounts(chunk).thenAccept(accountInfos -> {
+        for (int i = 0; i < chunk.size(); ++i) {
+          final var accountInfo = accountInfos.get(i);
+          accountChanged(chunk.get(i), accountInfo == null ? null : accountInfo.data());
+        }
+      });
+    }
+    return CompletableFuture.allOf(futures);
+  }
+
+  @Override
+  public CompletableFuture<Void> refreshConsumed(final SolanaRpcClient rpcClient) {
+    return refresh(rpcClient, false);
+  }
+
+  @Override
+  public CompletableFuture<Void> refreshAll(final SolanaRpcClient rpcClient) {
+    return refresh(rpcClient, true);
+  }
+
+  @Override
+  public AccountWithSeed nonceAccountWithSeed(final String asciiSeed) {
+    return PublicKey.createOffCurveAccountWithAsciiSeed(authority, asciiSeed, solanaAccounts.systemProgram());
+  }
+
+  @Override
+  public List<List<Instruction>> provisionInstructions(final PublicKey payer,
+                                                       final String seedPrefix,
+                                                       final int fromIndex,
+                                                       final int count,
+                                                       final long lamports,
+                                                       final int reservedBytes) {
+    final int maxSize = TransactionSizeCalculator.PACKET_DATA_SIZE - reservedBytes;
+    final var calculator = TransactionSizeCalculator.createCalculator(payer);
+    final var transactions = new ArrayList<List<Instruction>>();
+    var instructions = new ArrayList<Instruction>();
+    for (int i = fromIndex, to = fromIndex + count; i < to; ++i) {
+      final var accountWithSeed = nonceAccountWithSeed(seedPrefix + i);
+      final var createAccount = SystemProgram.createAccountWithSeed(
+          solanaAccounts.invokedSystemProgram(),
+          payer,
+          accountWithSeed,
+          lamports,
+          NonceAccount.BYTES,
+          solanaAccounts.systemProgram()
+      );
+      final var initialize = SystemProgram.initializeNonceAccount(
+          solanaAccounts,
+          accountWithSeed.publicKey(),
+          authority
+      );
+      calculator.add(createAccount);
+      calculator.add(initialize);
+      if (calculator.size() > maxSize) {
+        if (instructions.isEmpty()) {
+          throw new IllegalArgumentException(reservedBytes + " reserved bytes leaves no room to provision a nonce account.");
+        }
+        transactions.add(instructions);
+        instructions = new ArrayList<>();
+        calculator.reset();
+        calculator.add(createAccount);
+        calculator.add(initialize);
+      }
+      instructions.add(createAccount);
+      instructions.add(initialize);
+    }
+    if (!instructions.isEmpty()) {
+      transactions.add(instructions);
+    }
+    return transactions;
+  }
+}
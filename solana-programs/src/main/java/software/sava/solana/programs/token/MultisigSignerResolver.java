@@ -0,0 +1,130 @@
+package software.sava.solana.programs.token;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.rpc.json.http.client.SolanaRpcClient;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/// Resolves the signer accounts to pass to the `*Multisig` instruction builders of [TokenProgram] and
+/// [Token2022Program] from a fixed set of available signers.
+///
+/// Multisig accounts and their resolved signer lists are cached, so they only need to be fetched once.
+public final class MultisigSignerResolver {
+
+  private static final int MAX_MULTIPLE_ACCOUNTS = 100;
+
+  private final Set<PublicKey> availableSigners;
+  private final ConcurrentHashMap<PublicKey, TokenMultisig> multisigAccounts;
+  private final ConcurrentHashMap<PublicKey, List<PublicKey>> resolvedSigners;
+
+  private MultisigSignerResolver(final Set<PublicKey> availableSigners) {
+    this.availableSigners = availableSigners;
+    this.multisigAccounts = new ConcurrentHashMap<>();
+    this.resolvedSigners = new ConcurrentHashMap<>();
+  }
+
+  public static MultisigSignerResolver createResolver(final Collection<PublicKey> availableSigners) {
+    return new MultisigSignerResolver(Set.copyOf(availableSigners));
+  }
+
+  /// Returns the first `M` available signers in the order they are stored in the multisig account,
+  /// or `null` if fewer than `M` of its signers are available.
+  public static List<PublicKey> resolveSigners(final TokenMultisig multisig, final Set<PublicKey> availableSigners) {
+    final int m = multisig.m();
+    if (!multisig.initialized() || m == 0 || availableSigners.size() < m) {
+      return null;
+    }
+    final var signers = new PublicKey[m];
+    for (int i = 0, n = multisig.n(), s = 0; i < n; ++i) {
+      final var signer = multisig.signer(i);
+      if (availableSigners.contains(signer)) {
+        signers[s++] = signer;
+        if (s == m) {
+          return List.of(signers);
+        }
+      }
+    }
+    return null;
+  }
+
+  public Set<PublicKey> availableSigners() {
+    return availableSigners;
+  }
+
+  public TokenMultisig multisig(final PublicKey multisigAccount) {
+    return multisigAccounts.get(multisigAccount);
+  }
+
+  public void put(final TokenMultisig multisig) {
+    multisigAccounts.put(multisig.address(), multisig);
+    resolvedSigners.remove(multisig.address());
+  }
+
+  public void remove(final PublicKey multisigAccount) {
+    multisigAccounts.remove(multisigAccount);
+    resolvedSigners.remove(multisigAccount);
+  }
+
+  /// Returns the cached signer subset for the multisig account, or `null` if it is unknown or cannot be satisfied.
+  public List<PublicKey> resolve(final PublicKey multisigAccount) {
+    final var signers = resolvedSigners.get(multisigAccount);
+    if (signers != null) {
+      return signers;
+    }
+    final var multisig = multisigAccounts.get(multisigAccount);
+    if (multisig == null) {
+      return null;
+    }
+    final var resolved = resolveSigners(multisig, availableSigners);
+    if (resolved != null) {
+      resolvedSigners.put(multisigAccount, resolved);
+    }
+    return resolved;
+  }
+
+  public List<PublicKey> resolveOrThrow(final PublicKey multisigAccount) {
+    final var signers = resolve(multisigAccount);
+    if (signers == null) {
+      final var multisig = multisigAccounts.get(multisigAccount);
+      if (multisig == null) {
+        throw new IllegalStateException("Unknown multisig account " + multisigAccount);
+      } else {
+        throw new IllegalStateException(String.format(
+            "%d of %d signers required for multisig account %s, not enough are available.",
+            multisig.m(), multisig.n(), multisigAccount
+        ));
+      }
+    }
+    return signers;
+  }
+
+  /// Fetches and caches the multisig accounts which are not already known.
+  public CompletableFuture<Void> fetchMultisigAccounts(final SolanaRpcClient rpcClient,
+                                                       final Collection<PublicKey> multisigAccounts) {
+    final var missing = multisigAccounts.stream()
+        .filter(multisigAccount -> !this.multisigAccounts.containsKey(multisigAccount))
+        .distinct()
+        .toList();
+    final int numMissing = missing.size();
+    if (numMissing == 0) {
+      return CompletableFuture.completedFuture(null);
+    }
+    final var futures = new CompletableFuture<?>[(numMissing + MAX_MULTIPLE_ACCOUNTS - 1) / MAX_MULTIPLE_ACCOUNTS];
+    for (int from = 0, f = 0; from < numMissing; from += MAX_MULTIPLE_ACCOUNTS, ++f) {
+      final var keys = missing.subList(from, Math.min(numMissing, from + MAX_MULTIPLE_ACCOUNTS));
+      futures[f] = rpcClient.getMultipleAccounts(keys).thenAccept(accountInfos -> {
+        for (final var accountInfo : accountInfos) {
+          if (accountInfo != null) {
+            final var multisig = TokenMultisig.read(accountInfo.pubKey(), accountInfo.data());
+            if (multisig != null) {
+              put(multisig);
+            }
+          }
+        }
+      });
+    }
+    return CompletableFuture.allOf(futures);
+  }
+}
@@ -7,8 +7,8 @@ import software.sava.core.accounts.token.extensions.ExtensionType;
 import software.sava.core.encoding.ByteUtil;
 import software.sava.core.programs.Discriminator;
 import software.sava.core.tx.Instruction;
+import software.sava.solana.programs.serde.SerdeUtil;
 
-import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
@@ -932,6 +932,29 @@ public final class Token2022Program {
     );
   }
 
+  public static TokenTransferTemplate transferTemplate(final SolanaAccounts solanaAccounts,
+                                                       final PublicKey source,
+                                                       final PublicKey destination,
+                                                       final PublicKey owner) {
+    return TokenProgram.transferTemplate(solanaAccounts.invokedToken2022Program(), source, destination, owner);
+  }
+
+  public static TokenTransferTemplate transferCheckedTemplate(final SolanaAccounts solanaAccounts,
+                                                              final PublicKey source,
+                                                              final PublicKey destination,
+                                                              final int decimals,
+                                                              final PublicKey owner,
+                                                              final PublicKey tokenMint) {
+    return TokenProgram.transferCheckedTemplate(
+        solanaAccounts.invokedToken2022Program(),
+        source,
+        destination,
+        decimals,
+        owner,
+        tokenMint
+    );
+  }
+
   public static Instruction approve(final SolanaAccounts solanaAccounts,
                                     final PublicKey sourceAccount,
                                     final PublicKey delegate,
@@ -1457,34 +1480,32 @@ public final class Token2022Program {
 
   private static final Discriminator INITIALIZE_TOKEN_METADATA_DISCRIMINATOR = Discriminator.toDiscriminator(210, 225, 30, 162, 88, 184, 77, 141);
 
-  private static byte[] buildInitializeTokenMetadataData(final String name, final String symbol, final String uri) {
-    final byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
-    final byte[] symbolBytes = symbol.getBytes(StandardCharsets.UTF_8);
-    final byte[] uriBytes = uri.getBytes(StandardCharsets.UTF_8);
-
-    final byte[] data = new byte[
-        INITIALIZE_TOKEN_METADATA_DISCRIMINATOR.length()
-            + Integer.BYTES + nameBytes.length
-            + Integer.BYTES + symbolBytes.length
-            + Integer.BYTES + uriBytes.length
-        ];
-
-    int offset = INITIALIZE_TOKEN_METADATA_DISCRIMINATOR.write(data, 0);
-
-    ByteUtil.putInt32LE(data, offset, nameBytes.length);
-    offset += Integer.BYTES;
-    System.arraycopy(nameBytes, 0, data, offset, nameBytes.length);
-    offset += nameBytes.length;
-
-    ByteUtil.putInt32LE(data, offset, symbolBytes.length);
-    offset += Integer.BYTES;
-    System.arraycopy(symbolBytes, 0, data, offset, symbolBytes.length);
-    offset += symbolBytes.length;
+  public static int initializeTokenMetadataDataLength(final CharSequence name,
+                                                      final CharSequence symbol,
+                                                      final CharSequence uri) {
+    return INITIALIZE_TOKEN_METADATA_DISCRIMINATOR.length()
+        + Integer.BYTES + SerdeUtil.utf8Length(name)
+        + Integer.BYTES + SerdeUtil.utf8Length(symbol)
+        + Integer.BYTES + SerdeUtil.utf8Length(uri);
+  }
 
-    ByteUtil.putInt32LE(data, offset, uriBytes.length);
-    offset += Integer.BYTES;
-    System.arraycopy(uriBytes, 0, data, offset, uriBytes.length);
+  /// Writes the initialize token metadata instruction data into `data`, which must have at least
+  /// [#initializeTokenMetadataDataLength] bytes remaining. Returns the number of bytes written.
+  public static int writeInitializeTokenMetadataData(final CharSequence name,
+                                                     final CharSequence symbol,
+                                                     final CharSequence uri,
+                                                     final byte[] data,
+                                                     final int offset) {
+    int i = offset + INITIALIZE_TOKEN_METADATA_DISCRIMINATOR.write(data, offset);
+    i += SerdeUtil.writeBorshString(name, data, i);
+    i += SerdeUtil.writeBorshString(symbol, data, i);
+    i += SerdeUtil.writeBorshString(uri, data, i);
+    return i - offset;
+  }
 
+  private static byte[] buildInitializeTokenMetadataData(final String name, final String symbol, final String uri) {
+    final byte[] data = new byte[initializeTokenMetadataDataLength(name, symbol, uri)];
+    writeInitializeTokenMetadataData(name, symbol, uri, data, 0);
     return data;
   }
 
@@ -0,0 +1,190 @@
+package software.sava.solana.programs.token;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.token.extensions.ExtensionType;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+import static software.sava.core.accounts.PublicKey.readPubKey;
+import static software.sava.core.encoding.ByteUtil.getInt16LE;
+import static software.sava.core.encoding.ByteUtil.getInt32LE;
+
+/// Lazy view over a Token-2022 `TokenMetadata` extension value.
+/// Only string offsets are resolved up front, strings are decoded on request and their lengths can be read without
+/// decoding.
+///
+/// https://github.com/solana-program/token-metadata/blob/main/interface/src/state.rs
+public record TokenMetadata(byte[] data,
+                            int offset,
+                            int nameOffset,
+                            int symbolOffset,
+                            int uriOffset,
+                            int additionalMetadataOffset) {
+
+  public static final int UPDATE_AUTHORITY_OFFSET = 0;
+  public static final int MINT_OFFSET = UPDATE_AUTHORITY_OFFSET + PUBLIC_KEY_LENGTH;
+  public static final int NAME_OFFSET = MINT_OFFSET + PUBLIC_KEY_LENGTH;
+
+  public static final int TOKEN_METADATA_EXTENSION_TYPE = ExtensionType.TokenMetadata.ordinal();
+  // Extensions follow the base mint, padded to the size of a token account, and the account type.
+  static final int MINT_TLV_OFFSET = 165 + 1;
+
+  private static int skipString(final byte[] data, final int offset) {
+    return offset + Integer.BYTES + getInt32LE(data, offset);
+  }
+
+  public static TokenMetadata read(final byte[] data, final int offset) {
+    if (data == null || data.length - offset < NAME_OFFSET + (3 * Integer.BYTES)) {
+      return null;
+    }
+    final int nameOffset = offset + NAME_OFFSET;
+    final int symbolOffset = skipString(data, nameOffset);
+    final int uriOffset = skipString(data, symbolOffset);
+    final int additionalMetadataOffset = skipString(data, uriOffset);
+    return new TokenMetadata(data, offset, nameOffset, symbolOffset, uriOffset, additionalMetadataOffset);
+  }
+
+  /// Returns the offset of the `TokenMetadata` extension value within Token-2022 mint account data, or -1.
+  public static int findInMint(final byte[] mintData) {
+    if (mintData == null) {
+      return -1;
+    }
+    for (int i = MINT_TLV_OFFSET, end = mintData.length - (Short.BYTES + Short.BYTES); i <= end; ) {
+      final int type = getInt16LE(mintData, i) & 0xFFFF;
+      final int length = getInt16LE(mintData, i + Short.BYTES) & 0xFFFF;
+      i += Short.BYTES + Short.BYTES;
+      if (type == TOKEN_METADATA_EXTENSION_TYPE) {
+        return i;
+      } else if (type == 0) { // Uninitialized, remaining data is padding.
+        return -1;
+      }
+      i += length;
+    }
+    return -1;
+  }
+
+  public static TokenMetadata readFromMint(final byte[] mintData) {
+    final int offset = findInMint(mintData);
+    return offset < 0 ? null : read(mintData, offset);
+  }
+
+  /// Returns null if the metadata cannot be updated.
+  public PublicKey updateAuthority() {
+    final int from = offset + UPDATE_AUTHORITY_OFFSET;
+    for (int i = from, to = from + PUBLIC_KEY_LENGTH; i < to; ++i) {
+      if (data[i] != 0) {
+        return readPubKey(data, from);
+      }
+    }
+    return null;
+  }
+
+  public PublicKey mint() {
+    return readPubKey(data, offset + MINT_OFFSET);
+  }
+
+  private int length(final int stringOffset) {
+    return getInt32LE(data, stringOffset);
+  }
+
+  private String string(final int stringOffset) {
+    return new String(data, stringOffset + Integer.BYTES, length(stringOffset), UTF_8);
+  }
+
+  private boolean equals(final int stringOffset, final byte[] utf8) {
+    final int from = stringOffset + Integer.BYTES;
+    return Arrays.equals(data, from, from + length(stringOffset), utf8, 0, utf8.length);
+  }
+
+  private boolean startsWith(final int stringOffset, final byte[] utf8Prefix) {
+    final int length = length(stringOffset);
+    if (length < utf8Prefix.length) {
+      return false;
+    }
+    final int from = stringOffset + Integer.BYTES;
+    return Arrays.equals(data, from, from + utf8Prefix.length, utf8Prefix, 0, utf8Prefix.length);
+  }
+
+  public int nameLength() {
+    return length(nameOffset);
+  }
+
+  public String name() {
+    return string(nameOffset);
+  }
+
+  public boolean nameEquals(final byte[] utf8) {
+    return equals(nameOffset, utf8);
+  }
+
+  public boolean nameStartsWith(final byte[] utf8Prefix) {
+    return startsWith(nameOffset, utf8Prefix);
+  }
+
+  public int symbolLength() {
+    return length(symbolOffset);
+  }
+
+  public String symbol() {
+    return string(symbolOffset);
+  }
+
+  public boolean symbolEquals(final byte[] utf8) {
+    return equals(symbolOffset, utf8);
+  }
+
+  public int uriLength() {
+    return length(uriOffset);
+  }
+
+  public String uri() {
+    return string(uriOffset);
+  }
+
+  public boolean uriStartsWith(final byte[] utf8Prefix) {
+    return startsWith(uriOffset, utf8Prefix);
+  }
+
+  public int numAdditionalMetadata() {
+    return getInt32LE(data, additionalMetadataOffset);
+  }
+
+  /// Returns the value for `key` without decoding any other entries, or null if absent.
+  public String additionalMetadata(final String key) {
+    final byte[] keyBytes = key.getBytes(UTF_8);
+    int i = additionalMetadataOffset + Integer.BYTES;
+    for (int n = numAdditionalMetadata(); n > 0; --n) {
+      final int valueOffset = skipString(data, i);
+      if (equals(i, keyBytes)) {
+        return string(valueOffset);
+      }
+      i = skipString(data, valueOffset);
+    }
+    return null;
+  }
+
+  public Map<String, String> additionalMetadata() {
+    final int numEntries = numAdditionalMetadata();
+    final var additionalMetadata = LinkedHashMap.<String, String>newLinkedHashMap(numEntries);
+    int i = additionalMetadataOffset + Integer.BYTES;
+    for (int n = numEntries; n > 0; --n) {
+      final int valueOffset = skipString(data, i);
+      additionalMetadata.put(string(i), string(valueOffset));
+      i = skipString(data, valueOffset);
+    }
+    return additionalMetadata;
+  }
+
+  /// Offset after the last additional metadata entry.
+  public int endOffset() {
+    int i = additionalMetadataOffset + Integer.BYTES;
+    for (int n = numAdditionalMetadata(); n > 0; --n) {
+      i = skipString(data, skipString(data, i));
+    }
+    return i;
+  }
+}
@@ -0,0 +1,92 @@
+package software.sava.solana.programs.token;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.rpc.Filter;
+
+import java.util.Arrays;
+import java.util.function.BiFunction;
+
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+import static software.sava.core.accounts.PublicKey.readPubKey;
+import static software.sava.core.rpc.Filter.createDataSizeFilter;
+
+/// Zero-copy view over SPL Token and Token-2022 multisig account data.
+/// Signer keys are only materialized when requested.
+///
+/// https://github.com/solana-program/token/blob/main/interface/src/state.rs
+public record TokenMultisig(PublicKey address, byte[] data, int offset) {
+
+  public static final int MAX_SIGNERS = 11;
+
+  public static final int M_OFFSET = 0;
+  public static final int N_OFFSET = M_OFFSET + 1;
+  public static final int IS_INITIALIZED_OFFSET = N_OFFSET + 1;
+  public static final int SIGNERS_OFFSET = IS_INITIALIZED_OFFSET + 1;
+
+  public static final int BYTES = SIGNERS_OFFSET + (MAX_SIGNERS * PUBLIC_KEY_LENGTH);
+  public static final Filter DATA_SIZE_FILTER = createDataSizeFilter(BYTES);
+
+  public static TokenMultisig read(final PublicKey address, final byte[] data, final int offset) {
+    if (data == null || data.length - offset < BYTES) {
+      return null;
+    }
+    return new TokenMultisig(address, data, offset);
+  }
+
+  public static TokenMultisig read(final PublicKey address, final byte[] data) {
+    return read(address, data, 0);
+  }
+
+  public static final BiFunction<PublicKey, byte[], TokenMultisig> FACTORY = TokenMultisig::read;
+
+  /// Number of signers required.
+  public int m() {
+    return data[offset + M_OFFSET] & 0xFF;
+  }
+
+  /// Number of valid signers, clamped to [#MAX_SIGNERS] in case of malformed data.
+  public int n() {
+    return Math.min(data[offset + N_OFFSET] & 0xFF, MAX_SIGNERS);
+  }
+
+  public boolean initialized() {
+    return data[offset + IS_INITIALIZED_OFFSET] != 0;
+  }
+
+  public int signerOffset(final int index) {
+    return offset + SIGNERS_OFFSET + (index * PUBLIC_KEY_LENGTH);
+  }
+
+  public PublicKey signer(final int index) {
+    return readPubKey(data, signerOffset(index));
+  }
+
+  public PublicKey[] signers() {
+    final int n = n();
+    final var signers = new PublicKey[n];
+    for (int i = 0; i < n; ++i) {
+      signers[i] = signer(i);
+    }
+    return signers;
+  }
+
+  public int indexOf(final byte[] publicKey, final int keyOffset) {
+    for (int i = 0, n = n(), from = signerOffset(0); i < n; ++i, from += PUBLIC_KEY_LENGTH) {
+      if (Arrays.equals(
+          data, from, from + PUBLIC_KEY_LENGTH,
+          publicKey, keyOffset, keyOffset + PUBLIC_KEY_LENGTH
+      )) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  public int indexOf(final PublicKey publicKey) {
+    return indexOf(publicKey.toByteArray(), 0);
+  }
+
+  public boolean isSigner(final PublicKey publicKey) {
+    return indexOf(publicKey) >= 0;
+  }
+}
@@ -710,16 +710,33 @@ public final class TokenProgram {
     return amountData(TokenInstruction.Transfer, amount);
   }
 
+  static List<AccountMeta> transferKeys(final PublicKey source,
+                                        final PublicKey destination,
+                                        final PublicKey owner) {
+    return List.of(
+        createWrite(source),
+        createWrite(destination),
+        createReadOnlySigner(owner)
+    );
+  }
+
+  static List<AccountMeta> transferMultisigKeys(final PublicKey source,
+                                                final PublicKey destination,
+                                                final PublicKey owner,
+                                                final List<PublicKey> signerAccounts) {
+    final var keys = initReadOnlySigners(3, signerAccounts);
+    keys[0] = createWrite(source);
+    keys[1] = createWrite(destination);
+    keys[2] = createRead(owner);
+    return Arrays.asList(keys);
+  }
+
   public static Instruction transfer(final AccountMeta invokedProgram,
                                      final PublicKey source,
                                      final PublicKey destination,
                                      final long amount,
                                      final PublicKey owner) {
-    final var keys = List.of(
-        createWrite(source),
-        createWrite(destination),
-        createReadOnlySigner(owner)
-    );
+    final var keys = transferKeys(source, destination, owner);
 
     final byte[] data = transferData(amount);
 
@@ -732,14 +749,11 @@ public final class TokenProgram {
                                              final long amount,
                                              final PublicKey owner,
                                              final List<PublicKey> signerAccounts) {
-    final var keys = initReadOnlySigners(3, signerAccounts);
-    keys[0] = createWrite(source);
-    keys[1] = createWrite(destination);
-    keys[2] = createRead(owner);
+    final var keys = transferMultisigKeys(source, destination, owner, signerAccounts);
 
     final byte[] data = transferData(amount);
 
-    return createInstruction(invokedProgram, Arrays.asList(keys), data);
+    return createInstruction(invokedProgram, keys, data);
   }
 
   private static byte[] checkedAmountData(final TokenInstruction tokenInstruction,
@@ -756,6 +770,31 @@ public final class TokenProgram {
     return checkedAmountData(TokenInstruction.TransferChecked, amount, decimals);
   }
 
+  static List<AccountMeta> transferCheckedKeys(final PublicKey source,
+                                               final PublicKey destination,
+                                               final PublicKey owner,
+                                               final PublicKey tokenMint) {
+    return List.of(
+        createWrite(source),
+        createRead(tokenMint),
+        createWrite(destination),
+        createReadOnlySigner(owner)
+    );
+  }
+
+  static List<AccountMeta> transferCheckedMultisigKeys(final PublicKey source,
+                                                       final PublicKey destination,
+                                                       final PublicKey owner,
+                                                       final PublicKey tokenMint,
+                                                       final List<PublicKey> signerAccounts) {
+    final var keys = initReadOnlySigners(4, signerAccounts);
+    keys[0] = createWrite(source);
+    keys[1] = createRead(tokenMint);
+    keys[2] = createWrite(destination);
+    keys[3] = createRead(owner);
+    return Arrays.asList(keys);
+  }
+
   public static Instruction transferChecked(final AccountMeta invokedProgram,
                                             final PublicKey source,
                                             final PublicKey destination,
@@ -763,12 +802,7 @@ public final class TokenProgram {
                                             final int decimals,
                                             final PublicKey owner,
                                             final PublicKey tokenMint) {
-    final var keys = List.of(
-        createWrite(source),
-        createRead(tokenMint),
-        createWrite(destination),
-        createReadOnlySigner(owner)
-    );
+    final var keys = transferCheckedKeys(source, destination, owner, tokenMint);
     final byte[] data = transferCheckedData(amount, decimals);
     return createInstruction(invokedProgram, keys, data);
   }
@@ -781,15 +815,53 @@ public final class TokenProgram {
                                                     final PublicKey owner,
                                                     final PublicKey tokenMint,
                                                     final List<PublicKey> signerAccounts) {
-    final var keys = initReadOnlySigners(4, signerAccounts);
-    keys[0] = createWrite(source);
-    keys[1] = createRead(tokenMint);
-    keys[2] = createWrite(destination);
-    keys[3] = createRead(owner);
+    final var keys = transferCheckedMultisigKeys(source, destination, owner, tokenMint, signerAccounts);
 
     final byte[] data = transferCheckedData(amount, decimals);
 
-    return createInstruction(invokedProgram, Arrays.asList(keys), data);
+    return createInstruction(invokedProgram, keys, data);
+  }
+
+  public static TokenTransferTemplate transferTemplate(final AccountMeta invokedProgram,
+                                                       final PublicKey source,
+                                                       final PublicKey destination,
+                                                       final PublicKey owner) {
+    return TokenTransferTemplate.createTransferTemplate(invokedProgram, source, destination, owner);
+  }
+
+  public static TokenTransferTemplate transferMultisigTemplate(final AccountMeta invokedProgram,
+                                                               final PublicKey source,
+                                                               final PublicKey destination,
+                                                               final PublicKey owner,
+                                                               final List<PublicKey> signerAccounts) {
+    return TokenTransferTemplate.createTransferMultisigTemplate(invokedProgram, source, destination, owner, signerAccounts);
+  }
+
+  public static TokenTransferTemplate transferCheckedTemplate(final AccountMeta invokedProgram,
+                                                              final PublicKey source,
+                                                              final PublicKey destination,
+                                                              final int decimals,
+                                                              final PublicKey owner,
+                                                              final PublicKey tokenMint) {
+    return TokenTransferTemplate.createTransferCheckedTemplate(invokedProgram, source, destination, decimals, owner, tokenMint);
+  }
+
+  public static TokenTransferTemplate transferCheckedMultisigTemplate(final AccountMeta invokedProgram,
+                                                                      final PublicKey source,
+                                                                      final PublicKey destination,
+                                                                      final int decimals,
+                                                                      final PublicKey owner,
+                                                                      final PublicKey tokenMint,
+                                                                      final List<PublicKey> signerAccounts) {
+    return TokenTransferTemplate.createTransferCheckedMultisigTemplate(
+        invokedProgram,
+        source,
+        destination,
+        decimals,
+        owner,
+        tokenMint,
+        signerAccounts
+    );
   }
 
   private static byte[] approveData(final long amount) {
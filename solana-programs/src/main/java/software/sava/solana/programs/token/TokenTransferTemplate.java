@@ -0,0 +1,142 @@
+package software.sava.solana.programs.token;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.meta.AccountMeta;
+import software.sava.core.encoding.ByteUtil;
+import software.sava.core.tx.Instruction;
+
+import java.util.List;
+
+import static software.sava.core.tx.Instruction.createInstruction;
+
+/// Pre-computed `Transfer` or `TransferChecked` instruction for a fixed source, destination and authority.
+/// The invoked program and account metas are created once and shared by every instruction produced.
+///
+/// [#instruction(long)] allocates only the instruction data.
+/// [#patch(long)] re-uses a single data buffer and instruction, it is only safe to use if the previously returned
+/// instruction has already been serialized, and must not be shared across threads.
+public final class TokenTransferTemplate {
+
+  private static final int AMOUNT_OFFSET = 1;
+  private static final int DECIMALS_OFFSET = AMOUNT_OFFSET + Long.BYTES;
+
+  private final AccountMeta invokedProgram;
+  private final List<AccountMeta> keys;
+  private final TokenProgram.TokenInstruction tokenInstruction;
+  private final int decimals;
+  private final int dataLength;
+  private final byte[] reusableData;
+  private final Instruction reusableInstruction;
+
+  private TokenTransferTemplate(final AccountMeta invokedProgram,
+                                final List<AccountMeta> keys,
+                                final TokenProgram.TokenInstruction tokenInstruction,
+                                final int decimals) {
+    this.invokedProgram = invokedProgram;
+    this.keys = keys;
+    this.tokenInstruction = tokenInstruction;
+    this.decimals = decimals;
+    this.dataLength = tokenInstruction == TokenProgram.TokenInstruction.TransferChecked
+        ? DECIMALS_OFFSET + 1
+        : DECIMALS_OFFSET;
+    this.reusableData = new byte[dataLength];
+    writeHeader(reusableData, 0);
+    this.reusableInstruction = createInstruction(invokedProgram, keys, reusableData);
+  }
+
+  static TokenTransferTemplate createTransferTemplate(final AccountMeta invokedProgram,
+                                                      final PublicKey source,
+                                                      final PublicKey destination,
+                                                      final PublicKey owner) {
+    return new TokenTransferTemplate(
+        invokedProgram,
+        TokenProgram.transferKeys(source, destination, owner),
+        TokenProgram.TokenInstruction.Transfer,
+        -1
+    );
+  }
+
+  static TokenTransferTemplate createTransferMultisigTemplate(final AccountMeta invokedProgram,
+                                                              final PublicKey source,
+                                                              final PublicKey destination,
+                                                              final PublicKey owner,
+                                                              final List<PublicKey> signerAccounts) {
+    return new TokenTransferTemplate(
+        invokedProgram,
+        TokenProgram.transferMultisigKeys(source, destination, owner, signerAccounts),
+        TokenProgram.TokenInstruction.Transfer,
+        -1
+    );
+  }
+
+  static TokenTransferTemplate createTransferCheckedTemplate(final AccountMeta invokedProgram,
+                                                             final PublicKey source,
+                                                             final PublicKey destination,
+                                                             final int decimals,
+                                                             final PublicKey owner,
+                                                             final PublicKey tokenMint) {
+    return new TokenTransferTemplate(
+        invokedProgram,
+        TokenProgram.transferCheckedKeys(source, destination, owner, tokenMint),
+        TokenProgram.TokenInstruction.TransferChecked,
+        decimals
+    );
+  }
+
+  static TokenTransferTemplate createTransferCheckedMultisigTemplate(final AccountMeta invokedProgram,
+                                                                     final PublicKey source,
+                                                                     final PublicKey destination,
+                                                                     final int decimals,
+                                                                     final PublicKey owner,
+                                                                     final PublicKey tokenMint,
+                                                                     final List<PublicKey> signerAccounts) {
+    return new TokenTransferTemplate(
+        invokedProgram,
+        TokenProgram.transferCheckedMultisigKeys(source, destination, owner, tokenMint, signerAccounts),
+        TokenProgram.TokenInstruction.TransferChecked,
+        decimals
+    );
+  }
+
+  private void writeHeader(final byte[] data, final int offset) {
+    tokenInstruction.write(data, offset);
+    if (decimals >= 0) {
+      data[offset + DECIMALS_OFFSET] = (byte) (decimals & 0xFF);
+    }
+  }
+
+  public AccountMeta invokedProgram() {
+    return invokedProgram;
+  }
+
+  public List<AccountMeta> keys() {
+    return keys;
+  }
+
+  public boolean checked() {
+    return decimals >= 0;
+  }
+
+  public int dataLength() {
+    return dataLength;
+  }
+
+  /// Writes the full instruction data for `amount` to `data` at `offset`, returns the number of bytes written.
+  public int writeData(final long amount, final byte[] data, final int offset) {
+    writeHeader(data, offset);
+    ByteUtil.putInt64LE(data, offset + AMOUNT_OFFSET, amount);
+    return dataLength;
+  }
+
+  public Instruction instruction(final long amount) {
+    final byte[] data = new byte[dataLength];
+    writeData(amount, data, 0);
+    return createInstruction(invokedProgram, keys, data);
+  }
+
+  /// Overwrites the amount of the shared instruction and returns it.
+  public Instruction patch(final long amount) {
+    ByteUtil.putInt64LE(reusableData, AMOUNT_OFFSET, amount);
+    return reusableInstruction;
+  }
+}
@@ -0,0 +1,16 @@
+package software.sava.solana.programs.vote;
+
+/// A vote for `slot` which has been confirmed `confirmationCount` times, it is locked out for
+/// `2^confirmationCount` slots.
+public record Lockout(long slot, int confirmationCount) {
+
+  public static final int BYTES = Long.BYTES + Integer.BYTES;
+
+  public long lockout() {
+    return 1L << Math.min(confirmationCount, 62);
+  }
+
+  public long lastLockedOutSlot() {
+    return slot + lockout();
+  }
+}
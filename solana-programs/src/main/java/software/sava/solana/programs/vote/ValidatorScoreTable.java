@@ -0,0 +1,152 @@
+package software.sava.solana.programs.vote;
+
+import software.sava.core.accounts.PublicKey;
+
+import java.util.Map;
+
+/// Columnar per-validator metrics produced by [ValidatorScoring], validators are addressed by row index.
+///
+/// Per-epoch columns cover the `numEpochs` epochs ending at [#epoch], a value of -1 means the epoch is unknown for
+/// the validator.
+public final class ValidatorScoreTable {
+
+  private final long epoch;
+  private final int numEpochs;
+  private final PublicKey[] voteAccounts;
+  private final Map<PublicKey, Integer> rows;
+  private final PublicKey[] nodePublicKeys;
+  private final long[] credits;
+  private final int[] commissions;
+  private final long[] medianCredits;
+  private final double[] creditRates;
+  private final long[] delegatedStake;
+  private final long[] lastVotedSlots;
+  private final boolean[] delinquent;
+
+  ValidatorScoreTable(final long epoch,
+                      final int numEpochs,
+                      final PublicKey[] voteAccounts,
+                      final Map<PublicKey, Integer> rows,
+                      final PublicKey[] nodePublicKeys,
+                      final long[] credits,
+                      final int[] commissions,
+                      final long[] medianCredits,
+                      final double[] creditRates,
+                      final long[] delegatedStake,
+                      final long[] lastVotedSlots,
+                      final boolean[] delinquent) {
+    this.epoch = epoch;
+    this.numEpochs = numEpochs;
+    this.voteAccounts = voteAccounts;
+    this.rows = rows;
+    this.nodePublicKeys = nodePublicKeys;
+    this.credits = credits;
+    this.commissions = commissions;
+    this.medianCredits = medianCredits;
+    this.creditRates = creditRates;
+    this.delegatedStake = delegatedStake;
+    this.lastVotedSlots = lastVotedSlots;
+    this.delinquent = delinquent;
+  }
+
+  public long epoch() {
+    return epoch;
+  }
+
+  public int numEpochs() {
+    return numEpochs;
+  }
+
+  public long firstEpoch() {
+    return epoch - numEpochs + 1;
+  }
+
+  public int numValidators() {
+    return voteAccounts.length;
+  }
+
+  /// @return the row of the vote account, or -1 if it is not in the table.
+  public int row(final PublicKey voteAccount) {
+    final var row = rows.get(voteAccount);
+    return row == null ? -1 : row;
+  }
+
+  /// @return the column of the epoch, or -1 if it is outside the window.
+  public int column(final long epoch) {
+    final long column = epoch - firstEpoch();
+    return column < 0 || column >= numEpochs ? -1 : (int) column;
+  }
+
+  public PublicKey voteAccount(final int row) {
+    return voteAccounts[row];
+  }
+
+  public PublicKey nodePublicKey(final int row) {
+    return nodePublicKeys[row];
+  }
+
+  /// Credits earned during the epoch, or -1 if unknown.
+  public long credits(final int row, final long epoch) {
+    final int column = column(epoch);
+    return column < 0 ? -1 : credits[(row * numEpochs) + column];
+  }
+
+  /// Commission observed for the epoch, or -1 if unknown.
+  public int commission(final int row, final long epoch) {
+    final int column = column(epoch);
+    return column < 0 ? -1 : commissions[(row * numEpochs) + column];
+  }
+
+  public int commission(final int row) {
+    return commission(row, epoch);
+  }
+
+  /// @return true if the commission changed within the window.
+  public boolean commissionChanged(final int row) {
+    int previous = -1;
+    for (int i = row * numEpochs, to = i + numEpochs; i < to; ++i) {
+      final int commission = commissions[i];
+      if (commission >= 0) {
+        if (previous >= 0 && commission != previous) {
+          return true;
+        }
+        previous = commission;
+      }
+    }
+    return false;
+  }
+
+  /// Median credits earned by validators which voted during the epoch, or -1 if unknown.
+  public long medianCredits(final long epoch) {
+    final int column = column(epoch);
+    return column < 0 ? -1 : medianCredits[column];
+  }
+
+  /// Credits earned during the last complete epoch relative to the cluster median.
+  public double creditRate(final int row) {
+    return creditRates[row];
+  }
+
+  /// Sum of stake delegated to the vote account which is not deactivated as of [#epoch], without warmup or
+  /// cooldown applied.
+  public long delegatedStake(final int row) {
+    return delegatedStake[row];
+  }
+
+  public long totalDelegatedStake() {
+    long total = 0;
+    for (final long stake : delegatedStake) {
+      total += stake;
+    }
+    return total;
+  }
+
+  /// @return the last voted slot, or -1 if the validator has never voted.
+  public long lastVotedSlot(final int row) {
+    return lastVotedSlots[row];
+  }
+
+  public boolean delinquent(final int row) {
+    return delinquent[row];
+  }
+}
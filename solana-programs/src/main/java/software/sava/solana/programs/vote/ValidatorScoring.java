@@ -0,0 +1,273 @@
+package software.sava.solana.programs.vote;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.rpc.json.http.response.AccountInfo;
+import software.sava.solana.programs.stake.StakeAccount;
+import software.sava.solana.programs.stake.StakeState;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+import static software.sava.core.encoding.ByteUtil.getInt32LE;
+import static software.sava.core.encoding.ByteUtil.getInt64LE;
+
+/// Scores the full validator set from raw vote and stake account data, parsing and aggregating in parallel on a
+/// [ForkJoinPool].
+///
+/// Commission history is carried forward from the previous table, as vote accounts only hold the current
+/// commission. Delinquency follows the RPC definition of a last vote more than `delinquentSlotDistance` slots behind.
+public final class ValidatorScoring {
+
+  public static final int DEFAULT_DELINQUENT_SLOT_DISTANCE = 128;
+
+  private static final int THRESHOLD = 256;
+  private static final int STAKE_THRESHOLD = 8_192;
+
+  private final ForkJoinPool pool;
+  private final int numEpochs;
+  private final int delinquentSlotDistance;
+
+  private ValidatorScoring(final ForkJoinPool pool, final int numEpochs, final int delinquentSlotDistance) {
+    this.pool = pool;
+    this.numEpochs = numEpochs;
+    this.delinquentSlotDistance = delinquentSlotDistance;
+  }
+
+  /// @param numEpochs number of epochs of credits and commission history to keep.
+  public static ValidatorScoring createScoring(final ForkJoinPool pool,
+                                               final int numEpochs,
+                                               final int delinquentSlotDistance) {
+    if (numEpochs < 1) {
+      throw new IllegalArgumentException("numEpochs must be positive.");
+    }
+    return new ValidatorScoring(pool, numEpochs, delinquentSlotDistance);
+  }
+
+  public static ValidatorScoring createScoring(final int numEpochs) {
+    return createScoring(ForkJoinPool.commonPool(), numEpochs, DEFAULT_DELINQUENT_SLOT_DISTANCE);
+  }
+
+  private final class ParseVoteAccounts extends RecursiveAction {
+
+    private final byte[][] data;
+    private final int from;
+    private final int to;
+    private final long epoch;
+    private final long slot;
+    private final PublicKey[] nodePublicKeys;
+    private final long[] credits;
+    private final int[] commissions;
+    private final long[] lastVotedSlots;
+    private final boolean[] delinquent;
+
+    private ParseVoteAccounts(final byte[][] data,
+                              final int from,
+                              final int to,
+                              final long epoch,
+                              final long slot,
+                              final PublicKey[] nodePublicKeys,
+                              final long[] credits,
+                              final int[] commissions,
+                              final long[] lastVotedSlots,
+                              final boolean[] delinquent) {
+      this.data = data;
+      this.from = from;
+      this.to = to;
+      this.epoch = epoch;
+      this.slot = slot;
+      this.nodePublicKeys = nodePublicKeys;
+      this.credits = credits;
+      this.commissions = commissions;
+      this.lastVotedSlots = lastVotedSlots;
+      this.delinquent = delinquent;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > THRESHOLD) {
+        final int mid = (from + to) >>> 1;
+        invokeAll(
+            new ParseVoteAccounts(data, from, mid, epoch, slot, nodePublicKeys, credits, commissions, lastVotedSlots, delinquent),
+            new ParseVoteAccounts(data, mid, to, epoch, slot, nodePublicKeys, credits, commissions, lastVotedSlots, delinquent)
+        );
+        return;
+      }
+      final var view = new VoteAccountView();
+      final long firstEpoch = epoch - numEpochs + 1;
+      for (int row = from; row < to; ++row) {
+        final int rowOffset = row * numEpochs;
+        try {
+          view.wrap(data[row]);
+        } catch (final IllegalArgumentException e) {
+          lastVotedSlots[row] = -1;
+          delinquent[row] = true;
+          continue;
+        }
+        nodePublicKeys[row] = view.nodePublicKey();
+        commissions[rowOffset + numEpochs - 1] = view.commission();
+        for (int i = view.numEpochCredits() - 1; i >= 0; --i) {
+          final long creditsEpoch = view.epoch(i);
+          if (creditsEpoch < firstEpoch) {
+            break;
+          } else if (creditsEpoch <= epoch) {
+            credits[rowOffset + (int) (creditsEpoch - firstEpoch)] = view.credits(i) - view.previousCredits(i);
+          }
+        }
+        final long lastVotedSlot = view.lastVotedSlot();
+        lastVotedSlots[row] = lastVotedSlot;
+        delinquent[row] = lastVotedSlot < 0 || slot - lastVotedSlot > delinquentSlotDistance;
+      }
+    }
+  }
+
+  private static final class SumDelegatedStake extends RecursiveTask<long[]> {
+
+    private final byte[][] data;
+    private final int from;
+    private final int to;
+    private final long epoch;
+    private final Map<PublicKey, Integer> rows;
+
+    private SumDelegatedStake(final byte[][] data,
+                              final int from,
+                              final int to,
+                              final long epoch,
+                              final Map<PublicKey, Integer> rows) {
+      this.data = data;
+      this.from = from;
+      this.to = to;
+      this.epoch = epoch;
+      this.rows = rows;
+    }
+
+    @Override
+    protected long[] compute() {
+      if (to - from > STAKE_THRESHOLD) {
+        final int mid = (from + to) >>> 1;
+        final var right = new SumDelegatedStake(data, mid, to, epoch, rows);
+        right.fork();
+        final long[] sums = new SumDelegatedStake(data, from, mid, epoch, rows).compute();
+        final long[] rightSums = right.join();
+        for (int i = 0; i < sums.length; ++i) {
+          sums[i] += rightSums[i];
+        }
+        return sums;
+      }
+      final long[] sums = new long[rows.size()];
+      for (int s = from; s < to; ++s) {
+        final byte[] stakeData = data[s];
+        if (stakeData.length < StakeAccount.BYTES
+            || getInt32LE(stakeData, StakeAccount.STATE_OFFSET) != StakeState.Stake.ordinal()) {
+          continue;
+        }
+        final long deactivationEpoch = getInt64LE(stakeData, StakeAccount.DE_ACTIVATION_EPOCH_OFFSET);
+        if (deactivationEpoch != -1 && deactivationEpoch <= epoch) {
+          continue;
+        }
+        final var row = rows.get(PublicKey.readPubKey(stakeData, StakeAccount.VOTER_PUBLIC_KEY_OFFSET));
+        if (row != null) {
+          sums[row] += getInt64LE(stakeData, StakeAccount.STAKE_OFFSET);
+        }
+      }
+      return sums;
+    }
+  }
+
+  private static long median(final long[] credits, final int numEpochs, final int column) {
+    final int numValidators = credits.length / numEpochs;
+    final long[] values = new long[numValidators];
+    int numVoted = 0;
+    for (int row = 0; row < numValidators; ++row) {
+      final long value = credits[(row * numEpochs) + column];
+      if (value > 0) {
+        values[numVoted++] = value;
+      }
+    }
+    if (numVoted == 0) {
+      return -1;
+    }
+    Arrays.parallelSort(values, 0, numVoted);
+    final int mid = numVoted >> 1;
+    return (numVoted & 1) == 1 ? values[mid] : (values[mid - 1] + values[mid]) >>> 1;
+  }
+
+  /// @param previous table of a prior run whose commission history is carried forward, may be null.
+  public ValidatorScoreTable score(final List<PublicKey> voteAccounts,
+                                   final List<byte[]> voteAccountData,
+                                   final List<byte[]> stakeAccountData,
+                                   final long epoch,
+                                   final long slot,
+                                   final ValidatorScoreTable previous) {
+    final int numValidators = voteAccounts.size();
+    final var voteAccountArray = voteAccounts.toArray(PublicKey[]::new);
+    final var rows = HashMap.<PublicKey, Integer>newHashMap(numValidators);
+    for (int row = 0; row < numValidators; ++row) {
+      rows.put(voteAccountArray[row], row);
+    }
+
+    final var nodePublicKeys = new PublicKey[numValidators];
+    final var credits = new long[numValidators * numEpochs];
+    final var commissions = new int[numValidators * numEpochs];
+    Arrays.fill(credits, -1);
+    Arrays.fill(commissions, -1);
+    final var lastVotedSlots = new long[numValidators];
+    final var delinquent = new boolean[numValidators];
+
+    final var stakeTask = new SumDelegatedStake(
+        stakeAccountData.toArray(byte[][]::new), 0, stakeAccountData.size(), epoch, rows
+    );
+    pool.execute(stakeTask);
+    pool.invoke(new ParseVoteAccounts(
+        voteAccountData.toArray(byte[][]::new), 0, numValidators, epoch, slot,
+        nodePublicKeys, credits, commissions, lastVotedSlots, delinquent
+    ));
+
+    if (previous != null) {
+      final long firstEpoch = epoch - numEpochs + 1;
+      for (int row = 0; row < numValidators; ++row) {
+        final int previousRow = previous.row(voteAccountArray[row]);
+        if (previousRow >= 0) {
+          for (int column = 0; column < numEpochs - 1; ++column) {
+            commissions[(row * numEpochs) + column] = previous.commission(previousRow, firstEpoch + column);
+          }
+        }
+      }
+    }
+
+    final var medianCredits = new long[numEpochs];
+    for (int column = 0; column < numEpochs; ++column) {
+      medianCredits[column] = median(credits, numEpochs, column);
+    }
+    final int rateColumn = numEpochs > 1 ? numEpochs - 2 : 0;
+    final long rateMedian = medianCredits[rateColumn];
+    final var creditRates = new double[numValidators];
+    for (int row = 0; row < numValidators; ++row) {
+      final long earned = credits[(row * numEpochs) + rateColumn];
+      creditRates[row] = rateMedian <= 0 || earned < 0 ? 0 : (double) earned / rateMedian;
+    }
+
+    return new ValidatorScoreTable(
+        epoch, numEpochs, voteAccountArray, Map.copyOf(rows), nodePublicKeys,
+        credits, commissions, medianCredits, creditRates,
+        stakeTask.join(), lastVotedSlots, delinquent
+    );
+  }
+
+  public ValidatorScoreTable score(final List<AccountInfo<byte[]>> voteAccounts,
+                                   final List<AccountInfo<byte[]>> stakeAccounts,
+                                   final long epoch,
+                                   final long slot,
+                                   final ValidatorScoreTable previous) {
+    return score(
+        voteAccounts.stream().map(AccountInfo::pubKey).toList(),
+        voteAccounts.stream().map(AccountInfo::data).toList(),
+        stakeAccounts.stream().map(AccountInfo::data).toList(),
+        epoch, slot, previous
+    );
+  }
+}
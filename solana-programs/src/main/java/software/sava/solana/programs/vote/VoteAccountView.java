@@ -0,0 +1,297 @@
+package software.sava.solana.programs.vote;
+
+import software.sava.core.accounts.PublicKey;
+
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+import static software.sava.core.encoding.ByteUtil.getInt16LE;
+import static software.sava.core.encoding.ByteUtil.getInt32LE;
+import static software.sava.core.encoding.ByteUtil.getInt64LE;
+
+/// Zero copy view over vote account data, supporting every serialized `VoteStateVersions` variant.
+///
+/// [#wrap] only locates the variable length sections, accessors read directly from the account data. Public keys
+/// are exposed as offsets, with allocating convenience accessors. A view may be re-used across accounts, but is not
+/// thread safe.
+public final class VoteAccountView {
+
+  public static final int V0_23_5 = 0;
+  public static final int V1_14_11 = 1;
+  public static final int V3 = 2;
+  public static final int V4 = 3;
+
+  private static final int PRIOR_VOTERS_LENGTH = 32;
+  private static final int V0_23_5_PRIOR_VOTER_BYTES = PUBLIC_KEY_LENGTH + Long.BYTES + Long.BYTES + Long.BYTES;
+  private static final int PRIOR_VOTER_BYTES = PUBLIC_KEY_LENGTH + Long.BYTES + Long.BYTES;
+  private static final int AUTHORIZED_VOTER_BYTES = Long.BYTES + PUBLIC_KEY_LENGTH;
+  private static final int EPOCH_CREDITS_BYTES = Long.BYTES + Long.BYTES + Long.BYTES;
+  private static final int BLS_PUBLIC_KEY_COMPRESSED_LENGTH = 48;
+
+  /// Receives the `(epoch, credits, previousCredits)` entries of the epoch credits history.
+  @FunctionalInterface
+  public interface EpochCreditsConsumer {
+
+    void accept(final long epoch, final long credits, final long previousCredits);
+  }
+
+  private byte[] data;
+  private int version;
+  private int nodePublicKeyOffset;
+  private int authorizedWithdrawerOffset;
+  private int commissionBps;
+  private int numLockouts;
+  private int lockoutsOffset;
+  private int lockoutStride;
+  private long rootSlot;
+  private int numAuthorizedVoters;
+  private int authorizedVotersOffset;
+  private int numEpochCredits;
+  private int epochCreditsOffset;
+  private int lastTimestampOffset;
+
+  public static VoteAccountView view(final byte[] data, final int offset, final int length) {
+    return new VoteAccountView().wrap(data, offset, length);
+  }
+
+  public static VoteAccountView view(final byte[] data) {
+    return view(data, 0, data.length);
+  }
+
+  private int readLockouts(final int offset, final int stride) {
+    numLockouts = (int) getInt64LE(data, offset);
+    lockoutsOffset = offset + Long.BYTES;
+    lockoutStride = stride;
+    int i = lockoutsOffset + (numLockouts * stride);
+    if (data[i++] == 1) {
+      rootSlot = getInt64LE(data, i);
+      i += Long.BYTES;
+    } else {
+      rootSlot = -1;
+    }
+    return i;
+  }
+
+  private int readAuthorizedVoters(final int offset) {
+    numAuthorizedVoters = (int) getInt64LE(data, offset);
+    authorizedVotersOffset = offset + Long.BYTES;
+    return authorizedVotersOffset + (numAuthorizedVoters * AUTHORIZED_VOTER_BYTES);
+  }
+
+  private void readEpochCredits(final int offset, final int end) {
+    numEpochCredits = (int) getInt64LE(data, offset);
+    epochCreditsOffset = offset + Long.BYTES;
+    lastTimestampOffset = epochCreditsOffset + (numEpochCredits * EPOCH_CREDITS_BYTES);
+    if (lastTimestampOffset + Long.BYTES + Long.BYTES > end) {
+      throw new IllegalArgumentException("Truncated vote account.");
+    }
+  }
+
+  /// @throws IllegalArgumentException if the data does not hold an initialized vote state.
+  public VoteAccountView wrap(final byte[] data, final int offset, final int length) {
+    this.data = data;
+    final int end = offset + length;
+    try {
+      version = getInt32LE(data, offset);
+      int i = offset + Integer.BYTES;
+      nodePublicKeyOffset = i;
+      i += PUBLIC_KEY_LENGTH;
+      switch (version) {
+        case V0_23_5 -> {
+          // The single authorized voter is stored as (pubkey, epoch) rather than a map entry.
+          authorizedVotersOffset = i;
+          numAuthorizedVoters = 1;
+          i += PUBLIC_KEY_LENGTH + Long.BYTES;
+          i += (PRIOR_VOTERS_LENGTH * V0_23_5_PRIOR_VOTER_BYTES) + Long.BYTES;
+          authorizedWithdrawerOffset = i;
+          i += PUBLIC_KEY_LENGTH;
+          commissionBps = (data[i++] & 0xFF) * 100;
+          i = readLockouts(i, Lockout.BYTES);
+          readEpochCredits(i, end);
+        }
+        case V1_14_11, V3 -> {
+          authorizedWithdrawerOffset = i;
+          i += PUBLIC_KEY_LENGTH;
+          commissionBps = (data[i++] & 0xFF) * 100;
+          i = readLockouts(i, version == V3 ? 1 + Lockout.BYTES : Lockout.BYTES);
+          i = readAuthorizedVoters(i);
+          i += (PRIOR_VOTERS_LENGTH * PRIOR_VOTER_BYTES) + Long.BYTES + 1;
+          readEpochCredits(i, end);
+        }
+        case V4 -> {
+          authorizedWithdrawerOffset = i;
+          i += PUBLIC_KEY_LENGTH + PUBLIC_KEY_LENGTH + PUBLIC_KEY_LENGTH;
+          commissionBps = getInt16LE(data, i) & 0xFFFF;
+          i += Short.BYTES + Short.BYTES + Long.BYTES;
+          if (data[i++] == 1) {
+            i += BLS_PUBLIC_KEY_COMPRESSED_LENGTH;
+          }
+          i = readLockouts(i, 1 + Lockout.BYTES);
+          i = readAuthorizedVoters(i);
+          readEpochCredits(i, end);
+        }
+        default -> throw new IllegalArgumentException("Unsupported vote state version " + version);
+      }
+    } catch (final IndexOutOfBoundsException e) {
+      throw new IllegalArgumentException("Truncated vote account.", e);
+    }
+    return this;
+  }
+
+  public VoteAccountView wrap(final byte[] data) {
+    return wrap(data, 0, data.length);
+  }
+
+  public byte[] data() {
+    return data;
+  }
+
+  public int version() {
+    return version;
+  }
+
+  public int nodePublicKeyOffset() {
+    return nodePublicKeyOffset;
+  }
+
+  public PublicKey nodePublicKey() {
+    return PublicKey.readPubKey(data, nodePublicKeyOffset);
+  }
+
+  public int authorizedWithdrawerOffset() {
+    return authorizedWithdrawerOffset;
+  }
+
+  public PublicKey authorizedWithdrawer() {
+    return PublicKey.readPubKey(data, authorizedWithdrawerOffset);
+  }
+
+  /// Commission in whole percent, [#V4] accounts store basis points which are truncated.
+  public int commission() {
+    return commissionBps / 100;
+  }
+
+  public int commissionBps() {
+    return commissionBps;
+  }
+
+  public int numAuthorizedVoters() {
+    return numAuthorizedVoters;
+  }
+
+  public long authorizedVoterEpoch(final int index) {
+    if (version == V0_23_5) {
+      return getInt64LE(data, authorizedVotersOffset + PUBLIC_KEY_LENGTH);
+    } else {
+      return getInt64LE(data, authorizedVotersOffset + (index * AUTHORIZED_VOTER_BYTES));
+    }
+  }
+
+  public int authorizedVoterOffset(final int index) {
+    if (version == V0_23_5) {
+      return authorizedVotersOffset;
+    } else {
+      return authorizedVotersOffset + (index * AUTHORIZED_VOTER_BYTES) + Long.BYTES;
+    }
+  }
+
+  public PublicKey authorizedVoter(final int index) {
+    return PublicKey.readPubKey(data, authorizedVoterOffset(index));
+  }
+
+  /// @return the offset of the voter authorized for the epoch, or -1 if none is.
+  public int authorizedVoterOffsetForEpoch(final long epoch) {
+    int voterOffset = -1;
+    for (int i = 0; i < numAuthorizedVoters && authorizedVoterEpoch(i) <= epoch; ++i) {
+      voterOffset = authorizedVoterOffset(i);
+    }
+    return voterOffset;
+  }
+
+  /// Number of lockouts in the tower, the oldest first.
+  public int numLockouts() {
+    return numLockouts;
+  }
+
+  private int lockoutOffset(final int index) {
+    return lockoutsOffset + (index * lockoutStride) + (lockoutStride - Lockout.BYTES);
+  }
+
+  public long lockoutSlot(final int index) {
+    return getInt64LE(data, lockoutOffset(index));
+  }
+
+  public int lockoutConfirmationCount(final int index) {
+    return getInt32LE(data, lockoutOffset(index) + Long.BYTES);
+  }
+
+  /// Vote latency in slots, 0 for versions which do not record it.
+  public int lockoutLatency(final int index) {
+    return lockoutStride > Lockout.BYTES ? data[lockoutsOffset + (index * lockoutStride)] & 0xFF : 0;
+  }
+
+  public Lockout lockout(final int index) {
+    return new Lockout(lockoutSlot(index), lockoutConfirmationCount(index));
+  }
+
+  /// @return the last voted slot, or -1 if the tower is empty.
+  public long lastVotedSlot() {
+    return numLockouts == 0 ? -1 : lockoutSlot(numLockouts - 1);
+  }
+
+  public boolean hasRootSlot() {
+    return rootSlot >= 0;
+  }
+
+  /// @return the root slot, or -1 if there is none.
+  public long rootSlot() {
+    return rootSlot;
+  }
+
+  /// Number of entries in the epoch credits history, the oldest first.
+  public int numEpochCredits() {
+    return numEpochCredits;
+  }
+
+  public long epoch(final int index) {
+    return getInt64LE(data, epochCreditsOffset + (index * EPOCH_CREDITS_BYTES));
+  }
+
+  public long credits(final int index) {
+    return getInt64LE(data, epochCreditsOffset + (index * EPOCH_CREDITS_BYTES) + Long.BYTES);
+  }
+
+  public long previousCredits(final int index) {
+    return getInt64LE(data, epochCreditsOffset + (index * EPOCH_CREDITS_BYTES) + Long.BYTES + Long.BYTES);
+  }
+
+  /// @return the credits earned during the epoch, or -1 if the epoch is not in the history.
+  public long earnedCredits(final long epoch) {
+    for (int i = numEpochCredits - 1; i >= 0; --i) {
+      final long entryEpoch = epoch(i);
+      if (entryEpoch == epoch) {
+        return credits(i) - previousCredits(i);
+      } else if (entryEpoch < epoch) {
+        return -1;
+      }
+    }
+    return -1;
+  }
+
+  /// Total credits earned, or 0 if the history is empty.
+  public long credits() {
+    return numEpochCredits == 0 ? 0 : credits(numEpochCredits - 1);
+  }
+
+  public void forEachEpochCredits(final EpochCreditsConsumer consumer) {
+    for (int i = 0, o = epochCreditsOffset; i < numEpochCredits; ++i, o += EPOCH_CREDITS_BYTES) {
+      consumer.accept(getInt64LE(data, o), getInt64LE(data, o + Long.BYTES), getInt64LE(data, o + Long.BYTES + Long.BYTES));
+    }
+  }
+
+  public long lastTimestampSlot() {
+    return getInt64LE(data, lastTimestampOffset);
+  }
+
+  public long lastTimestamp() {
+    return getInt64LE(data, lastTimestampOffset + Long.BYTES);
+  }
+}
@@ -26,7 +26,8 @@ public record VoteAuthorizeCheckedWithSeedArgs(VoteAuthorize authorizationType,
 
   @Override
   public int write(final byte[] data, final int offset) {
-    int i = authorizationType.write(data, offset);
+    int i = offset;
+    i += authorizationType.write(data, i);
     i += currentAuthorityDerivedKeyOwner.write(data, i);
     i += SerdeUtil.writeString(currentAuthorityDerivedKeySeed, data, i);
     return i - offset;
@@ -29,7 +29,8 @@ public record VoteAuthorizeWithSeedArgs(VoteAuthorize authorizationType,
 
   @Override
   public int write(final byte[] data, final int offset) {
-    int i = authorizationType.write(data, offset);
+    int i = offset;
+    i += authorizationType.write(data, i);
     i += currentAuthorityDerivedKeyOwner.write(data, i);
     i += SerdeUtil.writeString(currentAuthorityDerivedKeySeed, data, i);
     i += newAuthority.write(data, i);
@@ -35,7 +35,7 @@ public record VoteInit(PublicKey nodePubkey,
     i += nodePubkey.write(data, i);
     i += authorizedVoter.write(data, i);
     i += authorizedWithdrawer.write(data, i);
-    data[i] = (byte) commission;
+    data[i++] = (byte) commission;
     return i - offset;
   }
 
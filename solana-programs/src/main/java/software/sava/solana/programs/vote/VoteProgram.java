@@ -5,12 +5,18 @@ import software.sava.core.accounts.SolanaAccounts;
 import software.sava.core.accounts.meta.AccountMeta;
 import software.sava.core.programs.Discriminator;
 import software.sava.core.tx.Instruction;
+import software.sava.solana.programs.decode.CompactU16;
+import software.sava.solana.programs.serde.SerdeUtil;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.OptionalLong;
 
 import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
 import static software.sava.core.accounts.meta.AccountMeta.createReadOnlySigner;
 import static software.sava.core.accounts.meta.AccountMeta.createWrite;
+import static software.sava.core.encoding.ByteUtil.getInt32LE;
+import static software.sava.core.encoding.ByteUtil.getInt64LE;
 import static software.sava.core.encoding.ByteUtil.putInt64LE;
 import static software.sava.core.programs.Discriminator.NATIVE_DISCRIMINATOR_LENGTH;
 import static software.sava.core.programs.Discriminator.serializeDiscriminator;
@@ -19,6 +25,8 @@ import static software.sava.core.tx.Instruction.createInstruction;
 // https://github.com/anza-xyz/solana-sdk/blob/master/vote-interface/src/instruction.rs#L27
 public final class VoteProgram {
 
+  public static final int HASH_LENGTH = 32;
+
   public enum Instructions implements Discriminator {
 
     // Initialize a vote account
@@ -307,6 +315,307 @@ public final class VoteProgram {
     return createInstruction(invokedProgram, keys, data);
   }
 
+  private static final int MAX_VAR_INT_LENGTH = 10;
+
+  /// Length of a serde varint u64, at most ten bytes.
+  private static int varIntLength(final byte[] data, final int offset) {
+    for (int i = offset, end = offset + MAX_VAR_INT_LENGTH; i < end; ) {
+      if ((data[i++] & 0x80) == 0) {
+        return i - offset;
+      }
+    }
+    throw new IllegalArgumentException("Malformed varint at offset " + offset + ".");
+  }
+
+  private static long getVarInt(final byte[] data, final int offset) {
+    final int length = varIntLength(data, offset);
+    long value = 0;
+    for (int i = 0; i < length; ++i) {
+      value |= (long) (data[offset + i] & 0x7F) << (i * 7);
+    }
+    return value;
+  }
+
+  private static int readCompactU16(final byte[] data, final int offset) {
+    final int encoded = CompactU16.read(data, offset, data.length);
+    if (encoded == CompactU16.INVALID) {
+      throw new IllegalArgumentException("Malformed compact-u16 at offset " + offset + ".");
+    }
+    return encoded;
+  }
+
+  private static OptionalLong readOptionalLong(final byte[] data, final int offset) {
+    return data[offset] == 1 ? OptionalLong.of(getInt64LE(data, offset + 1)) : OptionalLong.empty();
+  }
+
+  private static int optionalLongLength(final OptionalLong value) {
+    return value.isPresent() ? 1 + Long.BYTES : 1;
+  }
+
+  private static byte[] readHash(final byte[] data, final int offset) {
+    return Arrays.copyOfRange(data, offset, offset + HASH_LENGTH);
+  }
+
+  /// Reads compact lockout offsets, which are relative to the root or the previous lockout.
+  private static Lockout[] readLockoutOffsets(final byte[] data, final int offset, final long root) {
+    final int encoded = readCompactU16(data, offset);
+    final int numLockouts = CompactU16.value(encoded);
+    final var lockouts = new Lockout[numLockouts];
+    int i = offset + CompactU16.length(encoded);
+    long slot = root;
+    for (int l = 0; l < numLockouts; ++l) {
+      slot += getVarInt(data, i);
+      i += varIntLength(data, i);
+      lockouts[l] = new Lockout(slot, data[i++] & 0xFF);
+    }
+    return lockouts;
+  }
+
+  private static int lockoutOffsetsLength(final byte[] data, final int offset) {
+    final int encoded = readCompactU16(data, offset);
+    final int numLockouts = CompactU16.value(encoded);
+    int i = offset + CompactU16.length(encoded);
+    for (int l = 0; l < numLockouts; ++l) {
+      i += varIntLength(data, i) + 1;
+    }
+    return i - offset;
+  }
+
+  public record InitializeAccount(byte[] discriminator, VoteInit voteInit) {
+
+    public static InitializeAccount read(final Instruction instruction) {
+      return read(instruction.data(), instruction.offset());
+    }
+
+    public static InitializeAccount read(final byte[] data, final int offset) {
+      if (data == null || data.length == 0) {
+        return null;
+      }
+      final var discriminator = SerdeUtil.readDiscriminator(data, offset);
+      final var voteInit = VoteInit.read(data, offset + discriminator.length);
+      return new InitializeAccount(discriminator, voteInit);
+    }
+  }
+
+  public record Authorize(byte[] discriminator, PublicKey newAuthority, VoteAuthorize voteAuthorize) {
+
+    public static Authorize read(final Instruction instruction) {
+      return read(instruction.data(), instruction.offset());
+    }
+
+    public static Authorize read(final byte[] data, final int offset) {
+      if (data == null || data.length == 0) {
+        return null;
+      }
+      final var discriminator = SerdeUtil.readDiscriminator(data, offset);
+      int i = offset + discriminator.length;
+      final var newAuthority = PublicKey.readPubKey(data, i);
+      i += PUBLIC_KEY_LENGTH;
+      final var voteAuthorize = VoteAuthorize.read(data, i);
+      return new Authorize(discriminator, newAuthority, voteAuthorize);
+    }
+  }
+
+  public record AuthorizeChecked(byte[] discriminator, VoteAuthorize voteAuthorize) {
+
+    public static AuthorizeChecked read(final Instruction instruction) {
+      return read(instruction.data(), instruction.offset());
+    }
+
+    public static AuthorizeChecked read(final byte[] data, final int offset) {
+      if (data == null || data.length == 0) {
+        return null;
+      }
+      final var discriminator = SerdeUtil.readDiscriminator(data, offset);
+      final var voteAuthorize = VoteAuthorize.read(data, offset + discriminator.length);
+      return new AuthorizeChecked(discriminator, voteAuthorize);
+    }
+  }
+
+  public record AuthorizeWithSeed(byte[] discriminator, VoteAuthorizeWithSeedArgs args) {
+
+    public static AuthorizeWithSeed read(final Instruction instruction) {
+      return read(instruction.data(), instruction.offset());
+    }
+
+    public static AuthorizeWithSeed read(final byte[] data, final int offset) {
+      if (data == null || data.length == 0) {
+        return null;
+      }
+      final var discriminator = SerdeUtil.readDiscriminator(data, offset);
+      final var args = VoteAuthorizeWithSeedArgs.read(data, offset + discriminator.length);
+      return new AuthorizeWithSeed(discriminator, args);
+    }
+  }
+
+  public record AuthorizeCheckedWithSeed(byte[] discriminator, VoteAuthorizeCheckedWithSeedArgs args) {
+
+    public static AuthorizeCheckedWithSeed read(final Instruction instruction) {
+      return read(instruction.data(), instruction.offset());
+    }
+
+    public static AuthorizeCheckedWithSeed read(final byte[] data, final int offset) {
+      if (data == null || data.length == 0) {
+        return null;
+      }
+      final var discriminator = SerdeUtil.readDiscriminator(data, offset);
+      final var args = VoteAuthorizeCheckedWithSeedArgs.read(data, offset + discriminator.length);
+      return new AuthorizeCheckedWithSeed(discriminator, args);
+    }
+  }
+
+  public record Withdraw(byte[] discriminator, long lamports) {
+
+    public static Withdraw read(final Instruction instruction) {
+      return read(instruction.data(), instruction.offset());
+    }
+
+    public static Withdraw read(final byte[] data, final int offset) {
+      if (data == null || data.length == 0) {
+        return null;
+      }
+      final var discriminator = SerdeUtil.readDiscriminator(data, offset);
+      final long lamports = getInt64LE(data, offset + discriminator.length);
+      return new Withdraw(discriminator, lamports);
+    }
+  }
+
+  public record UpdateCommission(byte[] discriminator, int commission) {
+
+    public static UpdateCommission read(final Instruction instruction) {
+      return read(instruction.data(), instruction.offset());
+    }
+
+    public static UpdateCommission read(final byte[] data, final int offset) {
+      if (data == null || data.length == 0) {
+        return null;
+      }
+      final var discriminator = SerdeUtil.readDiscriminator(data, offset);
+      final int commission = data[offset + discriminator.length] & 0xFF;
+      return new UpdateCommission(discriminator, commission);
+    }
+  }
+
+  /// Decodes [Instructions#Vote] and [Instructions#VoteSwitch], `switchProofHash` is null for the former.
+  public record Vote(byte[] discriminator,
+                     long[] slots,
+                     byte[] hash,
+                     OptionalLong timestamp,
+                     byte[] switchProofHash) {
+
+    public static Vote read(final Instruction instruction) {
+      return read(instruction.data(), instruction.offset());
+    }
+
+    public static Vote read(final byte[] data, final int offset) {
+      if (data == null || data.length == 0) {
+        return null;
+      }
+      final var discriminator = SerdeUtil.readDiscriminator(data, offset);
+      int i = offset + discriminator.length;
+      final var slots = new long[(int) getInt64LE(data, i)];
+      i += Long.BYTES;
+      for (int s = 0; s < slots.length; ++s, i += Long.BYTES) {
+        slots[s] = getInt64LE(data, i);
+      }
+      final var hash = readHash(data, i);
+      i += HASH_LENGTH;
+      final var timestamp = readOptionalLong(data, i);
+      i += optionalLongLength(timestamp);
+      final var switchProofHash = getInt32LE(data, offset) == Instructions.VoteSwitch.ordinal()
+          ? readHash(data, i)
+          : null;
+      return new Vote(discriminator, slots, hash, timestamp, switchProofHash);
+    }
+  }
+
+  /// Decodes [Instructions#UpdateVoteState], [Instructions#CompactUpdateVoteState] and their switch variants,
+  /// `switchProofHash` is null for the non-switch variants.
+  public record VoteStateUpdate(byte[] discriminator,
+                                Lockout[] lockouts,
+                                OptionalLong root,
+                                byte[] hash,
+                                OptionalLong timestamp,
+                                byte[] switchProofHash) {
+
+    public static VoteStateUpdate read(final Instruction instruction) {
+      return read(instruction.data(), instruction.offset());
+    }
+
+    public static VoteStateUpdate read(final byte[] data, final int offset) {
+      if (data == null || data.length == 0) {
+        return null;
+      }
+      final var discriminator = SerdeUtil.readDiscriminator(data, offset);
+      final int type = getInt32LE(data, offset);
+      int i = offset + discriminator.length;
+      final Lockout[] lockouts;
+      final OptionalLong root;
+      if (type == Instructions.CompactUpdateVoteState.ordinal()
+          || type == Instructions.CompactUpdateVoteStateSwitch.ordinal()) {
+        final long rootSlot = getInt64LE(data, i);
+        i += Long.BYTES;
+        root = rootSlot == -1 ? OptionalLong.empty() : OptionalLong.of(rootSlot);
+        lockouts = readLockoutOffsets(data, i, root.orElse(0));
+        i += lockoutOffsetsLength(data, i);
+      } else {
+        lockouts = new Lockout[(int) getInt64LE(data, i)];
+        i += Long.BYTES;
+        for (int l = 0; l < lockouts.length; ++l, i += Lockout.BYTES) {
+          lockouts[l] = new Lockout(getInt64LE(data, i), getInt32LE(data, i + Long.BYTES));
+        }
+        root = readOptionalLong(data, i);
+        i += optionalLongLength(root);
+      }
+      final var hash = readHash(data, i);
+      i += HASH_LENGTH;
+      final var timestamp = readOptionalLong(data, i);
+      i += optionalLongLength(timestamp);
+      final var switchProofHash = type == Instructions.UpdateVoteStateSwitch.ordinal()
+          || type == Instructions.CompactUpdateVoteStateSwitch.ordinal()
+          ? readHash(data, i)
+          : null;
+      return new VoteStateUpdate(discriminator, lockouts, root, hash, timestamp, switchProofHash);
+    }
+  }
+
+  /// Decodes [Instructions#TowerSync] and [Instructions#TowerSyncSwitch], `switchProofHash` is null for the former.
+  public record TowerSync(byte[] discriminator,
+                          Lockout[] lockouts,
+                          OptionalLong root,
+                          byte[] hash,
+                          OptionalLong timestamp,
+                          byte[] blockId,
+                          byte[] switchProofHash) {
+
+    public static TowerSync read(final Instruction instruction) {
+      return read(instruction.data(), instruction.offset());
+    }
+
+    public static TowerSync read(final byte[] data, final int offset) {
+      if (data == null || data.length == 0) {
+        return null;
+      }
+      final var discriminator = SerdeUtil.readDiscriminator(data, offset);
+      int i = offset + discriminator.length;
+      final long rootSlot = getInt64LE(data, i);
+      i += Long.BYTES;
+      final var root = rootSlot == -1 ? OptionalLong.empty() : OptionalLong.of(rootSlot);
+      final var lockouts = readLockoutOffsets(data, i, root.orElse(0));
+      i += lockoutOffsetsLength(data, i);
+      final var hash = readHash(data, i);
+      i += HASH_LENGTH;
+      final var timestamp = readOptionalLong(data, i);
+      i += optionalLongLength(timestamp);
+      final var blockId = readHash(data, i);
+      i += HASH_LENGTH;
+      final var switchProofHash = getInt32LE(data, offset) == Instructions.TowerSyncSwitch.ordinal()
+          ? readHash(data, i)
+          : null;
+      return new TowerSync(discriminator, lockouts, root, hash, timestamp, blockId, switchProofHash);
+    }
+  }
+
   private VoteProgram() {
   }
 }
@@ -0,0 +1,121 @@
+package software.sava.solana.programs.vote;
+
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.solana.programs.decode.CompactU16;
+import software.sava.solana.programs.decode.TransactionView;
+
+import java.util.Arrays;
+
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+
+/// Classifies serialized transactions as vote transactions by scanning the message header and instruction program
+/// ids, without parsing the transaction or allocating.
+///
+/// Unlike a [TransactionView], which records the whole layout, the scan keeps no state and stops at the first program
+/// id which is not the vote program. Lengths are read with [CompactU16].
+///
+/// Truncated or malformed transactions are never classified as votes. Instances are immutable and may be shared.
+public final class VoteTransactionFilter {
+
+  private final byte[] voteProgram;
+
+  private VoteTransactionFilter(final byte[] voteProgram) {
+    this.voteProgram = voteProgram;
+  }
+
+  public static VoteTransactionFilter createFilter(final SolanaAccounts solanaAccounts) {
+    return new VoteTransactionFilter(solanaAccounts.voteProgram().toByteArray());
+  }
+
+  private boolean isVoteProgram(final byte[] data, final int accountsOffset, final int programIndex) {
+    final int keyOffset = accountsOffset + (programIndex * PUBLIC_KEY_LENGTH);
+    return Arrays.equals(voteProgram, 0, PUBLIC_KEY_LENGTH, data, keyOffset, keyOffset + PUBLIC_KEY_LENGTH);
+  }
+
+  /// @param maxSignatures     transactions with more signatures are rejected.
+  /// @param allowVersioned    if false versioned messages are rejected.
+  /// @param maxInstructions   transactions with more instructions are rejected.
+  private boolean scan(final byte[] data,
+                       final int offset,
+                       final int length,
+                       final int maxSignatures,
+                       final boolean allowVersioned,
+                       final int maxInstructions) {
+    final int end = offset + length;
+    int compact = CompactU16.read(data, offset, end);
+    if (compact == CompactU16.INVALID) {
+      return false;
+    }
+    final int numSignatures = CompactU16.value(compact);
+    if (numSignatures > maxSignatures) {
+      return false;
+    }
+    int i = offset + CompactU16.length(compact) + (numSignatures * TransactionView.SIGNATURE_LENGTH);
+    if (i >= end) {
+      return false;
+    }
+    if ((data[i] & 0x80) != 0) {
+      if (!allowVersioned) {
+        return false;
+      }
+      ++i;
+    }
+    i += 3;
+    compact = CompactU16.read(data, i, end);
+    if (compact == CompactU16.INVALID) {
+      return false;
+    }
+    final int numAccounts = CompactU16.value(compact);
+    i += CompactU16.length(compact);
+    final int accountsOffset = i;
+    i += (numAccounts * PUBLIC_KEY_LENGTH) + TransactionView.BLOCKHASH_LENGTH;
+    compact = CompactU16.read(data, i, end);
+    if (compact == CompactU16.INVALID) {
+      return false;
+    }
+    final int numInstructions = CompactU16.value(compact);
+    if (numInstructions == 0 || numInstructions > maxInstructions) {
+      return false;
+    }
+    i += CompactU16.length(compact);
+    for (int ix = 0; ix < numInstructions; ++ix) {
+      if (i >= end) {
+        return false;
+      }
+      final int programIndex = data[i++] & 0xFF;
+      if (programIndex >= numAccounts || !isVoteProgram(data, accountsOffset, programIndex)) {
+        return false;
+      }
+      compact = CompactU16.read(data, i, end);
+      if (compact == CompactU16.INVALID) {
+        return false;
+      }
+      i += CompactU16.length(compact) + CompactU16.value(compact);
+      compact = CompactU16.read(data, i, end);
+      if (compact == CompactU16.INVALID) {
+        return false;
+      }
+      i += CompactU16.length(compact) + CompactU16.value(compact);
+    }
+    return i <= end;
+  }
+
+  /// @return true if every instruction of the transaction invokes the vote program.
+  public boolean isVoteOnly(final byte[] data, final int offset, final int length) {
+    return scan(data, offset, length, Integer.MAX_VALUE, true, Integer.MAX_VALUE);
+  }
+
+  public boolean isVoteOnly(final byte[] data) {
+    return isVoteOnly(data, 0, data.length);
+  }
+
+  /// Matches the validator's definition of a simple vote transaction: a legacy message with at most two signatures
+  /// and a single vote instruction.
+  public boolean isSimpleVote(final byte[] data, final int offset, final int length) {
+    return scan(data, offset, length, 2, false, 1);
+  }
+
+  public boolean isSimpleVote(final byte[] data) {
+    return isSimpleVote(data, 0, data.length);
+  }
+}
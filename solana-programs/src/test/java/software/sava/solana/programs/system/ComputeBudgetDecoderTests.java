@@ -0,0 +1,107 @@
+package software.sava.solana.programs.system;
+
+import org.junit.jupiter.api.Test;
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.core.tx.Instruction;
+import software.sava.core.tx.Transaction;
+import software.sava.core.tx.TransactionSkeleton;
+import software.sava.solana.programs.compute_budget.ComputeBudgetDecoder;
+import software.sava.solana.programs.compute_budget.SlotFeeHistogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static software.sava.solana.programs.compute_budget.ComputeBudgetProgram.*;
+
+final class ComputeBudgetDecoderTests {
+
+  private static final SolanaAccounts SOLANA_ACCOUNTS = SolanaAccounts.MAIN_NET;
+  private static final String RECENT_BLOCK_HASH = "6FE9y44TsLodyVbN243QXATAWhgcj6xVfSLzEEzDbaPS";
+  private static final PublicKey FEE_PAYER = PublicKey.fromBase58Encoded("savaKKJmmwDsHHhxV6G293hrRM4f1p6jv6qUF441QD3");
+
+  private static byte[] serialize(final List<Instruction> computeBudgetInstructions) {
+    final var instructions = new ArrayList<>(computeBudgetInstructions);
+    instructions.add(SystemProgram.transfer(
+        SOLANA_ACCOUNTS.invokedSystemProgram(), FEE_PAYER, TestAccounts.address("recipient"), 1
+    ));
+    final var transaction = Transaction.createTx(FEE_PAYER, instructions);
+    transaction.setRecentBlockHash(RECENT_BLOCK_HASH);
+    return transaction.serialized();
+  }
+
+  private static byte[] prioritized(final int limit, final long price) {
+    final var computeBudgetProgram = SOLANA_ACCOUNTS.invokedComputeBudgetProgram();
+    return serialize(List.of(
+        setComputeUnitLimit(computeBudgetProgram, limit),
+        setComputeUnitPrice(computeBudgetProgram, price)
+    ));
+  }
+
+  @Test
+  void decodeComputeBudget() {
+    final var computeBudgetProgram = SOLANA_ACCOUNTS.invokedComputeBudgetProgram();
+    final var decoder = ComputeBudgetDecoder.createDecoder(SOLANA_ACCOUNTS);
+
+    assertTrue(decoder.decode(serialize(List.of(
+        setComputeUnitLimit(computeBudgetProgram, 300_000),
+        setComputeUnitPrice(computeBudgetProgram, 5_000),
+        requestHeapFrame(computeBudgetProgram, 64 * 1024),
+        setLoadedAccountsDataSizeLimit(computeBudgetProgram, 100_000)
+    ))));
+    assertEquals(4, decoder.numComputeBudgetInstructions());
+    assertEquals(300_000, decoder.computeUnitLimit());
+    assertEquals(300_000, decoder.effectiveComputeUnitLimit());
+    assertEquals(5_000, decoder.computeUnitPrice());
+    assertEquals(1_500, decoder.priorityFee());
+    assertEquals(64 * 1024, decoder.heapFrameSize());
+    assertEquals(100_000, decoder.loadedAccountsDataSizeLimit());
+
+    assertTrue(decoder.decode(serialize(List.of())));
+    assertEquals(0, decoder.numComputeBudgetInstructions());
+    assertEquals(-1, decoder.computeUnitLimit());
+    assertEquals(200_000, decoder.effectiveComputeUnitLimit());
+    assertEquals(-1, decoder.computeUnitPrice());
+    assertEquals(0, decoder.priorityFee());
+    assertEquals(ComputeBudgetDecoder.DEFAULT_HEAP_FRAME_SIZE, decoder.effectiveHeapFrameSize());
+
+    assertFalse(decoder.decode(serialize(List.of(
+        setComputeUnitPrice(computeBudgetProgram, 1),
+        setComputeUnitPrice(computeBudgetProgram, 2)
+    ))));
+
+    assertTrue(decoder.decode(TransactionSkeleton.deserializeSkeleton(prioritized(100_000, 10))));
+    assertEquals(2, decoder.numComputeBudgetInstructions());
+    assertEquals(100_000, decoder.computeUnitLimit());
+    assertEquals(10, decoder.computeUnitPrice());
+  }
+
+  @Test
+  void aggregateHistograms() {
+    final var transactions = new ArrayList<byte[]>();
+    for (int i = 0; i < 1_000; ++i) {
+      transactions.add(i < 900 ? prioritized(100_000, 10) : prioritized(100_000, 1_000_000));
+    }
+    transactions.add(serialize(List.of()));
+
+    final var histogram = SlotFeeHistogram.aggregate(SOLANA_ACCOUNTS, 7, transactions, true);
+    assertEquals(7, histogram.slot());
+    assertEquals(1_001, histogram.numTransactions());
+    assertEquals(1_000, histogram.numPrioritized());
+    assertEquals(900, histogram.count(SlotFeeHistogram.bucket(10)));
+    assertEquals(8, histogram.percentile(50));
+    assertEquals(SlotFeeHistogram.bucketLowerBound(SlotFeeHistogram.bucket(1_000_000)), histogram.percentile(99));
+    assertEquals(1_000_000, histogram.maxComputeUnitPrice());
+    assertEquals((900 * 1L) + (100 * 100_000L), histogram.totalPriorityFees());
+
+    final var histograms = SlotFeeHistogram.aggregate(SOLANA_ACCOUNTS, Map.of(
+        2L, transactions.subList(0, 10),
+        1L, transactions.subList(900, 1_001)
+    ));
+    assertEquals(List.of(1L, 2L), List.copyOf(histograms.keySet()));
+    assertEquals(101, histograms.get(1L).numTransactions());
+    assertEquals(10, histograms.get(2L).numTransactions());
+  }
+}
@@ -0,0 +1,56 @@
+package software.sava.solana.programs.system;
+
+import org.junit.jupiter.api.Test;
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.core.accounts.meta.AccountMeta;
+import software.sava.core.tx.Instruction;
+import software.sava.solana.programs.compute_budget.ComputeBudgetProgram;
+import software.sava.solana.programs.compute_budget.ComputeUnitCostModel;
+import software.sava.solana.programs.compute_budget.InstructionCost;
+import software.sava.solana.programs.memo.MemoProgram;
+import software.sava.solana.programs.stakepool.StakePoolAccounts;
+import software.sava.solana.programs.token.TokenProgram;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static software.sava.solana.programs.compute_budget.ComputeUnitCostModel.SYSTEM_PROGRAM_UNITS;
+
+final class ComputeUnitCostModelTests {
+
+  @Test
+  void estimateInstructions() {
+    final var solanaAccounts = SolanaAccounts.MAIN_NET;
+    final var model = ComputeUnitCostModel.createModel(solanaAccounts);
+    assertTrue(model.isRegistered(StakePoolAccounts.MAIN_NET.stakePoolProgram()));
+    assertFalse(model.isRegistered(StakePoolAccounts.MAIN_NET.singleValidatorStakePoolProgram()));
+    final var from = PublicKey.fromBase58Encoded("3ntfH5pyhTGePb2cv2gqhyBmZHVW3EggCnbq1ND7YmgX");
+    final var to = PublicKey.fromBase58Encoded("2NYZ8sqfCnH5gWwvb3E8eYv9DeMkaHQE9EZVjNBZAVYJ");
+
+    final var transfer = SystemProgram.transfer(solanaAccounts.invokedSystemProgram(), from, to, 1);
+    assertEquals(SYSTEM_PROGRAM_UNITS, model.estimate(transfer));
+
+    final var tokenTransfer = TokenProgram.transfer(solanaAccounts.invokedTokenProgram(), from, to, 1, from);
+    final int tokenTransferUnits = model.estimate(tokenTransfer);
+
+    final byte[] memo = "sava".getBytes(StandardCharsets.UTF_8);
+    final var memoIx = MemoProgram.createMemo(solanaAccounts, List.of(from), memo);
+    final var memoCost = model.cost(solanaAccounts.memoProgramV2(), memoIx.data(), memoIx.offset(), memo.length);
+    assertEquals(memoCost.estimate(1, memo.length), model.estimate(memoIx));
+
+    final var unknown = AccountMeta.createInvoked(to);
+    final var unknownIx = Instruction.createInstruction(unknown, List.of(), new byte[]{1});
+    assertEquals(ComputeUnitCostModel.DEFAULT_INSTRUCTION_COMPUTE_UNIT_LIMIT, model.estimate(unknownIx));
+
+    final var instructions = List.of(transfer, tokenTransfer);
+    assertEquals(SYSTEM_PROGRAM_UNITS + tokenTransferUnits, model.computeUnitLimit(instructions));
+    assertEquals(ComputeBudgetProgram.MAX_COMPUTE_BUDGET, model.computeUnitLimit(List.of(
+        unknownIx, unknownIx, unknownIx, unknownIx, unknownIx, unknownIx, unknownIx, unknownIx
+    )));
+
+    model.putCost(solanaAccounts.tokenProgram(), TokenProgram.TokenInstruction.Transfer.ordinal(), InstructionCost.fixedCost(42));
+    assertEquals(42, model.estimate(tokenTransfer));
+  }
+}
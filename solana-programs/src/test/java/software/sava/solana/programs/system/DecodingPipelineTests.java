@@ -0,0 +1,154 @@
+package software.sava.solana.programs.system;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.core.tx.Transaction;
+import software.sava.solana.programs.compute_budget.ComputeBudgetProgram;
+import software.sava.solana.programs.decode.*;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static software.sava.solana.programs.system.TestAccounts.address;
+
+final class DecodingPipelineTests {
+
+  private static final String RECENT_BLOCK_HASH = "6FE9y44TsLodyVbN243QXATAWhgcj6xVfSLzEEzDbaPS";
+
+  private static List<byte[]> transactions(final SolanaAccounts solanaAccounts, final int numTransactions) {
+    final var feePayer = PublicKey.fromBase58Encoded("savaKKJmmwDsHHhxV6G293hrRM4f1p6jv6qUF441QD3");
+    final var recipient = address("recipient");
+    final var transactions = new ArrayList<byte[]>(numTransactions + 1);
+    for (int i = 0; i < numTransactions; ++i) {
+      final var transaction = Transaction.createTx(feePayer, List.of(
+          ComputeBudgetProgram.setComputeUnitPrice(solanaAccounts.invokedComputeBudgetProgram(), i),
+          SystemProgram.transfer(solanaAccounts.invokedSystemProgram(), feePayer, recipient, i)
+      ));
+      transaction.setRecentBlockHash(RECENT_BLOCK_HASH);
+      transactions.add(transaction.serialized());
+    }
+    return transactions;
+  }
+
+  @Test
+  void orderedReplay(@TempDir final Path tempDir) throws Exception {
+    final var solanaAccounts = SolanaAccounts.MAIN_NET;
+    final int numTransactions = 512;
+    final var transactions = transactions(solanaAccounts, numTransactions);
+    transactions.add(new byte[]{1, 2, 3});
+    final var file = tempDir.resolve("transactions.bin");
+    TransactionSource.writeBinary(file, transactions);
+
+    final var lamports = new ArrayList<Long>(numTransactions);
+    final var sinks = Map.<NativeProgram, InstructionSink>of(NativeProgram.SYSTEM, (sequence, transaction, instruction) -> {
+      assertEquals(lamports.size(), sequence);
+      lamports.add(SystemProgram.Transfer.read(instruction.data(), instruction.dataOffset()).lamports());
+    });
+    final var decoder = NativeInstructionDecoder.createDecoder(solanaAccounts);
+    final var config = new DecodingPipelineConfig(16, 4, 4, true, 64);
+    try (final var pipeline = DecodingPipeline.createPipeline(decoder, config, sinks);
+         final var source = TransactionSource.binary(file)) {
+      assertEquals(numTransactions + 1, pipeline.replay(source));
+      pipeline.finish().get(30, TimeUnit.SECONDS);
+      assertEquals(numTransactions, pipeline.numDecoded());
+      assertEquals(1, pipeline.numFailed());
+      assertEquals(numTransactions * 2L, pipeline.numInstructions());
+    }
+    assertEquals(numTransactions, lamports.size());
+    for (int i = 0; i < numTransactions; ++i) {
+      assertEquals(i, lamports.get(i));
+    }
+  }
+
+  @Test
+  void unordered() throws Exception {
+    final var solanaAccounts = SolanaAccounts.MAIN_NET;
+    final int numTransactions = 256;
+    final var sequences = new ConcurrentLinkedQueue<Long>();
+    final var sinks = Map.<NativeProgram, InstructionSink>of(
+        NativeProgram.COMPUTE_BUDGET, (sequence, transaction, instruction) -> sequences.add(sequence)
+    );
+    final var decoder = NativeInstructionDecoder.createDecoder(solanaAccounts);
+    try (final var pipeline = DecodingPipeline.createPipeline(decoder, DecodingPipelineConfig.createConfig(4, false), sinks)) {
+      for (final byte[] transaction : transactions(solanaAccounts, numTransactions)) {
+        pipeline.submit(transaction);
+      }
+      pipeline.finish().get(30, TimeUnit.SECONDS);
+      assertThrows(IllegalStateException.class, () -> pipeline.submit(new byte[0]));
+    }
+    assertEquals(numTransactions, sequences.size());
+    assertEquals(numTransactions, sequences.stream().distinct().count());
+  }
+
+  @Test
+  void sinkError() throws Exception {
+    final var solanaAccounts = SolanaAccounts.MAIN_NET;
+    final var error = new Error("sink failure");
+    final var sinks = Map.<NativeProgram, InstructionSink>of(NativeProgram.SYSTEM, (sequence, transaction, instruction) -> {
+      throw error;
+    });
+    final var decoder = NativeInstructionDecoder.createDecoder(solanaAccounts);
+    for (final boolean ordered : new boolean[]{true, false}) {
+      try (final var pipeline = DecodingPipeline.createPipeline(decoder, DecodingPipelineConfig.createConfig(2, ordered), sinks)) {
+        pipeline.submit(transactions(solanaAccounts, 1).getFirst());
+        final var completion = pipeline.finish();
+        final var thrown = assertThrows(ExecutionException.class, () -> completion.get(30, TimeUnit.SECONDS));
+        assertSame(error, thrown.getCause());
+      }
+    }
+  }
+
+  @Test
+  void sinkErrorWhileSaturated() throws Exception {
+    final var solanaAccounts = SolanaAccounts.MAIN_NET;
+    final var transactions = transactions(solanaAccounts, 64);
+    final var error = new Error("sink failure");
+    final var decoder = NativeInstructionDecoder.createDecoder(solanaAccounts);
+    for (final boolean ordered : new boolean[]{true, false}) {
+      final var sinkCalled = new CountDownLatch(1);
+      final var release = new CountDownLatch(1);
+      final var sinks = Map.<NativeProgram, InstructionSink>of(NativeProgram.SYSTEM, (sequence, transaction, instruction) -> {
+        sinkCalled.countDown();
+        try {
+          release.await();
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        throw error;
+      });
+      final var config = new DecodingPipelineConfig(1, 1, 1, ordered, 2);
+      try (final var pipeline = DecodingPipeline.createPipeline(decoder, config, sinks)) {
+        final var producer = new FutureTask<Void>(() -> {
+          for (final byte[] transaction : transactions) {
+            pipeline.submit(transaction);
+          }
+          return null;
+        });
+        Thread.ofVirtual().start(producer);
+        assertTrue(sinkCalled.await(30, TimeUnit.SECONDS));
+        // Let the producer block on the saturated pipeline before finishing from another thread.
+        Thread.sleep(100);
+        final var finisher = new FutureTask<>(pipeline::finish);
+        Thread.ofVirtual().start(finisher);
+        Thread.sleep(100);
+
+        release.countDown();
+        final var submitFailure = assertThrows(ExecutionException.class, () -> producer.get(30, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, submitFailure.getCause());
+        final var completion = finisher.get(30, TimeUnit.SECONDS);
+        final var thrown = assertThrows(ExecutionException.class, () -> completion.get(30, TimeUnit.SECONDS));
+        assertSame(error, thrown.getCause());
+      }
+    }
+  }
+}
@@ -3,14 +3,25 @@ package software.sava.solana.programs.system;
 import org.junit.jupiter.api.Test;
 import software.sava.core.accounts.PublicKey;
 import software.sava.core.accounts.SolanaAccounts;
+import software.sava.core.accounts.meta.AccountMeta;
+import software.sava.core.tx.Instruction;
 import software.sava.core.tx.Transaction;
 import software.sava.core.tx.TransactionSkeleton;
+import software.sava.solana.programs.decode.TransactionView;
+import software.sava.solana.programs.ed25519.Ed25519InstructionBuilder;
 import software.sava.solana.programs.ed25519.Ed25519SignatureOffsets;
+import software.sava.solana.programs.ed25519.Ed25519SignedMessage;
+import software.sava.solana.programs.ed25519.Ed25519VerificationFailure;
+import software.sava.solana.programs.ed25519.Ed25519Verifier;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static software.sava.solana.programs.system.TestAccounts.address;
 
 final class Ed25519Tests {
 
@@ -63,5 +74,96 @@ final class Ed25519Tests {
         msg, 0, msg.length,
         sig
     ));
+
+    final var verifier = Ed25519Verifier.createVerifier(solanaAccounts);
+    assertTrue(verifier.verify(skeleton).isEmpty());
+
+    final var view = TransactionView.view(data);
+    final byte[] tampered = data.clone();
+    ++tampered[view.instructionDataOffset(4) + signatureOffsets.messageDataOffset()];
+    assertEquals(
+        List.of(new Ed25519VerificationFailure(3, 0, Ed25519VerificationFailure.Reason.INVALID_SIGNATURE)),
+        verifier.verify(tampered)
+    );
+
+    final byte[] outOfBounds = data.clone();
+    // Message data size of the first offsets entry.
+    outOfBounds[view.instructionDataOffset(3) + 2 + 10] = (byte) 0xFF;
+    outOfBounds[view.instructionDataOffset(3) + 2 + 11] = (byte) 0x7F;
+    assertEquals(
+        List.of(new Ed25519VerificationFailure(3, 0, Ed25519VerificationFailure.Reason.OFFSET_OUT_OF_BOUNDS)),
+        verifier.verify(outOfBounds)
+    );
+  }
+
+  @Test
+  void batchSignedMessages() {
+    final var solanaAccounts = SolanaAccounts.MAIN_NET;
+    final var oracle = address("oracle");
+    final byte[] price = "price".getBytes(StandardCharsets.UTF_8);
+    final var signedMessages = new ArrayList<Ed25519SignedMessage>();
+    for (int i = 0; i < 24; ++i) {
+      final byte[] signature = new byte[Ed25519SignedMessage.SIGNATURE_LENGTH];
+      Arrays.fill(signature, (byte) i);
+      final byte[] message = i % 2 == 0 ? price : ("attestation-" + i).getBytes(StandardCharsets.UTF_8);
+      signedMessages.add(new Ed25519SignedMessage(i % 3 == 0 ? oracle : address("signer" + i), signature, message));
+    }
+
+    final int maxDataLength = 1_000;
+    final var instructions = Ed25519InstructionBuilder.createInstructions(solanaAccounts, signedMessages, maxDataLength);
+    assertTrue(instructions.size() > 1);
+
+    int s = 0;
+    for (final var instruction : instructions) {
+      assertEquals(solanaAccounts.ed25519Program(), instruction.programId().publicKey());
+      final byte[] data = instruction.copyData();
+      assertTrue(data.length <= maxDataLength);
+      for (final var offsets : Ed25519SignatureOffsets.readVector(data, 0)) {
+        final var expected = signedMessages.get(s++);
+        assertEquals(Ed25519SignatureOffsets.CURRENT_INSTRUCTION, offsets.signatureInstructionIndex());
+        assertEquals(Ed25519SignatureOffsets.CURRENT_INSTRUCTION, offsets.messageInstructionIndex());
+        assertArrayEquals(expected.signature(), Arrays.copyOfRange(data, offsets.signatureOffset(), offsets.signatureOffset() + 64));
+        assertEquals(expected.publicKey(), PublicKey.readPubKey(data, offsets.publicKeyOffset()));
+        assertArrayEquals(expected.message(), Arrays.copyOfRange(data, offsets.messageDataOffset(), offsets.messageDataOffset() + offsets.messageDataSize()));
+      }
+    }
+    assertEquals(signedMessages.size(), s);
+
+    final var firstOffsets = Ed25519SignatureOffsets.readVector(instructions.getFirst().copyData(), 0);
+    assertEquals(firstOffsets[0].messageDataOffset(), firstOffsets[2].messageDataOffset());
+    assertEquals(firstOffsets[0].publicKeyOffset(), firstOffsets[3].publicKeyOffset());
+
+    final var feePayer = PublicKey.fromBase58Encoded("savaKKJmmwDsHHhxV6G293hrRM4f1p6jv6qUF441QD3");
+    final var packed = Ed25519InstructionBuilder.createInstructions(solanaAccounts, feePayer, signedMessages);
+    for (final var instruction : packed) {
+      final var transaction = Transaction.createTx(feePayer, List.of(instruction));
+      transaction.setRecentBlockHash("6FE9y44TsLodyVbN243QXATAWhgcj6xVfSLzEEzDbaPS");
+      assertTrue(transaction.serialized().length <= 1232);
+    }
+  }
+
+  @Test
+  void verifyEmptyInstruction() {
+    final var solanaAccounts = SolanaAccounts.MAIN_NET;
+    final var feePayer = PublicKey.fromBase58Encoded("savaKKJmmwDsHHhxV6G293hrRM4f1p6jv6qUF441QD3");
+    final var verifier = Ed25519Verifier.createVerifier(solanaAccounts);
+    final var program = AccountMeta.createInvoked(solanaAccounts.ed25519Program());
+
+    // The Ed25519 program accepts a header without signatures.
+    final var empty = Transaction.createTx(feePayer, List.of(
+        Instruction.createInstruction(program, List.of(), new byte[2])
+    ));
+    empty.setRecentBlockHash("6FE9y44TsLodyVbN243QXATAWhgcj6xVfSLzEEzDbaPS");
+    assertTrue(verifier.verify(empty.serialized()).isEmpty());
+
+    // But not trailing data without signatures.
+    final var trailing = Transaction.createTx(feePayer, List.of(
+        Instruction.createInstruction(program, List.of(), new byte[3])
+    ));
+    trailing.setRecentBlockHash("6FE9y44TsLodyVbN243QXATAWhgcj6xVfSLzEEzDbaPS");
+    assertEquals(
+        List.of(new Ed25519VerificationFailure(0, -1, Ed25519VerificationFailure.Reason.MALFORMED_INSTRUCTION)),
+        verifier.verify(trailing.serialized())
+    );
   }
 }
@@ -0,0 +1,59 @@
+package software.sava.solana.programs.system;
+
+import org.junit.jupiter.api.Test;
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.core.encoding.ByteUtil;
+import software.sava.solana.programs.clients.NativeProgramAccountClient;
+import software.sava.solana.programs.compute_budget.ComputeBudgetProgram;
+import software.sava.solana.programs.compute_budget.LoadedAccountsDataSizeModel;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static software.sava.solana.programs.compute_budget.LoadedAccountsDataSizeModel.BUILTIN_PROGRAM_LENGTH;
+import static software.sava.solana.programs.compute_budget.LoadedAccountsDataSizeModel.TRANSACTION_ACCOUNT_BASE_SIZE;
+
+final class LoadedAccountsDataSizeModelTests {
+
+  @Test
+  void estimateLoadedAccountsDataSize() {
+    final var solanaAccounts = SolanaAccounts.MAIN_NET;
+    final var feePayer = PublicKey.fromBase58Encoded("savaKKJmmwDsHHhxV6G293hrRM4f1p6jv6qUF441QD3");
+    final var stakeAccount = TestAccounts.address("stake");
+    final var recipient = TestAccounts.address("recipient");
+    final var transfer = SystemProgram.transfer(solanaAccounts.invokedSystemProgram(), feePayer, recipient, 1);
+    final var stakeTransfer = SystemProgram.transfer(solanaAccounts.invokedSystemProgram(), feePayer, stakeAccount, 1);
+
+    final var model = LoadedAccountsDataSizeModel.createModel(solanaAccounts);
+    assertEquals(-1, model.estimate(feePayer, List.of(transfer), List.of()));
+
+    model.putStakeAccount(stakeAccount);
+    final int expected = TRANSACTION_ACCOUNT_BASE_SIZE // fee payer
+        + (2 * (TRANSACTION_ACCOUNT_BASE_SIZE + BUILTIN_PROGRAM_LENGTH)) // system and compute budget programs
+        + TRANSACTION_ACCOUNT_BASE_SIZE + 200;
+    assertEquals(expected, model.estimate(feePayer, List.of(stakeTransfer, stakeTransfer), List.of()));
+
+    model.unknownAccountSize(1_000);
+    assertEquals(
+        expected + TRANSACTION_ACCOUNT_BASE_SIZE + 1_000,
+        model.estimate(feePayer, List.of(stakeTransfer, transfer), List.of())
+    );
+    model.unknownAccountSize(-1);
+
+    final var accountClient = NativeProgramAccountClient.createClient(solanaAccounts, feePayer);
+    assertEquals(3, accountClient.createTransaction(1, List.of(transfer)).instructions().size());
+    accountClient.limitLoadedAccountsDataSize(true);
+    // Unknown accounts fall back to the default limit.
+    assertEquals(3, accountClient.createTransaction(1, List.of(transfer)).instructions().size());
+
+    accountClient.loadedAccountsDataSizeModel().putSize(recipient, 0);
+    final var instructions = accountClient.createTransaction(1, transfer).instructions();
+    assertEquals(4, instructions.size());
+    final var limitInstruction = instructions.get(2);
+    final byte[] data = limitInstruction.data();
+    assertEquals(ComputeBudgetProgram.Instructions.SetLoadedAccountsDataSizeLimit.ordinal(), data[limitInstruction.offset()]);
+    final int estimate = (3 * TRANSACTION_ACCOUNT_BASE_SIZE) + (2 * BUILTIN_PROGRAM_LENGTH) + TRANSACTION_ACCOUNT_BASE_SIZE;
+    assertEquals(estimate + (estimate / 10), ByteUtil.getInt32LE(data, limitInstruction.offset() + 1));
+  }
+}
@@ -0,0 +1,79 @@
+package software.sava.solana.programs.system;
+
+import org.junit.jupiter.api.Test;
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.core.tx.Transaction;
+import software.sava.solana.programs.address_lookup_table.LookupTablePlanner;
+import software.sava.solana.programs.clients.TransactionSizeCalculator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static software.sava.solana.programs.system.TestAccounts.address;
+
+final class LookupTablePlannerTests {
+
+  private static final String RECENT_BLOCK_HASH = "6FE9y44TsLodyVbN243QXATAWhgcj6xVfSLzEEzDbaPS";
+
+  private static byte[] transferTransaction(final PublicKey feePayer, final List<PublicKey> recipients) {
+    final var invokedSystemProgram = SolanaAccounts.MAIN_NET.invokedSystemProgram();
+    final var transaction = Transaction.createTx(feePayer, recipients.stream()
+        .map(recipient -> SystemProgram.transfer(invokedSystemProgram, feePayer, recipient, 1))
+        .toList()
+    );
+    transaction.setRecentBlockHash(RECENT_BLOCK_HASH);
+    return transaction.serialized();
+  }
+
+  @Test
+  void planTables() {
+    final var feePayer = PublicKey.fromBase58Encoded("savaKKJmmwDsHHhxV6G293hrRM4f1p6jv6qUF441QD3");
+    final var a = List.of(address("a0"), address("a1"), address("a2"));
+    final var b = List.of(address("b0"), address("b1"), address("b2"));
+
+    assertEquals(Set.copyOf(a), Set.copyOf(LookupTablePlanner.lookupCandidates(transferTransaction(feePayer, a))));
+
+    final var planner = LookupTablePlanner.createPlanner();
+    for (int i = 0; i < 3; ++i) {
+      planner.addTransaction(transferTransaction(feePayer, a));
+    }
+    for (int i = 0; i < 2; ++i) {
+      planner.addTransaction(transferTransaction(feePayer, b));
+    }
+    planner.addTransaction(transferTransaction(feePayer, List.of(address("rare"))));
+    assertEquals(6, planner.numTransactions());
+    assertEquals(7, planner.numAccounts());
+    assertEquals(3, planner.occurrences(a.getFirst()));
+
+    final var tables = planner.plan(2, 2);
+    assertEquals(2, tables.size());
+    assertEquals(Set.copyOf(a), Set.copyOf(tables.get(0)));
+    assertEquals(Set.copyOf(b), Set.copyOf(tables.get(1)));
+  }
+
+  @Test
+  void chunkTableInstructions() {
+    final var solanaAccounts = SolanaAccounts.MAIN_NET;
+    final var authority = PublicKey.fromBase58Encoded("savaKKJmmwDsHHhxV6G293hrRM4f1p6jv6qUF441QD3");
+    final var addresses = new ArrayList<PublicKey>();
+    for (int i = 0; i < 100; ++i) {
+      addresses.add(address(Integer.toString(i)));
+    }
+    final var plan = LookupTablePlanner.createTableInstructions(solanaAccounts, authority, authority, 123, addresses, 0);
+    final var transactions = plan.transactions();
+    assertTrue(transactions.size() > 1);
+    assertEquals(2, transactions.getFirst().size());
+    int numExtended = 0;
+    for (final var instructions : transactions) {
+      final var transaction = Transaction.createTx(authority, instructions);
+      transaction.setRecentBlockHash(RECENT_BLOCK_HASH);
+      assertTrue(transaction.serialized().length <= TransactionSizeCalculator.PACKET_DATA_SIZE);
+      numExtended += (instructions.getLast().len() - 12) / PublicKey.PUBLIC_KEY_LENGTH;
+    }
+    assertEquals(addresses.size(), numExtended);
+  }
+}
@@ -0,0 +1,67 @@
+package software.sava.solana.programs.system;
+
+import org.junit.jupiter.api.Test;
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.core.tx.Instruction;
+import software.sava.core.tx.Transaction;
+import software.sava.solana.programs.address_lookup_table.AddressLookupTableProgram;
+import software.sava.solana.programs.address_lookup_table.LookupTableRegistry;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static software.sava.solana.programs.system.LookupTableSelectorTests.lookupTableData;
+import static software.sava.solana.programs.system.TestAccounts.address;
+
+final class LookupTableRegistryTests {
+
+  private static final String RECENT_BLOCK_HASH = "6FE9y44TsLodyVbN243QXATAWhgcj6xVfSLzEEzDbaPS";
+  private static final PublicKey AUTHORITY = PublicKey.fromBase58Encoded("savaKKJmmwDsHHhxV6G293hrRM4f1p6jv6qUF441QD3");
+
+  private static byte[] serialize(final Instruction instruction) {
+    final var transaction = Transaction.createTx(AUTHORITY, List.of(instruction));
+    transaction.setRecentBlockHash(RECENT_BLOCK_HASH);
+    return transaction.serialized();
+  }
+
+  @Test
+  void replicateTable() {
+    final var solanaAccounts = SolanaAccounts.MAIN_NET;
+    final var tableAddress = address("table");
+    final var registry = LookupTableRegistry.createRegistry(solanaAccounts);
+    registry.put(tableAddress, lookupTableData(List.of(address("0"), address("1"))));
+    final var initial = registry.snapshot();
+    assertEquals(2, initial.get(tableAddress).numAccounts());
+
+    final var extend = AddressLookupTableProgram.extendLookupTable(
+        solanaAccounts, tableAddress, AUTHORITY, AUTHORITY, List.of(address("2"), address("3"))
+    );
+    registry.observeBlock(100, 99, List.of(serialize(extend)));
+    assertEquals(100, registry.lastObservedSlot());
+    final var extended = registry.table(tableAddress);
+    assertEquals(4, extended.numAccounts());
+    assertEquals(address("3"), extended.account(3));
+    // Readers holding an older snapshot are unaffected.
+    assertEquals(2, initial.get(tableAddress).numAccounts());
+
+    final var transfer = SystemProgram.transfer(solanaAccounts.invokedSystemProgram(), AUTHORITY, tableAddress, 1);
+    assertFalse(registry.observeTransaction(101, serialize(transfer)));
+    final var otherTable = AddressLookupTableProgram.deactivateLookupTable(solanaAccounts, address("other"), AUTHORITY);
+    assertFalse(registry.observeTransaction(101, serialize(otherTable)));
+    final var deactivate = AddressLookupTableProgram.deactivateLookupTable(solanaAccounts, tableAddress, AUTHORITY);
+    assertTrue(registry.observeTransaction(101, serialize(deactivate)));
+    assertEquals(4, registry.table(tableAddress).numAccounts());
+
+    assertTrue(registry.staleTables().isEmpty());
+    registry.observeBlock(103, 102, List.of());
+    assertEquals(Set.of(tableAddress), registry.staleTables());
+
+    final var close = AddressLookupTableProgram.closeLookupTable(solanaAccounts, tableAddress, AUTHORITY, AUTHORITY);
+    registry.observeBlock(104, 103, List.of(serialize(close)));
+    assertNull(registry.table(tableAddress));
+    assertTrue(registry.snapshot().isEmpty());
+    assertTrue(registry.staleTables().isEmpty());
+  }
+}
@@ -0,0 +1,67 @@
+package software.sava.solana.programs.system;
+
+import org.junit.jupiter.api.Test;
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.core.accounts.lookup.AddressLookupTable;
+import software.sava.core.encoding.ByteUtil;
+import software.sava.core.tx.Instruction;
+import software.sava.solana.programs.address_lookup_table.LookupTableSelector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static software.sava.solana.programs.system.TestAccounts.address;
+
+final class LookupTableSelectorTests {
+
+  // https://github.com/anza-xyz/agave/blob/master/programs/address-lookup-table/src/state.rs
+  private static final int LOOKUP_TABLE_META_SIZE = 56;
+  private static final PublicKey AUTHORITY = PublicKey.fromBase58Encoded("savaKKJmmwDsHHhxV6G293hrRM4f1p6jv6qUF441QD3");
+
+  static byte[] lookupTableData(final List<PublicKey> accounts) {
+    final byte[] data = new byte[LOOKUP_TABLE_META_SIZE + (accounts.size() * PublicKey.PUBLIC_KEY_LENGTH)];
+    ByteUtil.putInt32LE(data, 0, 1);
+    ByteUtil.putInt64LE(data, 4, -1);
+    data[21] = 1;
+    AUTHORITY.write(data, 22);
+    int i = LOOKUP_TABLE_META_SIZE;
+    for (final var account : accounts) {
+      i += account.write(data, i);
+    }
+    return data;
+  }
+
+  static AddressLookupTable lookupTable(final PublicKey address, final List<PublicKey> accounts) {
+    return AddressLookupTable.FACTORY.apply(address, lookupTableData(accounts));
+  }
+
+  @Test
+  void selectTables() {
+    final var solanaAccounts = SolanaAccounts.MAIN_NET;
+    final var accounts = new ArrayList<PublicKey>();
+    for (int i = 0; i < 8; ++i) {
+      accounts.add(address(Integer.toString(i)));
+    }
+    final var small = lookupTable(address("small"), accounts.subList(0, 2));
+    final var large = lookupTable(address("large"), accounts.subList(0, 6));
+    final var rest = lookupTable(address("rest"), accounts.subList(5, 8));
+    final var selector = LookupTableSelector.createSelector(List.of(small, large, rest));
+    assertEquals(3, selector.numTables());
+
+    final var instructions = new ArrayList<Instruction>();
+    for (final var account : accounts) {
+      instructions.add(SystemProgram.transfer(solanaAccounts.invokedSystemProgram(), AUTHORITY, account, 1));
+    }
+    var selected = selector.select(instructions);
+    assertEquals(2, selected.length);
+    assertEquals(large, selected[0].lookupTable());
+    assertEquals(rest, selected[1].lookupTable());
+
+    // A single remaining account does not pay for the table overhead.
+    selected = selector.select(instructions.subList(0, 7));
+    assertEquals(1, selected.length);
+    assertEquals(large, selected[0].lookupTable());
+  }
+}
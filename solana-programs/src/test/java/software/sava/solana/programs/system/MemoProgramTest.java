@@ -5,13 +5,18 @@ import software.sava.core.accounts.PublicKey;
 import software.sava.core.accounts.SolanaAccounts;
 import software.sava.core.encoding.Base58;
 import software.sava.core.tx.Transaction;
+import software.sava.solana.programs.decode.TransactionView;
+import software.sava.solana.programs.memo.MemoExtractor;
+import software.sava.solana.programs.memo.MemoIndex;
 import software.sava.solana.programs.memo.MemoProgram;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.List;
 
-import static org.junit.jupiter.api.Assertions.assertArrayEquals;
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 final class MemoProgramTest {
 
@@ -48,4 +53,75 @@ final class MemoProgramTest {
 
     assertArrayEquals(expectedTransaction, serialized);
   }
+
+  @Test
+  void validateUtf8() {
+    final byte[] valid = "Sava ✓ 🚀".getBytes(StandardCharsets.UTF_8);
+    assertTrue(MemoExtractor.isValidUtf8(valid, 0, valid.length));
+    assertTrue(MemoExtractor.isValidUtf8(valid, 0, 0));
+    // Truncated multibyte sequence.
+    assertFalse(MemoExtractor.isValidUtf8(valid, 0, valid.length - 1));
+    // Overlong encoding of '/'.
+    assertFalse(MemoExtractor.isValidUtf8(new byte[]{(byte) 0xC0, (byte) 0xAF}, 0, 2));
+    // Surrogate U+D800.
+    assertFalse(MemoExtractor.isValidUtf8(new byte[]{(byte) 0xED, (byte) 0xA0, (byte) 0x80}, 0, 3));
+    // Above U+10FFFF.
+    assertFalse(MemoExtractor.isValidUtf8(new byte[]{(byte) 0xF4, (byte) 0x90, (byte) 0x80, (byte) 0x80}, 0, 4));
+    // Missing continuation byte.
+    assertFalse(MemoExtractor.isValidUtf8(new byte[]{(byte) 0xE2, (byte) 0x9C, 'a'}, 0, 3));
+  }
+
+  @Test
+  void extractAndIndexMemos() {
+    final var solanaAccounts = SolanaAccounts.MAIN_NET;
+    final var feePayer = PublicKey.fromBase58Encoded("savaKKJmmwDsHHhxV6G293hrRM4f1p6jv6qUF441QD3");
+    final var extractor = MemoExtractor.createExtractor(solanaAccounts);
+    final var exactIndex = MemoIndex.createExactIndex(2);
+    final var prefixIndex = MemoIndex.createIndex(8, 2);
+
+    final int numTransactions = 64;
+    final var signatures = new ArrayList<byte[]>(numTransactions);
+    for (int i = 0; i < numTransactions; ++i) {
+      final var transaction = Transaction.createTx(feePayer, List.of(
+          MemoProgram.createMemo(solanaAccounts, List.of(feePayer), ("invoice-" + i).getBytes(StandardCharsets.UTF_8)),
+          SystemProgram.transfer(solanaAccounts.invokedSystemProgram(), feePayer, TestAccounts.address("recipient"), 1),
+          MemoProgram.createMemo(solanaAccounts, List.of(feePayer), new byte[]{(byte) 0xFF})
+      ));
+      transaction.setRecentBlockHash("6FE9y44TsLodyVbN243QXATAWhgcj6xVfSLzEEzDbaPS");
+      final byte[] serialized = transaction.serialized();
+      Arrays.fill(serialized, 1, 1 + MemoIndex.SIGNATURE_LENGTH, (byte) i);
+      signatures.add(Arrays.copyOfRange(serialized, 1, 1 + MemoIndex.SIGNATURE_LENGTH));
+
+      final var view = TransactionView.view(serialized);
+      final var found = new ArrayList<String>();
+      final int numMemos = extractor.extract(view, (data, signatureOffset, instructionIndex, memoOffset, memoLength) -> {
+        assertEquals(1, signatureOffset);
+        assertEquals(0, instructionIndex);
+        found.add(new String(data, memoOffset, memoLength, StandardCharsets.UTF_8));
+      });
+      assertEquals(1, numMemos);
+      assertEquals(List.of("invoice-" + i), found);
+
+      assertEquals(1, exactIndex.index(extractor, view));
+      assertEquals(1, prefixIndex.index(extractor, view));
+    }
+
+    assertEquals(numTransactions, exactIndex.size());
+    for (int i = 0; i < numTransactions; ++i) {
+      assertArrayEquals(signatures.get(i), exactIndex.signature(("invoice-" + i).getBytes(StandardCharsets.UTF_8)));
+    }
+    assertNull(exactIndex.signature("invoice-".getBytes(StandardCharsets.UTF_8)));
+    assertNull(exactIndex.signature("invoice-64".getBytes(StandardCharsets.UTF_8)));
+
+    // Every memo shares the "invoice-" prefix, the latest transaction wins.
+    assertEquals(1, prefixIndex.size());
+    assertArrayEquals(signatures.getLast(), prefixIndex.signature("invoice-anything".getBytes(StandardCharsets.UTF_8)));
+    final byte[] out = new byte[MemoIndex.SIGNATURE_LENGTH + 1];
+    final byte[] key = "xinvoice-".getBytes(StandardCharsets.UTF_8);
+    assertTrue(prefixIndex.signature(key, 1, key.length - 1, out, 1));
+    assertArrayEquals(signatures.getLast(), Arrays.copyOfRange(out, 1, out.length));
+    assertFalse(prefixIndex.contains(key, 0, key.length));
+
+    assertThrows(IllegalArgumentException.class, () -> MemoIndex.createExactIndex(Integer.MAX_VALUE));
+  }
 }
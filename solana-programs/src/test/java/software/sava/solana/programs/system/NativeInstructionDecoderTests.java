@@ -0,0 +1,179 @@
+package software.sava.solana.programs.system;
+
+import org.junit.jupiter.api.Test;
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.core.accounts.meta.AccountMeta;
+import software.sava.core.tx.Instruction;
+import software.sava.core.tx.Transaction;
+import software.sava.solana.programs.address_lookup_table.AddressLookupTableProgram;
+import software.sava.solana.programs.compute_budget.ComputeBudgetProgram;
+import software.sava.solana.programs.decode.CompactU16;
+import software.sava.solana.programs.decode.NativeInstructionDecoder;
+import software.sava.solana.programs.decode.NativeProgram;
+import software.sava.solana.programs.decode.TransactionView;
+import software.sava.solana.programs.memo.MemoProgram;
+import software.sava.solana.programs.stakepool.StakePoolAccounts;
+import software.sava.solana.programs.stakepool.StakePoolProgram;
+import software.sava.solana.programs.token.TokenProgram;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static software.sava.solana.programs.system.TestAccounts.address;
+
+final class NativeInstructionDecoderTests {
+
+  private static final String RECENT_BLOCK_HASH = "6FE9y44TsLodyVbN243QXATAWhgcj6xVfSLzEEzDbaPS";
+
+  @Test
+  void decodeNativeInstructions() {
+    final var solanaAccounts = SolanaAccounts.MAIN_NET;
+    final var feePayer = PublicKey.fromBase58Encoded("savaKKJmmwDsHHhxV6G293hrRM4f1p6jv6qUF441QD3");
+    final var recipient = address("recipient");
+    final byte[] memo = "hello".getBytes(StandardCharsets.UTF_8);
+    final var transaction = Transaction.createTx(feePayer, List.of(
+        ComputeBudgetProgram.setComputeUnitPrice(solanaAccounts.invokedComputeBudgetProgram(), 100),
+        SystemProgram.transfer(solanaAccounts.invokedSystemProgram(), feePayer, recipient, 1_234),
+        Instruction.createInstruction(AccountMeta.createInvoked(address("unknown")), List.of(), new byte[]{7}),
+        TokenProgram.transfer(solanaAccounts.invokedTokenProgram(), address("source"), address("destination"), 1, feePayer),
+        MemoProgram.createMemo(solanaAccounts, List.of(feePayer), memo)
+    ));
+    transaction.setRecentBlockHash(RECENT_BLOCK_HASH);
+
+    final var decoder = NativeInstructionDecoder.createDecoder(solanaAccounts);
+    assertEquals(NativeProgram.STAKE_POOL, decoder.program(StakePoolAccounts.MAIN_NET.stakePoolProgram()));
+    assertNull(decoder.program(address("unknown")));
+
+    final var instructions = decoder.decode(transaction.serialized());
+    assertEquals(4, instructions.size());
+
+    var instruction = instructions.getFirst();
+    assertEquals(NativeProgram.COMPUTE_BUDGET, instruction.program());
+    assertTrue(instruction.is(ComputeBudgetProgram.Instructions.SetComputeUnitPrice));
+    assertEquals(100, instruction.computeUnitPrice());
+    assertThrows(IllegalStateException.class, instruction::computeUnitLimit);
+    assertThrows(IllegalStateException.class, instruction::tokenAmount);
+
+    instruction = instructions.get(1);
+    assertEquals(1, instruction.index());
+    assertEquals(NativeProgram.SYSTEM, instruction.program());
+    assertEquals(SystemProgram.Instructions.Transfer, instruction.type());
+    assertEquals(2, instruction.numAccounts());
+    final var transfer = SystemProgram.Transfer.read(instruction.data(), instruction.dataOffset());
+    assertEquals(1_234, transfer.lamports());
+
+    instruction = instructions.get(2);
+    assertEquals(3, instruction.index());
+    assertEquals(NativeProgram.TOKEN, instruction.program());
+    assertEquals(TokenProgram.TokenInstruction.Transfer, instruction.type());
+    assertEquals(1, instruction.tokenAmount());
+    assertThrows(IllegalStateException.class, instruction::tokenDecimals);
+
+    instruction = instructions.getLast();
+    assertEquals(NativeProgram.MEMO, instruction.program());
+    assertNull(instruction.type());
+    assertEquals(-1, instruction.discriminator());
+    assertArrayEquals(memo, instruction.copyData());
+  }
+
+  @Test
+  void readPayloads() {
+    final var solanaAccounts = SolanaAccounts.MAIN_NET;
+    final var stakePoolAccounts = StakePoolAccounts.MAIN_NET;
+    final var feePayer = PublicKey.fromBase58Encoded("savaKKJmmwDsHHhxV6G293hrRM4f1p6jv6qUF441QD3");
+    final var mint = address("mint");
+    final var freezeAuthority = address("freezeAuthority");
+    final var newAuthority = address("newAuthority");
+    final var tableAddresses = List.of(address("tableA"), address("tableB"));
+    final var transaction = Transaction.createTx(feePayer, List.of(
+        ComputeBudgetProgram.setComputeUnitLimit(solanaAccounts.invokedComputeBudgetProgram(), 200_000),
+        ComputeBudgetProgram.requestHeapFrame(solanaAccounts.invokedComputeBudgetProgram(), 64 * 1024),
+        TokenProgram.initializeMint2(solanaAccounts, mint, 6, feePayer, freezeAuthority),
+        TokenProgram.initializeAccount3(solanaAccounts, address("account"), mint, feePayer),
+        TokenProgram.transferChecked(
+            solanaAccounts.invokedToken2022Program(),
+            address("source"), address("destination"), 7_000, 6, feePayer, mint
+        ),
+        TokenProgram.setAuthority(solanaAccounts, mint, feePayer, TokenProgram.AuthorityType.MintTokens, newAuthority),
+        TokenProgram.setAuthority(solanaAccounts, mint, feePayer, TokenProgram.AuthorityType.FreezeAccount, null),
+        AddressLookupTableProgram.createLookupTable(solanaAccounts, address("table"), feePayer, feePayer, 321, 254),
+        AddressLookupTableProgram.extendLookupTable(solanaAccounts, address("table"), feePayer, tableAddresses),
+        StakePoolProgram.depositSolWithSlippage(
+            solanaAccounts, stakePoolAccounts.invokedStakePoolProgram(),
+            address("stakePool"), address("reserve"), feePayer,
+            address("poolTokenATA"), address("feeATA"), address("referralATA"),
+            address("poolMint"), solanaAccounts.tokenProgram(),
+            5_000, 4_900
+        )
+    ));
+    transaction.setRecentBlockHash(RECENT_BLOCK_HASH);
+
+    final var decoder = NativeInstructionDecoder.createDecoder(solanaAccounts);
+    final var instructions = decoder.decode(transaction.serialized());
+    assertEquals(10, instructions.size());
+
+    assertEquals(200_000, instructions.getFirst().computeUnitLimit());
+    assertEquals(64 * 1024, instructions.get(1).requestedHeapFrame());
+
+    var instruction = instructions.get(2);
+    assertEquals(6, instruction.tokenDecimals());
+    assertEquals(feePayer, instruction.tokenMintAuthority());
+    assertEquals(freezeAuthority, instruction.tokenFreezeAuthority());
+
+    assertEquals(feePayer, instructions.get(3).tokenOwner());
+
+    instruction = instructions.get(4);
+    assertEquals(NativeProgram.TOKEN_2022, instruction.program());
+    assertEquals(7_000, instruction.tokenAmount());
+    assertEquals(6, instruction.tokenDecimals());
+
+    instruction = instructions.get(5);
+    assertEquals(TokenProgram.AuthorityType.MintTokens, instruction.tokenAuthorityType());
+    assertEquals(newAuthority, instruction.tokenNewAuthority());
+    instruction = instructions.get(6);
+    assertEquals(TokenProgram.AuthorityType.FreezeAccount, instruction.tokenAuthorityType());
+    assertNull(instruction.tokenNewAuthority());
+
+    instruction = instructions.get(7);
+    assertEquals(321, instruction.lookupTableRecentSlot());
+    assertEquals(254, instruction.lookupTableBumpSeed());
+    final var extend = instructions.get(8);
+    assertEquals(2, extend.numLookupTableAddresses());
+    assertEquals(tableAddresses.getFirst(), extend.lookupTableAddress(0));
+    assertEquals(tableAddresses.getLast(), extend.lookupTableAddress(1));
+    assertThrows(IndexOutOfBoundsException.class, () -> extend.lookupTableAddress(2));
+
+    final var deposit = instructions.getLast();
+    assertEquals(NativeProgram.STAKE_POOL, deposit.program());
+    assertEquals(5_000, deposit.stakePoolLamports());
+    assertEquals(4_900, deposit.stakePoolMinimumOut());
+    assertThrows(IllegalStateException.class, deposit::stakePoolTokens);
+    assertThrows(IllegalStateException.class, deposit::stakePoolTransientStakeSeed);
+  }
+
+  @Test
+  void rejectMalformedLengths() {
+    final byte[] max = {(byte) 0xFF, (byte) 0xFF, 0x03};
+    final int encoded = CompactU16.read(max, 0, max.length);
+    assertEquals(CompactU16.MAX_VALUE, CompactU16.value(encoded));
+    assertEquals(3, CompactU16.length(encoded));
+    assertEquals(3, CompactU16.encodedLength(CompactU16.MAX_VALUE));
+    assertEquals(CompactU16.INVALID, CompactU16.read(max, 0, 2));
+    assertEquals(CompactU16.INVALID, CompactU16.read(new byte[]{(byte) 0xFF, (byte) 0xFF, 0x04}, 0, 3));
+    assertEquals(CompactU16.INVALID, CompactU16.read(new byte[]{(byte) 0x80, (byte) 0x80, (byte) 0x80, 0x01}, 0, 4));
+    assertEquals(CompactU16.INVALID, CompactU16.read(new byte[]{(byte) 0x80, 0x00}, 0, 2));
+
+    final var decoder = NativeInstructionDecoder.createDecoder(SolanaAccounts.MAIN_NET);
+    assertThrows(IllegalArgumentException.class, () -> TransactionView.view(new byte[]{(byte) 0x80, (byte) 0x80, (byte) 0x80, 0x01}));
+    assertThrows(IllegalArgumentException.class, () -> TransactionView.view(new byte[]{(byte) 0xFF, (byte) 0xFF, 0x07}));
+    // 257 static accounts.
+    final byte[] tooManyAccounts = new byte[6 + (257 * PublicKey.PUBLIC_KEY_LENGTH) + 32 + 1];
+    tooManyAccounts[1] = 1;
+    tooManyAccounts[4] = (byte) 0x81;
+    tooManyAccounts[5] = 0x02;
+    assertThrows(IllegalArgumentException.class, () -> TransactionView.view(tooManyAccounts));
+    assertThrows(IllegalArgumentException.class, () -> decoder.decode(tooManyAccounts));
+  }
+}
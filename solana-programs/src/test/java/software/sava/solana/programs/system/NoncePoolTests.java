@@ -0,0 +1,111 @@
+package software.sava.solana.programs.system;
+
+import org.junit.jupiter.api.Test;
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.core.encoding.ByteUtil;
+import software.sava.core.tx.Transaction;
+import software.sava.solana.programs.clients.TransactionSizeCalculator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class NoncePoolTests {
+
+  private static final PublicKey AUTHORITY = PublicKey.fromBase58Encoded("savaKKJmmwDsHHhxV6G293hrRM4f1p6jv6qUF441QD3");
+  private static final String RECENT_BLOCK_HASH = "6FE9y44TsLodyVbN243QXATAWhgcj6xVfSLzEEzDbaPS";
+
+  private static byte[] nonceAccountData(final PublicKey authority, final int nonce) {
+    final byte[] data = new byte[NonceAccount.BYTES];
+    ByteUtil.putInt32LE(data, NonceAccount.VERSION_OFFSET, 1);
+    ByteUtil.putInt32LE(data, NonceAccount.STATE_OFFSET, NonceAccount.State.Initialized.ordinal());
+    authority.write(data, NonceAccount.AUTHORITY_OFFSET);
+    ByteUtil.putInt32LE(data, NonceAccount.NONCE_OFFSET, nonce);
+    ByteUtil.putInt64LE(data, NonceAccount.LAMPORTS_PER_SIG_OFFSET, 5_000);
+    return data;
+  }
+
+  @Test
+  void leaseInParallel() throws InterruptedException, ExecutionException {
+    final var pool = NoncePool.createPool(SolanaAccounts.MAIN_NET, AUTHORITY, 64);
+    for (int i = 0; i < 64; ++i) {
+      final var address = pool.nonceAccountWithSeed("nonce" + i).publicKey();
+      assertTrue(pool.add(NonceAccount.read(address, nonceAccountData(AUTHORITY, i))));
+    }
+    final var first = pool.nonceAccountWithSeed("nonce0").publicKey();
+    assertFalse(pool.add(NonceAccount.read(first, nonceAccountData(AUTHORITY, 0))));
+    assertThrows(IllegalArgumentException.class, () -> pool.add(NonceAccount.read(
+        pool.nonceAccountWithSeed("other").publicKey(),
+        nonceAccountData(TestAccounts.address("authority"), 0)
+    )));
+
+    final var leased = ConcurrentHashMap.<PublicKey>newKeySet();
+    final var leases = Collections.synchronizedList(new ArrayList<NonceLease>());
+    try (final var executor = Executors.newFixedThreadPool(8)) {
+      final var futures = new ArrayList<Future<?>>(8);
+      for (int t = 0; t < 8; ++t) {
+        futures.add(executor.submit(() -> {
+          for (NonceLease lease; (lease = pool.lease()) != null; ) {
+            assertTrue(leased.add(lease.nonceAccount().address()));
+            leases.add(lease);
+          }
+        }));
+      }
+      for (final var future : futures) {
+        future.get();
+      }
+    }
+    assertEquals(64, leased.size());
+    assertEquals(64, leases.size());
+    assertEquals(64, pool.numLeased());
+    assertNull(pool.lease());
+
+    final var lease = leases.getFirst();
+    pool.consumed(lease);
+    assertThrows(IllegalStateException.class, () -> pool.release(lease));
+    assertEquals(1, pool.numConsumed());
+    final var address = lease.nonceAccount().address();
+    // Unchanged nonce, the transaction has not landed yet.
+    assertTrue(pool.accountChanged(address, nonceAccountData(AUTHORITY, lease.slot())));
+    assertNull(pool.lease());
+    assertTrue(pool.accountChanged(address, nonceAccountData(AUTHORITY, 1_000)));
+    final var renewed = pool.lease();
+    assertEquals(address, renewed.nonceAccount().address());
+    assertEquals(1_000, ByteUtil.getInt32LE(renewed.nonceAccount().nonce(), 0));
+
+    pool.release(renewed);
+    assertTrue(pool.accountChanged(address, null));
+    assertEquals(0, pool.numAvailable());
+    final var replacement = pool.nonceAccountWithSeed("replacement").publicKey();
+    assertTrue(pool.add(NonceAccount.read(replacement, nonceAccountData(AUTHORITY, 7))));
+    assertEquals(64, pool.size());
+    assertEquals(replacement, pool.lease().nonceAccount().address());
+    assertFalse(pool.accountChanged(address, null));
+  }
+
+  @Test
+  void provisionInstructions() {
+    final var solanaAccounts = SolanaAccounts.MAIN_NET;
+    final var pool = NoncePool.createPool(solanaAccounts, AUTHORITY, 64);
+    final var transactions = pool.provisionInstructions(AUTHORITY, "nonce", 0, 20, 1_447_680, 0);
+    assertTrue(transactions.size() > 1);
+    final var accounts = new HashSet<PublicKey>();
+    for (final var instructions : transactions) {
+      final var transaction = Transaction.createTx(AUTHORITY, instructions);
+      transaction.setRecentBlockHash(RECENT_BLOCK_HASH);
+      assertTrue(transaction.serialized().length <= TransactionSizeCalculator.PACKET_DATA_SIZE);
+      for (int i = 1; i < instructions.size(); i += 2) {
+        accounts.add(instructions.get(i).accounts().getFirst().publicKey());
+      }
+    }
+    assertEquals(20, accounts.size());
+    assertTrue(accounts.contains(pool.nonceAccountWithSeed("nonce19").publicKey()));
+  }
+}
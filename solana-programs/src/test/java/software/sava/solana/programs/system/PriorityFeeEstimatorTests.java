@@ -0,0 +1,57 @@
+package software.sava.solana.programs.system;
+
+import org.junit.jupiter.api.Test;
+import software.sava.core.accounts.PublicKey;
+import software.sava.rpc.json.http.response.PrioritizationFee;
+import software.sava.solana.programs.compute_budget.FeeUrgency;
+import software.sava.solana.programs.compute_budget.PrioritizationFeeSource;
+import software.sava.solana.programs.compute_budget.PriorityFeeEstimator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+final class PriorityFeeEstimatorTests {
+
+  private static List<PrioritizationFee> fees(final long fromFee) {
+    final var fees = new ArrayList<PrioritizationFee>(100);
+    for (int i = 0; i < 100; ++i) {
+      fees.add(new PrioritizationFee(1_000 + i, fromFee + i));
+    }
+    return fees;
+  }
+
+  @Test
+  void estimateFromStubSource() {
+    final var hotAccount = PublicKey.fromBase58Encoded("3ntfH5pyhTGePb2cv2gqhyBmZHVW3EggCnbq1ND7YmgX");
+    final var coldAccount = PublicKey.fromBase58Encoded("2NYZ8sqfCnH5gWwvb3E8eYv9DeMkaHQE9EZVjNBZAVYJ");
+    final var accountFees = Map.of(hotAccount, fees(10_000), coldAccount, fees(0));
+    final var numFetches = new AtomicInteger();
+    final PrioritizationFeeSource stubSource = writableAccounts -> {
+      numFetches.incrementAndGet();
+      return CompletableFuture.completedFuture(writableAccounts.isEmpty()
+          ? fees(100)
+          : accountFees.get(writableAccounts.getFirst()));
+    };
+
+    final var estimator = PriorityFeeEstimator.createEstimator(stubSource, 1_000_000);
+    assertEquals(49, estimator.estimate(List.of(coldAccount), FeeUrgency.MEDIUM).join());
+    assertEquals(2, numFetches.get());
+    // Cluster wide fees only apply if none of the accounts have been sampled.
+    final var unsampledAccount = PublicKey.fromBase58Encoded("savaKKJmmwDsHHhxV6G293hrRM4f1p6jv6qUF441QD3");
+    assertEquals(100 + 49, estimator.microLamportComputeUnitPrice(List.of(unsampledAccount), FeeUrgency.MEDIUM));
+    assertEquals(100 + 49, estimator.microLamportComputeUnitPrice(List.of(), FeeUrgency.MEDIUM));
+    assertEquals(100 + 49, estimator.estimate(List.of(), FeeUrgency.MEDIUM).join());
+    assertEquals(100 + 49, estimator.estimateForInstructions(List.of(), FeeUrgency.MEDIUM).join());
+    assertEquals(10_000 + 89, estimator.estimate(List.of(coldAccount, hotAccount), FeeUrgency.VERY_HIGH).join());
+    assertEquals(3, numFetches.get());
+    assertEquals(10_000 + 24, estimator.microLamportComputeUnitPrice(List.of(hotAccount), FeeUrgency.LOW));
+
+    final var capped = PriorityFeeEstimator.createEstimator(stubSource, 5_000);
+    assertEquals(5_000, capped.estimate(List.of(hotAccount), FeeUrgency.EXTREME).join());
+  }
+}
@@ -0,0 +1,161 @@
+package software.sava.solana.programs.system;
+
+import org.junit.jupiter.api.Test;
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.core.tx.Instruction;
+import software.sava.core.tx.Transaction;
+import software.sava.solana.programs.decode.NativeInstructionDecoder;
+import software.sava.solana.programs.decode.NativeProgram;
+import software.sava.solana.programs.decode.TransactionView;
+import software.sava.solana.programs.stake.StakeFlowLedger;
+import software.sava.solana.programs.stake.StakeProgram;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static software.sava.solana.programs.system.TestAccounts.address;
+
+final class StakeFlowLedgerTests {
+
+  private static final String RECENT_BLOCK_HASH = "6FE9y44TsLodyVbN243QXATAWhgcj6xVfSLzEEzDbaPS";
+
+  private static void feed(final StakeFlowLedger ledger,
+                           final NativeInstructionDecoder decoder,
+                           final long sequence,
+                           final PublicKey feePayer,
+                           final List<Instruction> instructions) {
+    final var transaction = Transaction.createTx(feePayer, instructions);
+    transaction.setRecentBlockHash(RECENT_BLOCK_HASH);
+    final var view = TransactionView.view(transaction.serialized());
+    decoder.decode(view, instruction -> {
+      if (instruction.program() == NativeProgram.STAKE) {
+        ledger.accept(sequence, view, instruction);
+      }
+    });
+  }
+
+  @Test
+  void trackStakeFlows() {
+    final var solanaAccounts = SolanaAccounts.MAIN_NET;
+    final var authority = PublicKey.fromBase58Encoded("savaKKJmmwDsHHhxV6G293hrRM4f1p6jv6qUF441QD3");
+    final var stakeA = address("stakeA");
+    final var stakeB = address("stakeB");
+    final var stakeC = address("stakeC");
+    final var voteA = address("voteA");
+    final var voteB = address("voteB");
+
+    final var chunks = new ArrayList<ByteBuffer>();
+    final var ledger = StakeFlowLedger.createLedger(
+        chunk -> chunks.add(ByteBuffer.allocate(chunk.remaining()).put(chunk).flip()),
+        4, 2, 800
+    );
+    ledger.seed(stakeA, voteA, 1_000);
+
+    final var decoder = NativeInstructionDecoder.createDecoder(solanaAccounts);
+    feed(ledger, decoder, 0, authority, List.of(
+        StakeProgram.split(solanaAccounts, stakeA, stakeB, authority, 300)
+    ));
+    feed(ledger, decoder, 1, authority, List.of(
+        StakeProgram.deactivate(solanaAccounts, stakeB, authority),
+        StakeProgram.delegateStake(solanaAccounts, stakeB, voteB, authority)
+    ));
+    feed(ledger, decoder, 2, authority, List.of(
+        StakeProgram.moveStake(solanaAccounts, stakeA, stakeC, authority, 100),
+        StakeProgram.moveLamports(solanaAccounts, stakeA, stakeC, authority, 5)
+    ));
+    feed(ledger, decoder, 3, authority, List.of(
+        StakeProgram.merge(solanaAccounts, stakeA, stakeC, authority),
+        StakeProgram.withdraw(solanaAccounts, stakeC, authority, authority, 5)
+    ));
+
+    assertEquals(7, ledger.position());
+    assertEquals(6, ledger.persistedPosition());
+    assertEquals(3, ledger.firstPosition());
+
+    final int a = ledger.accountId(stakeA);
+    final int b = ledger.accountId(stakeB);
+    final int c = ledger.accountId(stakeC);
+    assertEquals(ledger.accountId(voteA), ledger.vote(a));
+    assertEquals(ledger.accountId(voteB), ledger.vote(b));
+    assertEquals(-1, ledger.vote(c));
+    assertEquals(700, ledger.stake(a));
+    assertEquals(300, ledger.stake(b));
+    assertEquals(0, ledger.stake(c));
+
+    final var flows = new HashMap<String, Long>();
+    ledger.forEachValidatorFlow((fromVote, toVote, lamports, numMovements) -> {
+      assertEquals(1, numMovements);
+      flows.put(fromVote + "->" + toVote, lamports);
+    });
+    assertEquals(2, flows.size());
+    assertEquals(300, flows.get(voteA + "->null"));
+    assertEquals(300, flows.get("null->" + voteB));
+
+    final var types = new ArrayList<StakeFlowLedger.Type>();
+    assertEquals(3, ledger.forEach(0, (position, sequence, type, source, destination, sourceVote, destinationVote, lamports) -> {
+      assertEquals(3 + types.size(), position);
+      types.add(type);
+    }));
+    assertEquals(List.of(
+        StakeFlowLedger.Type.MOVE_STAKE,
+        StakeFlowLedger.Type.MOVE_LAMPORTS,
+        StakeFlowLedger.Type.MERGE,
+        StakeFlowLedger.Type.WITHDRAW
+    ), types);
+
+    ledger.startEpoch(801);
+    assertEquals(801, ledger.epoch());
+    ledger.forEachValidatorFlow((fromVote, toVote, lamports, numMovements) -> fail());
+
+    ledger.flush();
+    assertEquals(7, ledger.persistedPosition());
+    assertEquals(4, chunks.size());
+
+    final var accounts = new ArrayList<PublicKey>();
+    final var entries = new ArrayList<String>();
+    for (final var chunk : chunks) {
+      StakeFlowLedger.readChunk(chunk, accounts, (position, sequence, type, source, destination, sourceVote, destinationVote, lamports) -> {
+        assertEquals(entries.size(), position);
+        entries.add(sequence + ":" + type + ':' + accounts.get(source) + ':' + lamports);
+      });
+      assertFalse(chunk.hasRemaining());
+    }
+    assertEquals(ledger.numAccounts(), accounts.size());
+    assertEquals(List.of(
+        "0:SPLIT:" + stakeA + ":300",
+        "1:DEACTIVATE:" + stakeB + ":300",
+        "1:DELEGATE:" + stakeB + ":300",
+        "2:MOVE_STAKE:" + stakeA + ":100",
+        "2:MOVE_LAMPORTS:" + stakeA + ":5",
+        "3:MERGE:" + stakeC + ":100",
+        "3:WITHDRAW:" + stakeC + ":5"
+    ), entries);
+  }
+
+  @Test
+  void withdrawExcessLamports() {
+    final var solanaAccounts = SolanaAccounts.MAIN_NET;
+    final var authority = PublicKey.fromBase58Encoded("savaKKJmmwDsHHhxV6G293hrRM4f1p6jv6qUF441QD3");
+    final var stakeA = address("stakeA");
+    final var voteA = address("voteA");
+
+    final var ledger = StakeFlowLedger.createLedger(null, 4, 2, 800);
+    ledger.seed(stakeA, voteA, 1_000);
+    final var decoder = NativeInstructionDecoder.createDecoder(solanaAccounts);
+    feed(ledger, decoder, 0, authority, List.of(
+        StakeProgram.withdraw(solanaAccounts, stakeA, authority, authority, 5)
+    ));
+    final int a = ledger.accountId(stakeA);
+    assertEquals(1_000, ledger.stake(a));
+
+    feed(ledger, decoder, 1, authority, List.of(
+        StakeProgram.deactivate(solanaAccounts, stakeA, authority),
+        StakeProgram.withdraw(solanaAccounts, stakeA, authority, authority, 1_000)
+    ));
+    assertEquals(0, ledger.stake(a));
+  }
+}
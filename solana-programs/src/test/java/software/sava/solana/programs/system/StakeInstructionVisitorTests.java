@@ -0,0 +1,117 @@
+package software.sava.solana.programs.system;
+
+import org.junit.jupiter.api.Test;
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.core.tx.Transaction;
+import software.sava.solana.programs.decode.NativeInstructionDecoder;
+import software.sava.solana.programs.decode.NativeProgram;
+import software.sava.solana.programs.decode.TransactionView;
+import software.sava.solana.programs.stake.StakeInstructionVisitor;
+import software.sava.solana.programs.stake.StakeProgram;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static software.sava.solana.programs.system.TestAccounts.address;
+
+final class StakeInstructionVisitorTests {
+
+  private static final String RECENT_BLOCK_HASH = "6FE9y44TsLodyVbN243QXATAWhgcj6xVfSLzEEzDbaPS";
+
+  @Test
+  void visitStakeInstructions() {
+    final var solanaAccounts = SolanaAccounts.MAIN_NET;
+    final var authority = PublicKey.fromBase58Encoded("savaKKJmmwDsHHhxV6G293hrRM4f1p6jv6qUF441QD3");
+    final var stakeAccount = address("stake");
+    final var splitAccount = address("split");
+    final var voteAccount = address("vote");
+    final var custodian = address("custodian");
+    final var transaction = Transaction.createTx(authority, List.of(
+        StakeProgram.split(solanaAccounts, stakeAccount, splitAccount, authority, 1_000),
+        StakeProgram.delegateStake(solanaAccounts, splitAccount, voteAccount, authority),
+        StakeProgram.setLockup(solanaAccounts, stakeAccount, authority, Instant.ofEpochSecond(123), OptionalLong.empty(), custodian),
+        StakeProgram.moveStake(solanaAccounts, stakeAccount, splitAccount, authority, 7)
+    ));
+    transaction.setRecentBlockHash(RECENT_BLOCK_HASH);
+    final var view = TransactionView.view(transaction.serialized());
+
+    final var events = new ArrayList<String>();
+    final var visitor = new StakeInstructionVisitor() {
+
+      @Override
+      public void split(final byte[] data,
+                        final int index,
+                        final int stakeAccountIndex,
+                        final int splitStakeAccount,
+                        final int stakeAuthority,
+                        final long lamports) {
+        assertEquals(stakeAccount, view.account(stakeAccountIndex));
+        assertEquals(splitAccount, view.account(splitStakeAccount));
+        assertEquals(authority, view.account(stakeAuthority));
+        events.add("split:" + index + ':' + lamports);
+      }
+
+      @Override
+      public void delegateStake(final byte[] data,
+                                final int index,
+                                final int stakeAccountIndex,
+                                final int voteAccountIndex,
+                                final int clockSysVar,
+                                final int stakeHistorySysVar,
+                                final int stakeConfig,
+                                final int stakeAuthority) {
+        assertEquals(splitAccount, view.account(stakeAccountIndex));
+        assertEquals(voteAccount, view.account(voteAccountIndex));
+        assertEquals(solanaAccounts.clockSysVar(), view.account(clockSysVar));
+        events.add("delegate:" + index);
+      }
+
+      @Override
+      public void setLockup(final byte[] data,
+                            final int index,
+                            final int stakeAccountIndex,
+                            final int lockupAuthority,
+                            final boolean hasUnixTimestamp,
+                            final long unixTimestamp,
+                            final boolean hasEpoch,
+                            final long epoch,
+                            final int custodianOffset) {
+        assertTrue(hasUnixTimestamp);
+        assertFalse(hasEpoch);
+        assertEquals(custodian, PublicKey.readPubKey(data, custodianOffset));
+        events.add("lockup:" + index + ':' + unixTimestamp);
+      }
+
+      @Override
+      public void moveStake(final byte[] data,
+                            final int index,
+                            final int sourceStakeAccount,
+                            final int destinationStakeAccount,
+                            final int stakeAuthority,
+                            final long lamports) {
+        assertEquals(splitAccount, view.account(destinationStakeAccount));
+        events.add("move:" + index + ':' + lamports);
+      }
+
+      @Override
+      public void malformed(final byte[] data, final int index, final int discriminator) {
+        fail("Malformed instruction " + index);
+      }
+    };
+
+    final var decoder = NativeInstructionDecoder.createDecoder(solanaAccounts);
+    decoder.decode(view, instruction -> {
+      assertEquals(NativeProgram.STAKE, instruction.program());
+      assertTrue(StakeInstructionVisitor.visit(instruction, visitor));
+    });
+    assertEquals(List.of("split:0:1000", "delegate:1", "lockup:2:123", "move:3:7"), events);
+
+    final byte[] truncated = new byte[]{3, 0, 0, 0, 1};
+    assertFalse(StakeInstructionVisitor.visit(truncated, 0, 0, 0, 0, truncated.length, new StakeInstructionVisitor() {
+    }));
+  }
+}
@@ -0,0 +1,17 @@
+package software.sava.solana.programs.system;
+
+import software.sava.core.accounts.PublicKey;
+
+/// Deterministic accounts shared by the test suites.
+final class TestAccounts {
+
+  static final PublicKey AUTHORITY = PublicKey.fromBase58Encoded("savaKKJmmwDsHHhxV6G293hrRM4f1p6jv6qUF441QD3");
+
+  private TestAccounts() {
+  }
+
+  /// Off curve address derived from the seed, distinct seeds give distinct addresses.
+  static PublicKey address(final String seed) {
+    return PublicKey.createOffCurveAccountWithAsciiSeed(AUTHORITY, seed, AUTHORITY).publicKey();
+  }
+}
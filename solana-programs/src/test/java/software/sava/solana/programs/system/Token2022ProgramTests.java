@@ -4,12 +4,16 @@ import org.junit.jupiter.api.Test;
 import software.sava.core.accounts.PublicKey;
 import software.sava.core.accounts.SolanaAccounts;
 import software.sava.core.accounts.meta.AccountMeta;
+import software.sava.core.encoding.ByteUtil;
+import software.sava.solana.programs.serde.SerdeUtil;
 import software.sava.solana.programs.token.Token2022Program;
+import software.sava.solana.programs.token.TokenMetadata;
 
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.Map;
 
-import static org.junit.jupiter.api.Assertions.assertArrayEquals;
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 final class Token2022ProgramTests {
 
@@ -165,4 +169,51 @@ final class Token2022ProgramTests {
 
     assertArrayEquals(expectedData, updateMetadataPointerIx.data());
   }
+
+  @Test
+  void readTokenMetadata() {
+    final var updateAuthority = PublicKey.fromBase58Encoded("CvUqgjP892h66aYPC9E8gKTXnTebY8qaU5ehGrgEQSwV");
+    final var mint = PublicKey.fromBase58Encoded("88WLQK58mbqNjaUBxYjEvhvdsWGQde4s1EqyagvEng2f");
+
+    final byte[] data = new byte[256];
+    int i = 7;
+    i += updateAuthority.write(data, i);
+    i += mint.write(data, i);
+    i += SerdeUtil.writeBorshString("SimpleTestCoin", data, i);
+    i += SerdeUtil.writeBorshString("STC", data, i);
+    i += SerdeUtil.writeBorshString("https://example.com/metadata.json", data, i);
+    ByteUtil.putInt32LE(data, i, 2);
+    i += Integer.BYTES;
+    i += SerdeUtil.writeBorshString("color", data, i);
+    i += SerdeUtil.writeBorshString("blüe", data, i);
+    i += SerdeUtil.writeBorshString("emoji", data, i);
+    i += SerdeUtil.writeBorshString("\uD83D\uDE80", data, i);
+
+    final var metadata = TokenMetadata.read(data, 7);
+    assertEquals(updateAuthority, metadata.updateAuthority());
+    assertEquals(mint, metadata.mint());
+    assertEquals(14, metadata.nameLength());
+    assertEquals(3, metadata.symbolLength());
+    assertTrue(metadata.symbolEquals("STC".getBytes()));
+    assertTrue(metadata.uriStartsWith("https://".getBytes()));
+    assertEquals("SimpleTestCoin", metadata.name());
+    assertEquals("https://example.com/metadata.json", metadata.uri());
+    assertEquals(2, metadata.numAdditionalMetadata());
+    assertEquals("\uD83D\uDE80", metadata.additionalMetadata("emoji"));
+    assertEquals(Map.of("color", "blüe", "emoji", "\uD83D\uDE80"), metadata.additionalMetadata());
+    assertNull(metadata.additionalMetadata("size"));
+    assertEquals(i, metadata.endOffset());
+
+    final byte[] expectedData = Base64.getDecoder().decode(
+        "0uEeoli4TY0OAAAAU2ltcGxlVGVzdENvaW4DAAAAU1RDIQAAAGh0dHBzOi8vZXhhbXBsZS5jb20vbWV0YWRhdGEuanNvbg=="
+    );
+    final int length = Token2022Program.initializeTokenMetadataDataLength("SimpleTestCoin", "STC", "https://example.com/metadata.json");
+    assertEquals(expectedData.length, length);
+    final byte[] buffer = new byte[length + 3];
+    assertEquals(length, Token2022Program.writeInitializeTokenMetadataData(
+        "SimpleTestCoin", "STC", "https://example.com/metadata.json",
+        buffer, 3
+    ));
+    assertArrayEquals(expectedData, Arrays.copyOfRange(buffer, 3, buffer.length));
+  }
 }
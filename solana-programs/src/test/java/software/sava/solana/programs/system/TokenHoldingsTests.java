@@ -0,0 +1,60 @@
+package software.sava.solana.programs.system;
+
+import org.junit.jupiter.api.Test;
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.core.encoding.ByteUtil;
+import software.sava.solana.programs.clients.TokenHoldings;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class TokenHoldingsTests {
+
+  private static byte[] tokenAccountData(final PublicKey mint, final PublicKey owner, final long amount) {
+    final byte[] data = new byte[165];
+    mint.write(data, TokenHoldings.TOKEN_ACCOUNT_MINT_OFFSET);
+    owner.write(data, TokenHoldings.TOKEN_ACCOUNT_OWNER_OFFSET);
+    ByteUtil.putInt64LE(data, TokenHoldings.TOKEN_ACCOUNT_AMOUNT_OFFSET, amount);
+    return data;
+  }
+
+  @Test
+  void incrementalUpdates() {
+    final var owner = PublicKey.fromBase58Encoded("savaKKJmmwDsHHhxV6G293hrRM4f1p6jv6qUF441QD3");
+    final var mint = PublicKey.fromBase58Encoded("HCRDkSQ6vM9QxDkJMGNUmVKjWqPYudkEsZRDwoJvyzQE");
+    final var tokenAccountA = PublicKey.fromBase58Encoded("3ntfH5pyhTGePb2cv2gqhyBmZHVW3EggCnbq1ND7YmgX");
+    final var tokenAccountB = PublicKey.fromBase58Encoded("2NYZ8sqfCnH5gWwvb3E8eYv9DeMkaHQE9EZVjNBZAVYJ");
+    final var tokenProgram = SolanaAccounts.MAIN_NET.tokenProgram();
+    final var token2022Program = SolanaAccounts.MAIN_NET.token2022Program();
+
+    final var holdings = TokenHoldings.createHoldings(owner);
+    assertEquals(-1, holdings.balance(tokenAccountA));
+    assertEquals(0, holdings.mintBalance(mint));
+
+    assertEquals(100, holdings.update(tokenProgram, tokenAccountA, tokenAccountData(mint, owner, 100)));
+    assertEquals(50, holdings.update(token2022Program, tokenAccountB, mint, 50));
+    assertEquals(150, holdings.mintBalance(mint));
+    assertEquals(2, holdings.tokenAccounts(mint).size());
+    assertEquals(token2022Program, holdings.tokenProgram(tokenAccountB));
+
+    assertEquals(-75, holdings.update(tokenProgram, tokenAccountA, tokenAccountData(mint, owner, 25)));
+    assertEquals(25, holdings.balance(tokenAccountA));
+    assertEquals(75, holdings.mintBalance(mint));
+
+    // Transferred to another owner.
+    assertEquals(-25, holdings.update(tokenProgram, tokenAccountA, tokenAccountData(mint, tokenAccountB, 25)));
+    assertFalse(holdings.contains(tokenAccountA));
+    assertEquals(List.of(tokenAccountB), holdings.tokenAccounts(mint));
+    assertEquals(50, holdings.mintBalance(mint));
+
+    assertEquals(-1, holdings.decimals(mint));
+    holdings.putDecimals(mint, 6);
+    assertEquals(6, holdings.decimals(mint));
+
+    assertEquals(50, holdings.remove(tokenAccountB));
+    assertEquals(0, holdings.mintBalance(mint));
+    assertEquals(0, holdings.numTokenAccounts());
+  }
+}
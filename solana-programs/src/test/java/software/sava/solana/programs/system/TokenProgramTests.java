@@ -4,13 +4,16 @@ import org.junit.jupiter.api.Test;
 import software.sava.core.accounts.PublicKey;
 import software.sava.core.accounts.SolanaAccounts;
 import software.sava.core.accounts.meta.AccountMeta;
+import software.sava.solana.programs.token.MultisigSignerResolver;
 import software.sava.solana.programs.token.Token2022Program;
+import software.sava.solana.programs.token.TokenMultisig;
 import software.sava.solana.programs.token.TokenProgram;
 
 import java.util.Base64;
+import java.util.List;
+import java.util.Set;
 
-import static org.junit.jupiter.api.Assertions.assertArrayEquals;
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 public class TokenProgramTests {
 
@@ -95,4 +98,59 @@ public class TokenProgramTests {
 
     assertArrayEquals(expectedData, initMintIx.data());
   }
+
+  @Test
+  void transferTemplates() {
+    final var source = PublicKey.fromBase58Encoded("3ntfH5pyhTGePb2cv2gqhyBmZHVW3EggCnbq1ND7YmgX");
+    final var destination = PublicKey.fromBase58Encoded("2NYZ8sqfCnH5gWwvb3E8eYv9DeMkaHQE9EZVjNBZAVYJ");
+    final var owner = PublicKey.fromBase58Encoded("CvUqgjP892h66aYPC9E8gKTXnTebY8qaU5ehGrgEQSwV");
+    final var mint = PublicKey.fromBase58Encoded("HCRDkSQ6vM9QxDkJMGNUmVKjWqPYudkEsZRDwoJvyzQE");
+    final var invokedProgram = SolanaAccounts.MAIN_NET.invokedTokenProgram();
+
+    final var transferTemplate = TokenProgram.transferTemplate(invokedProgram, source, destination, owner);
+    var expected = TokenProgram.transfer(invokedProgram, source, destination, 123_456_789L, owner);
+    var ix = transferTemplate.instruction(123_456_789L);
+    assertEquals(expected.programId(), ix.programId());
+    assertEquals(expected.accounts(), ix.accounts());
+    assertArrayEquals(expected.data(), ix.data());
+
+    final var checkedTemplate = TokenProgram.transferCheckedTemplate(invokedProgram, source, destination, 6, owner, mint);
+    expected = TokenProgram.transferChecked(invokedProgram, source, destination, 42, 6, owner, mint);
+    ix = checkedTemplate.patch(42);
+    assertEquals(expected.accounts(), ix.accounts());
+    assertArrayEquals(expected.data(), ix.data());
+
+    expected = TokenProgram.transferChecked(invokedProgram, source, destination, Long.MAX_VALUE, 6, owner, mint);
+    assertSame(ix, checkedTemplate.patch(Long.MAX_VALUE));
+    assertArrayEquals(expected.data(), ix.data());
+  }
+
+  @Test
+  void resolveMultisigSigners() {
+    final var signerA = PublicKey.fromBase58Encoded("3ntfH5pyhTGePb2cv2gqhyBmZHVW3EggCnbq1ND7YmgX");
+    final var signerB = PublicKey.fromBase58Encoded("2NYZ8sqfCnH5gWwvb3E8eYv9DeMkaHQE9EZVjNBZAVYJ");
+    final var signerC = PublicKey.fromBase58Encoded("CvUqgjP892h66aYPC9E8gKTXnTebY8qaU5ehGrgEQSwV");
+    final var multisigAccount = PublicKey.fromBase58Encoded("HCRDkSQ6vM9QxDkJMGNUmVKjWqPYudkEsZRDwoJvyzQE");
+
+    final byte[] data = new byte[TokenMultisig.BYTES];
+    data[TokenMultisig.M_OFFSET] = 2;
+    data[TokenMultisig.N_OFFSET] = 3;
+    data[TokenMultisig.IS_INITIALIZED_OFFSET] = 1;
+    signerA.write(data, TokenMultisig.SIGNERS_OFFSET);
+    signerB.write(data, TokenMultisig.SIGNERS_OFFSET + 32);
+    signerC.write(data, TokenMultisig.SIGNERS_OFFSET + 64);
+
+    final var multisig = TokenMultisig.read(multisigAccount, data);
+    assertEquals(2, multisig.m());
+    assertEquals(3, multisig.n());
+    assertEquals(2, multisig.indexOf(signerC));
+    assertEquals(-1, multisig.indexOf(multisigAccount));
+
+    final var resolver = MultisigSignerResolver.createResolver(List.of(signerC, signerA));
+    resolver.put(multisig);
+    assertEquals(List.of(signerA, signerC), resolver.resolve(multisigAccount));
+
+    assertNull(MultisigSignerResolver.resolveSigners(multisig, Set.of(signerB)));
+    assertThrows(IllegalStateException.class, () -> resolver.resolveOrThrow(signerA));
+  }
 }
@@ -0,0 +1,81 @@
+package software.sava.solana.programs.system;
+
+import org.junit.jupiter.api.Test;
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.core.tx.Instruction;
+import software.sava.core.tx.Transaction;
+import software.sava.solana.programs.clients.NativeProgramAccountClient;
+import software.sava.solana.programs.clients.TransactionSizeCalculator;
+import software.sava.solana.programs.memo.MemoProgram;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class TransactionPackerTests {
+
+  private static final String RECENT_BLOCK_HASH = "6FE9y44TsLodyVbN243QXATAWhgcj6xVfSLzEEzDbaPS";
+
+  private static int serializedLength(final Transaction transaction) {
+    transaction.setRecentBlockHash(RECENT_BLOCK_HASH);
+    return transaction.serialized().length;
+  }
+
+  @Test
+  void calculateSize() {
+    final var solanaAccounts = SolanaAccounts.MAIN_NET;
+    final var feePayer = PublicKey.fromBase58Encoded("savaKKJmmwDsHHhxV6G293hrRM4f1p6jv6qUF441QD3");
+    final var to = PublicKey.fromBase58Encoded("2NYZ8sqfCnH5gWwvb3E8eYv9DeMkaHQE9EZVjNBZAVYJ");
+
+    final var instructions = List.of(
+        SystemProgram.transfer(solanaAccounts.invokedSystemProgram(), feePayer, to, 1),
+        MemoProgram.createMemo(solanaAccounts, List.of(feePayer), "Sava".getBytes()),
+        SystemProgram.transfer(solanaAccounts.invokedSystemProgram(), feePayer, to, 2)
+    );
+    final var calculator = TransactionSizeCalculator.createCalculator(feePayer);
+    calculator.addAll(instructions);
+    assertEquals(1, calculator.numSignatures());
+    assertEquals(4, calculator.numStaticKeys());
+    assertEquals(serializedLength(Transaction.createTx(feePayer, instructions)), calculator.size());
+
+    final int size = calculator.size();
+    calculator.checkpoint();
+    calculator.add(MemoProgram.createMemo(solanaAccounts, List.of(to), "Sava".getBytes()));
+    assertEquals(2, calculator.numSignatures());
+    calculator.rollback();
+    assertEquals(1, calculator.numSignatures());
+    assertEquals(size, calculator.size());
+  }
+
+  @Test
+  void packTransfers() {
+    final var solanaAccounts = SolanaAccounts.MAIN_NET;
+    final var feePayer = PublicKey.fromBase58Encoded("savaKKJmmwDsHHhxV6G293hrRM4f1p6jv6qUF441QD3");
+    final var accountClient = NativeProgramAccountClient.createClient(solanaAccounts, feePayer);
+
+    final int numTransfers = 10_000;
+    final var instructions = new ArrayList<Instruction>(numTransfers);
+    for (int i = 0; i < numTransfers; ++i) {
+      final var to = PublicKey.createOffCurveAccountWithAsciiSeed(feePayer, Integer.toString(i), feePayer).publicKey();
+      instructions.add(SystemProgram.transfer(solanaAccounts.invokedSystemProgram(), feePayer, to, i + 1));
+    }
+
+    final var packer = accountClient.transactionPacker(100);
+    packer.addAll(instructions.subList(0, 2));
+    packer.addAtomic(instructions.subList(2, 7));
+    packer.addAll(instructions.subList(7, numTransfers));
+    final var transactions = packer.pack();
+    final var packedInstructions = packer.packedInstructions();
+    assertEquals(transactions.size(), packedInstructions.size());
+
+    int numPacked = 0;
+    for (final var transaction : transactions) {
+      assertTrue(serializedLength(transaction) <= TransactionSizeCalculator.PACKET_DATA_SIZE);
+      numPacked += transaction.instructions().size() - 2;
+    }
+    assertEquals(numTransfers, numPacked);
+    assertEquals(instructions.get(2), packedInstructions.getFirst().get(4));
+  }
+}
@@ -0,0 +1,61 @@
+package software.sava.solana.programs.system;
+
+import org.junit.jupiter.api.Test;
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.Signer;
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.core.encoding.Base58;
+import software.sava.core.tx.Transaction;
+import software.sava.solana.programs.clients.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class TransactionTemplateTests {
+
+  private static final Signer SIGNER = Signer.createFromKeyPair(Base58.decode("4Z7cXSyeFR8wNGMVXUE1TwtKn5D5Vu7FzEv69dokLv7KrQk7h6pu4LF8ZRR9yQBhc7uSM6RTTZtU1fmaxiNrxXrs"));
+  private static final String BLOCK_HASH = "Eit7RCyhUixAe2hGBS8oqnw59QK3kgMMjfLME5bm9wRn";
+
+  private static Transaction transfer(final PublicKey from, final PublicKey to, final long lamports) {
+    return Transaction.createTx(from, SystemProgram.transfer(
+        SolanaAccounts.MAIN_NET.invokedSystemProgram(),
+        from,
+        to,
+        lamports
+    ));
+  }
+
+  @Test
+  void patchAndSign() {
+    final var from = PublicKey.fromBase58Encoded("QqCCvshxtqMAL2CVALqiJB7uEeE5mjSPsseQdDzsRUo");
+    final var to = PublicKey.fromBase58Encoded("GrDMoeqMLFjeXQ24H56S1RLgT4R76jsuWCd6SvXyGPQ5");
+
+    final var template = TransactionTemplate.createTemplate(transfer(from, to, 1));
+    assertEquals(1, template.numSignatures());
+    assertEquals(from, template.signer(0));
+    final int amountOffset = template.dataOffset(0, Integer.BYTES);
+    final int recipientOffset = template.accountOffset(to);
+    assertTrue(recipientOffset > 0);
+    assertEquals(to, template.publicKeyAt(recipientOffset));
+    assertEquals(-1, template.accountOffset(TestAccounts.address("missing")));
+    assertThrows(IllegalArgumentException.class, () -> template.dataOffset(0, 12));
+
+    template.patchInt64(amountOffset, 3_000);
+    template.setRecentBlockHash(BLOCK_HASH);
+    template.sign(SIGNER);
+    assertEquals(
+        transfer(from, to, 3_000).signAndBase64Encode(Base58.decode(BLOCK_HASH), SIGNER),
+        template.base64Encoded()
+    );
+
+    final var copy = template.copy();
+    final var otherRecipient = TestAccounts.address("other");
+    copy.patchPublicKey(recipientOffset, otherRecipient);
+    copy.patchInt64(amountOffset, 42);
+    copy.sign(SIGNER);
+    assertEquals(
+        transfer(from, otherRecipient, 42).signAndBase64Encode(Base58.decode(BLOCK_HASH), SIGNER),
+        copy.base64Encoded()
+    );
+    assertNotEquals(template.base64Encoded(), copy.base64Encoded());
+  }
+}
@@ -0,0 +1,121 @@
+package software.sava.solana.programs.system;
+
+import org.junit.jupiter.api.Test;
+import software.sava.core.accounts.PublicKey;
+import software.sava.solana.programs.stake.StakeAccount;
+import software.sava.solana.programs.stake.StakeState;
+import software.sava.solana.programs.vote.Lockout;
+import software.sava.solana.programs.vote.ValidatorScoring;
+import software.sava.solana.programs.vote.VoteAccountView;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static software.sava.core.encoding.ByteUtil.putInt32LE;
+import static software.sava.core.encoding.ByteUtil.putInt64LE;
+import static software.sava.solana.programs.system.TestAccounts.address;
+
+final class ValidatorScoringTests {
+
+  /// V1_14_11 vote account with a single lockout, no root or authorized voters, and credits earned from epoch 10.
+  private static byte[] voteAccount(final String node, final int commission, final long lastVotedSlot, final long... earned) {
+    final byte[] data = new byte[3_731];
+    putInt32LE(data, 0, VoteAccountView.V1_14_11);
+    int i = 4;
+    i += address(node).write(data, i);
+    i += address("withdrawer").write(data, i);
+    data[i++] = (byte) commission;
+    putInt64LE(data, i, 1);
+    i += Long.BYTES;
+    putInt64LE(data, i, lastVotedSlot);
+    putInt32LE(data, i + Long.BYTES, 1);
+    i += Lockout.BYTES;
+    data[i++] = 0;
+    i += Long.BYTES;
+    i += (32 * 48) + 8 + 1;
+    putInt64LE(data, i, earned.length);
+    i += Long.BYTES;
+    long credits = 0;
+    for (int e = 0; e < earned.length; ++e, i += 24) {
+      putInt64LE(data, i, 10 + e);
+      putInt64LE(data, i + 16, credits);
+      credits += earned[e];
+      putInt64LE(data, i + 8, credits);
+    }
+    return data;
+  }
+
+  private static byte[] stakeAccount(final PublicKey voteAccount, final long stake, final long deactivationEpoch) {
+    final byte[] data = new byte[StakeAccount.BYTES];
+    putInt32LE(data, StakeAccount.STATE_OFFSET, StakeState.Stake.ordinal());
+    voteAccount.write(data, StakeAccount.VOTER_PUBLIC_KEY_OFFSET);
+    putInt64LE(data, StakeAccount.STAKE_OFFSET, stake);
+    putInt64LE(data, StakeAccount.DE_ACTIVATION_EPOCH_OFFSET, deactivationEpoch);
+    return data;
+  }
+
+  @Test
+  void scoreValidators() {
+    final var voteA = address("voteA");
+    final var voteB = address("voteB");
+    final var voteC = address("voteC");
+    final var voteAccounts = List.of(voteA, voteB, voteC);
+    final long slot = 10_000;
+
+    final var scoring = ValidatorScoring.createScoring(3);
+    final var previous = scoring.score(
+        voteAccounts,
+        List.of(
+            voteAccount("nodeA", 5, slot - 10, 100, 200),
+            voteAccount("nodeB", 5, slot - 10, 100, 100),
+            voteAccount("nodeC", 5, slot - 10, 100, 50)
+        ),
+        List.of(),
+        11, slot - 1_000, null
+    );
+    assertEquals(5, previous.commission(0));
+
+    final var table = scoring.score(
+        voteAccounts,
+        List.of(
+            voteAccount("nodeA", 5, slot - 10, 100, 200, 10),
+            voteAccount("nodeB", 8, slot - 10, 100, 100, 10),
+            voteAccount("nodeC", 5, slot - 500, 100, 50, 10)
+        ),
+        List.of(
+            stakeAccount(voteA, 1_000, -1),
+            stakeAccount(voteA, 500, 12),
+            stakeAccount(voteA, 250, 13),
+            stakeAccount(voteB, 2_000, -1)
+        ),
+        12, slot, previous
+    );
+
+    assertEquals(3, table.numValidators());
+    assertEquals(10, table.firstEpoch());
+    final int rowA = table.row(voteA);
+    final int rowB = table.row(voteB);
+    final int rowC = table.row(voteC);
+    assertEquals(address("nodeB"), table.nodePublicKey(rowB));
+
+    assertEquals(200, table.credits(rowA, 11));
+    assertEquals(10, table.credits(rowA, 12));
+    assertEquals(-1, table.credits(rowA, 9));
+    assertEquals(100, table.medianCredits(11));
+    assertEquals(2.0, table.creditRate(rowA));
+    assertEquals(0.5, table.creditRate(rowC));
+
+    assertEquals(5, table.commission(rowB, 11));
+    assertEquals(8, table.commission(rowB));
+    assertTrue(table.commissionChanged(rowB));
+    assertFalse(table.commissionChanged(rowA));
+
+    assertEquals(1_250, table.delegatedStake(rowA));
+    assertEquals(2_000, table.delegatedStake(rowB));
+    assertEquals(0, table.delegatedStake(rowC));
+
+    assertFalse(table.delinquent(rowA));
+    assertTrue(table.delinquent(rowC));
+    assertEquals(slot - 500, table.lastVotedSlot(rowC));
+  }
+}
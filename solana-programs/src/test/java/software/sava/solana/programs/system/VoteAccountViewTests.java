@@ -0,0 +1,141 @@
+package software.sava.solana.programs.system;
+
+import org.junit.jupiter.api.Test;
+import software.sava.solana.programs.vote.Lockout;
+import software.sava.solana.programs.vote.VoteAccountView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static software.sava.core.encoding.ByteUtil.*;
+import static software.sava.solana.programs.system.TestAccounts.address;
+
+final class VoteAccountViewTests {
+
+  private static int writeLockouts(final byte[] data, int i, final boolean landed) {
+    putInt64LE(data, i, 2);
+    i += Long.BYTES;
+    for (int l = 0; l < 2; ++l) {
+      if (landed) {
+        data[i++] = (byte) (l + 1);
+      }
+      putInt64LE(data, i, 1_000 + l);
+      putInt32LE(data, i + Long.BYTES, 2 - l);
+      i += Lockout.BYTES;
+    }
+    data[i++] = 1;
+    putInt64LE(data, i, 900);
+    return i + Long.BYTES;
+  }
+
+  private static int writeAuthorizedVoters(final byte[] data, int i) {
+    putInt64LE(data, i, 2);
+    i += Long.BYTES;
+    putInt64LE(data, i, 10);
+    address("voter10").write(data, i + Long.BYTES);
+    i += Long.BYTES + 32;
+    putInt64LE(data, i, 12);
+    address("voter12").write(data, i + Long.BYTES);
+    return i + Long.BYTES + 32;
+  }
+
+  private static int writeEpochCredits(final byte[] data, int i) {
+    putInt64LE(data, i, 2);
+    i += Long.BYTES;
+    for (int e = 0; e < 2; ++e) {
+      putInt64LE(data, i, 11 + e);
+      putInt64LE(data, i + 8, (e + 1) * 100L);
+      putInt64LE(data, i + 16, e * 100L);
+      i += 24;
+    }
+    putInt64LE(data, i, 1_001);
+    putInt64LE(data, i + 8, 1_700_000_000);
+    return i + 16;
+  }
+
+  private static void assertCommon(final VoteAccountView view) {
+    assertEquals(address("node"), view.nodePublicKey());
+    assertEquals(address("withdrawer"), view.authorizedWithdrawer());
+    assertEquals(2, view.numLockouts());
+    assertEquals(new Lockout(1_000, 2), view.lockout(0));
+    assertEquals(1_001, view.lastVotedSlot());
+    assertEquals(900, view.rootSlot());
+    assertEquals(2, view.numAuthorizedVoters());
+    assertEquals(address("voter12"), view.authorizedVoter(1));
+    assertEquals(view.authorizedVoterOffset(0), view.authorizedVoterOffsetForEpoch(11));
+    assertEquals(-1, view.authorizedVoterOffsetForEpoch(9));
+    assertEquals(2, view.numEpochCredits());
+    assertEquals(100, view.earnedCredits(12));
+    assertEquals(-1, view.earnedCredits(13));
+    assertEquals(200, view.credits());
+    final var epochs = new ArrayList<Long>();
+    view.forEachEpochCredits((epoch, credits, previousCredits) -> epochs.add(epoch));
+    assertEquals(List.of(11L, 12L), epochs);
+    assertEquals(1_001, view.lastTimestampSlot());
+    assertEquals(1_700_000_000, view.lastTimestamp());
+  }
+
+  @Test
+  void currentVersion() {
+    final byte[] data = new byte[3_762];
+    putInt32LE(data, 0, VoteAccountView.V3);
+    int i = 4;
+    i += address("node").write(data, i);
+    i += address("withdrawer").write(data, i);
+    data[i++] = 7;
+    i = writeLockouts(data, i, true);
+    i = writeAuthorizedVoters(data, i);
+    i += (32 * 48) + 8 + 1;
+    writeEpochCredits(data, i);
+
+    final var view = VoteAccountView.view(data);
+    assertEquals(VoteAccountView.V3, view.version());
+    assertEquals(7, view.commission());
+    assertEquals(2, view.lockoutLatency(1));
+    assertCommon(view);
+  }
+
+  @Test
+  void v1_14_11() {
+    final byte[] data = new byte[3_731];
+    putInt32LE(data, 0, VoteAccountView.V1_14_11);
+    int i = 4;
+    i += address("node").write(data, i);
+    i += address("withdrawer").write(data, i);
+    data[i++] = 100;
+    i = writeLockouts(data, i, false);
+    i = writeAuthorizedVoters(data, i);
+    i += (32 * 48) + 8 + 1;
+    writeEpochCredits(data, i);
+
+    final var view = VoteAccountView.view(data);
+    assertEquals(100, view.commission());
+    assertEquals(0, view.lockoutLatency(1));
+    assertCommon(view);
+  }
+
+  @Test
+  void v4() {
+    final byte[] data = new byte[3_762];
+    putInt32LE(data, 0, VoteAccountView.V4);
+    int i = 4;
+    i += address("node").write(data, i);
+    i += address("withdrawer").write(data, i);
+    i += 64;
+    putInt16LE(data, i, 550);
+    i += 2 + 2 + 8;
+    data[i++] = 1;
+    i += 48;
+    i = writeLockouts(data, i, true);
+    i = writeAuthorizedVoters(data, i);
+    writeEpochCredits(data, i);
+
+    final var view = VoteAccountView.view(data);
+    assertEquals(550, view.commissionBps());
+    assertEquals(5, view.commission());
+    assertCommon(view);
+
+    assertThrows(IllegalArgumentException.class, () -> view.wrap(data, 0, 200));
+  }
+}
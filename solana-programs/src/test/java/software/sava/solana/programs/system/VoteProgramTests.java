@@ -0,0 +1,119 @@
+package software.sava.solana.programs.system;
+
+import org.junit.jupiter.api.Test;
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.core.accounts.meta.AccountMeta;
+import software.sava.core.tx.Instruction;
+import software.sava.core.tx.Transaction;
+import software.sava.solana.programs.vote.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static software.sava.core.encoding.ByteUtil.putInt32LE;
+import static software.sava.core.encoding.ByteUtil.putInt64LE;
+import static software.sava.solana.programs.system.TestAccounts.address;
+
+final class VoteProgramTests {
+
+  private static final String RECENT_BLOCK_HASH = "6FE9y44TsLodyVbN243QXATAWhgcj6xVfSLzEEzDbaPS";
+
+  @Test
+  void decodeInstructions() {
+    final var solanaAccounts = SolanaAccounts.MAIN_NET;
+    final var voteAccount = address("vote");
+    final var authority = address("authority");
+    final var newAuthority = address("newAuthority");
+
+    final var authorize = VoteProgram.Authorize.read(VoteProgram.authorize(
+        solanaAccounts, voteAccount, authority, newAuthority, VoteAuthorize.Withdrawer
+    ));
+    assertArrayEquals(VoteProgram.Instructions.Authorize.data(), authorize.discriminator());
+    assertEquals(newAuthority, authorize.newAuthority());
+    assertEquals(VoteAuthorize.Withdrawer, authorize.voteAuthorize());
+
+    final var seedArgs = new VoteAuthorizeWithSeedArgs(
+        VoteAuthorize.Voter, authority, "seed".getBytes(StandardCharsets.UTF_8), newAuthority
+    );
+    final var authorizeWithSeed = VoteProgram.AuthorizeWithSeed.read(VoteProgram.authorizeWithSeed(
+        solanaAccounts, voteAccount, authority, seedArgs
+    )).args();
+    assertEquals(VoteAuthorize.Voter, authorizeWithSeed.authorizationType());
+    assertEquals(authority, authorizeWithSeed.currentAuthorityDerivedKeyOwner());
+    assertEquals("seed", new String(authorizeWithSeed.currentAuthorityDerivedKeySeed(), StandardCharsets.UTF_8));
+    assertEquals(newAuthority, authorizeWithSeed.newAuthority());
+
+    final var voteInit = new VoteInit(address("node"), authority, newAuthority, 5);
+    final var initialize = VoteProgram.InitializeAccount.read(VoteProgram.initializeAccount(
+        solanaAccounts, voteAccount, address("node"), voteInit
+    ));
+    assertEquals(voteInit, initialize.voteInit());
+
+    final var withdraw = VoteProgram.Withdraw.read(VoteProgram.withdraw(
+        solanaAccounts.invokedVoteProgram(), voteAccount, authority, authority, 1_234
+    ));
+    assertEquals(1_234, withdraw.lamports());
+
+    final var updateCommission = VoteProgram.UpdateCommission.read(VoteProgram.updateCommission(
+        solanaAccounts.invokedVoteProgram(), voteAccount, authority, 7
+    ));
+    assertEquals(7, updateCommission.commission());
+  }
+
+  @Test
+  void decodeTowerSync() {
+    final byte[] data = new byte[4 + 8 + 1 + 2 + 3 + 32 + 9 + 32];
+    putInt32LE(data, 0, VoteProgram.Instructions.TowerSync.ordinal());
+    putInt64LE(data, 4, 100);
+    int i = 12;
+    data[i++] = 2;
+    data[i++] = 1;
+    data[i++] = 31;
+    data[i++] = (byte) 0xC8;
+    data[i++] = 1;
+    data[i++] = 30;
+    Arrays.fill(data, i, i + 32, (byte) 7);
+    i += 32;
+    data[i++] = 1;
+    putInt64LE(data, i, 1_700_000_000);
+    i += 8;
+    Arrays.fill(data, i, i + 32, (byte) 9);
+
+    final var towerSync = VoteProgram.TowerSync.read(data, 0);
+    assertEquals(100, towerSync.root().orElseThrow());
+    assertArrayEquals(new Lockout[]{new Lockout(101, 31), new Lockout(301, 30)}, towerSync.lockouts());
+    assertEquals(7, towerSync.hash()[31]);
+    assertEquals(1_700_000_000, towerSync.timestamp().orElseThrow());
+    assertEquals(9, towerSync.blockId()[0]);
+    assertNull(towerSync.switchProofHash());
+  }
+
+  @Test
+  void voteTransactionFilter() {
+    final var solanaAccounts = SolanaAccounts.MAIN_NET;
+    final var feePayer = PublicKey.fromBase58Encoded("savaKKJmmwDsHHhxV6G293hrRM4f1p6jv6qUF441QD3");
+    final var filter = VoteTransactionFilter.createFilter(solanaAccounts);
+
+    final var voteIx = VoteProgram.withdraw(solanaAccounts.invokedVoteProgram(), address("vote"), feePayer, feePayer, 1);
+    var transaction = Transaction.createTx(feePayer, List.of(voteIx));
+    transaction.setRecentBlockHash(RECENT_BLOCK_HASH);
+    byte[] serialized = transaction.serialized();
+    assertTrue(filter.isVoteOnly(serialized));
+    assertTrue(filter.isSimpleVote(serialized));
+    assertFalse(filter.isVoteOnly(serialized, 0, serialized.length - 1));
+
+    transaction = Transaction.createTx(feePayer, List.of(voteIx, voteIx));
+    transaction.setRecentBlockHash(RECENT_BLOCK_HASH);
+    serialized = transaction.serialized();
+    assertTrue(filter.isVoteOnly(serialized));
+    assertFalse(filter.isSimpleVote(serialized));
+
+    final var other = Instruction.createInstruction(AccountMeta.createInvoked(address("program")), List.of(), new byte[]{1});
+    transaction = Transaction.createTx(feePayer, List.of(voteIx, other));
+    transaction.setRecentBlockHash(RECENT_BLOCK_HASH);
+    assertFalse(filter.isVoteOnly(transaction.serialized()));
+  }
+}
@@ -0,0 +1,100 @@
+package software.sava.solana.programs.system;
+
+import org.junit.jupiter.api.Test;
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.core.tx.Instruction;
+import software.sava.solana.programs.clients.NativeProgramAccountClient;
+import software.sava.solana.programs.clients.WrappedSolPlanner;
+import software.sava.solana.programs.memo.MemoProgram;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+final class WrappedSolPlannerTests {
+
+  private static final SolanaAccounts SOLANA_ACCOUNTS = SolanaAccounts.MAIN_NET;
+  private static final PublicKey OWNER = PublicKey.fromBase58Encoded("savaKKJmmwDsHHhxV6G293hrRM4f1p6jv6qUF441QD3");
+  private static final NativeProgramAccountClient ACCOUNT_CLIENT = NativeProgramAccountClient.createClient(SOLANA_ACCOUNTS, OWNER);
+  private static final Instruction MEMO = MemoProgram.createMemo(
+      SOLANA_ACCOUNTS, List.of(OWNER), "sava".getBytes(StandardCharsets.UTF_8)
+  );
+
+  private static List<String> describe(final List<Instruction> instructions) {
+    return instructions.stream()
+        .map(ix -> ix.programId().publicKey() + ":" + Arrays.toString(ix.copyData()))
+        .toList();
+  }
+
+  private static void assertPlan(final List<Instruction> expected, final WrappedSolPlanner planner) {
+    assertEquals(describe(expected), describe(planner.plan()));
+  }
+
+  private static Instruction createTokenAccount() {
+    return ACCOUNT_CLIENT.createATAForOwnerFundedByOwner(
+        true,
+        ACCOUNT_CLIENT.wrappedSolPDA().publicKey(),
+        SOLANA_ACCOUNTS.wrappedSolTokenMint()
+    );
+  }
+
+  @SafeVarargs
+  private static List<Instruction> concat(final List<Instruction>... instructions) {
+    return Arrays.stream(instructions).flatMap(List::stream).toList();
+  }
+
+  @Test
+  void mergeConsecutiveWraps() {
+    final var planner = WrappedSolPlanner.createPlanner(ACCOUNT_CLIENT, true, false).wrap(1).wrap(2);
+    assertPlan(concat(List.of(createTokenAccount()), ACCOUNT_CLIENT.wrapSOL(3)), planner);
+  }
+
+  @Test
+  void unwrapThenWrapElidesClose() {
+    final var planner = WrappedSolPlanner.createPlanner(ACCOUNT_CLIENT, true, true).unwrap().wrap(5);
+    assertPlan(ACCOUNT_CLIENT.wrapSOL(5), planner);
+  }
+
+  @Test
+  void unwrapThenWrapSkipsRecreation() {
+    final var planner = WrappedSolPlanner.createPlanner(ACCOUNT_CLIENT, true, false)
+        .wrap(1)
+        .add(MEMO)
+        .unwrap()
+        .wrap(2);
+    assertPlan(concat(
+        List.of(createTokenAccount()), ACCOUNT_CLIENT.wrapSOL(1), List.of(MEMO), ACCOUNT_CLIENT.wrapSOL(2)
+    ), planner);
+  }
+
+  @Test
+  void wrapThenUnwrapDropsWrap() {
+    final var planner = WrappedSolPlanner.createPlanner(ACCOUNT_CLIENT, true, true).wrap(5).unwrap();
+    assertPlan(List.of(ACCOUNT_CLIENT.unwrapSOL()), planner);
+  }
+
+  @Test
+  void skipCloseOfMissingTokenAccount() {
+    assertPlan(List.of(), WrappedSolPlanner.createPlanner(ACCOUNT_CLIENT, true, false).wrap(5).unwrap());
+
+    final var closedTwice = WrappedSolPlanner.createPlanner(ACCOUNT_CLIENT, true, true)
+        .unwrap()
+        .add(MEMO)
+        .unwrap();
+    assertPlan(List.of(ACCOUNT_CLIENT.unwrapSOL(), MEMO), closedTwice);
+  }
+
+  @Test
+  void recreateAfterClose() {
+    final var planner = WrappedSolPlanner.createPlanner(ACCOUNT_CLIENT, true, true)
+        .unwrap()
+        .add(MEMO)
+        .wrap(1);
+    assertPlan(concat(
+        List.of(ACCOUNT_CLIENT.unwrapSOL(), MEMO, createTokenAccount()), ACCOUNT_CLIENT.wrapSOL(1)
+    ), planner);
+  }
+}